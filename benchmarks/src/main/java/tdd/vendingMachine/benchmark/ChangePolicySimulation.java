@@ -0,0 +1,93 @@
+package tdd.vendingMachine.benchmark;
+
+import tdd.vendingMachine.change.ChangeStrategy;
+import tdd.vendingMachine.change.FloatPreservingChangeStrategy;
+import tdd.vendingMachine.change.GreedyChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.simulation.CustomerBehavior;
+import tdd.vendingMachine.simulation.Fleet;
+import tdd.vendingMachine.simulation.FleetSimulator;
+import tdd.vendingMachine.simulation.SimulationReport;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Compares change policies by the share of customers refunded because the machine had no change. Every policy
+ * serves the same customers, with the same seed, in two scenarios: customers paying often with 0.20 coins, so small
+ * coins circulate, and customers rarely paying with small coins, so the initial float drains.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar tdd.vendingMachine.benchmark.ChangePolicySimulation
+ * [machines] [ticks] [seed]}, defaults 10000, 200 and 1.
+ */
+public class ChangePolicySimulation {
+
+    public static void main(String[] args) {
+        int machineCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Map<String, Supplier<ChangeStrategy>> policies = new LinkedHashMap<>();
+        policies.put("greedy", GreedyChangeStrategy::new);
+        policies.put("minimum coins", MinimumCoinsChangeStrategy::new);
+        policies.put("float preserving", FloatPreservingChangeStrategy::new);
+
+        System.out.println("Small coins circulating:");
+        simulate(policies, machineCount, ticks, seed, new double[]{1, 4, 1, 3, 2}, new int[]{10, 5, 2, 2});
+        System.out.println("Small coins draining:");
+        simulate(policies, machineCount, ticks, seed, new double[]{1, 1, 3, 3, 2}, new int[]{4, 4, 2, 2});
+    }
+
+    private static void simulate(Map<String, Supplier<ChangeStrategy>> policies, int machineCount, int ticks,
+                                 long seed, double[] coinWeights, int[] initialCoins) {
+        for (Map.Entry<String, Supplier<ChangeStrategy>> policy : policies.entrySet()) {
+            Fleet fleet = createFleet(machineCount, initialCoins);
+            FleetSimulator simulator = new FleetSimulator(fleet, createBehavior(coinWeights), policy.getValue(),
+                ForkJoinPool.commonPool(), seed);
+
+            long start = System.nanoTime();
+            SimulationReport report = simulator.run(ticks);
+            long elapsedNanos = System.nanoTime() - start;
+
+            System.out.printf("  %-16s refund rate %6.3f%%, %6.0f ns per customer%n", policy.getKey(),
+                100.0 * report.getNoChangeRefunds() / report.getCustomers(),
+                (double) elapsedNanos / report.getCustomers());
+        }
+    }
+
+    // initial counts of 0.10, 0.20, 0.50 and 1.00 coins
+    private static Fleet createFleet(int machineCount, int[] initialCoins) {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1_000));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 1_000));
+        shelves.add(new Shelve(3, new Product("mineral water", "1.90"), 1_000));
+        shelves.add(new Shelve(4, new Product("orange juice", "2.80"), 1_000));
+
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        coins.put(Coin.TEN_CENTS, initialCoins[0]);
+        coins.put(Coin.TWENTY_CENTS, initialCoins[1]);
+        coins.put(Coin.FIFTY_CENTS, initialCoins[2]);
+        coins.put(Coin.ONE_DOLLAR, initialCoins[3]);
+        return new Fleet(machineCount, shelves, coins);
+    }
+
+    // weights of inserted 0.10, 0.20, 0.50, 1.00 and 2.00 coins
+    private static CustomerBehavior createBehavior(double[] coinWeights) {
+        Map<Coin, Double> weights = new EnumMap<>(Coin.class);
+        weights.put(Coin.TEN_CENTS, coinWeights[0]);
+        weights.put(Coin.TWENTY_CENTS, coinWeights[1]);
+        weights.put(Coin.FIFTY_CENTS, coinWeights[2]);
+        weights.put(Coin.ONE_DOLLAR, coinWeights[3]);
+        weights.put(Coin.TWO_DOLLARS, coinWeights[4]);
+        return new CustomerBehavior(0.5, new double[]{4, 2, 3, 1}, weights, 0.05);
+    }
+
+}
@@ -0,0 +1,82 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.vendingMachine.change.CachingChangeStrategy;
+import tdd.vendingMachine.change.ChangeStrategy;
+import tdd.vendingMachine.change.GreedyChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CoinCassette#getCoins(Money)} across cassette fill levels and change amounts. Every withdrawn coin is put back,
+ * so each invocation starts from the same cassette and cached strategies always hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChangeSearchBenchmark {
+
+    public enum Strategy {
+        MINIMUM_COINS, GREEDY, CACHED_MINIMUM_COINS, CACHED_GREEDY;
+
+        ChangeStrategy create() {
+            switch (this) {
+                case GREEDY:
+                    return new GreedyChangeStrategy();
+                case CACHED_MINIMUM_COINS:
+                    return new CachingChangeStrategy(new MinimumCoinsChangeStrategy());
+                case CACHED_GREEDY:
+                    return new CachingChangeStrategy(new GreedyChangeStrategy());
+                default:
+                    return new MinimumCoinsChangeStrategy();
+            }
+        }
+    }
+
+    @Param({"1", "10", "100"})
+    public int coinsPerDenomination;
+
+    @Param({"0.30", "2.70", "9.90"})
+    public String amount;
+
+    @Param
+    public Strategy strategy;
+
+    private CoinCassette cassette;
+    private Money changeAmount;
+
+    @Setup
+    public void setUp() {
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        for (Coin coin : Coin.values()) {
+            coins.put(coin, coinsPerDenomination);
+        }
+
+        cassette = new CoinCassette(coins, strategy.create());
+        changeAmount = Money.of(amount);
+    }
+
+    @Benchmark
+    public Optional<List<Coin>> getCoins() throws UnacceptableCoinException {
+        Optional<List<Coin>> change = cassette.getCoins(changeAmount);
+        if (change.isPresent()) {
+            for (Coin coin : change.get()) {
+                cassette.putCoin(coin);
+            }
+        }
+        return change;
+    }
+
+}
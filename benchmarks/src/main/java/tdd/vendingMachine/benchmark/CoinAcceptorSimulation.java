@@ -0,0 +1,191 @@
+package tdd.vendingMachine.benchmark;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.hardware.EventRing;
+import tdd.vendingMachine.hardware.HardwareEvent;
+import tdd.vendingMachine.hardware.HardwareEventPipeline;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link HardwareEventPipeline} from a simulated coin acceptor and keypad on its own thread, at a fixed
+ * event rate. Customers select a shelve, insert random coins until they cover the price, now and then an unacceptable
+ * one, and press dispense; every event bounces once with some probability. Events are stamped with the time they
+ * were due, 100 us apart at the default rate, and bounce a tenth of that later; the debounce window is half of it.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar tdd.vendingMachine.benchmark.CoinAcceptorSimulation
+ * [events per second] [seconds]}, defaults 10000 and 10.
+ */
+public class CoinAcceptorSimulation {
+
+    private static final Coin[] PAYMENT_COINS = {
+        Coin.TEN_CENTS, Coin.TWENTY_CENTS, Coin.FIFTY_CENTS, Coin.ONE_DOLLAR, Coin.TWO_DOLLARS
+    };
+    private static final int[] PRICES_IN_CENTS = {250, 330, 190, 280};
+    private static final double BOUNCE_PROBABILITY = 0.2;
+    private static final double UNACCEPTABLE_COIN_PROBABILITY = 0.02;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    public static void main(String[] args) throws InterruptedException {
+        int eventsPerSecond = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        AtomicLong displayRefreshes = new AtomicLong();
+        BasicVendingMachine vendingMachine = createMachine(new Display() {
+            @Override
+            public void displayMessage(String message) {
+                displayRefreshes.incrementAndGet();
+            }
+
+            @Override
+            public void displayWarning(String warning) {
+                displayRefreshes.incrementAndGet();
+            }
+        });
+
+        EventRing ring = new EventRing(1 << 12);
+        AtomicLong purchases = new AtomicLong();
+        long intervalMicros = TimeUnit.SECONDS.toMicros(1) / eventsPerSecond;
+        HardwareEventPipeline pipeline = new HardwareEventPipeline(ring, vendingMachine, intervalMicros / 2,
+            coin -> { }, purchase -> purchases.incrementAndGet());
+
+        long totalEvents = (long) eventsPerSecond * seconds;
+        SimulatedAcceptor acceptor = new SimulatedAcceptor(ring, eventsPerSecond, totalEvents);
+        Thread producer = new Thread(acceptor, "simulated-coin-acceptor");
+
+        long start = System.nanoTime();
+        producer.start();
+        long drainNanos = 0;
+        while (producer.isAlive() || pipeline.getProcessedEvents() < acceptor.offeredEvents) {
+            long drainStart = System.nanoTime();
+            if (pipeline.drain() > 0) {
+                drainNanos += System.nanoTime() - drainStart;
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        producer.join();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long insertedCoins = acceptor.coinEvents - pipeline.getReturnedCoins();
+        System.out.printf("events %d offered, %d refused by full ring, %.0f per second%n", acceptor.offeredEvents,
+            acceptor.refusedEvents, acceptor.offeredEvents / elapsedSeconds);
+        System.out.printf("pipeline %d bounces dropped, %d coins returned, %d purchases%n",
+            pipeline.getBouncedEvents(), pipeline.getReturnedCoins(), purchases.get());
+        System.out.printf("display %d refreshes, %.2f per inserted coin%n", displayRefreshes.get(),
+            (double) displayRefreshes.get() / Math.max(1, insertedCoins));
+        System.out.printf("ingestion %.0f ns per event, %.2f%% of one core%n",
+            (double) drainNanos / Math.max(1, pipeline.getProcessedEvents()), 100 * drainNanos / 1e9 / elapsedSeconds);
+    }
+
+    private static BasicVendingMachine createMachine(Display display) {
+        List<Shelve> shelves = new ArrayList<>();
+        for (int number = 1; number <= PRICES_IN_CENTS.length; number++) {
+            String price = String.format("%d.%02d", PRICES_IN_CENTS[number - 1] / 100,
+                PRICES_IN_CENTS[number - 1] % 100);
+            shelves.add(new Shelve(number, new Product("product " + number, price), Integer.MAX_VALUE));
+        }
+
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        coins.put(Coin.TEN_CENTS, 1_000_000);
+        coins.put(Coin.TWENTY_CENTS, 1_000_000);
+        coins.put(Coin.FIFTY_CENTS, 1_000_000);
+        coins.put(Coin.ONE_DOLLAR, 1_000_000);
+        return new BasicVendingMachine(shelves, new CoinCassette(coins), display);
+    }
+
+    private static final class SimulatedAcceptor implements Runnable {
+
+        private final EventRing ring;
+        private final long intervalNanos;
+        private final long bounceDelayMicros;
+        private final long totalEvents;
+        private final Random random = new Random(1);
+
+        private final long[] customerEvents = new long[64];
+        private int customerEventCount;
+        private int nextCustomerEvent;
+
+        private volatile long offeredEvents;
+        private long refusedEvents;
+        private long coinEvents;
+
+        SimulatedAcceptor(EventRing ring, int eventsPerSecond, long totalEvents) {
+            this.ring = ring;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / eventsPerSecond;
+            this.bounceDelayMicros = TimeUnit.NANOSECONDS.toMicros(intervalNanos) / 10;
+            this.totalEvents = totalEvents;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            long startMicros = TimeUnit.NANOSECONDS.toMicros(start);
+            long event = 0;
+            while (event < totalEvents) {
+                long now = System.nanoTime();
+                long dueEvents = Math.min(totalEvents, (now - start) / intervalNanos + 1);
+                for (; event < dueEvents; event++) {
+                    long timestampMicros = startMicros + TimeUnit.NANOSECONDS.toMicros(event * intervalNanos);
+                    long nextEvent = nextEvent(timestampMicros);
+                    offer(nextEvent);
+                    if (random.nextDouble() < BOUNCE_PROBABILITY && ++event < totalEvents) {
+                        offer(HardwareEvent.withTimestamp(nextEvent, timestampMicros + bounceDelayMicros));
+                    }
+                }
+                LockSupport.parkNanos(intervalNanos);
+            }
+        }
+
+        private long nextEvent(long timestampMicros) {
+            if (nextCustomerEvent == customerEventCount) {
+                planCustomer();
+            }
+            int index = nextCustomerEvent++;
+            long event = customerEvents[index];
+            if (index > 0 && index < customerEventCount - 1) {
+                coinEvents++;
+            }
+            return HardwareEvent.withTimestamp(event, timestampMicros);
+        }
+
+        private void planCustomer() {
+            customerEventCount = 0;
+            nextCustomerEvent = 0;
+            int shelve = random.nextInt(PRICES_IN_CENTS.length);
+            customerEvents[customerEventCount++] = HardwareEvent.shelveKey(shelve + 1, 0);
+            int insertedCents = 0;
+            while (insertedCents < PRICES_IN_CENTS[shelve]) {
+                if (random.nextDouble() < UNACCEPTABLE_COIN_PROBABILITY) {
+                    customerEvents[customerEventCount++] = HardwareEvent.coin(Coin.FIVE_CENTS, 0);
+                    continue;
+                }
+                Coin coin = PAYMENT_COINS[random.nextInt(PAYMENT_COINS.length)];
+                customerEvents[customerEventCount++] = HardwareEvent.coin(coin, 0);
+                insertedCents += coin.getValueInCents();
+            }
+            customerEvents[customerEventCount++] = HardwareEvent.dispenseKey(0);
+        }
+
+        private void offer(long event) {
+            if (!ring.offer(event)) {
+                refusedEvents++;
+            }
+            offeredEvents++;
+        }
+
+    }
+
+}
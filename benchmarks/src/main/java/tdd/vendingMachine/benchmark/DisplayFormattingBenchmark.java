@@ -0,0 +1,40 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.vendingMachine.domain.Money;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting of the "product name and amount" messages shown after selecting a shelve and after every coin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DisplayFormattingBenchmark {
+
+    private final String productName = "chocolate bar";
+
+    private final BigDecimal priceAsBigDecimal = new BigDecimal("3.30");
+    private final BigDecimal insertedAsBigDecimal = new BigDecimal("3.2");
+
+    private final Money price = Money.of("3.30");
+    private final Money inserted = Money.of("3.20");
+
+    @Benchmark
+    public String bigDecimalMessage() {
+        BigDecimal moneyLeft = priceAsBigDecimal.subtract(insertedAsBigDecimal).max(BigDecimal.ZERO);
+        return productName + " " + moneyLeft.setScale(2);
+    }
+
+    @Benchmark
+    public String moneyMessage() {
+        Money moneyLeft = price.minus(inserted).atLeastZero();
+        return productName + " " + moneyLeft;
+    }
+
+}
@@ -0,0 +1,68 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.simulation.CustomerBehavior;
+import tdd.vendingMachine.simulation.Fleet;
+import tdd.vendingMachine.simulation.FleetSimulator;
+import tdd.vendingMachine.simulation.SimulationReport;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated tick of a whole fleet in which every machine serves one customer. Divide the score by the machine
+ * count for the cost of a simulated purchase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FleetSimulationBenchmark {
+
+    @Param({"1000000"})
+    public int machineCount;
+
+    private Fleet fleet;
+    private FleetSimulator simulator;
+
+    @Setup
+    public void setUp() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1_000_000));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 1_000_000));
+        shelves.add(new Shelve(3, new Product("mineral water", "1.90"), 1_000_000));
+        shelves.add(new Shelve(4, new Product("orange juice", "2.80"), 1_000_000));
+
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        coins.put(Coin.TEN_CENTS, 50);
+        coins.put(Coin.TWENTY_CENTS, 50);
+        coins.put(Coin.FIFTY_CENTS, 20);
+        coins.put(Coin.ONE_DOLLAR, 10);
+
+        Map<Coin, Double> coinWeights = new EnumMap<>(Coin.class);
+        coinWeights.put(Coin.TEN_CENTS, 1.0);
+        coinWeights.put(Coin.FIFTY_CENTS, 3.0);
+        coinWeights.put(Coin.ONE_DOLLAR, 3.0);
+        coinWeights.put(Coin.TWO_DOLLARS, 2.0);
+
+        fleet = new Fleet(machineCount, shelves, coins);
+        simulator = new FleetSimulator(fleet, new CustomerBehavior(1, new double[]{4, 2, 3, 1}, coinWeights, 0.05),
+            MinimumCoinsChangeStrategy::new, ForkJoinPool.commonPool(), 1);
+    }
+
+    @Benchmark
+    public SimulationReport tick() {
+        return simulator.run(1);
+    }
+
+}
@@ -0,0 +1,72 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.journal.TransactionJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of journaling on the transaction path: select, insert one coin and cancel, with and without a
+ * {@link TransactionJournal} listening. Three records are appended per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    private BasicVendingMachine vendingMachine;
+    private TransactionJournal journal;
+    private Path journalPath;
+
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) throws IOException {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1));
+
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(new HashMap<>()),
+            new NoOpDisplay(blackhole));
+
+        if (journaled) {
+            journalPath = Files.createTempFile("journal-benchmark", ".log");
+            journal = new TransactionJournal(journalPath);
+            vendingMachine.addListener(journal);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+            Files.delete(journalPath);
+            journal = null;
+        }
+    }
+
+    @Benchmark
+    public List<Coin> selectInsertCoinCancel()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        return vendingMachine.cancel();
+    }
+
+}
@@ -0,0 +1,71 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.change.ChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.metrics.TimedChangeStrategy;
+import tdd.vendingMachine.metrics.VendingMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of metrics on the purchase path of {@link VendingTransactionBenchmark}: counting events and timing change
+ * search. Run with {@code -prof gc} to check that metrics allocate nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean measured;
+
+    private BasicVendingMachine vendingMachine;
+
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), Integer.MAX_VALUE));
+        ShelfIndex shelfIndex = new ShelfIndex(shelves);
+
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.TEN_CENTS, 10);
+
+        VendingMetrics metrics = new VendingMetrics(shelfIndex);
+        ChangeStrategy changeStrategy = new MinimumCoinsChangeStrategy();
+        if (measured) {
+            changeStrategy = new TimedChangeStrategy(changeStrategy, metrics.getChangeSearchLatency());
+        }
+
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coins, changeStrategy),
+            new NoOpDisplay(blackhole));
+        if (measured) {
+            vendingMachine.addListener(metrics);
+        }
+    }
+
+    @Benchmark
+    public Purchase selectInsertDispense()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TEN_CENTS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        return vendingMachine.dispenseProduct();
+    }
+
+}
@@ -0,0 +1,68 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Money;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money arithmetic of one transaction: three coins inserted, enough money check and amount left message after each
+ * coin, then the change. Compares BigDecimal (as the states did before) with {@link Money} objects and with raw
+ * {@code long} cents formatted by {@link Money#format(long)}, which is what the transaction hot path does.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm} to get bytes allocated per transaction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyAllocationBenchmark {
+
+    private static final Coin[] INSERTED_COINS = {Coin.TWO_DOLLARS, Coin.ONE_DOLLAR, Coin.FIFTY_CENTS};
+
+    private final String productName = "chocolate bar";
+    private final BigDecimal priceAsBigDecimal = new BigDecimal("3.30");
+    private final Money price = Money.of("3.30");
+    private final long priceInCents = 330;
+
+    @Benchmark
+    public BigDecimal bigDecimalTransaction(Blackhole blackhole) {
+        BigDecimal insertedMoney = BigDecimal.ZERO;
+        for (Coin coin : INSERTED_COINS) {
+            insertedMoney = insertedMoney.add(coin.getValue());
+            BigDecimal moneyLeft = priceAsBigDecimal.subtract(insertedMoney).max(BigDecimal.ZERO);
+            blackhole.consume(productName + " " + moneyLeft.setScale(2));
+            blackhole.consume(insertedMoney.compareTo(priceAsBigDecimal) >= 0);
+        }
+        return insertedMoney.subtract(priceAsBigDecimal);
+    }
+
+    @Benchmark
+    public Money moneyTransaction(Blackhole blackhole) {
+        Money insertedMoney = Money.ZERO;
+        for (Coin coin : INSERTED_COINS) {
+            insertedMoney = insertedMoney.plus(coin.getAmount());
+            Money moneyLeft = price.minus(insertedMoney).atLeastZero();
+            blackhole.consume(productName + " " + moneyLeft);
+            blackhole.consume(!insertedMoney.isLessThan(price));
+        }
+        return insertedMoney.minus(price);
+    }
+
+    @Benchmark
+    public long centsTransaction(Blackhole blackhole) {
+        long insertedMoney = 0;
+        for (Coin coin : INSERTED_COINS) {
+            insertedMoney += coin.getValueInCents();
+            long moneyLeft = Math.max(0, priceInCents - insertedMoney);
+            blackhole.consume(productName + " " + Money.format(moneyLeft));
+            blackhole.consume(insertedMoney >= priceInCents);
+        }
+        return insertedMoney - priceInCents;
+    }
+
+}
@@ -0,0 +1,24 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.display.Display;
+
+class NoOpDisplay implements Display {
+
+    private final Blackhole blackhole;
+
+    NoOpDisplay(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void displayMessage(String message) {
+        blackhole.consume(message);
+    }
+
+    @Override
+    public void displayWarning(String warning) {
+        blackhole.consume(warning);
+    }
+
+}
@@ -0,0 +1,63 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ProductCatalog;
+import tdd.vendingMachine.history.PurchaseHistory;
+import tdd.vendingMachine.history.RevenueReport;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation queries over a full day of purchases of eight products. Scans are split by chunks over the common
+ * fork-join pool, so the score scales with the cores available to the benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-XX:MaxDirectMemorySize=4g"})
+@State(Scope.Benchmark)
+public class PurchaseHistoryBenchmark {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int PRODUCTS = 8;
+
+    @Param({"10000000"})
+    public int purchaseCount;
+
+    private PurchaseHistory history;
+
+    @Setup
+    public void setUp() {
+        int[] productIds = new int[PRODUCTS];
+        for (int product = 0; product < PRODUCTS; product++) {
+            productIds[product] = ProductCatalog.INSTANCE.intern(new Product("product " + product, "2.50")).getId();
+        }
+
+        history = new PurchaseHistory();
+        SplittableRandom random = new SplittableRandom(1);
+        int[] change = new int[Coin.values().length];
+        for (int purchase = 0; purchase < purchaseCount; purchase++) {
+            change[Coin.TEN_CENTS.ordinal()] = random.nextInt(3);
+            change[Coin.FIFTY_CENTS.ordinal()] = random.nextInt(2);
+            int product = random.nextInt(PRODUCTS);
+            history.append((long) purchase * DAY_MILLIS / purchaseCount, product + 1, productIds[product],
+                150 + 20 * product, change);
+        }
+    }
+
+    @Benchmark
+    public RevenueReport revenueByProductAndHour() {
+        return history.getRevenueByProductAndHour(0, DAY_MILLIS);
+    }
+
+    @Benchmark
+    public Map<Coin, Long> changeCoinDistribution() {
+        return history.getChangeCoinDistribution(0, DAY_MILLIS);
+    }
+
+}
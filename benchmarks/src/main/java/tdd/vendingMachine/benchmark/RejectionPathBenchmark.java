@@ -0,0 +1,74 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.InsertResult;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.SelectResult;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refused selections and coins, reported as results versus thrown as exceptions. Run with {@code -prof gc} to see
+ * that the result API allocates nothing while each exception costs an object and a stack trace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RejectionPathBenchmark {
+
+    private VendingMachine vendingMachine;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Shelve soldOutShelve = new Shelve(1, new Product("cola drink", "2.50"), 0);
+        Shelve shelve = new Shelve(2, new Product("chocolate bar", "3.30"), 1);
+        CoinCassette cassette = new CoinCassette(new EnumMap<>(Coin.class));
+        vendingMachine = new BasicVendingMachine(Arrays.asList(soldOutShelve, shelve), cassette,
+            new NoOpDisplay(blackhole));
+    }
+
+    @Benchmark
+    public SelectResult trySelectSoldOutShelve() {
+        return vendingMachine.trySelectShelve(1);
+    }
+
+    @Benchmark
+    public Object selectSoldOutShelve() throws InvalidShelveException {
+        try {
+            vendingMachine.selectShelve(1);
+            return null;
+        } catch (ProductNotAvailableException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public InsertResult tryInsertCoinWithoutShelve() {
+        return vendingMachine.tryInsertCoin(Coin.FIVE_CENTS);
+    }
+
+    @Benchmark
+    public Object insertCoinWithoutShelve() throws UnacceptableCoinException {
+        try {
+            vendingMachine.insertCoin(Coin.FIVE_CENTS);
+            return null;
+        } catch (IllegalStateException e) {
+            return e;
+        }
+    }
+
+}
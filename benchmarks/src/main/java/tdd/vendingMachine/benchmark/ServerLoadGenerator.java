@@ -0,0 +1,207 @@
+package tdd.vendingMachine.benchmark;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.metrics.LatencyHistogram;
+import tdd.vendingMachine.server.VendingProtocol;
+import tdd.vendingMachine.server.VendingServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of {@link VendingServer} over loopback. Every connection drives its own machine through
+ * purchases of five pipelined requests (select, three coins, dispense) and requests are sent on a fixed schedule,
+ * so latency is measured from the time a request was due, not from when it was actually sent.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar tdd.vendingMachine.benchmark.ServerLoadGenerator
+ * [requests per second] [seconds] [connections]}, defaults 100000, 10 and 16.
+ */
+public class ServerLoadGenerator {
+
+    private static final Coin[] PAYMENT = {Coin.TEN_CENTS, Coin.FIFTY_CENTS, Coin.TWO_DOLLARS};
+    private static final int REQUESTS_PER_PURCHASE = 2 + PAYMENT.length;
+    private static final int MAX_IN_FLIGHT = 1 << 16;
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    public static void main(String[] args) throws IOException {
+        int requestsPerSecond = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int connectionCount = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        Map<Integer, BasicVendingMachine> machines = new HashMap<>();
+        for (int machineId = 0; machineId < connectionCount; machineId++) {
+            machines.put(machineId, createMachine());
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (VendingServer server = new VendingServer(machines, workers, address)) {
+            InetSocketAddress serverAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                server.getPort());
+            new ServerLoadGenerator(serverAddress, connectionCount).run(requestsPerSecond, seconds);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private final Connection[] connections;
+    private final long[] dueTimes = new long[MAX_IN_FLIGHT];
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private long errors;
+
+    private ServerLoadGenerator(InetSocketAddress address, int connectionCount) throws IOException {
+        connections = new Connection[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            connections[i] = new Connection(address, i);
+        }
+    }
+
+    private void run(int requestsPerSecond, int seconds) throws IOException {
+        double nanosPerRequest = 1e9 / requestsPerSecond;
+        long start = System.nanoTime();
+        long measurementStart = start + WARMUP_NANOS;
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(seconds);
+        long sentRequests = 0;
+        long measuredResponses = 0;
+
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) {
+                break;
+            }
+
+            long dueRequests = (long) ((now - start) / nanosPerRequest);
+            while (sentRequests < dueRequests && sentRequests - receivedRequests() < MAX_IN_FLIGHT) {
+                long dueTime = start + (long) (sentRequests * nanosPerRequest);
+                connections[(int) (sentRequests % connections.length)].send((int) sentRequests, dueTime);
+                sentRequests++;
+            }
+
+            for (Connection connection : connections) {
+                connection.flush();
+                measuredResponses += connection.receive(measurementStart);
+            }
+            if (sentRequests >= dueRequests) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+
+        LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        System.out.printf(Locale.ROOT, "target %d req/s, achieved %.0f req/s over %d s, %d errors%n",
+            requestsPerSecond, measuredResponses / (double) seconds, seconds, errors);
+        System.out.printf(Locale.ROOT, "latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+            snapshot.getValueAtQuantile(0.5) / 1e3, snapshot.getValueAtQuantile(0.99) / 1e3,
+            snapshot.getValueAtQuantile(0.999) / 1e3, snapshot.getValueAtQuantile(1) / 1e3);
+
+        for (Connection connection : connections) {
+            connection.channel.close();
+        }
+    }
+
+    private long receivedRequests() {
+        long received = 0;
+        for (Connection connection : connections) {
+            received += connection.receivedRequests;
+        }
+        return received;
+    }
+
+    private static BasicVendingMachine createMachine() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), Integer.MAX_VALUE));
+
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.TEN_CENTS, 10);
+
+        return new BasicVendingMachine(shelves, new CoinCassette(coins), new Display() {
+            @Override
+            public void displayMessage(String message) {
+            }
+
+            @Override
+            public void displayWarning(String warning) {
+            }
+        });
+    }
+
+    private class Connection {
+
+        private final SocketChannel channel;
+        private final int machineId;
+        private final ByteBuffer output = ByteBuffer.allocateDirect(1 << 16);
+        private final ByteBuffer input = ByteBuffer.allocateDirect(1 << 16);
+
+        private int step;
+        private long receivedRequests;
+
+        Connection(InetSocketAddress address, int machineId) throws IOException {
+            this.channel = SocketChannel.open(address);
+            this.channel.socket().setTcpNoDelay(true);
+            this.channel.configureBlocking(false);
+            this.machineId = machineId;
+        }
+
+        void send(int requestId, long dueTime) throws IOException {
+            if (output.remaining() < 64) {
+                flush();
+            }
+
+            dueTimes[requestId & (MAX_IN_FLIGHT - 1)] = dueTime;
+            if (step == 0) {
+                VendingProtocol.writeSelectShelve(output, requestId, machineId, 1);
+            } else if (step <= PAYMENT.length) {
+                VendingProtocol.writeInsertCoin(output, requestId, machineId, PAYMENT[step - 1]);
+            } else {
+                VendingProtocol.writeDispenseProduct(output, requestId, machineId);
+            }
+            step = (step + 1) % REQUESTS_PER_PURCHASE;
+        }
+
+        void flush() throws IOException {
+            output.flip();
+            channel.write(output);
+            output.compact();
+        }
+
+        int receive(long measurementStart) throws IOException {
+            channel.read(input);
+            input.flip();
+
+            int measured = 0;
+            long now = System.nanoTime();
+            while (input.remaining() >= 4 && input.remaining() >= 4 + input.getInt(input.position())) {
+                int length = input.getInt();
+                int frameEnd = input.position() + length;
+                int requestId = input.getInt();
+                if (input.get() != VendingProtocol.OK) {
+                    errors++;
+                }
+                input.position(frameEnd);
+                receivedRequests++;
+
+                long dueTime = dueTimes[requestId & (MAX_IN_FLIGHT - 1)];
+                if (dueTime >= measurementStart) {
+                    latencies.record(now - dueTime);
+                    measured++;
+                }
+            }
+            input.compact();
+            return measured;
+        }
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.session.VendingSession;
+import tdd.vendingMachine.session.VendingSessionEngine;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one periodic {@link VendingSessionEngine#expireIdleSessions()} call with many sessions waiting for coins,
+ * none of them idle long enough to expire, and of a transaction starting and finishing alongside them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SessionExpiryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int sessionCount;
+
+    private VendingSessionEngine engine;
+    private VendingSession session;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws InvalidShelveException, ProductNotAvailableException,
+        UnacceptableCoinException {
+
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), Integer.MAX_VALUE));
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        coins.put(Coin.TEN_CENTS, 1000);
+        engine = new VendingSessionEngine(shelves, new CoinCassette(coins), 1, TimeUnit.HOURS,
+            (session, refund) -> { });
+
+        NoOpDisplay display = new NoOpDisplay(blackhole);
+        for (int i = 0; i < sessionCount; i++) {
+            VendingSession waitingSession = engine.openSession(display);
+            waitingSession.selectShelve(1);
+            waitingSession.insertCoin(Coin.ONE_DOLLAR);
+        }
+        session = engine.openSession(display);
+    }
+
+    @Benchmark
+    public int expireIdleSessions() {
+        return engine.expireIdleSessions();
+    }
+
+    @Benchmark
+    public List<Coin> selectAndCancel() throws InvalidShelveException, ProductNotAvailableException {
+        session.selectShelve(1);
+        return session.cancel();
+    }
+
+}
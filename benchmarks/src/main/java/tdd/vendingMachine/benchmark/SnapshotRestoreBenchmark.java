@@ -0,0 +1,61 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.snapshot.MachineSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of a machine restored from a snapshot image: decoding the image and building shelves, shelf index
+ * and cassette.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotRestoreBenchmark {
+
+    private static final String[] PRODUCT_NAMES = {"cola drink", "chocolate bar", "mineral water", "orange juice"};
+
+    @Param({"10000"})
+    public int shelveCount;
+
+    private byte[] image;
+    private NoOpDisplay display;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException {
+        List<Shelve> shelves = new ArrayList<>(shelveCount);
+        for (int number = 1; number <= shelveCount; number++) {
+            Product product = new Product(PRODUCT_NAMES[number % PRODUCT_NAMES.length], "2.50");
+            shelves.add(new Shelve(number, product, number % 20));
+        }
+
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.TEN_CENTS, 100);
+        coins.put(Coin.FIFTY_CENTS, 100);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MachineSnapshot.capture(new BasicVendingMachine(shelves, new CoinCassette(coins), null)).writeTo(output);
+        image = output.toByteArray();
+        display = new NoOpDisplay(blackhole);
+    }
+
+    @Benchmark
+    public BasicVendingMachine restore() throws IOException {
+        return MachineSnapshot.readFrom(new ByteArrayInputStream(image)).restore(display);
+    }
+
+}
@@ -0,0 +1,47 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selecting a shelve and canceling right away, i.e. the transitions to the inserting coins state and back to the
+ * selecting product state, with no coins or change involved. Run with {@code -prof gc} to see allocation per cycle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateTransitionBenchmark {
+
+    private VendingMachine vendingMachine;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Shelve shelve = new Shelve(1, new Product("cola drink", "2.50"), 1);
+        CoinCassette cassette = new CoinCassette(new EnumMap<>(Coin.class));
+        vendingMachine = new BasicVendingMachine(Collections.singletonList(shelve), cassette,
+            new NoOpDisplay(blackhole));
+    }
+
+    @Benchmark
+    public List<Coin> selectAndCancel() throws InvalidShelveException, ProductNotAvailableException {
+        vendingMachine.selectShelve(1);
+        return vendingMachine.cancel();
+    }
+
+}
@@ -0,0 +1,60 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.telemetry.InventoryTelemetry;
+import tdd.vendingMachine.telemetry.SellThroughAggregator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same cycle as {@link VendingTransactionBenchmark}, with inventory telemetry attached to the machine and a fleet
+ * aggregator taking every event, to see what the event stream adds to a purchase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TelemetryBenchmark {
+
+    private BasicVendingMachine vendingMachine;
+
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), Integer.MAX_VALUE));
+
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.TEN_CENTS, 10);
+
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coins), new NoOpDisplay(blackhole));
+
+        InventoryTelemetry telemetry = new InventoryTelemetry(1, 5, Collections.singletonMap(Coin.TEN_CENTS, 5));
+        telemetry.subscribe(new SellThroughAggregator(1, TimeUnit.MINUTES), Runnable::run, 1024);
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+    }
+
+    @Benchmark
+    public Purchase selectInsertDispense()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TEN_CENTS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        return vendingMachine.dispenseProduct();
+    }
+
+}
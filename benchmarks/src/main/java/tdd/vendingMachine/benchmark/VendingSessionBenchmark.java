@@ -0,0 +1,78 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.session.VendingSession;
+import tdd.vendingMachine.session.VendingSessionEngine;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purchase throughput of many sessions sharing one engine. Every benchmark thread is a separate customer session
+ * buying from its own shelve, so the shared cassette is the only contended resource.
+ * Run with {@code -t 1}, {@code -t 2}, {@code -t 4}, ... to see how throughput scales with cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VendingSessionBenchmark {
+
+    private static final int SHELVES = 64;
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+
+        VendingSessionEngine engine;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            List<Shelve> shelves = new ArrayList<>();
+            for (int number = 0; number < SHELVES; number++) {
+                shelves.add(new Shelve(number, new Product("product " + number, "2.50"), Integer.MAX_VALUE));
+            }
+
+            Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+            coins.put(Coin.TEN_CENTS, 1000);
+            engine = new VendingSessionEngine(shelves, new CoinCassette(coins), 1, TimeUnit.MINUTES,
+                (session, refund) -> { });
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+
+        VendingSession session;
+        int shelveNumber;
+
+        @Setup(Level.Iteration)
+        public void setUp(Engine engine, Blackhole blackhole) {
+            session = engine.engine.openSession(new NoOpDisplay(blackhole));
+            shelveNumber = (int) (Thread.currentThread().getId() % SHELVES);
+        }
+
+    }
+
+    @Benchmark
+    public Purchase purchase(Customer customer)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = customer.session;
+        session.selectShelve(customer.shelveNumber);
+        session.insertCoin(Coin.TEN_CENTS);
+        session.insertCoin(Coin.FIFTY_CENTS);
+        session.insertCoin(Coin.TWO_DOLLARS);
+        return session.dispenseProduct();
+    }
+
+}
@@ -0,0 +1,54 @@
+package tdd.vendingMachine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full select, insert and dispense cycle. Customer pays 2.60 for a 2.50 product with 0.10, 0.50 and 2.00,
+ * so the machine gives back the inserted 0.10 coin and the cassette never runs dry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VendingTransactionBenchmark {
+
+    private VendingMachine vendingMachine;
+
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), Integer.MAX_VALUE));
+
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.TEN_CENTS, 10);
+
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coins), new NoOpDisplay(blackhole));
+    }
+
+    @Benchmark
+    public Purchase selectInsertDispense()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TEN_CENTS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        return vendingMachine.dispenseProduct();
+    }
+
+}
@@ -1,71 +1,164 @@
 package tdd.vendingMachine;
 
 import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.domain.BatchPurchase;
 import tdd.vendingMachine.domain.Coin;
 import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.InsertResult;
+import tdd.vendingMachine.domain.Money;
 import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.domain.SelectResult;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.ShelfIndex;
 import tdd.vendingMachine.domain.Shelve;
 import tdd.vendingMachine.exception.InvalidShelveException;
 import tdd.vendingMachine.exception.ProductNotAvailableException;
 import tdd.vendingMachine.exception.UnacceptableCoinException;
-import tdd.vendingMachine.state.BasicVendingMachineState;
-import tdd.vendingMachine.state.SelectingProductBasicVendingMachineState;
+import tdd.vendingMachine.state.MachineState;
+import tdd.vendingMachine.state.VendingStateMachine;
+import tdd.vendingMachine.state.VendingTransaction;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
-public class BasicVendingMachine implements VendingMachine {
+public class BasicVendingMachine implements VendingMachine, ServiceableMachine {
 
-    private final List<Shelve> shelves;
+    private final ShelfIndex shelfIndex;
     private final CoinCassette cassette;
     private final Display display;
 
-    private BasicVendingMachineState state;
+    private final VendingTransaction transaction;
 
     public BasicVendingMachine(List<Shelve> shelves, CoinCassette cassette, Display display) {
-        this.shelves = shelves;
+        this.shelfIndex = new ShelfIndex(shelves);
         this.cassette = cassette;
         this.display = display;
 
-        this.state = new SelectingProductBasicVendingMachineState(this);
+        this.transaction = new VendingTransaction(shelfIndex, cassette, display);
     }
 
     @Override
     public List<Integer> listShelveNumbers() {
-        return shelves.stream()
-            .map(Shelve::getNumber)
-            .collect(Collectors.toList());
+        return shelfIndex.getShelveNumbers();
     }
 
     @Override
     public void selectShelve(int shelveNumber) throws InvalidShelveException, ProductNotAvailableException {
-        state.selectShelve(shelveNumber);
+        trySelectShelve(shelveNumber).orThrow(shelfIndex, shelveNumber);
     }
 
     @Override
     public void insertCoin(Coin coin) throws UnacceptableCoinException {
-        state.insertCoin(coin);
+        tryInsertCoin(coin).orThrow(coin);
+    }
+
+    @Override
+    public SelectResult trySelectShelve(int shelveNumber) {
+        return VendingStateMachine.selectShelve(transaction, shelveNumber);
+    }
+
+    @Override
+    public InsertResult tryInsertCoin(Coin coin) {
+        return VendingStateMachine.insertCoin(transaction, coin);
+    }
+
+    /**
+     * Inserts a burst of coins with one display refresh, e.g. coins read together from the coin acceptor. Stops at the
+     * first coin that is unacceptable or not needed anymore and returns the number of coins inserted.
+     */
+    public int insertCoins(Coin[] coins, int count) {
+        return VendingStateMachine.insertCoins(transaction, coins, count);
+    }
+
+    /**
+     * Reports a coin turned away before reaching the machine, e.g. by the coin acceptor, to the listeners.
+     */
+    public void rejectCoin(Coin coin) {
+        VendingStateMachine.rejectCoin(transaction, coin);
     }
 
     @Override
     public boolean insertedEnoughMoney() {
-        return state.insertedEnoughMoney();
+        return VendingStateMachine.insertedEnoughMoney(transaction);
     }
 
     @Override
     public List<Coin> cancel() {
-        return state.cancel();
+        return VendingStateMachine.cancel(transaction);
     }
 
     @Override
     public Purchase dispenseProduct() {
-        return state.dispenseProduct();
+        return VendingStateMachine.dispenseProduct(transaction);
     }
 
-    // getters and setter required by state design pattern
+    @Override
+    public BatchPurchase purchaseBatch(Map<Integer, Integer> shelveQuantities, List<Coin> payment)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        return VendingStateMachine.purchaseBatch(transaction, shelveQuantities, payment);
+    }
+
+    @Override
+    public void service(ServiceVisit visit) throws InvalidShelveException {
+        VendingStateMachine.service(transaction, visit);
+    }
+
+    /**
+     * Takes the machine out of sale for servicing. Only possible between transactions, sales are refused until
+     * {@link #finishMaintenance()}.
+     */
+    @Override
+    public void startMaintenance() {
+        VendingStateMachine.startMaintenance(transaction);
+    }
+
+    @Override
+    public void finishMaintenance() {
+        VendingStateMachine.finishMaintenance(transaction);
+    }
+
+    /**
+     * Refuses sales until {@link #returnToService()}, e.g. after a hardware fault.
+     */
+    public void takeOutOfService() {
+        VendingStateMachine.takeOutOfService(transaction);
+    }
+
+    public void returnToService() {
+        VendingStateMachine.returnToService(transaction);
+    }
+
+    @Override
+    public MachineState getMachineState() {
+        return transaction.getState();
+    }
+
+    public void addListener(VendingMachineListener listener) {
+        transaction.addListener(listener);
+    }
+
+    public void removeListener(VendingMachineListener listener) {
+        transaction.removeListener(listener);
+    }
+
+    public void resumeTransaction(int shelveNumber, Money selectedPrice, Money insertedMoney)
+        throws InvalidShelveException {
+
+        Shelve shelve = shelfIndex.findShelve(shelveNumber)
+            .orElseThrow(() -> new InvalidShelveException(shelveNumber));
+        VendingStateMachine.resume(transaction, shelve, selectedPrice, insertedMoney);
+    }
+
+    // getters of machine parts
 
     public List<Shelve> getShelves() {
-        return shelves;
+        return shelfIndex.getShelves();
+    }
+
+    public ShelfIndex getShelfIndex() {
+        return shelfIndex;
     }
 
     public CoinCassette getCassette() {
@@ -76,8 +169,8 @@ public class BasicVendingMachine implements VendingMachine {
         return display;
     }
 
-    public void setState(BasicVendingMachineState state) {
-        this.state = state;
+    public VendingTransaction getTransaction() {
+        return transaction;
     }
 
 }
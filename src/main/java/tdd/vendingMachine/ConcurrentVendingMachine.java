@@ -0,0 +1,197 @@
+package tdd.vendingMachine;
+
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.InsertResult;
+import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.domain.SelectResult;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Vending machine that can be used from many threads at once, e.g. by coin acceptor, keypad and telemetry reader.
+ * Locking is striped by resource: shelve stock is reserved by CAS on each shelve, the cassette is guarded by its own
+ * monitor and only the steps of the transaction share the machine's lock, so stock and coin reads never wait for a
+ * transaction.
+ * <p>
+ * The transaction lock is deliberately not striped further. A machine runs one transaction at a time and every step,
+ * whichever thread it comes from, reads and moves that transaction's state, so steps have to be serialized anyway;
+ * splitting the lock per shelve would only add a second lock to each step. Machines that serve several customers at
+ * once should use {@link tdd.vendingMachine.session.VendingSessionEngine}, whose sessions share just the stripes.
+ */
+public class ConcurrentVendingMachine implements VendingMachine, ServiceableMachine {
+
+    private final BasicVendingMachine vendingMachine;
+    private final Lock transactionLock = new ReentrantLock();
+
+    public ConcurrentVendingMachine(List<Shelve> shelves, CoinCassette cassette, Display display) {
+        this.vendingMachine = new BasicVendingMachine(shelves, cassette, display);
+    }
+
+    @Override
+    public List<Integer> listShelveNumbers() {
+        return vendingMachine.listShelveNumbers();
+    }
+
+    @Override
+    public void selectShelve(int shelveNumber) throws InvalidShelveException, ProductNotAvailableException {
+        transactionLock.lock();
+        try {
+            vendingMachine.selectShelve(shelveNumber);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void insertCoin(Coin coin) throws UnacceptableCoinException {
+        transactionLock.lock();
+        try {
+            vendingMachine.insertCoin(coin);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public SelectResult trySelectShelve(int shelveNumber) {
+        transactionLock.lock();
+        try {
+            return vendingMachine.trySelectShelve(shelveNumber);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public InsertResult tryInsertCoin(Coin coin) {
+        transactionLock.lock();
+        try {
+            return vendingMachine.tryInsertCoin(coin);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean insertedEnoughMoney() {
+        transactionLock.lock();
+        try {
+            return vendingMachine.insertedEnoughMoney();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Coin> cancel() {
+        transactionLock.lock();
+        try {
+            return vendingMachine.cancel();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public Purchase dispenseProduct() {
+        transactionLock.lock();
+        try {
+            return vendingMachine.dispenseProduct();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public BatchPurchase purchaseBatch(Map<Integer, Integer> shelveQuantities, List<Coin> payment)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        transactionLock.lock();
+        try {
+            return vendingMachine.purchaseBatch(shelveQuantities, payment);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void startMaintenance() {
+        transactionLock.lock();
+        try {
+            vendingMachine.startMaintenance();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void service(ServiceVisit visit) throws InvalidShelveException {
+        transactionLock.lock();
+        try {
+            vendingMachine.service(visit);
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void finishMaintenance() {
+        transactionLock.lock();
+        try {
+            vendingMachine.finishMaintenance();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    public void takeOutOfService() {
+        transactionLock.lock();
+        try {
+            vendingMachine.takeOutOfService();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    public void returnToService() {
+        transactionLock.lock();
+        try {
+            vendingMachine.returnToService();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    @Override
+    public MachineState getMachineState() {
+        transactionLock.lock();
+        try {
+            return vendingMachine.getMachineState();
+        } finally {
+            transactionLock.unlock();
+        }
+    }
+
+    public int getQuantity(int shelveNumber) throws InvalidShelveException {
+        return vendingMachine.getShelfIndex().findShelve(shelveNumber)
+            .orElseThrow(() -> new InvalidShelveException(shelveNumber))
+            .getQuantity();
+    }
+
+    public int getCoinCount(Coin coin) {
+        return vendingMachine.getCassette().getCoinCount(coin);
+    }
+
+}
@@ -0,0 +1,21 @@
+package tdd.vendingMachine;
+
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.state.MachineState;
+
+/**
+ * Machine that can be restocked and have its cassette adjusted while running. Visits are applied in maintenance,
+ * between transactions, all or nothing.
+ */
+public interface ServiceableMachine {
+
+    void startMaintenance();
+
+    void service(ServiceVisit visit) throws InvalidShelveException;
+
+    void finishMaintenance();
+
+    MachineState getMachineState();
+
+}
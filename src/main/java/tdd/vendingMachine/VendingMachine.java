@@ -1,12 +1,16 @@
 package tdd.vendingMachine;
 
+import tdd.vendingMachine.domain.BatchPurchase;
 import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.InsertResult;
 import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.domain.SelectResult;
 import tdd.vendingMachine.exception.InvalidShelveException;
 import tdd.vendingMachine.exception.ProductNotAvailableException;
 import tdd.vendingMachine.exception.UnacceptableCoinException;
 
 import java.util.List;
+import java.util.Map;
 
 public interface VendingMachine {
 
@@ -16,10 +20,23 @@ public interface VendingMachine {
 
     void insertCoin(Coin coin) throws UnacceptableCoinException;
 
+    /**
+     * Same as {@link #selectShelve(int)}, but reports any rejection as a result instead of throwing.
+     */
+    SelectResult trySelectShelve(int shelveNumber);
+
+    /**
+     * Same as {@link #insertCoin(Coin)}, but reports any rejection as a result instead of throwing.
+     */
+    InsertResult tryInsertCoin(Coin coin);
+
     boolean insertedEnoughMoney();
 
     List<Coin> cancel();
 
     Purchase dispenseProduct();
 
+    BatchPurchase purchaseBatch(Map<Integer, Integer> shelveQuantities, List<Coin> payment)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException;
+
 }
@@ -0,0 +1,147 @@
+package tdd.vendingMachine.change;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers change plans of the decorated strategy. A plan for an amount can only use {@code amount / value} coins of
+ * each kind, so the key is the amount plus the coin counts capped at that, packed 7 bits per coin. Coins put into or
+ * taken from the cassette change the key only when they change a capped count, so the cache needs no invalidation and
+ * keeps hitting while the cassette holds more coins than plans need. Amounts needing a capped count over 127 bypass
+ * the cache.
+ * <p>
+ * Plans, including the absence of one, are kept in a set-associative table of {@value #WAYS}-entry sets, evicting the
+ * least recently used entry of a set. Only strategies whose result depends on the amount and the capped counts alone,
+ * like {@link GreedyChangeStrategy} and {@link MinimumCoinsChangeStrategy}, may be decorated. Like them, one instance
+ * must not be shared between threads; hit and miss counters can be read from any thread.
+ */
+public class CachingChangeStrategy implements ChangeStrategy {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    static final int WAYS = 4;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int BITS_PER_COIN = 7;
+    private static final int MAX_PACKED_COUNT = (1 << BITS_PER_COIN) - 1;
+    private static final long UNCACHEABLE = -1L;
+    private static final long NO_CHANGE = -1L;
+    private static final int EMPTY = -1;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final ChangeStrategy changeStrategy;
+    private final int setMask;
+
+    private final int[] amounts;
+    private final long[] cappedCoins;
+    private final long[] plans;
+    private final long[] lastUsed;
+    private long useCount;
+
+    private final int[] plan = new int[COINS.length];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingChangeStrategy(ChangeStrategy changeStrategy) {
+        this(changeStrategy, DEFAULT_CAPACITY);
+    }
+
+    public CachingChangeStrategy(ChangeStrategy changeStrategy, int capacity) {
+        if (capacity < WAYS || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be a power of two of at least " + WAYS + "!");
+        }
+        this.changeStrategy = changeStrategy;
+        this.setMask = capacity / WAYS - 1;
+        this.amounts = new int[capacity];
+        this.cappedCoins = new long[capacity];
+        this.plans = new long[capacity];
+        this.lastUsed = new long[capacity];
+        Arrays.fill(amounts, EMPTY);
+    }
+
+    @Override
+    public boolean findChange(int amountInCents, int[] availableCoins, int[] change) {
+        long key = amountInCents < 0 ? UNCACHEABLE : capCoins(amountInCents, availableCoins);
+        if (key == UNCACHEABLE) {
+            misses.increment();
+            return changeStrategy.findChange(amountInCents, availableCoins, change);
+        }
+
+        int firstEntry = setOf(amountInCents, key) * WAYS;
+        int victim = firstEntry;
+        for (int entry = firstEntry; entry < firstEntry + WAYS; entry++) {
+            if (amounts[entry] == amountInCents && cappedCoins[entry] == key) {
+                hits.increment();
+                lastUsed[entry] = ++useCount;
+                return unpack(plans[entry], change);
+            }
+            if (lastUsed[entry] < lastUsed[victim]) {
+                victim = entry;
+            }
+        }
+
+        misses.increment();
+        boolean found = changeStrategy.findChange(amountInCents, availableCoins, plan);
+        amounts[victim] = amountInCents;
+        cappedCoins[victim] = key;
+        plans[victim] = found ? pack(plan) : NO_CHANGE;
+        lastUsed[victim] = ++useCount;
+        if (found) {
+            System.arraycopy(plan, 0, change, 0, COINS.length);
+        }
+        return found;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    private int setOf(int amountInCents, long key) {
+        long hash = (key + amountInCents) * HASH_MULTIPLIER;
+        return (int) (hash ^ hash >>> 32) & setMask;
+    }
+
+    private static long capCoins(int amountInCents, int[] availableCoins) {
+        long key = 0;
+        for (int coin = 0; coin < COINS.length; coin++) {
+            int cappedCount = Math.min(availableCoins[coin], amountInCents / COINS[coin].getValueInCents());
+            if (cappedCount > MAX_PACKED_COUNT) {
+                return UNCACHEABLE;
+            }
+            key |= (long) cappedCount << coin * BITS_PER_COIN;
+        }
+        return key;
+    }
+
+    private static long pack(int[] change) {
+        long packedChange = 0;
+        for (int coin = 0; coin < COINS.length; coin++) {
+            packedChange |= (long) change[coin] << coin * BITS_PER_COIN;
+        }
+        return packedChange;
+    }
+
+    private static boolean unpack(long packedChange, int[] change) {
+        if (packedChange == NO_CHANGE) {
+            return false;
+        }
+        for (int coin = 0; coin < COINS.length; coin++) {
+            change[coin] = (int) (packedChange >>> coin * BITS_PER_COIN) & MAX_PACKED_COUNT;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,19 @@
+package tdd.vendingMachine.change;
+
+/**
+ * Finds coins that sum up to given amount. Coin counts are indexed by {@link tdd.vendingMachine.domain.Coin#ordinal()}.
+ * Implementations must not modify {@code availableCoins} and should fill {@code change} only when returning true.
+ */
+public interface ChangeStrategy {
+
+    boolean findChange(int amountInCents, int[] availableCoins, int[] change);
+
+    /**
+     * Finds coins giving inserted money back, on cancel or when there's no change for a sale. Strategies learning from
+     * requested change override it to leave refunds out.
+     */
+    default boolean findRefund(int amountInCents, int[] availableCoins, int[] refund) {
+        return findChange(amountInCents, availableCoins, refund);
+    }
+
+}
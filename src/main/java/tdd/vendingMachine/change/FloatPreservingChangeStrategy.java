@@ -0,0 +1,197 @@
+package tdd.vendingMachine.change;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Arrays;
+
+/**
+ * Gives change that keeps the cassette able to pay future change, instead of simply the fewest coins. The strategy
+ * learns the machine's mix from its own calls: the last requested amounts, which follow from the prices sold, and the
+ * average number of coins of each kind inserted between two requests. Refunds of inserted money are not sales, so they
+ * are given as {@link MinimumCoinsChangeStrategy} does and teach nothing.
+ * <p>
+ * Candidate combinations are enumerated from the highest coins, so the first one is what the greedy strategy gives.
+ * Each is scored by replaying the recent amounts against the coins it leaves plus the expected inserted coins and
+ * counting those that could be paid; the first candidate with the best score wins. Enumeration stops after a number of
+ * candidates or a time budget, whichever comes first, so a call takes bounded time. Finds change whenever
+ * {@link MinimumCoinsChangeStrategy} does, falling back to its solution when no candidate was reached in time.
+ * <p>
+ * Scratch buffers and learned state are kept between calls, so one instance must serve one cassette and must not be
+ * shared between threads.
+ */
+public class FloatPreservingChangeStrategy implements ChangeStrategy {
+
+    public static final int DEFAULT_HISTORY_SIZE = 64;
+    public static final int DEFAULT_MAX_CANDIDATES = 64;
+    public static final long DEFAULT_BUDGET_NANOS = 50_000;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final double INFLOW_WEIGHT = 1.0 / 16;
+    private static final int VISITS_PER_CLOCK_CHECK = 256;
+
+    private final MinimumCoinsChangeStrategy minimumCoins = new MinimumCoinsChangeStrategy();
+    private final int maxCandidates;
+    private final long budgetNanos;
+
+    private final int[] recentAmounts;
+    private int recentCount;
+    private int nextRecent;
+
+    private final double[] insertedPerRequest = new double[COINS.length];
+    private final int[] coinsLeft = new int[COINS.length];
+
+    private final int[] candidate = new int[COINS.length];
+    private final int[] best = new int[COINS.length];
+    private final int[] remainingCoins = new int[COINS.length];
+    private final int[] payment = new int[COINS.length];
+    private final long[] payableUpTo = new long[COINS.length];
+
+    private int[] availableCoins;
+    private long bestScore;
+    private int candidates;
+    private long visits;
+    private long deadline;
+
+    public FloatPreservingChangeStrategy() {
+        this(DEFAULT_HISTORY_SIZE, DEFAULT_MAX_CANDIDATES, DEFAULT_BUDGET_NANOS);
+    }
+
+    public FloatPreservingChangeStrategy(int historySize, int maxCandidates, long budgetNanos) {
+        if (historySize <= 0 || maxCandidates <= 0) {
+            throw new IllegalArgumentException("History size and candidate count should be positive!");
+        }
+        this.recentAmounts = new int[historySize];
+        this.maxCandidates = maxCandidates;
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public boolean findChange(int amountInCents, int[] availableCoins, int[] change) {
+        observeInsertedCoins(availableCoins);
+        if (!minimumCoins.findChange(amountInCents, availableCoins, best)) {
+            remember(amountInCents, availableCoins, null);
+            return false;
+        }
+
+        if (recentCount > 0 && amountInCents > 0) {
+            searchBestCandidate(amountInCents, availableCoins);
+        }
+
+        System.arraycopy(best, 0, change, 0, COINS.length);
+        remember(amountInCents, availableCoins, best);
+        return true;
+    }
+
+    @Override
+    public boolean findRefund(int amountInCents, int[] availableCoins, int[] refund) {
+        return minimumCoins.findChange(amountInCents, availableCoins, refund);
+    }
+
+    private void searchBestCandidate(int amountInCents, int[] availableCoins) {
+        this.availableCoins = availableCoins;
+        bestScore = -1;
+        candidates = 0;
+        visits = 0;
+        deadline = System.nanoTime() + budgetNanos;
+
+        long payable = 0;
+        for (int coin = 0; coin < COINS.length; coin++) {
+            payable += (long) availableCoins[coin] * COINS[coin].getValueInCents();
+            payableUpTo[coin] = payable;
+        }
+        Arrays.fill(candidate, 0);
+        enumerate(COINS.length - 1, amountInCents);
+        this.availableCoins = null;
+    }
+
+    private boolean enumerate(int coin, int amountLeft) {
+        if (amountLeft == 0) {
+            consider();
+            return candidates < maxCandidates && System.nanoTime() < deadline;
+        }
+        if (coin < 0 || payableUpTo[coin] < amountLeft) {
+            return true;
+        }
+        if (++visits % VISITS_PER_CLOCK_CHECK == 0 && System.nanoTime() >= deadline) {
+            return false;
+        }
+
+        int value = COINS[coin].getValueInCents();
+        for (int count = Math.min(availableCoins[coin], amountLeft / value); count >= 0; count--) {
+            candidate[coin] = count;
+            if (!enumerate(coin - 1, amountLeft - count * value)) {
+                candidate[coin] = 0;
+                return false;
+            }
+        }
+        candidate[coin] = 0;
+        return true;
+    }
+
+    private void consider() {
+        candidates++;
+        long score = score(candidate);
+        if (score > bestScore) {
+            System.arraycopy(candidate, 0, best, 0, COINS.length);
+            bestScore = score;
+        }
+    }
+
+    // recent amounts payable one after another from the coins left, with expected coins inserted before each
+    private long score(int[] change) {
+        for (int coin = 0; coin < COINS.length; coin++) {
+            remainingCoins[coin] = availableCoins[coin] - change[coin];
+        }
+
+        long payableAmounts = 0;
+        for (int i = 0; i < recentCount; i++) {
+            for (int coin = 0; coin < COINS.length; coin++) {
+                double inserted = insertedPerRequest[coin];
+                remainingCoins[coin] += (int) ((i + 1) * inserted) - (int) (i * inserted);
+            }
+            int amount = recentAmounts[(nextRecent - recentCount + i + recentAmounts.length) % recentAmounts.length];
+            if (payGreedily(amount)) {
+                payableAmounts++;
+            }
+        }
+        return payableAmounts;
+    }
+
+    private boolean payGreedily(int amountInCents) {
+        int amountLeft = amountInCents;
+        for (int coin = COINS.length - 1; coin >= 0; coin--) {
+            int value = COINS[coin].getValueInCents();
+            payment[coin] = Math.min(remainingCoins[coin], amountLeft / value);
+            amountLeft -= payment[coin] * value;
+        }
+        if (amountLeft != 0) {
+            return false;
+        }
+
+        for (int coin = 0; coin < COINS.length; coin++) {
+            remainingCoins[coin] -= payment[coin];
+        }
+        return true;
+    }
+
+    private void observeInsertedCoins(int[] availableCoins) {
+        if (recentCount == 0) {
+            return;
+        }
+        for (int coin = 0; coin < COINS.length; coin++) {
+            int inserted = Math.max(0, availableCoins[coin] - coinsLeft[coin]);
+            insertedPerRequest[coin] += (inserted - insertedPerRequest[coin]) * INFLOW_WEIGHT;
+        }
+    }
+
+    private void remember(int amountInCents, int[] availableCoins, int[] change) {
+        recentAmounts[nextRecent] = amountInCents;
+        nextRecent = (nextRecent + 1) % recentAmounts.length;
+        recentCount = Math.min(recentCount + 1, recentAmounts.length);
+
+        for (int coin = 0; coin < COINS.length; coin++) {
+            coinsLeft[coin] = availableCoins[coin] - (change == null ? 0 : change[coin]);
+        }
+    }
+
+}
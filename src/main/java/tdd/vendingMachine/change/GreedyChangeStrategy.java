@@ -0,0 +1,42 @@
+package tdd.vendingMachine.change;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Arrays;
+
+/**
+ * Takes the highest coins first and, when that fails, retries without the highest denomination.
+ * Fast, but misses some payable amounts, e.g. 1.10 from two 0.50 and three 0.20 coins.
+ */
+public class GreedyChangeStrategy implements ChangeStrategy {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final int[] collected = new int[COINS.length];
+
+    @Override
+    public boolean findChange(int amountInCents, int[] availableCoins, int[] change) {
+        for (int highestCoin = COINS.length - 1; highestCoin >= 0; highestCoin--) {
+            if (collectUsingCoinsUpTo(highestCoin, amountInCents, availableCoins)) {
+                System.arraycopy(collected, 0, change, 0, COINS.length);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean collectUsingCoinsUpTo(int highestCoin, int amountInCents, int[] availableCoins) {
+        Arrays.fill(collected, 0);
+
+        int amountLeft = amountInCents;
+        for (int coin = highestCoin; coin >= 0 && amountLeft > 0; coin--) {
+            int coinValue = COINS[coin].getValueInCents();
+            int coinCount = Math.min(availableCoins[coin], amountLeft / coinValue);
+            collected[coin] = coinCount;
+            amountLeft -= coinCount * coinValue;
+        }
+
+        return amountLeft == 0;
+    }
+
+}
@@ -0,0 +1,113 @@
+package tdd.vendingMachine.change;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Arrays;
+
+/**
+ * Exact bounded-coin change making. Finds the solution with the smallest number of coins in
+ * O(amount * denominations) time, using a sliding window minimum over every residue class of each coin value.
+ * Scratch buffers are reused between calls, so one instance must not be shared between threads.
+ */
+public class MinimumCoinsChangeStrategy implements ChangeStrategy {
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private int[] coinCounts = new int[0];
+    private int[] previousCoinCounts = new int[0];
+    private int[] takenCoins = new int[0];
+    private int[] window = new int[0];
+
+    @Override
+    public boolean findChange(int amountInCents, int[] availableCoins, int[] change) {
+        if (amountInCents < 0) {
+            return false;
+        }
+
+        int width = amountInCents + 1;
+        ensureCapacity(width);
+
+        Arrays.fill(coinCounts, 0, width, UNREACHABLE);
+        coinCounts[0] = 0;
+
+        for (int coin = 0; coin < COINS.length; coin++) {
+            addCoin(coin, availableCoins[coin], amountInCents);
+        }
+
+        if (coinCounts[amountInCents] == UNREACHABLE) {
+            return false;
+        }
+
+        collectChange(amountInCents, change);
+        return true;
+    }
+
+    private void addCoin(int coin, int availableCount, int amountInCents) {
+        int width = amountInCents + 1;
+        int rowOffset = coin * width;
+        int coinValue = COINS[coin].getValueInCents();
+        int usableCount = Math.min(availableCount, amountInCents / coinValue);
+
+        Arrays.fill(takenCoins, rowOffset, rowOffset + width, 0);
+        if (usableCount == 0) {
+            return;
+        }
+
+        System.arraycopy(coinCounts, 0, previousCoinCounts, 0, width);
+        for (int residue = 0; residue < coinValue && residue <= amountInCents; residue++) {
+            addCoinToResidueClass(residue, coinValue, usableCount, amountInCents, rowOffset);
+        }
+    }
+
+    // coinCounts[residue + j * value] = min over i in [j - usableCount, j] of previous[residue + i * value] + (j - i)
+    private void addCoinToResidueClass(int residue, int coinValue, int usableCount, int amountInCents,
+                                       int rowOffset) {
+        int head = 0;
+        int tail = 0;
+
+        for (int j = 0, amount = residue; amount <= amountInCents; j++, amount += coinValue) {
+            int previousCount = previousCoinCounts[amount];
+            if (previousCount != UNREACHABLE) {
+                while (tail > head && windowKey(residue, coinValue, window[tail - 1]) > previousCount - j) {
+                    tail--;
+                }
+                window[tail++] = j;
+            }
+
+            while (tail > head && window[head] < j - usableCount) {
+                head++;
+            }
+
+            if (tail > head) {
+                int best = window[head];
+                coinCounts[amount] = windowKey(residue, coinValue, best) + j;
+                takenCoins[rowOffset + amount] = j - best;
+            }
+        }
+    }
+
+    private int windowKey(int residue, int coinValue, int j) {
+        return previousCoinCounts[residue + j * coinValue] - j;
+    }
+
+    private void collectChange(int amountInCents, int[] change) {
+        int width = amountInCents + 1;
+        int amountLeft = amountInCents;
+        for (int coin = COINS.length - 1; coin >= 0; coin--) {
+            int taken = takenCoins[coin * width + amountLeft];
+            change[coin] = taken;
+            amountLeft -= taken * COINS[coin].getValueInCents();
+        }
+    }
+
+    private void ensureCapacity(int width) {
+        if (coinCounts.length < width) {
+            coinCounts = new int[width];
+            previousCoinCounts = new int[width];
+            takenCoins = new int[COINS.length * width];
+            window = new int[width];
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package tdd.vendingMachine.display;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shows messages of the wrapped display on its own thread, so a slow display never stalls a transaction.
+ * Messages go through a bounded lock-free ring buffer. Producers never wait: when the display falls behind by
+ * the whole buffer, the oldest frames are overwritten. Every burst is coalesced: all warnings are shown,
+ * but only the latest message, and product messages are formatted only when they are actually shown. A frame the
+ * wrapped display fails to show is counted and skipped, the display thread goes on with the next one.
+ */
+public class AsyncDisplay implements LazyDisplay, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Display display;
+
+    private final AtomicReferenceArray<Frame> frames;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong failedFrames = new AtomicLong();
+
+    private final Thread consumer;
+    private final Frame[] batch;
+    private long consumedSequence;
+
+    private volatile boolean running = true;
+    private volatile boolean consumerIdle;
+
+    public AsyncDisplay(Display display) {
+        this(display, DEFAULT_CAPACITY);
+    }
+
+    public AsyncDisplay(Display display, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two!");
+        }
+
+        this.display = display;
+        this.frames = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.batch = new Frame[capacity];
+
+        this.consumer = new Thread(this::consume, "async-display");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void displayMessage(String message) {
+        publish(FrameType.MESSAGE, message, 0);
+    }
+
+    @Override
+    public void displayProductMessage(String productName, long amountInCents) {
+        publish(FrameType.PRODUCT_MESSAGE, productName, amountInCents);
+    }
+
+    @Override
+    public void displayWarning(String warning) {
+        publish(FrameType.WARNING, warning, 0);
+    }
+
+    /**
+     * Number of frames the wrapped display threw on.
+     */
+    public long getFailedFrames() {
+        return failedFrames.get();
+    }
+
+    /**
+     * Shows what is still buffered and stops the display thread. If interrupted while waiting for it, returns with
+     * the interrupt flag set and the remaining frames shown in the background.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(FrameType type, String text, long amountInCents) {
+        if (!running) {
+            throw new IllegalStateException("Display closed!");
+        }
+
+        long sequence = nextSequence.getAndIncrement();
+        frames.lazySet(indexOf(sequence), new Frame(sequence, type, text, amountInCents));
+
+        if (consumerIdle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void consume() {
+        while (running || consumedSequence < nextSequence.get()) {
+            if (!showNextBurst()) {
+                consumerIdle = true;
+                if (running && consumedSequence == nextSequence.get()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                consumerIdle = false;
+            }
+        }
+    }
+
+    private boolean showNextBurst() {
+        long endSequence = nextSequence.get();
+        if (endSequence - consumedSequence > batch.length) {
+            consumedSequence = endSequence - batch.length;
+        }
+
+        int batchSize = 0;
+        int lastMessage = -1;
+        long sequence = consumedSequence;
+        for (; sequence < endSequence; sequence++) {
+            Frame frame = frames.get(indexOf(sequence));
+            if (frame == null || frame.sequence < sequence) {
+                break;
+            }
+            if (frame.sequence == sequence) {
+                if (frame.type != FrameType.WARNING) {
+                    lastMessage = batchSize;
+                }
+                batch[batchSize++] = frame;
+            }
+        }
+        consumedSequence = sequence;
+
+        for (int i = 0; i < batchSize; i++) {
+            Frame frame = batch[i];
+            batch[i] = null;
+            try {
+                if (frame.type == FrameType.WARNING) {
+                    display.displayWarning(frame.text);
+                } else if (i == lastMessage) {
+                    show(frame);
+                }
+            } catch (RuntimeException e) {
+                failedFrames.incrementAndGet();
+            }
+        }
+        return batchSize > 0;
+    }
+
+    private void show(Frame frame) {
+        if (frame.type == FrameType.PRODUCT_MESSAGE) {
+            ProductMessage.display(display, frame.text, frame.amountInCents);
+        } else {
+            display.displayMessage(frame.text);
+        }
+    }
+
+    private int indexOf(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private enum FrameType {
+        MESSAGE, PRODUCT_MESSAGE, WARNING
+    }
+
+    private static final class Frame {
+
+        private final long sequence;
+        private final FrameType type;
+        private final String text;
+        private final long amountInCents;
+
+        private Frame(long sequence, FrameType type, String text, long amountInCents) {
+            this.sequence = sequence;
+            this.type = type;
+            this.text = text;
+            this.amountInCents = amountInCents;
+        }
+
+    }
+
+}
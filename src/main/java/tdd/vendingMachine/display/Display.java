@@ -2,6 +2,18 @@ package tdd.vendingMachine.display;
 
 public interface Display {
 
+    Display NONE = new Display() {
+
+        @Override
+        public void displayMessage(String message) {
+        }
+
+        @Override
+        public void displayWarning(String warning) {
+        }
+
+    };
+
     void displayMessage(String message);
 
     void displayWarning(String warning);
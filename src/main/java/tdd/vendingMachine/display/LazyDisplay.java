@@ -0,0 +1,10 @@
+package tdd.vendingMachine.display;
+
+/**
+ * Display that formats "product name and amount" messages itself, so no string is built for messages it never shows.
+ */
+public interface LazyDisplay extends Display {
+
+    void displayProductMessage(String productName, long amountInCents);
+
+}
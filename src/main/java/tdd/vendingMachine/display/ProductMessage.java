@@ -0,0 +1,30 @@
+package tdd.vendingMachine.display;
+
+import tdd.vendingMachine.domain.Money;
+
+public final class ProductMessage {
+
+    private ProductMessage() {
+    }
+
+    public static void display(Display display, String productName, Money amount) {
+        display(display, productName, amount.getMinorUnits());
+    }
+
+    public static void display(Display display, String productName, long amountInCents) {
+        if (display instanceof LazyDisplay) {
+            ((LazyDisplay) display).displayProductMessage(productName, amountInCents);
+        } else {
+            display.displayMessage(format(productName, amountInCents));
+        }
+    }
+
+    public static String format(String productName, Money amount) {
+        return format(productName, amount.getMinorUnits());
+    }
+
+    public static String format(String productName, long amountInCents) {
+        return productName + " " + Money.format(amountInCents);
+    }
+
+}
@@ -0,0 +1,121 @@
+package tdd.vendingMachine.domain;
+
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Products of many shelves bought together. Creating a basket reserves stock of all its shelves in one pass, giving
+ * back what was already reserved if any shelve runs short. Checkout takes the payment and the change for the whole
+ * basket in one {@link CoinCassette#exchange} and either releases all products or cancels all reservations.
+ */
+public class Basket {
+
+    private final Shelve[] shelves;
+    private final int[] quantities;
+    private final Money price;
+
+    private Basket(Shelve[] shelves, int[] quantities, Money price) {
+        this.shelves = shelves;
+        this.quantities = quantities;
+        this.price = price;
+    }
+
+    public static Basket reserve(ShelfIndex shelfIndex, PriceTable prices, Map<Integer, Integer> shelveQuantities)
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        if (shelveQuantities.isEmpty()) {
+            throw new IllegalArgumentException("Basket is empty!");
+        }
+
+        Shelve[] shelves = new Shelve[shelveQuantities.size()];
+        int[] positions = new int[shelveQuantities.size()];
+        int[] quantities = new int[shelveQuantities.size()];
+        int size = 0;
+        for (Map.Entry<Integer, Integer> shelveQuantity : shelveQuantities.entrySet()) {
+            int shelveNumber = shelveQuantity.getKey();
+            int quantity = shelveQuantity.getValue();
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity of shelve " + shelveNumber + " should be positive!");
+            }
+            positions[size] = shelfIndex.positionOf(shelveNumber);
+            if (positions[size] < 0) {
+                throw new InvalidShelveException(shelveNumber);
+            }
+            shelves[size] = shelfIndex.getShelve(positions[size]);
+            quantities[size++] = quantity;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!shelves[i].reserveProducts(quantities[i])) {
+                cancelReservations(shelves, quantities, i);
+                throw new ProductNotAvailableException(shelves[i].getProductName());
+            }
+        }
+        return new Basket(shelves, quantities, Money.ofMinorUnits(prices.priceOf(positions, quantities, size)));
+    }
+
+    /**
+     * Gives an incomplete purchase with the payment returned when there's no change for it.
+     */
+    public BatchPurchase checkout(CoinCassette cassette, List<Coin> payment) throws UnacceptableCoinException {
+        Money paidMoney = Money.ZERO;
+        for (Coin coin : payment) {
+            if (!cassette.isAcceptable(coin)) {
+                cancel();
+                throw new UnacceptableCoinException(coin.getValue());
+            }
+            paidMoney = paidMoney.plus(coin.getAmount());
+        }
+        if (paidMoney.isLessThan(price)) {
+            cancel();
+            throw new IllegalArgumentException("Payment " + paidMoney + " doesn't cover basket price " + price + "!");
+        }
+
+        Optional<List<Coin>> change = cassette.exchange(payment, paidMoney.minus(price));
+        if (!change.isPresent()) {
+            cancel();
+            return new BatchPurchase(this, new ArrayList<>(), new ArrayList<>(payment));
+        }
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < shelves.length; i++) {
+            for (int count = quantities[i]; count > 0; count--) {
+                products.add(shelves[i].releaseReservedProduct());
+            }
+        }
+        return new BatchPurchase(this, products, change.get());
+    }
+
+    public void cancel() {
+        cancelReservations(shelves, quantities, shelves.length);
+    }
+
+    public int size() {
+        return shelves.length;
+    }
+
+    public Shelve getShelve(int index) {
+        return shelves[index];
+    }
+
+    public int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    private static void cancelReservations(Shelve[] shelves, int[] quantities, int count) {
+        for (int i = 0; i < count; i++) {
+            shelves[i].cancelReservation(quantities[i]);
+        }
+    }
+
+}
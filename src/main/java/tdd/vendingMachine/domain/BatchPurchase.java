@@ -0,0 +1,33 @@
+package tdd.vendingMachine.domain;
+
+import java.util.List;
+
+public class BatchPurchase {
+
+    private final Basket basket;
+    private final List<Product> products;
+    private final List<Coin> change;
+
+    public BatchPurchase(Basket basket, List<Product> products, List<Coin> change) {
+        this.basket = basket;
+        this.products = products;
+        this.change = change;
+    }
+
+    public boolean isCompleted() {
+        return !products.isEmpty();
+    }
+
+    public Basket getBasket() {
+        return basket;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Coin> getChange() {
+        return change;
+    }
+
+}
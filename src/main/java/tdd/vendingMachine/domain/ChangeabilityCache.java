@@ -0,0 +1,81 @@
+package tdd.vendingMachine.domain;
+
+import java.util.Arrays;
+
+/**
+ * Set of amounts, up to a limit, that some subset of the cassette coins adds up to, kept as a bitset where bit
+ * {@code n} means {@code n} cents can be paid. Adding a coin of value {@code v} is one shifted or,
+ * {@code reachable |= reachable << v}. Removing coins can't be undone this way, so it only marks the set stale and the
+ * next lookup rebuilds it, adding coins of one kind in chunks of 1, 2, 4, ... coins.
+ */
+class ChangeabilityCache {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final int limitInCents;
+    private final long[] reachable;
+    private boolean stale = true;
+
+    ChangeabilityCache(int limitInCents) {
+        this.limitInCents = limitInCents;
+        this.reachable = new long[(limitInCents >>> 6) + 1];
+    }
+
+    boolean covers(int amountInCents) {
+        return amountInCents >= 0 && amountInCents <= limitInCents;
+    }
+
+    boolean isPayable(int amountInCents, int[] coinCounts) {
+        if (stale) {
+            rebuild(coinCounts);
+        }
+        return (reachable[amountInCents >>> 6] & (1L << amountInCents)) != 0;
+    }
+
+    void addCoin(Coin coin) {
+        if (!stale) {
+            orShifted(coin.getValueInCents());
+        }
+    }
+
+    void invalidate() {
+        stale = true;
+    }
+
+    private void rebuild(int[] coinCounts) {
+        Arrays.fill(reachable, 0);
+        reachable[0] = 1;
+        for (int i = 0; i < COINS.length; i++) {
+            int value = COINS[i].getValueInCents();
+            int remaining = coinCounts[i];
+            for (int chunk = 1; remaining > 0; chunk <<= 1) {
+                int taken = Math.min(chunk, remaining);
+                if ((long) value * taken > limitInCents) {
+                    break;
+                }
+                orShifted((long) value * taken);
+                remaining -= taken;
+            }
+        }
+        stale = false;
+    }
+
+    private void orShifted(long shift) {
+        if (shift > limitInCents) {
+            return;
+        }
+
+        int wordShift = (int) (shift >>> 6);
+        int bitShift = (int) (shift & 63);
+        for (int word = reachable.length - 1; word >= wordShift; word--) {
+            int source = word - wordShift;
+            long shifted = reachable[source] << bitShift;
+            if (bitShift != 0 && source > 0) {
+                shifted |= reachable[source - 1] >>> (64 - bitShift);
+            }
+            reachable[word] |= shifted;
+        }
+        reachable[reachable.length - 1] &= -1L >>> (63 - (limitInCents & 63));
+    }
+
+}
@@ -15,13 +15,23 @@ public enum Coin {
     FIVE_DOLLARS("5.00");
 
     private final BigDecimal value;
+    private final Money amount;
 
     Coin(String value) {
         this.value = new BigDecimal(value);
+        this.amount = Money.of(this.value);
     }
 
     public BigDecimal getValue() {
         return value;
     }
 
+    public Money getAmount() {
+        return amount;
+    }
+
+    public int getValueInCents() {
+        return (int) amount.getMinorUnits();
+    }
+
 }
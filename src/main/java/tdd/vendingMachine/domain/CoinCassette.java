@@ -1,5 +1,7 @@
 package tdd.vendingMachine.domain;
 
+import tdd.vendingMachine.change.ChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
 import tdd.vendingMachine.exception.UnacceptableCoinException;
 
 import java.math.BigDecimal;
@@ -7,76 +9,264 @@ import java.util.*;
 
 public class CoinCassette {
 
-    private static final List<Coin> acceptableCoins = Arrays.asList(
+    private static final Coin[] COINS = Coin.values();
+
+    private static final int ACCEPTABLE_COINS = maskOf(
         Coin.TEN_CENTS, Coin.TWENTY_CENTS, Coin.FIFTY_CENTS, Coin.ONE_DOLLAR, Coin.TWO_DOLLARS, Coin.FIVE_DOLLARS
     );
 
-    private final Map<Coin, Integer> coins;
+    // change after a purchase is less than the largest acceptable coin, bigger refunds go to the change strategy
+    private static final int CHANGEABILITY_LIMIT_IN_CENTS = 511;
+
+    private final int[] coins = new int[COINS.length];
+    private final int[] change = new int[COINS.length];
+    private final ChangeabilityCache changeability = new ChangeabilityCache(CHANGEABILITY_LIMIT_IN_CENTS);
+
+    private final ChangeStrategy changeStrategy;
+
+    private InventoryObserver observer = InventoryObserver.NONE;
 
     public CoinCassette(Map<Coin, Integer> coins) {
-        this.coins = coins;
+        this(coins, new MinimumCoinsChangeStrategy());
+    }
+
+    public CoinCassette(Map<Coin, Integer> coins, ChangeStrategy changeStrategy) {
+        this.changeStrategy = changeStrategy;
+
+        coins.forEach((coin, count) -> {
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative count of " + coin + " coins!");
+            }
+            this.coins[coin.ordinal()] = count;
+        });
+    }
+
+    public static boolean accepts(Coin coin) {
+        return (ACCEPTABLE_COINS & maskOf(coin)) != 0;
+    }
+
+    public boolean isAcceptable(Coin coin) {
+        return accepts(coin);
     }
 
     public void putCoin(Coin coin) throws UnacceptableCoinException {
-        if (!acceptableCoins.contains(coin)) {
+        if (!tryPutCoin(coin)) {
             BigDecimal coinValue = coin.getValue();
             throw new UnacceptableCoinException(coinValue);
         }
+    }
+
+    public synchronized boolean tryPutCoin(Coin coin) {
+        if (!isAcceptable(coin)) {
+            return false;
+        }
 
-        coins.compute(coin, (k, v) -> v == null ? 1 : v + 1);
+        coins[coin.ordinal()]++;
+        changeability.addCoin(coin);
+        coinCountChanged(coin.ordinal(), -1);
+        return true;
     }
 
-    public Optional<List<Coin>> getCoins(BigDecimal amount) {
-        if (BigDecimal.ZERO.compareTo(amount) == 0) {
-            List<Coin> result = new ArrayList<>();
-            return Optional.of(result);
+    /**
+     * Puts a burst of inserted coins in one step, checking them against the accepted coins all at once. Nothing
+     * changes if any of them is not acceptable.
+     */
+    public synchronized void putCoins(Coin[] insertedCoins, int count) {
+        int insertedMask = 0;
+        for (int i = 0; i < count; i++) {
+            insertedMask |= maskOf(insertedCoins[i]);
+        }
+        if ((insertedMask & ~ACCEPTABLE_COINS) != 0) {
+            throw new IllegalArgumentException("Unacceptable coins inserted!");
         }
 
-        SortedMap<Coin, Integer> coinsToUse = new TreeMap<>(coins);
-        return collectMoneyUsingGivenCoins(amount, coinsToUse);
+        for (int i = 0; i < count; i++) {
+            Coin coin = insertedCoins[i];
+            coins[coin.ordinal()]++;
+            changeability.addCoin(coin);
+            coinCountChanged(coin.ordinal(), -1);
+        }
     }
 
-    private Optional<List<Coin>> collectMoneyUsingGivenCoins(BigDecimal amount, SortedMap<Coin, Integer> coinsToUse) {
-        if (coinsToUse.isEmpty()) {
-            return Optional.empty();
+    public synchronized void putCoins(int[] coinCounts) {
+        for (int i = 0; i < COINS.length; i++) {
+            coins[i] += coinCounts[i];
+            coinCountChanged(i, -coinCounts[i]);
         }
+        changeability.invalidate();
+    }
+
+    public synchronized void takeCoins(int[] coinCounts) {
+        for (int i = 0; i < COINS.length; i++) {
+            if (coins[i] < coinCounts[i]) {
+                throw new IllegalArgumentException("Not enough " + COINS[i] + " coins to take!");
+            }
+        }
+        for (int i = 0; i < COINS.length; i++) {
+            coins[i] -= coinCounts[i];
+            coinCountChanged(i, coinCounts[i]);
+        }
+        changeability.invalidate();
+    }
+
+    /**
+     * Adds or takes coins of many kinds at once, e.g. in a service visit. Nothing changes if any count would get
+     * negative.
+     */
+    public synchronized void adjustCoins(int[] coinCountChanges) {
+        for (int i = 0; i < COINS.length; i++) {
+            if (coins[i] + coinCountChanges[i] < 0) {
+                throw new IllegalArgumentException("Not enough " + COINS[i] + " coins to take!");
+            }
+        }
+        for (int i = 0; i < COINS.length; i++) {
+            coins[i] += coinCountChanges[i];
+            coinCountChanged(i, -coinCountChanges[i]);
+        }
+        changeability.invalidate();
+    }
+
+    public synchronized int getCoinCount(Coin coin) {
+        return coins[coin.ordinal()];
+    }
+
+    public synchronized void copyCoinCounts(int[] coinCounts) {
+        System.arraycopy(coins, 0, coinCounts, 0, coins.length);
+    }
 
+    public synchronized boolean canPay(Money amount) {
+        int amountInCents = Math.toIntExact(amount.getMinorUnits());
+        if (amountInCents < 0) {
+            return false;
+        }
+        if (changeability.covers(amountInCents)) {
+            return changeability.isPayable(amountInCents, coins);
+        }
+        return changeStrategy.findChange(amountInCents, coins, change);
+    }
+
+    /**
+     * Tells if change can be given to a customer paying the price with coins of any single acceptable kind, which is
+     * paying {@code ceil(price / coin) * coin}.
+     */
+    public boolean canChangeOverpaymentsOf(Money price) {
+        return canChangeOverpaymentsOf(price.getMinorUnits());
+    }
+
+    public synchronized boolean canChangeOverpaymentsOf(long priceInCents) {
+        for (Coin coin : COINS) {
+            if (accepts(coin)) {
+                int value = coin.getValueInCents();
+                int overpayment = (int) ((value - priceInCents % value) % value);
+                if (changeability.covers(overpayment) && !changeability.isPayable(overpayment, coins)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Optional<List<Coin>> getCoins(BigDecimal amount) {
+        return getCoins(Money.of(amount));
+    }
+
+    public synchronized Optional<List<Coin>> getCoins(Money amount) {
+        return withdraw(amount.getMinorUnits(), change, false) ? Optional.of(coinsOf(change)) : Optional.empty();
+    }
+
+    /**
+     * Gives back inserted money, like {@link #getCoins(Money)} but through {@link ChangeStrategy#findRefund}, so the
+     * change strategy doesn't take the refund for change of a sale.
+     */
+    public synchronized Optional<List<Coin>> refund(Money amount) {
+        return withdraw(amount.getMinorUnits(), change, true) ? Optional.of(coinsOf(change)) : Optional.empty();
+    }
+
+    public synchronized boolean refund(Money amount, int[] refundedCoins) {
+        return withdraw(amount.getMinorUnits(), refundedCoins, true);
+    }
+
+    private static List<Coin> coinsOf(int[] change) {
         List<Coin> result = new ArrayList<>();
-        SortedMap<Coin, Integer> coinsToUseCopy = new TreeMap<>(coinsToUse);
-        BigDecimal amountLeft = doCollectMoneyUsingGivenCoins(amount, coinsToUseCopy, result);
+        for (int i = COINS.length - 1; i >= 0; i--) {
+            for (int count = change[i]; count > 0; count--) {
+                result.add(COINS[i]);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Optional<List<Coin>> exchange(List<Coin> paidCoins, Money change) {
+        for (Coin coin : paidCoins) {
+            coins[coin.ordinal()]++;
+            changeability.addCoin(coin);
+            coinCountChanged(coin.ordinal(), -1);
+        }
 
-        if (BigDecimal.ZERO.compareTo(amountLeft) != 0) {
-            Coin highestCoin = coinsToUse.lastKey();
-            SortedMap<Coin, Integer> lowerCoins = coinsToUse.headMap(highestCoin);
-            return collectMoneyUsingGivenCoins(amount, lowerCoins);
-        } else {
-            coins.putAll(coinsToUseCopy);
-            return Optional.of(result);
+        Optional<List<Coin>> changeInCoins = getCoins(change);
+        if (!changeInCoins.isPresent()) {
+            for (Coin coin : paidCoins) {
+                coins[coin.ordinal()]--;
+                coinCountChanged(coin.ordinal(), 1);
+            }
+            changeability.invalidate();
         }
+        return changeInCoins;
+    }
+
+    public boolean withdraw(Money amount, int[] withdrawnCoins) {
+        return withdraw(amount.getMinorUnits(), withdrawnCoins);
+    }
+
+    public synchronized boolean withdraw(long amount, int[] withdrawnCoins) {
+        return withdraw(amount, withdrawnCoins, false);
     }
 
-    private BigDecimal doCollectMoneyUsingGivenCoins(BigDecimal amount, SortedMap<Coin, Integer> coinsToUse,
-                                                     List<Coin> result) {
-        if (coinsToUse.isEmpty()) {
-            return amount;
+    private boolean withdraw(long amount, int[] withdrawnCoins, boolean refund) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Can't withdraw negative amount " + Money.format(amount) + "!");
+        }
+        if (amount == 0) {
+            Arrays.fill(withdrawnCoins, 0);
+            return true;
+        }
+
+        int amountInCents = Math.toIntExact(amount);
+        if (changeability.covers(amountInCents) && !changeability.isPayable(amountInCents, coins)) {
+            return false;
+        }
+        boolean found = refund
+            ? changeStrategy.findRefund(amountInCents, coins, withdrawnCoins)
+            : changeStrategy.findChange(amountInCents, coins, withdrawnCoins);
+        if (!found) {
+            return false;
+        }
+
+        for (int i = 0; i < COINS.length; i++) {
+            coins[i] -= withdrawnCoins[i];
+            coinCountChanged(i, withdrawnCoins[i]);
         }
+        changeability.invalidate();
+        return true;
+    }
 
-        Coin highestCoin = coinsToUse.lastKey();
-        BigDecimal highestCoinValue = highestCoin.getValue();
-        Integer highestCoinCount = coinsToUse.get(highestCoin);
+    public synchronized void setInventoryObserver(InventoryObserver observer) {
+        this.observer = observer;
+    }
 
-        while (highestCoinValue.compareTo(amount) <= 0 && highestCoinCount > 0) {
-            amount = amount.subtract(highestCoinValue);
-            coinsToUse.put(highestCoin, --highestCoinCount);
-            result.add(highestCoin);
+    private void coinCountChanged(int coinIndex, int countDecrease) {
+        if (countDecrease != 0) {
+            int count = coins[coinIndex];
+            observer.onCoinCountChanged(COINS[coinIndex], count + countDecrease, count);
         }
+    }
 
-        if (BigDecimal.ZERO.compareTo(amount) != 0) {
-            SortedMap<Coin, Integer> lowerCoins = coinsToUse.headMap(highestCoin);
-            return doCollectMoneyUsingGivenCoins(amount, lowerCoins, result);
-        } else {
-            return amount;
+    private static int maskOf(Coin... coins) {
+        int mask = 0;
+        for (Coin coin : coins) {
+            mask |= 1 << coin.ordinal();
         }
+        return mask;
     }
 
 }
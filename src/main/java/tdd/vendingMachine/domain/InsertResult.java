@@ -0,0 +1,35 @@
+package tdd.vendingMachine.domain;
+
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+/**
+ * Outcome of inserting a coin. Rejections are plain constants, so a refused coin allocates nothing;
+ * {@link #orThrow(Coin)} turns them into the exceptions of the throwing API.
+ */
+public enum InsertResult {
+
+    ACCEPTED,
+    UNACCEPTABLE_COIN,
+    NO_SHELVE_SELECTED,
+    ALREADY_ENOUGH_MONEY,
+    MACHINE_UNAVAILABLE;
+
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+
+    public void orThrow(Coin coin) throws UnacceptableCoinException {
+        switch (this) {
+            case UNACCEPTABLE_COIN:
+                throw new UnacceptableCoinException(coin.getValue());
+            case NO_SHELVE_SELECTED:
+                throw new IllegalStateException("No shelve selected!");
+            case ALREADY_ENOUGH_MONEY:
+                throw new IllegalStateException("Already inserted enough money!");
+            case MACHINE_UNAVAILABLE:
+                throw new IllegalStateException("Machine unavailable!");
+            default:
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package tdd.vendingMachine.domain;
+
+/**
+ * Gets every change of shelve stock and cassette coins as it happens, with levels before and after the change.
+ * Called from inside the changing operation, so implementations should only record the change and return.
+ */
+public interface InventoryObserver {
+
+    InventoryObserver NONE = new InventoryObserver() {
+    };
+
+    default void onStockChanged(Shelve shelve, int previousQuantity, int quantity) {
+    }
+
+    /**
+     * Called after the shelve got a new product, previous quantity is the stock of the previous product.
+     */
+    default void onProductSwapped(Shelve shelve, Product previousProduct, int previousQuantity, int quantity) {
+        onStockChanged(shelve, previousQuantity, quantity);
+    }
+
+    default void onProductReleased(Shelve shelve) {
+    }
+
+    default void onCoinCountChanged(Coin coin, int previousCount, int count) {
+    }
+
+}
@@ -0,0 +1,97 @@
+package tdd.vendingMachine.domain;
+
+import java.math.BigDecimal;
+
+public final class Money implements Comparable<Money> {
+
+    private static final int SCALE = 2;
+    private static final long MINOR_UNITS_PER_UNIT = 100;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal value) {
+        return ofMinorUnits(value.movePointRight(SCALE).longValueExact());
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money atLeastZero() {
+        return minorUnits < 0 ? ZERO : this;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Money && minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return format(minorUnits);
+    }
+
+    /**
+     * Formats an amount kept in raw minor units the way {@link #toString()} does, for hot paths doing arithmetic on
+     * {@code long} cents instead of allocating intermediate {@code Money} objects.
+     */
+    public static String format(long minorUnits) {
+        long units = Math.abs(minorUnits / MINOR_UNITS_PER_UNIT);
+        int cents = (int) Math.abs(minorUnits % MINOR_UNITS_PER_UNIT);
+
+        StringBuilder result = new StringBuilder(24);
+        if (minorUnits < 0) {
+            result.append('-');
+        }
+        return result.append(units)
+            .append('.')
+            .append((char) ('0' + cents / 10))
+            .append((char) ('0' + cents % 10))
+            .toString();
+    }
+
+}
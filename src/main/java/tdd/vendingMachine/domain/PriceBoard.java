@@ -0,0 +1,29 @@
+package tdd.vendingMachine.domain;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Price table in force on one machine. Tables are never changed, only replaced as a whole, so a reader gets a
+ * consistent set of prices with a single volatile load.
+ */
+public class PriceBoard {
+
+    private final AtomicReference<PriceTable> table;
+
+    public PriceBoard(PriceTable table) {
+        this.table = new AtomicReference<>(table);
+    }
+
+    public PriceTable current() {
+        return table.get();
+    }
+
+    public void publish(PriceTable newTable) {
+        if (newTable.size() != table.get().size()) {
+            throw new IllegalArgumentException("Price table has " + newTable.size() + " shelves instead of "
+                + table.get().size() + "!");
+        }
+        table.set(newTable);
+    }
+
+}
@@ -0,0 +1,90 @@
+package tdd.vendingMachine.domain;
+
+import java.util.Arrays;
+
+/**
+ * Prices of all shelves of one machine by shelve position, compiled ahead of time so that reading a price is an
+ * array access. Bundle deals take their discount off a basket once for every pair of their shelves in it, each
+ * product counting towards one deal only.
+ */
+public final class PriceTable {
+
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final long[] NO_DISCOUNTS = new long[0];
+
+    private final long[] prices;
+    private final int[] bundleFirstPositions;
+    private final int[] bundleSecondPositions;
+    private final long[] bundleDiscounts;
+
+    public PriceTable(long[] pricesInCents) {
+        this(pricesInCents, NO_POSITIONS, NO_POSITIONS, NO_DISCOUNTS);
+    }
+
+    public PriceTable(long[] pricesInCents, int[] bundleFirstPositions, int[] bundleSecondPositions,
+                      long[] bundleDiscountsInCents) {
+        if (bundleFirstPositions.length != bundleSecondPositions.length
+            || bundleFirstPositions.length != bundleDiscountsInCents.length) {
+            throw new IllegalArgumentException("Bundle columns differ in length!");
+        }
+        for (long price : pricesInCents) {
+            if (price < 0) {
+                throw new IllegalArgumentException("Negative price " + price + "!");
+            }
+        }
+        this.prices = pricesInCents.clone();
+        this.bundleFirstPositions = bundleFirstPositions.clone();
+        this.bundleSecondPositions = bundleSecondPositions.clone();
+        this.bundleDiscounts = bundleDiscountsInCents.clone();
+    }
+
+    public static PriceTable ofListPrices(ShelfIndex shelfIndex) {
+        long[] prices = new long[shelfIndex.size()];
+        for (int position = 0; position < prices.length; position++) {
+            prices[position] = shelfIndex.getShelve(position).getProductPriceAmount().getMinorUnits();
+        }
+        return new PriceTable(prices);
+    }
+
+    public long priceAt(int position) {
+        return prices[position];
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    public long priceOf(int[] positions, int[] quantities, int count) {
+        long price = 0;
+        for (int i = 0; i < count; i++) {
+            price = Math.addExact(price, Math.multiplyExact(prices[positions[i]], quantities[i]));
+        }
+        if (bundleDiscounts.length == 0) {
+            return price;
+        }
+
+        int[] unbundledQuantities = Arrays.copyOf(quantities, count);
+        for (int bundle = 0; bundle < bundleDiscounts.length; bundle++) {
+            int first = indexOf(positions, count, bundleFirstPositions[bundle]);
+            int second = indexOf(positions, count, bundleSecondPositions[bundle]);
+            if (first < 0 || second < 0) {
+                continue;
+            }
+            int bundles = Math.min(unbundledQuantities[first], unbundledQuantities[second]);
+            unbundledQuantities[first] -= bundles;
+            unbundledQuantities[second] -= bundles;
+            price -= bundles * bundleDiscounts[bundle];
+        }
+        return Math.max(price, 0);
+    }
+
+    private static int indexOf(int[] positions, int count, int position) {
+        for (int i = 0; i < count; i++) {
+            if (positions[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -2,6 +2,7 @@ package tdd.vendingMachine.domain;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Objects;
 
 public class Product {
 
@@ -9,16 +10,32 @@ public class Product {
     private static final RoundingMode PRICE_ROUNDING_MODE = RoundingMode.HALF_UP;
 
     private final String name;
-    private final BigDecimal price;
+    private final Money price;
+    private final int id;
 
     public Product(String name, String price) {
-        this.name = name;
-        this.price = new BigDecimal(price).setScale(PRICE_SCALE, PRICE_ROUNDING_MODE);
+        this(name, Money.of(new BigDecimal(price).setScale(PRICE_SCALE, PRICE_ROUNDING_MODE)));
+    }
+
+    public Product(String name, Money price) {
+        this(name, price, ProductCatalog.NO_PRODUCT);
     }
 
     public Product(Product productType) {
-        this.name = productType.name;
-        this.price = productType.price;
+        this(productType.name, productType.price);
+    }
+
+    Product(String name, Money price, int id) {
+        this.name = name;
+        this.price = price;
+        this.id = id;
+    }
+
+    /**
+     * Id in {@link ProductCatalog}, known only for products taken from the catalog.
+     */
+    public int getId() {
+        return id;
     }
 
     public String getName() {
@@ -26,7 +43,33 @@ public class Product {
     }
 
     public BigDecimal getPrice() {
+        return price.toBigDecimal();
+    }
+
+    public Money getPriceAmount() {
         return price;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Product)) {
+            return false;
+        }
+        Product otherProduct = (Product) other;
+        return Objects.equals(name, otherProduct.name) && Objects.equals(price, otherProduct.price);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, price);
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + price;
+    }
+
 }
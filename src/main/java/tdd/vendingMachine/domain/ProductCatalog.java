@@ -0,0 +1,72 @@
+package tdd.vendingMachine.domain;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of distinct products. Every product with the same name and price is interned once and gets a compact
+ * int id, so shelves and purchases share a single instance instead of copying products per dispense. Ids are stable:
+ * the name and price behind an id are kept for good, so a product interned again, e.g. swapped back onto a shelve,
+ * gets its old id and ids kept in history can always be looked up. Shared instances are held weakly only; one nobody
+ * refers to any more is dropped and created again on demand.
+ */
+public class ProductCatalog {
+
+    public static final int NO_PRODUCT = -1;
+
+    public static final ProductCatalog INSTANCE = new ProductCatalog();
+
+    private final Map<Product, Integer> ids = new HashMap<>();
+    private final List<Product> definitions = new ArrayList<>();
+    private final List<WeakReference<Product>> instances = new ArrayList<>();
+
+    ProductCatalog() {
+    }
+
+    public synchronized Product intern(Product product) {
+        if (product == null) {
+            return null;
+        }
+        Integer id = ids.get(product);
+        if (id == null) {
+            id = definitions.size();
+            Product definition = new Product(product.getName(), product.getPriceAmount());
+            ids.put(definition, id);
+            definitions.add(definition);
+            instances.add(null);
+        }
+        return instanceOf(id);
+    }
+
+    /**
+     * Returns the shared product of the given id.
+     */
+    public synchronized Product productOf(int id) {
+        if (id < 0 || id >= definitions.size()) {
+            throw new IllegalArgumentException("Unknown product id " + id + "!");
+        }
+        return instanceOf(id);
+    }
+
+    /**
+     * Number of distinct products ever interned.
+     */
+    public synchronized int size() {
+        return definitions.size();
+    }
+
+    private Product instanceOf(int id) {
+        WeakReference<Product> reference = instances.get(id);
+        Product instance = reference == null ? null : reference.get();
+        if (instance == null) {
+            Product definition = definitions.get(id);
+            instance = new Product(definition.getName(), definition.getPriceAmount(), id);
+            instances.set(id, new WeakReference<>(instance));
+        }
+        return instance;
+    }
+
+}
@@ -1,23 +1,103 @@
 package tdd.vendingMachine.domain;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Result of a dispense: the product shared from {@link ProductCatalog} and the change. Coin counts of the
+ * change are packed 7 bits per coin into a single long, falling back to an array only for more than 127 coins of
+ * one kind.
+ */
 public class Purchase {
 
+    private static final Coin[] COINS = Coin.values();
+    private static final int BITS_PER_COIN = 7;
+    private static final int MAX_PACKED_COUNT = (1 << BITS_PER_COIN) - 1;
+
     private final Product product;
-    private final List<Coin> change;
+    private final long packedChange;
+    private final int[] changeCounts;
 
-    public Purchase(Product product, List<Coin> change) {
+    private Purchase(Product product, long packedChange, int[] changeCounts) {
         this.product = product;
-        this.change = change;
+        this.packedChange = packedChange;
+        this.changeCounts = changeCounts;
+    }
+
+    public Purchase(Product product, List<Coin> change) {
+        this(ProductCatalog.INSTANCE.intern(product), countsOf(change));
+    }
+
+    private Purchase(Product product, int[] changeCounts) {
+        this(product, pack(changeCounts), fitsPacked(changeCounts) ? null : changeCounts);
+    }
+
+    /**
+     * Creates a purchase of an interned product, or none, from coin counts indexed by coin ordinal. Counts are copied.
+     */
+    public static Purchase of(Product product, int[] changeCounts) {
+        if (changeCounts.length != COINS.length) {
+            throw new IllegalArgumentException("Expected " + COINS.length + " coin counts!");
+        }
+        return fitsPacked(changeCounts)
+            ? new Purchase(product, pack(changeCounts), null)
+            : new Purchase(product, 0L, changeCounts.clone());
+    }
+
+    public int getProductId() {
+        return product == null ? ProductCatalog.NO_PRODUCT : product.getId();
     }
 
     public Product getProduct() {
         return product;
     }
 
+    public int getChangeCount(Coin coin) {
+        if (changeCounts != null) {
+            return changeCounts[coin.ordinal()];
+        }
+        return (int) (packedChange >>> coin.ordinal() * BITS_PER_COIN) & MAX_PACKED_COUNT;
+    }
+
+    /**
+     * Coins of the change, from the highest value.
+     */
     public List<Coin> getChange() {
+        List<Coin> change = new ArrayList<>();
+        for (int i = COINS.length - 1; i >= 0; i--) {
+            for (int count = getChangeCount(COINS[i]); count > 0; count--) {
+                change.add(COINS[i]);
+            }
+        }
         return change;
     }
 
+    private static int[] countsOf(List<Coin> change) {
+        int[] counts = new int[COINS.length];
+        for (Coin coin : change) {
+            counts[coin.ordinal()]++;
+        }
+        return counts;
+    }
+
+    private static boolean fitsPacked(int[] changeCounts) {
+        for (int count : changeCounts) {
+            if (count < 0 || count > MAX_PACKED_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long pack(int[] changeCounts) {
+        if (!fitsPacked(changeCounts)) {
+            return 0L;
+        }
+        long packed = 0L;
+        for (int i = 0; i < changeCounts.length; i++) {
+            packed |= (long) changeCounts[i] << i * BITS_PER_COIN;
+        }
+        return packed;
+    }
+
 }
@@ -0,0 +1,39 @@
+package tdd.vendingMachine.domain;
+
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+
+/**
+ * Outcome of selecting a shelve. Rejections are plain constants, so a refused selection allocates nothing;
+ * {@link #orThrow(ShelfIndex, int)} turns them into the exceptions of the throwing API.
+ */
+public enum SelectResult {
+
+    SELECTED,
+    INVALID_SHELVE,
+    PRODUCT_NOT_AVAILABLE,
+    SHELVE_ALREADY_SELECTED,
+    MACHINE_UNAVAILABLE;
+
+    public boolean isSelected() {
+        return this == SELECTED;
+    }
+
+    public void orThrow(ShelfIndex shelfIndex, int shelveNumber)
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        switch (this) {
+            case INVALID_SHELVE:
+                throw new InvalidShelveException(shelveNumber);
+            case PRODUCT_NOT_AVAILABLE:
+                String productName = shelfIndex.getShelve(shelfIndex.positionOf(shelveNumber)).getProductName();
+                throw new ProductNotAvailableException(productName);
+            case SHELVE_ALREADY_SELECTED:
+                throw new IllegalStateException("Shelve already selected!");
+            case MACHINE_UNAVAILABLE:
+                throw new IllegalStateException("Machine unavailable!");
+            default:
+        }
+    }
+
+}
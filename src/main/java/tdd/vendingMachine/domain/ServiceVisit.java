@@ -0,0 +1,112 @@
+package tdd.vendingMachine.domain;
+
+import tdd.vendingMachine.exception.InvalidShelveException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything a service technician does at one machine: restocking shelves, swapping products and topping up or
+ * skimming the cassette. Applied all or nothing: shelves and coins are checked first, so nothing changes if any
+ * shelve is invalid or the cassette lacks coins to skim. Product swaps are applied before restocks.
+ */
+public class ServiceVisit {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final Map<Integer, Integer> restockedQuantities = new LinkedHashMap<>();
+    private final Map<Integer, Product> swappedProducts = new LinkedHashMap<>();
+    private final Map<Integer, Integer> swappedQuantities = new LinkedHashMap<>();
+    private final int[] coinCountChanges = new int[COINS.length];
+
+    public ServiceVisit restock(int shelveNumber, int addedQuantity) {
+        if (addedQuantity <= 0) {
+            throw new IllegalArgumentException("Restocked quantity must be positive!");
+        }
+        restockedQuantities.merge(shelveNumber, addedQuantity, Math::addExact);
+        return this;
+    }
+
+    public ServiceVisit swapProduct(int shelveNumber, Product product, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative quantity of " + product.getName() + "!");
+        }
+        swappedProducts.put(shelveNumber, product);
+        swappedQuantities.put(shelveNumber, quantity);
+        return this;
+    }
+
+    public ServiceVisit topUp(Coin coin, int count) {
+        checkCoinCount(coin, count);
+        coinCountChanges[coin.ordinal()] = Math.addExact(coinCountChanges[coin.ordinal()], count);
+        return this;
+    }
+
+    public ServiceVisit skim(Coin coin, int count) {
+        checkCoinCount(coin, count);
+        coinCountChanges[coin.ordinal()] = Math.subtractExact(coinCountChanges[coin.ordinal()], count);
+        return this;
+    }
+
+    public Set<Integer> getShelveNumbers() {
+        Set<Integer> shelveNumbers = new LinkedHashSet<>(swappedProducts.keySet());
+        shelveNumbers.addAll(restockedQuantities.keySet());
+        return Collections.unmodifiableSet(shelveNumbers);
+    }
+
+    public boolean swapsProductOf(int shelveNumber) {
+        return swappedProducts.containsKey(shelveNumber);
+    }
+
+    public Product getSwappedProduct(int shelveNumber) {
+        return swappedProducts.get(shelveNumber);
+    }
+
+    public int getSwappedQuantity(int shelveNumber) {
+        return swappedQuantities.getOrDefault(shelveNumber, 0);
+    }
+
+    public int getRestockedQuantity(int shelveNumber) {
+        return restockedQuantities.getOrDefault(shelveNumber, 0);
+    }
+
+    public boolean hasProductSwaps() {
+        return !swappedProducts.isEmpty();
+    }
+
+    public int getCoinCountChange(Coin coin) {
+        return coinCountChanges[coin.ordinal()];
+    }
+
+    public void applyTo(ShelfIndex shelfIndex, CoinCassette cassette) throws InvalidShelveException {
+        for (int shelveNumber : getShelveNumbers()) {
+            if (shelfIndex.positionOf(shelveNumber) < 0) {
+                throw new InvalidShelveException(shelveNumber);
+            }
+        }
+
+        cassette.adjustCoins(coinCountChanges);
+
+        swappedProducts.forEach((shelveNumber, product) -> shelveOf(shelfIndex, shelveNumber)
+            .swapProduct(product, swappedQuantities.get(shelveNumber)));
+        restockedQuantities.forEach((shelveNumber, addedQuantity) -> shelveOf(shelfIndex, shelveNumber)
+            .restock(addedQuantity));
+    }
+
+    private static Shelve shelveOf(ShelfIndex shelfIndex, int shelveNumber) {
+        return shelfIndex.getShelve(shelfIndex.positionOf(shelveNumber));
+    }
+
+    private static void checkCoinCount(Coin coin, int count) {
+        if (!CoinCassette.accepts(coin)) {
+            throw new IllegalArgumentException(coin + " coins are not acceptable!");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count of " + coin + " coins must be positive!");
+        }
+    }
+
+}
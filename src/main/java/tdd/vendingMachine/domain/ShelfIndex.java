@@ -0,0 +1,91 @@
+package tdd.vendingMachine.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable lookup of shelves by number, built once per machine. Numbers are kept in an open addressing int map,
+ * so finding a shelve takes O(1) no matter how many shelves there are. Positions follow the order of given shelves.
+ */
+public class ShelfIndex {
+
+    private static final int NO_POSITION = -1;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final List<Shelve> shelves;
+    private final List<Integer> shelveNumbers;
+
+    private final int[] slotNumbers;
+    private final int[] slotPositions;
+    private final int slotMask;
+    private final int slotShift;
+
+    public ShelfIndex(List<Shelve> shelves) {
+        this.shelves = Collections.unmodifiableList(new ArrayList<>(shelves));
+
+        int slotCount = Integer.highestOneBit(Math.max(2, shelves.size() * 2 - 1)) << 1;
+        this.slotNumbers = new int[slotCount];
+        this.slotPositions = new int[slotCount];
+        this.slotMask = slotCount - 1;
+        this.slotShift = Integer.numberOfLeadingZeros(slotMask);
+
+        List<Integer> numbers = new ArrayList<>(shelves.size());
+        Arrays.fill(slotPositions, NO_POSITION);
+        for (int position = 0; position < shelves.size(); position++) {
+            int number = shelves.get(position).getNumber();
+            addShelve(number, position);
+            numbers.add(number);
+        }
+        this.shelveNumbers = Collections.unmodifiableList(numbers);
+    }
+
+    public Optional<Shelve> findShelve(int shelveNumber) {
+        int position = positionOf(shelveNumber);
+        return position == NO_POSITION ? Optional.empty() : Optional.of(shelves.get(position));
+    }
+
+    public int positionOf(int shelveNumber) {
+        for (int slot = slotOf(shelveNumber); ; slot = (slot + 1) & slotMask) {
+            int position = slotPositions[slot];
+            if (position == NO_POSITION || slotNumbers[slot] == shelveNumber) {
+                return position;
+            }
+        }
+    }
+
+    public Shelve getShelve(int position) {
+        return shelves.get(position);
+    }
+
+    public List<Shelve> getShelves() {
+        return shelves;
+    }
+
+    public List<Integer> getShelveNumbers() {
+        return shelveNumbers;
+    }
+
+    public int size() {
+        return shelves.size();
+    }
+
+    private void addShelve(int shelveNumber, int position) {
+        int slot = slotOf(shelveNumber);
+        while (slotPositions[slot] != NO_POSITION) {
+            if (slotNumbers[slot] == shelveNumber) {
+                throw new IllegalArgumentException("Duplicate shelve number " + shelveNumber + "!");
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        slotNumbers[slot] = shelveNumber;
+        slotPositions[slot] = position;
+    }
+
+    private int slotOf(int shelveNumber) {
+        return shelveNumber * HASH_MULTIPLIER >>> slotShift;
+    }
+
+}
@@ -2,38 +2,106 @@ package tdd.vendingMachine.domain;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Shelve {
 
     private final int number;
-    private final Product productType;
+    private volatile Product productType;
 
-    private int quantity;
+    private final AtomicInteger quantity;
+
+    private volatile InventoryObserver observer = InventoryObserver.NONE;
 
     public Shelve(int number, Product productType, int quantity) {
         this.number = number;
-        this.productType = productType;
-        this.quantity = quantity;
+        this.productType = ProductCatalog.INSTANCE.intern(productType);
+        this.quantity = new AtomicInteger(quantity);
     }
 
     public boolean isProductAvailable() {
-        return quantity > 0;
+        return quantity.get() > 0;
+    }
+
+    public boolean reserveProduct() {
+        int currentQuantity;
+        do {
+            currentQuantity = quantity.get();
+            if (currentQuantity <= 0) {
+                return false;
+            }
+        } while (!quantity.compareAndSet(currentQuantity, currentQuantity - 1));
+        observer.onStockChanged(this, currentQuantity, currentQuantity - 1);
+        return true;
+    }
+
+    public boolean reserveProducts(int count) {
+        int currentQuantity;
+        do {
+            currentQuantity = quantity.get();
+            if (currentQuantity < count) {
+                return false;
+            }
+        } while (!quantity.compareAndSet(currentQuantity, currentQuantity - count));
+        observer.onStockChanged(this, currentQuantity, currentQuantity - count);
+        return true;
+    }
+
+    public void cancelReservation() {
+        int newQuantity = quantity.incrementAndGet();
+        observer.onStockChanged(this, newQuantity - 1, newQuantity);
+    }
+
+    public void cancelReservation(int count) {
+        int newQuantity = quantity.addAndGet(count);
+        observer.onStockChanged(this, newQuantity - count, newQuantity);
+    }
+
+    public void restock(int addedQuantity) {
+        int newQuantity = quantity.addAndGet(addedQuantity);
+        observer.onStockChanged(this, newQuantity - addedQuantity, newQuantity);
+    }
+
+    /**
+     * Replaces the product type and quantity of the shelve. Reservations of the previous product have to be released
+     * before, as they would be given out as the new product.
+     */
+    public void swapProduct(Product productType, int newQuantity) {
+        Product previousProductType = this.productType;
+        this.productType = ProductCatalog.INSTANCE.intern(productType);
+        int previousQuantity = quantity.getAndSet(newQuantity);
+        observer.onProductSwapped(this, previousProductType, previousQuantity, newQuantity);
+    }
+
+    /**
+     * Returns the product from {@link ProductCatalog} - products are shared, not copied per dispense.
+     */
+    public Product releaseReservedProduct() {
+        observer.onProductReleased(this);
+        return productType;
     }
 
     public Optional<Product> releaseProduct() {
-        if (!isProductAvailable()) {
+        if (!reserveProduct()) {
             return Optional.empty();
         } else {
-            decreaseQuantity();
-            Product product = new Product(productType);
+            Product product = releaseReservedProduct();
             return Optional.of(product);
         }
     }
 
+    public void setInventoryObserver(InventoryObserver observer) {
+        this.observer = observer;
+    }
+
     public int getNumber() {
         return number;
     }
 
+    public int getQuantity() {
+        return quantity.get();
+    }
+
     public String getProductName() {
         return productType.getName();
     }
@@ -42,8 +110,8 @@ public class Shelve {
         return productType.getPrice();
     }
 
-    private void decreaseQuantity() {
-        quantity--;
+    public Money getProductPriceAmount() {
+        return productType.getPriceAmount();
     }
 
 }
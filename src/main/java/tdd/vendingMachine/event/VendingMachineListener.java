@@ -0,0 +1,51 @@
+package tdd.vendingMachine.event;
+
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.List;
+
+/**
+ * Notified about every step of vending machine transactions, on the thread running the transaction.
+ * Listeners must be fast, they run inside transaction steps.
+ */
+public interface VendingMachineListener {
+
+    default void onShelveSelected(Shelve shelve) {
+    }
+
+    default void onCoinInserted(Shelve shelve, Coin coin) {
+    }
+
+    default void onCoinRejected(Shelve shelve, Coin coin) {
+    }
+
+    default void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+    }
+
+    default void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+    }
+
+    default void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+    }
+
+    default void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+    }
+
+    default void onBatchNoChangeRefund(BatchPurchase purchase, List<Coin> payment) {
+    }
+
+    default void onServiced(ServiceVisit visit) {
+    }
+
+    /**
+     * Called when the machine goes into or out of maintenance or service.
+     */
+    default void onMachineStateChanged(MachineState state) {
+    }
+
+}
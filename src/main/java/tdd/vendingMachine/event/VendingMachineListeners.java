@@ -0,0 +1,106 @@
+package tdd.vendingMachine.event;
+
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Passes events to all added listeners, in order of adding.
+ */
+public class VendingMachineListeners implements VendingMachineListener {
+
+    private volatile VendingMachineListener[] listeners = new VendingMachineListener[0];
+
+    public synchronized void add(VendingMachineListener listener) {
+        VendingMachineListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    public synchronized void remove(VendingMachineListener listener) {
+        listeners = Arrays.stream(listeners)
+            .filter(existing -> existing != listener)
+            .toArray(VendingMachineListener[]::new);
+    }
+
+    public boolean isEmpty() {
+        return listeners.length == 0;
+    }
+
+    @Override
+    public void onShelveSelected(Shelve shelve) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onShelveSelected(shelve);
+        }
+    }
+
+    @Override
+    public void onCoinInserted(Shelve shelve, Coin coin) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onCoinInserted(shelve, coin);
+        }
+    }
+
+    @Override
+    public void onCoinRejected(Shelve shelve, Coin coin) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onCoinRejected(shelve, coin);
+        }
+    }
+
+    @Override
+    public void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onCanceled(shelve, returnedCoins);
+        }
+    }
+
+    @Override
+    public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onProductDispensed(shelve, product, change);
+        }
+    }
+
+    @Override
+    public void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onNoChangeRefund(shelve, returnedCoins);
+        }
+    }
+
+    @Override
+    public void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onBatchPurchased(purchase, payment);
+        }
+    }
+
+    @Override
+    public void onBatchNoChangeRefund(BatchPurchase purchase, List<Coin> payment) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onBatchNoChangeRefund(purchase, payment);
+        }
+    }
+
+    @Override
+    public void onServiced(ServiceVisit visit) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onServiced(visit);
+        }
+    }
+
+    @Override
+    public void onMachineStateChanged(MachineState state) {
+        for (VendingMachineListener listener : listeners) {
+            listener.onMachineStateChanged(state);
+        }
+    }
+
+}
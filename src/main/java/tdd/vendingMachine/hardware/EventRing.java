@@ -0,0 +1,64 @@
+package tdd.vendingMachine.hardware;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring of encoded {@link HardwareEvent}s between one producer, the thread reading the hardware, and one
+ * consumer. The producer publishes an event with a single ordered write of its sequence and re-reads the consumer's
+ * sequence only when the ring looks full; when it really is full the event is refused, so a stalled consumer never
+ * stalls the hardware.
+ */
+public class EventRing {
+
+    private final long[] events;
+    private final int mask;
+
+    private final AtomicLong producedSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+
+    // producer's cache of the consumed sequence
+    private long knownConsumedSequence;
+
+    public EventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two!");
+        }
+        this.events = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds an event, or returns false if the ring is full. Has to be called from the producer thread only.
+     */
+    public boolean offer(long event) {
+        long sequence = producedSequence.get();
+        if (sequence - knownConsumedSequence == events.length) {
+            knownConsumedSequence = consumedSequence.get();
+            if (sequence - knownConsumedSequence == events.length) {
+                return false;
+            }
+        }
+        events[(int) sequence & mask] = event;
+        producedSequence.lazySet(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Moves the available events, up to the batch length, to the batch. Has to be called from the consumer thread
+     * only.
+     */
+    public int drainTo(long[] batch) {
+        long sequence = consumedSequence.get();
+        int count = (int) Math.min(batch.length, producedSequence.get() - sequence);
+        for (int i = 0; i < count; i++) {
+            batch[i] = events[(int) (sequence + i) & mask];
+        }
+        consumedSequence.lazySet(sequence + count);
+        return count;
+    }
+
+    public int getCapacity() {
+        return events.length;
+    }
+
+}
@@ -0,0 +1,68 @@
+package tdd.vendingMachine.hardware;
+
+import tdd.vendingMachine.domain.Coin;
+
+/**
+ * Events of the coin acceptor and keypad encoded in one {@code long}, so they travel through an {@link EventRing}
+ * without allocation: 48 bits of timestamp in microseconds, 4 bits of {@link HardwareEventType} code and 12 bits of
+ * value, the coin ordinal or the shelve number.
+ */
+public final class HardwareEvent {
+
+    static final long TIMESTAMP_MASK = (1L << 48) - 1;
+    static final int MAX_VALUE = (1 << 12) - 1;
+
+    private static final int TYPE_SHIFT = 12;
+    private static final int TIMESTAMP_SHIFT = 16;
+
+    private HardwareEvent() {
+    }
+
+    public static long coin(Coin coin, long timestampMicros) {
+        return encode(HardwareEventType.COIN, coin.ordinal(), timestampMicros);
+    }
+
+    public static long shelveKey(int shelveNumber, long timestampMicros) {
+        return encode(HardwareEventType.SHELVE_KEY, shelveNumber, timestampMicros);
+    }
+
+    public static long cancelKey(long timestampMicros) {
+        return encode(HardwareEventType.CANCEL_KEY, 0, timestampMicros);
+    }
+
+    public static long dispenseKey(long timestampMicros) {
+        return encode(HardwareEventType.DISPENSE_KEY, 0, timestampMicros);
+    }
+
+    public static long encode(HardwareEventType type, int value, long timestampMicros) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Event value " + value + " out of range!");
+        }
+        return (timestampMicros & TIMESTAMP_MASK) << TIMESTAMP_SHIFT | (long) type.getCode() << TYPE_SHIFT | value;
+    }
+
+    /**
+     * The same event stamped with another time.
+     */
+    public static long withTimestamp(long event, long timestampMicros) {
+        return (timestampMicros & TIMESTAMP_MASK) << TIMESTAMP_SHIFT | event & (1L << TIMESTAMP_SHIFT) - 1;
+    }
+
+    static int typeCode(long event) {
+        return (int) (event >>> TYPE_SHIFT) & 0xF;
+    }
+
+    static int value(long event) {
+        return (int) event & MAX_VALUE;
+    }
+
+    static long timestampMicros(long event) {
+        return event >>> TIMESTAMP_SHIFT;
+    }
+
+    // type and value, what two bounces of one event have in common
+    static int key(long event) {
+        return (int) event & 0xFFFF;
+    }
+
+}
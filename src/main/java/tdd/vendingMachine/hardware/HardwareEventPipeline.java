@@ -0,0 +1,203 @@
+package tdd.vendingMachine.hardware;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.function.Consumer;
+
+/**
+ * Feeds coin acceptor and keypad events from an {@link EventRing} into a machine, a batch at a time:
+ * <ul>
+ * <li>an event with the type and value of the previous one, less than the debounce window after it, is a bounce and
+ * is dropped,</li>
+ * <li>coins in a row are checked against the accepted coins while decoding, unacceptable ones go back to the coin
+ * return and the rest is inserted with {@link BasicVendingMachine#insertCoins(Coin[], int)}, one state update and one
+ * display refresh for the whole burst; coins the machine did not need go back too,</li>
+ * <li>keys select a shelve, cancel or dispense; keys meaningless in the current state are ignored.</li>
+ * </ul>
+ * An event whose handling fails is counted and skipped, the rest of the batch is still processed.
+ * {@link #drain()} has to be called from the thread running transactions of the machine.
+ */
+public class HardwareEventPipeline {
+
+    public static final long DEFAULT_DEBOUNCE_MICROS = 1_000;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int BATCH_SIZE = 256;
+
+    private final EventRing ring;
+    private final BasicVendingMachine vendingMachine;
+    private final long debounceMicros;
+    private final Consumer<Coin> coinReturn;
+    private final Consumer<Purchase> delivery;
+
+    private final long[] batch = new long[BATCH_SIZE];
+    private final Coin[] burst = new Coin[BATCH_SIZE];
+    private int burstSize;
+
+    private int lastEventKey = -1;
+    private long lastTimestampMicros;
+
+    private long processedEvents;
+    private long bouncedEvents;
+    private long malformedEvents;
+    private long returnedCoins;
+    private long failedEvents;
+
+    public HardwareEventPipeline(EventRing ring, BasicVendingMachine vendingMachine, Consumer<Coin> coinReturn,
+                                 Consumer<Purchase> delivery) {
+        this(ring, vendingMachine, DEFAULT_DEBOUNCE_MICROS, coinReturn, delivery);
+    }
+
+    public HardwareEventPipeline(EventRing ring, BasicVendingMachine vendingMachine, long debounceMicros,
+                                 Consumer<Coin> coinReturn, Consumer<Purchase> delivery) {
+        if (debounceMicros < 0) {
+            throw new IllegalArgumentException("Debounce window should not be negative!");
+        }
+        this.ring = ring;
+        this.vendingMachine = vendingMachine;
+        this.debounceMicros = debounceMicros;
+        this.coinReturn = coinReturn;
+        this.delivery = delivery;
+    }
+
+    /**
+     * Processes all events available in the ring and returns their number.
+     */
+    public int drain() {
+        int drainedEvents = 0;
+        int count;
+        while ((count = ring.drainTo(batch)) > 0) {
+            process(count);
+            drainedEvents += count;
+        }
+        processedEvents += drainedEvents;
+        return drainedEvents;
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public long getBouncedEvents() {
+        return bouncedEvents;
+    }
+
+    public long getMalformedEvents() {
+        return malformedEvents;
+    }
+
+    public long getReturnedCoins() {
+        return returnedCoins;
+    }
+
+    public long getFailedEvents() {
+        return failedEvents;
+    }
+
+    private void process(int count) {
+        for (int i = 0; i < count; i++) {
+            long event = batch[i];
+            if (isBounce(event)) {
+                bouncedEvents++;
+                continue;
+            }
+
+            HardwareEventType type = HardwareEventType.ofCode(HardwareEvent.typeCode(event));
+            int value = HardwareEvent.value(event);
+            if (type == HardwareEventType.COIN) {
+                addToBurst(value);
+                continue;
+            }
+
+            insertBurst();
+            if (type == null) {
+                malformedEvents++;
+            } else {
+                try {
+                    pressKey(type, value);
+                } catch (RuntimeException e) {
+                    failedEvents++;
+                }
+            }
+        }
+        insertBurst();
+    }
+
+    private boolean isBounce(long event) {
+        int eventKey = HardwareEvent.key(event);
+        long timestampMicros = HardwareEvent.timestampMicros(event);
+        boolean bounce = eventKey == lastEventKey
+            && (timestampMicros - lastTimestampMicros & HardwareEvent.TIMESTAMP_MASK) < debounceMicros;
+        lastEventKey = eventKey;
+        lastTimestampMicros = timestampMicros;
+        return bounce;
+    }
+
+    private void addToBurst(int coinOrdinal) {
+        if (coinOrdinal >= COINS.length) {
+            malformedEvents++;
+            return;
+        }
+        Coin coin = COINS[coinOrdinal];
+        if (CoinCassette.accepts(coin)) {
+            burst[burstSize++] = coin;
+            return;
+        }
+        try {
+            vendingMachine.rejectCoin(coin);
+        } catch (RuntimeException e) {
+            failedEvents++;
+        }
+        returnCoin(coin);
+    }
+
+    /**
+     * Inserts the coins collected so far. When inserting fails the coins may already be credited, so they are
+     * neither inserted again nor returned.
+     */
+    private void insertBurst() {
+        if (burstSize == 0) {
+            return;
+        }
+        try {
+            int inserted = vendingMachine.insertCoins(burst, burstSize);
+            for (int i = inserted; i < burstSize; i++) {
+                returnCoin(burst[i]);
+            }
+        } catch (RuntimeException e) {
+            failedEvents += burstSize;
+        } finally {
+            burstSize = 0;
+        }
+    }
+
+    private void pressKey(HardwareEventType type, int value) {
+        MachineState state = vendingMachine.getTransaction().getState();
+        switch (type) {
+            case SHELVE_KEY:
+                vendingMachine.trySelectShelve(value);
+                break;
+            case CANCEL_KEY:
+                if (state == MachineState.INSERTING_COINS) {
+                    vendingMachine.cancel().forEach(this::returnCoin);
+                }
+                break;
+            case DISPENSE_KEY:
+                if (state == MachineState.DISPENSING_PRODUCT) {
+                    delivery.accept(vendingMachine.dispenseProduct());
+                }
+                break;
+            default:
+        }
+    }
+
+    private void returnCoin(Coin coin) {
+        returnedCoins++;
+        coinReturn.accept(coin);
+    }
+
+}
@@ -0,0 +1,35 @@
+package tdd.vendingMachine.hardware;
+
+public enum HardwareEventType {
+
+    COIN(1),
+    SHELVE_KEY(2),
+    CANCEL_KEY(3),
+    DISPENSE_KEY(4);
+
+    private static final HardwareEventType[] BY_CODE = new HardwareEventType[5];
+
+    static {
+        for (HardwareEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final int code;
+
+    HardwareEventType(int code) {
+        this.code = code;
+    }
+
+    int getCode() {
+        return code;
+    }
+
+    /**
+     * Type of the given code, or null for codes of no known type.
+     */
+    static HardwareEventType ofCode(int code) {
+        return code <= 0 || code >= BY_CODE.length ? null : BY_CODE[code];
+    }
+
+}
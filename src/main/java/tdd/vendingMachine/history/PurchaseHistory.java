@@ -0,0 +1,338 @@
+package tdd.vendingMachine.history;
+
+import tdd.vendingMachine.domain.Basket;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.event.VendingMachineListener;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only store of dispensed products, kept column by column in off-heap chunks of {@value #ROWS_PER_CHUNK}
+ * rows: timestamp, shelve number, product id from {@link tdd.vendingMachine.domain.ProductCatalog}, price in cents and
+ * change coin counts packed 7 bits per coin into a long. A row takes 28 bytes and no heap objects; the rare change
+ * with more than 127 coins of one kind is kept on heap.
+ * <p>
+ * As a listener it records every product dispensed by one machine, taking the price as inserted money minus change.
+ * Products bought in a batch get a row each, sharing the basket price in proportion to their list prices, with the
+ * batch change recorded on the first row. One thread appends at a time while queries scan chunks in parallel and see
+ * all rows appended before they started.
+ */
+public class PurchaseHistory implements VendingMachineListener {
+
+    static final int ROWS_PER_CHUNK = 1 << 16;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int BITS_PER_COIN = 7;
+    private static final int MAX_PACKED_COUNT = (1 << BITS_PER_COIN) - 1;
+    private static final long UNPACKED_CHANGE = -1L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private static final int LANES = 4;
+    private static final int LANE_BITS = 2 * BITS_PER_COIN;
+    private static final long LANE_SUM_MASK = (1L << LANE_BITS) - 1;
+    private static final long LANE_MASK = MAX_PACKED_COUNT * (1L | 1L << LANE_BITS | 1L << 2 * LANE_BITS
+        | 1L << 3 * LANE_BITS);
+    private static final int LANE_FLUSH_ROWS = 128;
+
+    private static final int TIMESTAMPS = 0;
+    private static final int CHANGES = TIMESTAMPS + Long.BYTES * ROWS_PER_CHUNK;
+    private static final int PRICES = CHANGES + Long.BYTES * ROWS_PER_CHUNK;
+    private static final int SHELVE_NUMBERS = PRICES + Integer.BYTES * ROWS_PER_CHUNK;
+    private static final int PRODUCT_IDS = SHELVE_NUMBERS + Integer.BYTES * ROWS_PER_CHUNK;
+    private static final int CHUNK_SIZE = PRODUCT_IDS + Integer.BYTES * ROWS_PER_CHUNK;
+
+    private final LongSupplier currentTimeMillis;
+    private final Map<Long, int[]> unpackedChanges = new ConcurrentHashMap<>();
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile long size;
+    private volatile int maxProductId;
+
+    private long insertedCents;
+
+    public PurchaseHistory() {
+        this(System::currentTimeMillis);
+    }
+
+    public PurchaseHistory(LongSupplier currentTimeMillis) {
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    @Override
+    public void onShelveSelected(Shelve shelve) {
+        insertedCents = 0;
+    }
+
+    @Override
+    public void onCoinInserted(Shelve shelve, Coin coin) {
+        insertedCents += coin.getValueInCents();
+    }
+
+    @Override
+    public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+        long changeCents = 0;
+        for (Coin coin : change) {
+            changeCents += coin.getValueInCents();
+        }
+        append(currentTimeMillis.getAsLong(), shelve.getNumber(), product.getId(), insertedCents - changeCents,
+            countsOf(change));
+    }
+
+    @Override
+    public void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+        List<Product> products = purchase.getProducts();
+        long listPriceCents = 0;
+        for (Product product : products) {
+            listPriceCents += product.getPriceAmount().getMinorUnits();
+        }
+
+        Basket basket = purchase.getBasket();
+        long basketPriceCents = basket.getPrice().getMinorUnits();
+        long timestamp = currentTimeMillis.getAsLong();
+        int[] changeCounts = countsOf(purchase.getChange());
+        long listedCents = 0;
+        long sharedCents = 0;
+        int row = 0;
+        for (int i = 0; i < basket.size(); i++) {
+            for (int count = basket.getQuantity(i); count > 0; count--) {
+                Product product = products.get(row++);
+                listedCents += product.getPriceAmount().getMinorUnits();
+                // shares of running totals add up to the basket price without rounding drift
+                long shareCents = listPriceCents == 0
+                    ? basketPriceCents * row / products.size()
+                    : basketPriceCents * listedCents / listPriceCents;
+                append(timestamp, basket.getShelve(i).getNumber(), product.getId(), shareCents - sharedCents,
+                    row == 1 ? changeCounts : new int[COINS.length]);
+                sharedCents = shareCents;
+            }
+        }
+    }
+
+    public void append(long timestampMillis, int shelveNumber, Purchase purchase, long priceInCents) {
+        if (purchase.getProduct() == null) {
+            throw new IllegalArgumentException("Purchase without product can't be recorded!");
+        }
+        int[] changeCounts = new int[COINS.length];
+        for (Coin coin : COINS) {
+            changeCounts[coin.ordinal()] = purchase.getChangeCount(coin);
+        }
+        append(timestampMillis, shelveNumber, purchase.getProductId(), priceInCents, changeCounts);
+    }
+
+    public synchronized void append(long timestampMillis, int shelveNumber, int productId, long priceInCents,
+                                    int[] changeCounts) {
+        if (productId < 0) {
+            throw new IllegalArgumentException("Unknown product id " + productId + "!");
+        }
+
+        long row = size;
+        int rowInChunk = (int) (row % ROWS_PER_CHUNK);
+        ByteBuffer chunk = rowInChunk == 0 ? addChunk() : chunks[chunks.length - 1];
+
+        long packedChange = pack(changeCounts);
+        if (packedChange == UNPACKED_CHANGE) {
+            unpackedChanges.put(row, changeCounts.clone());
+        }
+
+        chunk.putLong(TIMESTAMPS + rowInChunk * Long.BYTES, timestampMillis);
+        chunk.putLong(CHANGES + rowInChunk * Long.BYTES, packedChange);
+        chunk.putInt(PRICES + rowInChunk * Integer.BYTES, Math.toIntExact(priceInCents));
+        chunk.putInt(SHELVE_NUMBERS + rowInChunk * Integer.BYTES, shelveNumber);
+        chunk.putInt(PRODUCT_IDS + rowInChunk * Integer.BYTES, productId);
+        if (productId > maxProductId) {
+            maxProductId = productId;
+        }
+        size = row + 1;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getTimestampMillis(long row) {
+        return chunkOf(row).getLong(TIMESTAMPS + rowInChunk(row) * Long.BYTES);
+    }
+
+    public int getShelveNumber(long row) {
+        return chunkOf(row).getInt(SHELVE_NUMBERS + rowInChunk(row) * Integer.BYTES);
+    }
+
+    public int getProductId(long row) {
+        return chunkOf(row).getInt(PRODUCT_IDS + rowInChunk(row) * Integer.BYTES);
+    }
+
+    public long getPriceInCents(long row) {
+        return chunkOf(row).getInt(PRICES + rowInChunk(row) * Integer.BYTES);
+    }
+
+    public int getChangeCount(long row, Coin coin) {
+        long packedChange = chunkOf(row).getLong(CHANGES + rowInChunk(row) * Long.BYTES);
+        if (packedChange == UNPACKED_CHANGE) {
+            return unpackedChanges.get(row)[coin.ordinal()];
+        }
+        return unpack(packedChange, coin.ordinal());
+    }
+
+    /**
+     * Revenue of every product in every hour starting at {@code fromMillis}, of rows with timestamps in
+     * {@code [fromMillis, toMillis)}.
+     */
+    public RevenueReport getRevenueByProductAndHour(long fromMillis, long toMillis) {
+        if (toMillis <= fromMillis) {
+            throw new IllegalArgumentException("Time range should not be empty!");
+        }
+
+        long rowCount = size;
+        ByteBuffer[] scannedChunks = chunks;
+        int hourCount = Math.toIntExact((toMillis - fromMillis + MILLIS_PER_HOUR - 1) / MILLIS_PER_HOUR);
+        int productCount = maxProductId + 1;
+
+        long[] revenue = chunkIndexes(rowCount).parallel()
+            .mapToObj(chunk -> {
+                long[] chunkRevenue = new long[Math.multiplyExact(productCount, hourCount)];
+                ByteBuffer buffer = scannedChunks[chunk];
+                int rows = rowsInChunk(chunk, rowCount);
+                for (int row = 0; row < rows; row++) {
+                    long timestamp = buffer.getLong(TIMESTAMPS + row * Long.BYTES);
+                    if (timestamp >= fromMillis && timestamp < toMillis) {
+                        int hour = (int) ((timestamp - fromMillis) / MILLIS_PER_HOUR);
+                        int productId = buffer.getInt(PRODUCT_IDS + row * Integer.BYTES);
+                        chunkRevenue[productId * hourCount + hour] += buffer.getInt(PRICES + row * Integer.BYTES);
+                    }
+                }
+                return chunkRevenue;
+            })
+            .reduce(PurchaseHistory::sum)
+            .orElseGet(() -> new long[productCount * hourCount]);
+        return new RevenueReport(fromMillis, hourCount, revenue);
+    }
+
+    /**
+     * Number of coins of each kind given as change in rows with timestamps in {@code [fromMillis, toMillis)}.
+     */
+    public Map<Coin, Long> getChangeCoinDistribution(long fromMillis, long toMillis) {
+        long rowCount = size;
+        ByteBuffer[] scannedChunks = chunks;
+
+        long[] coinCounts = chunkIndexes(rowCount).parallel()
+            .mapToObj(chunk -> countChangeCoins(scannedChunks[chunk], rowsInChunk(chunk, rowCount), fromMillis,
+                toMillis))
+            .reduce(PurchaseHistory::sum)
+            .orElseGet(() -> new long[COINS.length]);
+
+        unpackedChanges.forEach((row, changeCounts) -> {
+            if (row >= rowCount) {
+                return;
+            }
+            long timestamp = getTimestampMillis(row);
+            if (timestamp >= fromMillis && timestamp < toMillis) {
+                for (int coin = 0; coin < COINS.length; coin++) {
+                    coinCounts[coin] += changeCounts[coin];
+                }
+            }
+        });
+
+        Map<Coin, Long> distribution = new EnumMap<>(Coin.class);
+        for (Coin coin : COINS) {
+            distribution.put(coin, coinCounts[coin.ordinal()]);
+        }
+        return distribution;
+    }
+
+    // Sums packed counts without unpacking every row: even and odd coins are masked into two longs of four 14 bit
+    // lanes, which can't overflow within LANE_FLUSH_ROWS rows. The highest coin is the only one left at the top.
+    private static long[] countChangeCoins(ByteBuffer buffer, int rows, long fromMillis, long toMillis) {
+        long[] coinCounts = new long[COINS.length];
+        long evenCoins = 0;
+        long oddCoins = 0;
+        for (int row = 0; row < rows; row++) {
+            long timestamp = buffer.getLong(TIMESTAMPS + row * Long.BYTES);
+            long packedChange = buffer.getLong(CHANGES + row * Long.BYTES);
+            if (timestamp >= fromMillis && timestamp < toMillis && packedChange != UNPACKED_CHANGE) {
+                evenCoins += packedChange & LANE_MASK;
+                oddCoins += (packedChange >>> BITS_PER_COIN) & LANE_MASK;
+                coinCounts[LANES * 2] += packedChange >>> LANES * 2 * BITS_PER_COIN;
+            }
+            if ((row + 1) % LANE_FLUSH_ROWS == 0 || row == rows - 1) {
+                for (int lane = 0; lane < LANES; lane++) {
+                    coinCounts[lane * 2] += (evenCoins >>> lane * LANE_BITS) & LANE_SUM_MASK;
+                    coinCounts[lane * 2 + 1] += (oddCoins >>> lane * LANE_BITS) & LANE_SUM_MASK;
+                }
+                evenCoins = 0;
+                oddCoins = 0;
+            }
+        }
+        return coinCounts;
+    }
+
+    private ByteBuffer addChunk() {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.nativeOrder());
+        ByteBuffer[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+        newChunks[chunks.length] = chunk;
+        chunks = newChunks;
+        return chunk;
+    }
+
+    private ByteBuffer chunkOf(long row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("No row " + row + " in history of " + size + " purchases!");
+        }
+        return chunks[(int) (row / ROWS_PER_CHUNK)];
+    }
+
+    private static int rowInChunk(long row) {
+        return (int) (row % ROWS_PER_CHUNK);
+    }
+
+    private static IntStream chunkIndexes(long rowCount) {
+        return IntStream.range(0, (int) ((rowCount + ROWS_PER_CHUNK - 1) / ROWS_PER_CHUNK));
+    }
+
+    private static int rowsInChunk(int chunk, long rowCount) {
+        return (int) Math.min(ROWS_PER_CHUNK, rowCount - (long) chunk * ROWS_PER_CHUNK);
+    }
+
+    private static long[] sum(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    private static int[] countsOf(List<Coin> change) {
+        int[] changeCounts = new int[COINS.length];
+        for (Coin coin : change) {
+            changeCounts[coin.ordinal()]++;
+        }
+        return changeCounts;
+    }
+
+    private static long pack(int[] changeCounts) {
+        long packedChange = 0L;
+        for (int coin = 0; coin < COINS.length; coin++) {
+            int count = changeCounts[coin];
+            if (count < 0 || count > MAX_PACKED_COUNT) {
+                return UNPACKED_CHANGE;
+            }
+            packedChange |= (long) count << coin * BITS_PER_COIN;
+        }
+        return packedChange;
+    }
+
+    private static int unpack(long packedChange, int coin) {
+        return (int) (packedChange >>> coin * BITS_PER_COIN) & MAX_PACKED_COUNT;
+    }
+
+}
@@ -0,0 +1,54 @@
+package tdd.vendingMachine.history;
+
+import tdd.vendingMachine.domain.Money;
+
+/**
+ * Revenue per product id and hour, as computed by {@link PurchaseHistory#getRevenueByProductAndHour(long, long)}.
+ * Hour {@code 0} starts at {@link #getFromMillis()}.
+ */
+public class RevenueReport {
+
+    private final long fromMillis;
+    private final int hourCount;
+    private final long[] revenueInCents;
+
+    RevenueReport(long fromMillis, int hourCount, long[] revenueInCents) {
+        this.fromMillis = fromMillis;
+        this.hourCount = hourCount;
+        this.revenueInCents = revenueInCents;
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public int getHourCount() {
+        return hourCount;
+    }
+
+    public int getProductCount() {
+        return revenueInCents.length / hourCount;
+    }
+
+    public Money getRevenue(int productId, int hour) {
+        if (hour < 0 || hour >= hourCount) {
+            throw new IllegalArgumentException("Hour " + hour + " is out of report range!");
+        }
+        if (productId < 0 || productId >= getProductCount()) {
+            return Money.ZERO;
+        }
+        return Money.ofMinorUnits(revenueInCents[productId * hourCount + hour]);
+    }
+
+    public Money getTotalRevenue(int productId) {
+        if (productId < 0 || productId >= getProductCount()) {
+            return Money.ZERO;
+        }
+        long totalInCents = 0;
+        for (int hour = 0; hour < hourCount; hour++) {
+            totalInCents += revenueInCents[productId * hourCount + hour];
+        }
+        return Money.ofMinorUnits(totalInCents);
+    }
+
+}
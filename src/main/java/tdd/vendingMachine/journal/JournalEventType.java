@@ -0,0 +1,46 @@
+package tdd.vendingMachine.journal;
+
+public enum JournalEventType {
+
+    SHELVE_SELECTED(1),
+    COIN_INSERTED(2),
+    CANCELED(3),
+    PRODUCT_DISPENSED(4),
+    NO_CHANGE_REFUND(5),
+    BATCH_ITEM(6),
+    BATCH_PAYMENT(7),
+    BATCH_CHANGE(8),
+    BATCH_NO_CHANGE_REFUND(9),
+    COMMIT(10),
+    SERVICE_TOP_UP(11),
+    SERVICE_SKIM(12),
+    SERVICE_SWAP(13),
+    PRODUCT_NAME(14),
+    SERVICE_RESTOCK(15);
+
+    private static final JournalEventType[] BY_CODE = new JournalEventType[16];
+
+    static {
+        for (JournalEventType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    JournalEventType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    static JournalEventType ofCode(byte code) {
+        if (code <= 0 || code >= BY_CODE.length) {
+            throw new IllegalStateException("Unknown journal event type " + code + "!");
+        }
+        return BY_CODE[code];
+    }
+
+}
@@ -0,0 +1,58 @@
+package tdd.vendingMachine.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+public class JournalReader {
+
+    private static final int RECORDS_PER_READ = 4096;
+
+    private JournalReader() {
+    }
+
+    public static long read(Path path, Consumer<JournalRecord> recordConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, recordConsumer);
+        }
+    }
+
+    static long read(FileChannel channel, Consumer<JournalRecord> recordConsumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(JournalRecord.SIZE * RECORDS_PER_READ);
+        JournalRecord record = new JournalRecord();
+        long recordCount = 0;
+        long position = 0;
+
+        while (true) {
+            buffer.clear();
+            int bytesRead = readFully(channel, buffer, position);
+            for (int offset = 0; offset + JournalRecord.SIZE <= bytesRead; offset += JournalRecord.SIZE) {
+                if (!record.read(buffer, offset)) {
+                    return recordCount;
+                }
+                recordConsumer.accept(record);
+                recordCount++;
+            }
+            if (bytesRead < buffer.capacity()) {
+                return recordCount;
+            }
+            position += bytesRead;
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int bytesRead = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + bytesRead);
+            if (read < 0) {
+                break;
+            }
+            bytesRead += read;
+        }
+        return bytesRead;
+    }
+
+}
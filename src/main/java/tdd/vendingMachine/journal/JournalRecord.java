@@ -0,0 +1,173 @@
+package tdd.vendingMachine.journal;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One journal event, read from or written to a fixed size binary record:
+ * <pre>
+ * offset  0  byte     event type, written last, zero marks the end of journal
+ * offset  1  byte     inserted coin ordinal
+ * offset  2  short    quantity of batch item, restocked or swapped products
+ * offset  4  int      shelve number
+ * offset  8  long     timestamp in epoch millis
+ * offset 16  short[9] returned, topped up or skimmed coin counts, indexed by coin ordinal
+ * </pre>
+ * A product swap keeps the price in minor units as a long at offset 16 and the UTF-8 length of the product name as
+ * a short at offset 24. The name follows in product name records, which hold 39 bytes of it from offset 1.
+ */
+public class JournalRecord {
+
+    static final int SIZE = 40;
+
+    private static final int COIN_OFFSET = 1;
+    private static final int QUANTITY_OFFSET = 2;
+    private static final int SHELVE_OFFSET = 4;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int COIN_COUNTS_OFFSET = 16;
+    private static final int PRICE_OFFSET = 16;
+    private static final int NAME_LENGTH_OFFSET = 24;
+    private static final int TEXT_OFFSET = 1;
+
+    static final int TEXT_SIZE = SIZE - TEXT_OFFSET;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int MAX_COUNT = 0xFFFF;
+
+    private JournalEventType type;
+    private Coin coin;
+    private int quantity;
+    private int shelveNumber;
+    private long timestamp;
+    private final int[] coinCounts = new int[COINS.length];
+    private long price;
+    private int nameLength;
+    private final byte[] text = new byte[TEXT_SIZE];
+
+    public JournalEventType getType() {
+        return type;
+    }
+
+    public Coin getCoin() {
+        return coin;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getShelveNumber() {
+        return shelveNumber;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int[] getCoinCounts() {
+        return coinCounts;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public int getNameLength() {
+        return nameLength;
+    }
+
+    public byte[] getText() {
+        return text;
+    }
+
+    JournalRecord copy() {
+        JournalRecord copy = new JournalRecord();
+        copy.type = type;
+        copy.coin = coin;
+        copy.quantity = quantity;
+        copy.shelveNumber = shelveNumber;
+        copy.timestamp = timestamp;
+        System.arraycopy(coinCounts, 0, copy.coinCounts, 0, coinCounts.length);
+        copy.price = price;
+        copy.nameLength = nameLength;
+        System.arraycopy(text, 0, copy.text, 0, TEXT_SIZE);
+        return copy;
+    }
+
+    static void checkCount(int count, String counted) {
+        if (count > MAX_COUNT) {
+            throw new IllegalArgumentException("Too many " + counted + " for one journal record!");
+        }
+    }
+
+    static void write(ByteBuffer buffer, int offset, JournalEventType type, int shelveNumber, Coin coin,
+                      int quantity, long timestamp, int[] coinCounts) {
+        checkCount(quantity, "products");
+        for (int i = 0; i < COINS.length; i++) {
+            checkCount(coinCounts[i], COINS[i] + " coins");
+        }
+        buffer.put(offset + COIN_OFFSET, coin == null ? 0 : (byte) coin.ordinal());
+        writeHeader(buffer, offset, shelveNumber, quantity, timestamp);
+        for (int i = 0; i < COINS.length; i++) {
+            buffer.putShort(offset + COIN_COUNTS_OFFSET + 2 * i, (short) coinCounts[i]);
+        }
+        buffer.put(offset, type.getCode());
+    }
+
+    static void writeSwap(ByteBuffer buffer, int offset, int shelveNumber, int quantity, long timestamp, long price,
+                          int nameLength) {
+        checkCount(quantity, "products");
+        checkCount(nameLength, "product name bytes");
+        writeHeader(buffer, offset, shelveNumber, quantity, timestamp);
+        buffer.putLong(offset + PRICE_OFFSET, price);
+        buffer.putShort(offset + NAME_LENGTH_OFFSET, (short) nameLength);
+        buffer.put(offset, JournalEventType.SERVICE_SWAP.getCode());
+    }
+
+    static void writeText(ByteBuffer buffer, int offset, byte[] text, int from) {
+        int length = Math.min(TEXT_SIZE, text.length - from);
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset + TEXT_OFFSET + i, text[from + i]);
+        }
+        buffer.put(offset, JournalEventType.PRODUCT_NAME.getCode());
+    }
+
+    private static void writeHeader(ByteBuffer buffer, int offset, int shelveNumber, int quantity, long timestamp) {
+        buffer.putShort(offset + QUANTITY_OFFSET, (short) quantity);
+        buffer.putInt(offset + SHELVE_OFFSET, shelveNumber);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+    }
+
+    boolean read(ByteBuffer buffer, int offset) {
+        byte code = buffer.get(offset);
+        if (code == 0) {
+            return false;
+        }
+
+        type = JournalEventType.ofCode(code);
+        if (type == JournalEventType.PRODUCT_NAME) {
+            for (int i = 0; i < TEXT_SIZE; i++) {
+                text[i] = buffer.get(offset + TEXT_OFFSET + i);
+            }
+            return true;
+        }
+
+        coin = type == JournalEventType.COIN_INSERTED ? COINS[buffer.get(offset + COIN_OFFSET)] : null;
+        quantity = buffer.getShort(offset + QUANTITY_OFFSET) & MAX_COUNT;
+        shelveNumber = buffer.getInt(offset + SHELVE_OFFSET);
+        timestamp = buffer.getLong(offset + TIMESTAMP_OFFSET);
+        if (type == JournalEventType.SERVICE_SWAP) {
+            price = buffer.getLong(offset + PRICE_OFFSET);
+            nameLength = buffer.getShort(offset + NAME_LENGTH_OFFSET) & MAX_COUNT;
+            Arrays.fill(coinCounts, 0);
+            return true;
+        }
+        for (int i = 0; i < COINS.length; i++) {
+            coinCounts[i] = buffer.getShort(offset + COIN_COUNTS_OFFSET + 2 * i) & MAX_COUNT;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,205 @@
+package tdd.vendingMachine.journal;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rebuilds shelve quantities and cassette coin counts by applying journal events to the machine parts in the state
+ * they were in when the journal was started. A transaction that was still in progress when the journal ends keeps its
+ * product reserved and its coins in the cassette, and is reported in the result. Records of a batch purchase are
+ * applied when its commit record is read, a batch cut off by the end of the journal is skipped. Service visits are
+ * committed the same way.
+ */
+public class JournalReplayer {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final ShelfIndex shelfIndex;
+    private final CoinCassette cassette;
+
+    private final int[] insertedCoins = new int[COINS.length];
+    private final List<JournalRecord> uncommittedRecords = new ArrayList<>();
+    private Shelve openTransactionShelve;
+
+    public JournalReplayer(ShelfIndex shelfIndex, CoinCassette cassette) {
+        this.shelfIndex = shelfIndex;
+        this.cassette = cassette;
+    }
+
+    public Result replay(Path path) throws IOException {
+        long replayedEvents = JournalReader.read(path, this::apply);
+        return new Result(replayedEvents, openTransactionShelve, insertedCoinsAsList());
+    }
+
+    private void apply(JournalRecord record) {
+        switch (record.getType()) {
+            case BATCH_ITEM:
+            case BATCH_PAYMENT:
+            case BATCH_CHANGE:
+            case SERVICE_TOP_UP:
+            case SERVICE_SKIM:
+            case SERVICE_SWAP:
+            case PRODUCT_NAME:
+            case SERVICE_RESTOCK:
+                uncommittedRecords.add(record.copy());
+                return;
+            case COMMIT:
+                for (int i = 0; i < uncommittedRecords.size(); i++) {
+                    JournalRecord committedRecord = uncommittedRecords.get(i);
+                    if (committedRecord.getType() == JournalEventType.SERVICE_SWAP) {
+                        i += swapProduct(committedRecord, i + 1);
+                    } else {
+                        applyCommitted(committedRecord);
+                    }
+                }
+                uncommittedRecords.clear();
+                return;
+            case BATCH_NO_CHANGE_REFUND:
+                return;
+            default:
+                applyShelveEvent(record);
+        }
+    }
+
+    private void applyCommitted(JournalRecord record) {
+        switch (record.getType()) {
+            case BATCH_PAYMENT:
+            case SERVICE_TOP_UP:
+                cassette.putCoins(record.getCoinCounts());
+                break;
+            case BATCH_CHANGE:
+            case SERVICE_SKIM:
+                cassette.takeCoins(record.getCoinCounts());
+                break;
+            default:
+                applyShelveEvent(record);
+        }
+    }
+
+    /**
+     * Swaps the product of the shelve to the one described by the swap record and the product name records starting
+     * at the given index, returns the number of name records.
+     */
+    private int swapProduct(JournalRecord swap, int nameIndex) {
+        byte[] name = new byte[swap.getNameLength()];
+        int nameRecords = 0;
+        for (int from = 0; from < name.length; from += JournalRecord.TEXT_SIZE) {
+            JournalRecord nameRecord = uncommittedRecords.get(nameIndex + nameRecords++);
+            System.arraycopy(nameRecord.getText(), 0, name, from,
+                Math.min(JournalRecord.TEXT_SIZE, name.length - from));
+        }
+
+        Product product = new Product(new String(name, StandardCharsets.UTF_8), Money.ofMinorUnits(swap.getPrice()));
+        shelveOf(swap).swapProduct(product, swap.getQuantity());
+        return nameRecords;
+    }
+
+    private void applyShelveEvent(JournalRecord record) {
+        Shelve shelve = shelveOf(record);
+
+        switch (record.getType()) {
+            case SHELVE_SELECTED:
+                if (!shelve.reserveProduct()) {
+                    throw new IllegalStateException("Journal reserves product not available on shelve "
+                        + shelve.getNumber() + "!");
+                }
+                openTransactionShelve = shelve;
+                Arrays.fill(insertedCoins, 0);
+                break;
+            case COIN_INSERTED:
+                insertedCoins[record.getCoin().ordinal()]++;
+                cassette.putCoins(single(record.getCoin()));
+                break;
+            case CANCELED:
+            case NO_CHANGE_REFUND:
+                cassette.takeCoins(record.getCoinCounts());
+                shelve.cancelReservation();
+                openTransactionShelve = null;
+                break;
+            case PRODUCT_DISPENSED:
+                cassette.takeCoins(record.getCoinCounts());
+                openTransactionShelve = null;
+                break;
+            case BATCH_ITEM:
+                if (!shelve.reserveProducts(record.getQuantity())) {
+                    throw new IllegalStateException("Journal sells more products than shelve "
+                        + shelve.getNumber() + " has!");
+                }
+                break;
+            case SERVICE_RESTOCK:
+                shelve.restock(record.getQuantity());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported journal event " + record.getType() + "!");
+        }
+    }
+
+    private Shelve shelveOf(JournalRecord record) {
+        return shelfIndex.findShelve(record.getShelveNumber())
+            .orElseThrow(() -> new IllegalStateException("Journal refers to unknown shelve "
+                + record.getShelveNumber() + "!"));
+    }
+
+    private static int[] single(Coin coin) {
+        int[] coinCounts = new int[COINS.length];
+        coinCounts[coin.ordinal()] = 1;
+        return coinCounts;
+    }
+
+    private List<Coin> insertedCoinsAsList() {
+        if (openTransactionShelve == null) {
+            return Collections.emptyList();
+        }
+
+        List<Coin> coins = new ArrayList<>();
+        for (Coin coin : COINS) {
+            for (int count = insertedCoins[coin.ordinal()]; count > 0; count--) {
+                coins.add(coin);
+            }
+        }
+        return coins;
+    }
+
+    public static class Result {
+
+        private final long replayedEvents;
+        private final Shelve openTransactionShelve;
+        private final List<Coin> openTransactionCoins;
+
+        Result(long replayedEvents, Shelve openTransactionShelve, List<Coin> openTransactionCoins) {
+            this.replayedEvents = replayedEvents;
+            this.openTransactionShelve = openTransactionShelve;
+            this.openTransactionCoins = openTransactionCoins;
+        }
+
+        public long getReplayedEvents() {
+            return replayedEvents;
+        }
+
+        public boolean hasOpenTransaction() {
+            return openTransactionShelve != null;
+        }
+
+        public Shelve getOpenTransactionShelve() {
+            return openTransactionShelve;
+        }
+
+        public List<Coin> getOpenTransactionCoins() {
+            return openTransactionCoins;
+        }
+
+    }
+
+}
@@ -0,0 +1,267 @@
+package tdd.vendingMachine.journal;
+
+import tdd.vendingMachine.domain.Basket;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.event.VendingMachineListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of vending machine events, backed by a memory-mapped file. Appending is a few writes to
+ * mapped memory; a background thread group-commits everything appended since its last round with one
+ * {@link MappedByteBuffer#force()}. The file grows by mapping consecutive chunks and reopening the journal
+ * continues after the last complete record. Events written as several records, like batch purchases and service
+ * visits, end with a {@link JournalEventType#COMMIT} record, so replaying never applies half of them.
+ */
+public class TransactionJournal implements VendingMachineListener, Closeable {
+
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final long CHUNK_SIZE = (long) JournalRecord.SIZE * RECORDS_PER_CHUNK;
+    private static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int[] NO_COINS = new int[COINS.length];
+
+    private final FileChannel channel;
+    private final long commitIntervalNanos;
+    private final Thread committer;
+
+    private final int[] coinCounts = new int[COINS.length];
+
+    private volatile MappedByteBuffer chunk;
+    private long chunkIndex;
+    private int recordInChunk;
+
+    private volatile long appendedRecords;
+    private final AtomicLong committedRecords = new AtomicLong();
+    private volatile boolean open = true;
+
+    public TransactionJournal(Path path) throws IOException {
+        this(path, DEFAULT_COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public TransactionJournal(Path path, long commitInterval, TimeUnit unit) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        this.commitIntervalNanos = unit.toNanos(commitInterval);
+
+        long existingRecords = JournalReader.read(channel, record -> { });
+        this.appendedRecords = existingRecords;
+        this.committedRecords.set(existingRecords);
+        this.chunkIndex = existingRecords / RECORDS_PER_CHUNK;
+        this.recordInChunk = (int) (existingRecords % RECORDS_PER_CHUNK);
+        this.chunk = mapChunk(chunkIndex);
+
+        this.committer = new Thread(this::commitPeriodically, "transaction-journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    @Override
+    public void onShelveSelected(Shelve shelve) {
+        append(JournalEventType.SHELVE_SELECTED, shelve.getNumber(), null, NO_COINS);
+    }
+
+    @Override
+    public void onCoinInserted(Shelve shelve, Coin coin) {
+        append(JournalEventType.COIN_INSERTED, shelve.getNumber(), coin, NO_COINS);
+    }
+
+    @Override
+    public synchronized void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+        append(JournalEventType.CANCELED, shelve.getNumber(), null, countCoins(returnedCoins));
+    }
+
+    @Override
+    public synchronized void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+        append(JournalEventType.PRODUCT_DISPENSED, shelve.getNumber(), null, countCoins(change));
+    }
+
+    @Override
+    public synchronized void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+        append(JournalEventType.NO_CHANGE_REFUND, shelve.getNumber(), null, countCoins(returnedCoins));
+    }
+
+    @Override
+    public synchronized void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+        Basket basket = purchase.getBasket();
+        for (int i = 0; i < basket.size(); i++) {
+            JournalRecord.checkCount(basket.getQuantity(i), "products");
+        }
+        JournalRecord.checkCount(payment.size(), "coins");
+
+        for (int i = 0; i < basket.size(); i++) {
+            append(JournalEventType.BATCH_ITEM, basket.getShelve(i).getNumber(), null, basket.getQuantity(i),
+                NO_COINS);
+        }
+        append(JournalEventType.BATCH_PAYMENT, 0, null, 0, countCoins(payment));
+        append(JournalEventType.BATCH_CHANGE, 0, null, 0, countCoins(purchase.getChange()));
+        append(JournalEventType.COMMIT, 0, null, NO_COINS);
+    }
+
+    @Override
+    public synchronized void onServiced(ServiceVisit visit) {
+        int[] toppedUpCoins = new int[COINS.length];
+        int[] skimmedCoins = new int[COINS.length];
+        boolean toppedUp = false;
+        boolean skimmed = false;
+        for (Coin coin : COINS) {
+            int change = visit.getCoinCountChange(coin);
+            JournalRecord.checkCount(Math.abs(change), coin + " coins");
+            toppedUpCoins[coin.ordinal()] = Math.max(change, 0);
+            skimmedCoins[coin.ordinal()] = Math.max(-change, 0);
+            toppedUp |= change > 0;
+            skimmed |= change < 0;
+        }
+        for (int shelveNumber : visit.getShelveNumbers()) {
+            JournalRecord.checkCount(visit.getSwappedQuantity(shelveNumber), "products");
+            JournalRecord.checkCount(visit.getRestockedQuantity(shelveNumber), "products");
+        }
+
+        if (toppedUp) {
+            append(JournalEventType.SERVICE_TOP_UP, 0, null, toppedUpCoins);
+        }
+        if (skimmed) {
+            append(JournalEventType.SERVICE_SKIM, 0, null, skimmedCoins);
+        }
+        for (int shelveNumber : visit.getShelveNumbers()) {
+            if (visit.swapsProductOf(shelveNumber)) {
+                appendSwap(shelveNumber, visit.getSwappedProduct(shelveNumber),
+                    visit.getSwappedQuantity(shelveNumber));
+            }
+        }
+        for (int shelveNumber : visit.getShelveNumbers()) {
+            int restockedQuantity = visit.getRestockedQuantity(shelveNumber);
+            if (restockedQuantity > 0) {
+                append(JournalEventType.SERVICE_RESTOCK, shelveNumber, null, restockedQuantity, NO_COINS);
+            }
+        }
+        append(JournalEventType.COMMIT, 0, null, NO_COINS);
+    }
+
+    @Override
+    public synchronized void onBatchNoChangeRefund(BatchPurchase purchase, List<Coin> payment) {
+        append(JournalEventType.BATCH_NO_CHANGE_REFUND, 0, null, countCoins(payment));
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords;
+    }
+
+    public long getCommittedRecords() {
+        return committedRecords.get();
+    }
+
+    public void commit() {
+        long records = appendedRecords;
+        chunk.force();
+        committedRecords.accumulateAndGet(records, Math::max);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+        }
+
+        LockSupport.unpark(committer);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        channel.close();
+    }
+
+    private void append(JournalEventType type, int shelveNumber, Coin coin, int[] coinCounts) {
+        append(type, shelveNumber, coin, 0, coinCounts);
+    }
+
+    private synchronized void append(JournalEventType type, int shelveNumber, Coin coin, int quantity,
+                                     int[] coinCounts) {
+        JournalRecord.write(chunk, nextRecordOffset(), type, shelveNumber, coin, quantity,
+            System.currentTimeMillis(), coinCounts);
+        recordAppended();
+    }
+
+    private void appendSwap(int shelveNumber, Product product, int quantity) {
+        byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+        JournalRecord.writeSwap(chunk, nextRecordOffset(), shelveNumber, quantity, System.currentTimeMillis(),
+            product.getPriceAmount().getMinorUnits(), name.length);
+        recordAppended();
+        for (int from = 0; from < name.length; from += JournalRecord.TEXT_SIZE) {
+            JournalRecord.writeText(chunk, nextRecordOffset(), name, from);
+            recordAppended();
+        }
+    }
+
+    private int nextRecordOffset() {
+        if (!open) {
+            throw new IllegalStateException("Journal closed!");
+        }
+        if (recordInChunk == RECORDS_PER_CHUNK) {
+            moveToNextChunk();
+        }
+        return recordInChunk * JournalRecord.SIZE;
+    }
+
+    private void recordAppended() {
+        recordInChunk++;
+        appendedRecords++;
+    }
+
+    /**
+     * Counts coins into the shared counts array, so callers must hold the journal lock until the counts are written.
+     */
+    private int[] countCoins(List<Coin> coins) {
+        Arrays.fill(coinCounts, 0);
+        for (Coin coin : coins) {
+            coinCounts[coin.ordinal()]++;
+        }
+        return coinCounts;
+    }
+
+    private void moveToNextChunk() {
+        chunk.force();
+        try {
+            chunk = mapChunk(++chunkIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recordInChunk = 0;
+    }
+
+    private MappedByteBuffer mapChunk(long index) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, index * CHUNK_SIZE, CHUNK_SIZE);
+    }
+
+    private void commitPeriodically() {
+        while (open) {
+            LockSupport.parkNanos(this, commitIntervalNanos);
+            if (open && appendedRecords != committedRecords.get()) {
+                commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package tdd.vendingMachine.maintenance;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes restock manifests read by {@link ManifestImporter#importBinary(java.io.InputStream)}. After a header each
+ * line is an operation code, machine id, target shelve number or coin ordinal and count, followed by product name
+ * and price in cents for swaps. Lines of one visit have to be written one after another.
+ */
+public class BinaryManifestWriter implements Closeable {
+
+    private final DataOutputStream output;
+
+    public BinaryManifestWriter(OutputStream outputStream) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(ManifestImporter.MAGIC);
+        output.writeShort(ManifestImporter.VERSION);
+    }
+
+    public BinaryManifestWriter restock(int machineId, int shelveNumber, int addedQuantity) throws IOException {
+        writeLine(ManifestOperation.RESTOCK, machineId, shelveNumber, addedQuantity);
+        return this;
+    }
+
+    public BinaryManifestWriter swapProduct(int machineId, int shelveNumber, Product product, int quantity)
+        throws IOException {
+
+        writeLine(ManifestOperation.SWAP, machineId, shelveNumber, quantity);
+        output.writeUTF(product.getName());
+        output.writeLong(product.getPriceAmount().getMinorUnits());
+        return this;
+    }
+
+    public BinaryManifestWriter topUp(int machineId, Coin coin, int count) throws IOException {
+        writeLine(ManifestOperation.TOP_UP, machineId, coin.ordinal(), count);
+        return this;
+    }
+
+    public BinaryManifestWriter skim(int machineId, Coin coin, int count) throws IOException {
+        writeLine(ManifestOperation.SKIM, machineId, coin.ordinal(), count);
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    private void writeLine(ManifestOperation operation, int machineId, int target, int count) throws IOException {
+        output.writeByte(operation.getCode());
+        output.writeInt(machineId);
+        output.writeInt(target);
+        output.writeInt(count);
+    }
+
+}
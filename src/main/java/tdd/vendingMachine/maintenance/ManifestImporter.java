@@ -0,0 +1,200 @@
+package tdd.vendingMachine.maintenance;
+
+import tdd.vendingMachine.ServiceableMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.state.MachineState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Applies restock manifests of a whole fleet, one service visit per run of lines of the same machine. Manifests are
+ * read as streams, so only the visit being read is held in memory. CSV manifests look like
+ * <pre>
+ * # machine,operation,target,count[,product name,price]
+ * 1001,restock,3,12
+ * 1001,swap,4,10,mineral water,1.90
+ * 1001,top-up,TWO_DOLLARS,20
+ * 1001,skim,FIVE_DOLLARS,4
+ * </pre>
+ * and binary ones hold the same lines as written by {@link BinaryManifestWriter}. A machine on sale gets a maintenance
+ * window around its visit and goes back on sale afterwards, one already in maintenance is serviced and left there. A
+ * visit that can't be applied, e.g. to an unknown machine or shelve or to a machine in a transaction or out of
+ * service, is skipped and reported in the result; a malformed manifest stops the import.
+ */
+public class ManifestImporter {
+
+    static final int MAGIC = 0x564D524D;
+    static final short VERSION = 1;
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final IntFunction<? extends ServiceableMachine> machines;
+
+    public ManifestImporter(IntFunction<? extends ServiceableMachine> machines) {
+        this.machines = machines;
+    }
+
+    public Result importCsv(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        VisitCollector visits = new VisitCollector();
+
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            try {
+                String[] fields = line.split(",", -1);
+                ManifestOperation operation = ManifestOperation.ofName(fields[1]);
+                int expectedFieldCount = operation == ManifestOperation.SWAP ? 6 : 4;
+                if (fields.length != expectedFieldCount) {
+                    throw new IllegalArgumentException("Expected " + expectedFieldCount + " fields!");
+                }
+
+                int target = operation.isCoinOperation()
+                    ? Coin.valueOf(fields[2]).ordinal()
+                    : Integer.parseInt(fields[2]);
+                Product product = operation == ManifestOperation.SWAP ? new Product(fields[4], fields[5]) : null;
+                visits.add(Integer.parseInt(fields[0]), operation, target, Integer.parseInt(fields[3]), product);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed manifest line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return visits.finish();
+    }
+
+    public Result importBinary(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a restock manifest!");
+        }
+        short version = input.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported manifest version " + version + "!");
+        }
+
+        VisitCollector visits = new VisitCollector();
+        long recordNumber = 0;
+        int code;
+        while ((code = input.read()) >= 0) {
+            recordNumber++;
+            int machineId = input.readInt();
+            int target = input.readInt();
+            int count = input.readInt();
+
+            try {
+                ManifestOperation operation = ManifestOperation.ofCode((byte) code);
+                if (operation.isCoinOperation() && (target < 0 || target >= COINS.length)) {
+                    throw new IllegalArgumentException("Invalid coin " + target + "!");
+                }
+                Product product = operation == ManifestOperation.SWAP
+                    ? new Product(input.readUTF(), Money.ofMinorUnits(input.readLong()))
+                    : null;
+                visits.add(machineId, operation, target, count, product);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed manifest record " + recordNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return visits.finish();
+    }
+
+    public static class Result {
+
+        private final int appliedVisits;
+        private final List<String> rejections;
+
+        private Result(int appliedVisits, List<String> rejections) {
+            this.appliedVisits = appliedVisits;
+            this.rejections = Collections.unmodifiableList(rejections);
+        }
+
+        public int getAppliedVisits() {
+            return appliedVisits;
+        }
+
+        public int getRejectedVisits() {
+            return rejections.size();
+        }
+
+        /**
+         * Reasons of skipped visits, each starting with the machine id.
+         */
+        public List<String> getRejections() {
+            return rejections;
+        }
+
+    }
+
+    private class VisitCollector {
+
+        private final List<String> rejections = new ArrayList<>();
+        private int appliedVisits;
+
+        private int machineId;
+        private ServiceVisit visit;
+
+        void add(int machineId, ManifestOperation operation, int target, int count, Product product) {
+            if (visit != null && machineId != this.machineId) {
+                apply();
+            }
+            if (visit == null) {
+                this.machineId = machineId;
+                this.visit = new ServiceVisit();
+            }
+            operation.addTo(visit, target, count, product);
+        }
+
+        Result finish() {
+            if (visit != null) {
+                apply();
+            }
+            return new Result(appliedVisits, rejections);
+        }
+
+        private void apply() {
+            ServiceableMachine machine = machines.apply(machineId);
+            try {
+                if (machine == null) {
+                    rejections.add("Machine " + machineId + " is unknown!");
+                } else {
+                    service(machine);
+                    appliedVisits++;
+                }
+            } catch (InvalidShelveException | IllegalArgumentException | IllegalStateException e) {
+                rejections.add("Machine " + machineId + ": " + e.getMessage());
+            }
+            visit = null;
+        }
+
+        private void service(ServiceableMachine machine) throws InvalidShelveException {
+            if (machine.getMachineState() != MachineState.SELECTING_PRODUCT) {
+                machine.service(visit);
+                return;
+            }
+            machine.startMaintenance();
+            try {
+                machine.service(visit);
+            } finally {
+                machine.finishMaintenance();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package tdd.vendingMachine.maintenance;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+
+/**
+ * Kinds of manifest lines, named as in CSV manifests and coded as in binary ones.
+ */
+enum ManifestOperation {
+
+    RESTOCK("restock", 1),
+    SWAP("swap", 2),
+    TOP_UP("top-up", 3),
+    SKIM("skim", 4);
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final String name;
+    private final byte code;
+
+    ManifestOperation(String name, int code) {
+        this.name = name;
+        this.code = (byte) code;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    boolean isCoinOperation() {
+        return this == TOP_UP || this == SKIM;
+    }
+
+    /**
+     * Target is a shelve number or a coin ordinal, product is given only for swaps.
+     */
+    void addTo(ServiceVisit visit, int target, int count, Product product) {
+        switch (this) {
+            case RESTOCK:
+                visit.restock(target, count);
+                break;
+            case SWAP:
+                visit.swapProduct(target, product, count);
+                break;
+            case TOP_UP:
+                visit.topUp(COINS[target], count);
+                break;
+            default:
+                visit.skim(COINS[target], count);
+        }
+    }
+
+    static ManifestOperation ofName(String name) {
+        for (ManifestOperation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + name + "!");
+    }
+
+    static ManifestOperation ofCode(byte code) {
+        for (ManifestOperation operation : values()) {
+            if (operation.code == code) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation code " + code + "!");
+    }
+
+}
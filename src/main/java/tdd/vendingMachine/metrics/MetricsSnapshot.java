@@ -0,0 +1,101 @@
+package tdd.vendingMachine.metrics;
+
+import tdd.vendingMachine.domain.Coin;
+
+public class MetricsSnapshot {
+
+    private final int[] shelveNumbers;
+    private final long[] purchases;
+    private final long[] acceptedCoins;
+    private final long[] rejectedCoins;
+    private final long noChangeRefunds;
+    private final long cancels;
+    private final LatencyHistogram.Snapshot changeSearchLatency;
+    private final long changeCacheHits;
+    private final long changeCacheMisses;
+
+    MetricsSnapshot(int[] shelveNumbers, long[] purchases, long[] acceptedCoins, long[] rejectedCoins,
+                    long noChangeRefunds, long cancels, LatencyHistogram.Snapshot changeSearchLatency,
+                    long changeCacheHits, long changeCacheMisses) {
+        this.shelveNumbers = shelveNumbers;
+        this.purchases = purchases;
+        this.acceptedCoins = acceptedCoins;
+        this.rejectedCoins = rejectedCoins;
+        this.noChangeRefunds = noChangeRefunds;
+        this.cancels = cancels;
+        this.changeSearchLatency = changeSearchLatency;
+        this.changeCacheHits = changeCacheHits;
+        this.changeCacheMisses = changeCacheMisses;
+    }
+
+    public int getShelveCount() {
+        return shelveNumbers.length;
+    }
+
+    public int getShelveNumber(int position) {
+        return shelveNumbers[position];
+    }
+
+    public long getPurchases(int position) {
+        return purchases[position];
+    }
+
+    public long getTotalPurchases() {
+        long total = 0;
+        for (long shelvePurchases : purchases) {
+            total += shelvePurchases;
+        }
+        return total;
+    }
+
+    public long getAcceptedCoins(Coin coin) {
+        return acceptedCoins[coin.ordinal()];
+    }
+
+    public long getRejectedCoins(Coin coin) {
+        return rejectedCoins[coin.ordinal()];
+    }
+
+    public long getNoChangeRefunds() {
+        return noChangeRefunds;
+    }
+
+    public long getCancels() {
+        return cancels;
+    }
+
+    public long getFinishedTransactions() {
+        return getTotalPurchases() + noChangeRefunds + cancels;
+    }
+
+    public double getNoChangeRefundRate() {
+        return rateOf(noChangeRefunds);
+    }
+
+    public double getCancelRate() {
+        return rateOf(cancels);
+    }
+
+    public LatencyHistogram.Snapshot getChangeSearchLatency() {
+        return changeSearchLatency;
+    }
+
+    public long getChangeCacheHits() {
+        return changeCacheHits;
+    }
+
+    public long getChangeCacheMisses() {
+        return changeCacheMisses;
+    }
+
+    public double getChangeCacheHitRate() {
+        long lookups = changeCacheHits + changeCacheMisses;
+        return lookups == 0 ? 0 : (double) changeCacheHits / lookups;
+    }
+
+    private double rateOf(long transactions) {
+        long finishedTransactions = getFinishedTransactions();
+        return finishedTransactions == 0 ? 0 : (double) transactions / finishedTransactions;
+    }
+
+}
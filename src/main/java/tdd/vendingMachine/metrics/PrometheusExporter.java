@@ -0,0 +1,106 @@
+package tdd.vendingMachine.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import tdd.vendingMachine.domain.Coin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Serves metrics in the Prometheus text format at {@code /metrics}, on a loopback port.
+ */
+public class PrometheusExporter implements Closeable {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final HttpServer server;
+
+    public PrometheusExporter(VendingMetrics metrics, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", exchange -> {
+            byte[] body = format(metrics.snapshot()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        this.server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public static String format(MetricsSnapshot snapshot) {
+        StringBuilder text = new StringBuilder();
+
+        header(text, "vending_purchases_total", "counter", "Products sold, per shelve.");
+        for (int position = 0; position < snapshot.getShelveCount(); position++) {
+            sample(text, "vending_purchases_total", "shelve", String.valueOf(snapshot.getShelveNumber(position)),
+                snapshot.getPurchases(position));
+        }
+
+        header(text, "vending_coins_accepted_total", "counter", "Coins accepted, per coin.");
+        for (Coin coin : Coin.values()) {
+            sample(text, "vending_coins_accepted_total", "coin", coin.name(), snapshot.getAcceptedCoins(coin));
+        }
+        header(text, "vending_coins_rejected_total", "counter", "Coins rejected, per coin.");
+        for (Coin coin : Coin.values()) {
+            sample(text, "vending_coins_rejected_total", "coin", coin.name(), snapshot.getRejectedCoins(coin));
+        }
+
+        header(text, "vending_transactions_total", "counter", "Finished transactions, per outcome.");
+        sample(text, "vending_transactions_total", "outcome", "purchase", snapshot.getTotalPurchases());
+        sample(text, "vending_transactions_total", "outcome", "no_change_refund", snapshot.getNoChangeRefunds());
+        sample(text, "vending_transactions_total", "outcome", "cancel", snapshot.getCancels());
+
+        header(text, "vending_no_change_refund_ratio", "gauge", "Share of transactions refunded for lack of change.");
+        text.append("vending_no_change_refund_ratio ").append(snapshot.getNoChangeRefundRate()).append('\n');
+        header(text, "vending_cancel_ratio", "gauge", "Share of transactions canceled by customers.");
+        text.append("vending_cancel_ratio ").append(snapshot.getCancelRate()).append('\n');
+
+        LatencyHistogram.Snapshot latency = snapshot.getChangeSearchLatency();
+        header(text, "vending_change_search_seconds", "summary", "Time spent searching for change.");
+        for (double quantile : QUANTILES) {
+            sample(text, "vending_change_search_seconds", "quantile", String.valueOf(quantile),
+                seconds(latency.getValueAtQuantile(quantile)));
+        }
+        text.append("vending_change_search_seconds_sum ").append(seconds(latency.getSum())).append('\n');
+        text.append("vending_change_search_seconds_count ").append(latency.getCount()).append('\n');
+
+        header(text, "vending_change_cache_lookups_total", "counter", "Change plan cache lookups, per result.");
+        sample(text, "vending_change_cache_lookups_total", "result", "hit", snapshot.getChangeCacheHits());
+        sample(text, "vending_change_cache_lookups_total", "result", "miss", snapshot.getChangeCacheMisses());
+        header(text, "vending_change_cache_hit_ratio", "gauge", "Share of change plan cache lookups that hit.");
+        text.append("vending_change_cache_hit_ratio ").append(snapshot.getChangeCacheHitRate()).append('\n');
+
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String label, String labelValue, Object value) {
+        text.append(name).append('{').append(label).append("=\"").append(labelValue).append("\"} ")
+            .append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_PER_SECOND);
+    }
+
+}
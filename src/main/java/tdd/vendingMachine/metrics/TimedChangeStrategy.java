@@ -0,0 +1,38 @@
+package tdd.vendingMachine.metrics;
+
+import tdd.vendingMachine.change.ChangeStrategy;
+
+/**
+ * Records how long change search of the decorated strategy takes.
+ */
+public class TimedChangeStrategy implements ChangeStrategy {
+
+    private final ChangeStrategy changeStrategy;
+    private final LatencyHistogram latencies;
+
+    public TimedChangeStrategy(ChangeStrategy changeStrategy, LatencyHistogram latencies) {
+        this.changeStrategy = changeStrategy;
+        this.latencies = latencies;
+    }
+
+    @Override
+    public boolean findChange(int amountInCents, int[] availableCoins, int[] change) {
+        long start = System.nanoTime();
+        try {
+            return changeStrategy.findChange(amountInCents, availableCoins, change);
+        } finally {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean findRefund(int amountInCents, int[] availableCoins, int[] refund) {
+        long start = System.nanoTime();
+        try {
+            return changeStrategy.findRefund(amountInCents, availableCoins, refund);
+        } finally {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package tdd.vendingMachine.metrics;
+
+import tdd.vendingMachine.change.CachingChangeStrategy;
+import tdd.vendingMachine.domain.Basket;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.event.VendingMachineListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one vending machine, fed by its events. Counters are {@link LongAdder}s indexed by shelve position and
+ * coin ordinal, so updating them neither allocates nor locks. Change search latency is recorded by wrapping the
+ * cassette change strategy in a {@link TimedChangeStrategy} using {@link #getChangeSearchLatency()}; hits and misses of
+ * a {@link CachingChangeStrategy} are exported once it is registered with {@link #registerChangeCache}.
+ */
+public class VendingMetrics implements VendingMachineListener {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final ShelfIndex shelfIndex;
+    private final LongAdder[] purchases;
+    private final LongAdder[] acceptedCoins = newAdders(COINS.length);
+    private final LongAdder[] rejectedCoins = newAdders(COINS.length);
+    private final LongAdder noChangeRefunds = new LongAdder();
+    private final LongAdder cancels = new LongAdder();
+    private final LatencyHistogram changeSearchLatency = new LatencyHistogram();
+
+    private volatile CachingChangeStrategy changeCache;
+
+    public VendingMetrics(ShelfIndex shelfIndex) {
+        this.shelfIndex = shelfIndex;
+        this.purchases = newAdders(shelfIndex.size());
+    }
+
+    public LatencyHistogram getChangeSearchLatency() {
+        return changeSearchLatency;
+    }
+
+    public void registerChangeCache(CachingChangeStrategy changeCache) {
+        this.changeCache = changeCache;
+    }
+
+    @Override
+    public void onCoinInserted(Shelve shelve, Coin coin) {
+        acceptedCoins[coin.ordinal()].increment();
+    }
+
+    @Override
+    public void onCoinRejected(Shelve shelve, Coin coin) {
+        rejectedCoins[coin.ordinal()].increment();
+    }
+
+    @Override
+    public void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+        cancels.increment();
+    }
+
+    @Override
+    public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+        purchases[shelfIndex.positionOf(shelve.getNumber())].increment();
+    }
+
+    @Override
+    public void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+        noChangeRefunds.increment();
+    }
+
+    @Override
+    public void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+        Basket basket = purchase.getBasket();
+        for (int i = 0; i < basket.size(); i++) {
+            purchases[shelfIndex.positionOf(basket.getShelve(i).getNumber())].add(basket.getQuantity(i));
+        }
+        for (Coin coin : payment) {
+            acceptedCoins[coin.ordinal()].increment();
+        }
+    }
+
+    @Override
+    public void onBatchNoChangeRefund(BatchPurchase purchase, List<Coin> payment) {
+        for (Coin coin : payment) {
+            acceptedCoins[coin.ordinal()].increment();
+        }
+        noChangeRefunds.increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        int[] shelveNumbers = new int[purchases.length];
+        long[] purchaseCounts = new long[purchases.length];
+        for (int position = 0; position < purchases.length; position++) {
+            shelveNumbers[position] = shelfIndex.getShelve(position).getNumber();
+            purchaseCounts[position] = purchases[position].sum();
+        }
+
+        long[] acceptedCoinCounts = new long[COINS.length];
+        long[] rejectedCoinCounts = new long[COINS.length];
+        for (int i = 0; i < COINS.length; i++) {
+            acceptedCoinCounts[i] = acceptedCoins[i].sum();
+            rejectedCoinCounts[i] = rejectedCoins[i].sum();
+        }
+
+        CachingChangeStrategy cache = changeCache;
+        return new MetricsSnapshot(shelveNumbers, purchaseCounts, acceptedCoinCounts, rejectedCoinCounts,
+            noChangeRefunds.sum(), cancels.sum(), changeSearchLatency.snapshot(),
+            cache == null ? 0 : cache.getHitCount(), cache == null ? 0 : cache.getMissCount());
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+}
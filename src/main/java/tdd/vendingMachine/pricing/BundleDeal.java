@@ -0,0 +1,35 @@
+package tdd.vendingMachine.pricing;
+
+import tdd.vendingMachine.domain.Money;
+
+/**
+ * Discount for buying products of two shelves together in one basket.
+ */
+public class BundleDeal {
+
+    private final int firstShelveNumber;
+    private final int secondShelveNumber;
+    private final Money discount;
+
+    public BundleDeal(int firstShelveNumber, int secondShelveNumber, Money discount) {
+        if (firstShelveNumber == secondShelveNumber) {
+            throw new IllegalArgumentException("Bundle needs two different shelves!");
+        }
+        this.firstShelveNumber = firstShelveNumber;
+        this.secondShelveNumber = secondShelveNumber;
+        this.discount = discount;
+    }
+
+    public int getFirstShelveNumber() {
+        return firstShelveNumber;
+    }
+
+    public int getSecondShelveNumber() {
+        return secondShelveNumber;
+    }
+
+    public Money getDiscount() {
+        return discount;
+    }
+
+}
@@ -0,0 +1,158 @@
+package tdd.vendingMachine.pricing;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.PriceBoard;
+import tdd.vendingMachine.domain.PriceTable;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.event.VendingMachineListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles pricing rules of one machine into a price table for every stretch of time between rule changes, a day
+ * ahead, and publishes the table in force on the machine's price board. Rules are evaluated only here, so selecting
+ * shelves and inserting coins just read the published table. Rules apply in the given order; swapping products
+ * recompiles the tables right away.
+ */
+public class PricingEngine implements VendingMachineListener {
+
+    private static final Duration HORIZON = Duration.ofDays(1);
+
+    private final ShelfIndex shelfIndex;
+    private final PriceBoard priceBoard;
+    private final List<PricingRule> rules;
+    private final List<BundleDeal> bundles;
+    private final Clock clock;
+
+    private LocalDateTime[] changeTimes;
+    private PriceTable[] tables;
+    private LocalDateTime compiledUntil;
+
+    private PricingEngine(BasicVendingMachine vendingMachine, List<PricingRule> rules, List<BundleDeal> bundles,
+                          Clock clock) {
+        this.shelfIndex = vendingMachine.getShelfIndex();
+        this.priceBoard = vendingMachine.getTransaction().getPriceBoard();
+        this.rules = new ArrayList<>(rules);
+        this.bundles = new ArrayList<>(bundles);
+        this.clock = clock;
+
+        for (BundleDeal bundle : bundles) {
+            checkShelve(bundle.getFirstShelveNumber());
+            checkShelve(bundle.getSecondShelveNumber());
+        }
+    }
+
+    /**
+     * Publishes prices in force now and recompiles them whenever products are swapped. Has to be called from the thread
+     * running transactions of the machine.
+     */
+    public static PricingEngine attach(BasicVendingMachine vendingMachine, List<PricingRule> rules,
+                                       List<BundleDeal> bundles, Clock clock) {
+        PricingEngine engine = new PricingEngine(vendingMachine, rules, bundles, clock);
+        engine.refresh();
+        vendingMachine.addListener(engine);
+        return engine;
+    }
+
+    /**
+     * Publishes the table in force now, compiling the next day of tables first if the compiled ones are used up.
+     */
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (tables == null || !now.isBefore(compiledUntil) || now.isBefore(changeTimes[0])) {
+            compile(now);
+        }
+
+        int index = Arrays.binarySearch(changeTimes, now);
+        PriceTable table = tables[index >= 0 ? index : -index - 2];
+        if (priceBoard.current() != table) {
+            priceBoard.publish(table);
+        }
+    }
+
+    public synchronized LocalDateTime getNextChangeTime() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (LocalDateTime changeTime : changeTimes) {
+            if (changeTime.isAfter(now)) {
+                return changeTime;
+            }
+        }
+        return compiledUntil;
+    }
+
+    /**
+     * Refreshes prices now and then at every change time, until the executor is shut down.
+     */
+    public void schedule(ScheduledExecutorService executor) {
+        executor.execute(() -> {
+            refresh();
+            long delay = Duration.between(LocalDateTime.now(clock), getNextChangeTime()).toNanos();
+            executor.schedule(() -> schedule(executor), Math.max(delay, 0), TimeUnit.NANOSECONDS);
+        });
+    }
+
+    @Override
+    public synchronized void onServiced(ServiceVisit visit) {
+        if (visit.hasProductSwaps()) {
+            tables = null;
+            refresh();
+        }
+    }
+
+    private void compile(LocalDateTime from) {
+        LocalDateTime to = from.plus(HORIZON);
+        NavigableSet<LocalDateTime> times = new TreeSet<>();
+        times.add(from);
+        for (PricingRule rule : rules) {
+            rule.addChangeTimes(from, to, times);
+        }
+
+        int[] bundleFirstPositions = new int[bundles.size()];
+        int[] bundleSecondPositions = new int[bundles.size()];
+        long[] bundleDiscounts = new long[bundles.size()];
+        for (int i = 0; i < bundles.size(); i++) {
+            BundleDeal bundle = bundles.get(i);
+            bundleFirstPositions[i] = shelfIndex.positionOf(bundle.getFirstShelveNumber());
+            bundleSecondPositions[i] = shelfIndex.positionOf(bundle.getSecondShelveNumber());
+            bundleDiscounts[i] = bundle.getDiscount().getMinorUnits();
+        }
+
+        changeTimes = times.toArray(new LocalDateTime[0]);
+        tables = new PriceTable[changeTimes.length];
+        long[] prices = new long[shelfIndex.size()];
+        for (int i = 0; i < changeTimes.length; i++) {
+            for (int position = 0; position < prices.length; position++) {
+                prices[position] = priceAt(position, changeTimes[i]);
+            }
+            tables[i] = new PriceTable(prices, bundleFirstPositions, bundleSecondPositions, bundleDiscounts);
+        }
+        compiledUntil = to;
+    }
+
+    private long priceAt(int position, LocalDateTime time) {
+        long price = shelfIndex.getShelve(position).getProductPriceAmount().getMinorUnits();
+        for (PricingRule rule : rules) {
+            if (rule.isActiveAt(time)) {
+                price = rule.apply(shelfIndex.getShelve(position), price);
+            }
+        }
+        return price;
+    }
+
+    private void checkShelve(int shelveNumber) {
+        if (shelfIndex.positionOf(shelveNumber) < 0) {
+            throw new IllegalArgumentException("Bundle shelve " + shelveNumber + " doesn't exist!");
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package tdd.vendingMachine.pricing;
+
+import tdd.vendingMachine.domain.Shelve;
+
+import java.time.LocalDateTime;
+import java.util.NavigableSet;
+
+/**
+ * Rule changing prices of some shelves for some time. Rules are only evaluated when price tables are compiled, never
+ * while vending.
+ */
+public interface PricingRule {
+
+    boolean isActiveAt(LocalDateTime time);
+
+    /**
+     * Adds times from the given range at which the rule comes into or goes out of force.
+     */
+    void addChangeTimes(LocalDateTime from, LocalDateTime to, NavigableSet<LocalDateTime> changeTimes);
+
+    /**
+     * Gives price of the shelve's product with the rule applied to the price set by rules before it.
+     */
+    long apply(Shelve shelve, long priceInCents);
+
+}
@@ -0,0 +1,48 @@
+package tdd.vendingMachine.pricing;
+
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.time.LocalDateTime;
+import java.util.NavigableSet;
+
+/**
+ * Fixed price of one product from start until end of a campaign.
+ */
+public class Promotion implements PricingRule {
+
+    private final String productName;
+    private final long priceInCents;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public Promotion(String productName, Money price, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("Promotion of " + productName + " ends before it starts!");
+        }
+        this.productName = productName;
+        this.priceInCents = price.getMinorUnits();
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean isActiveAt(LocalDateTime time) {
+        return !time.isBefore(start) && time.isBefore(end);
+    }
+
+    @Override
+    public void addChangeTimes(LocalDateTime from, LocalDateTime to, NavigableSet<LocalDateTime> changeTimes) {
+        for (LocalDateTime time : new LocalDateTime[]{start, end}) {
+            if (!time.isBefore(from) && time.isBefore(to)) {
+                changeTimes.add(time);
+            }
+        }
+    }
+
+    @Override
+    public long apply(Shelve shelve, long priceInCents) {
+        return shelve.getProductName().equals(productName) ? this.priceInCents : priceInCents;
+    }
+
+}
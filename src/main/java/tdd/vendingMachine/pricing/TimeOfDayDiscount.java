@@ -0,0 +1,66 @@
+package tdd.vendingMachine.pricing;
+
+import tdd.vendingMachine.domain.Shelve;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.NavigableSet;
+import java.util.Set;
+
+/**
+ * Percentage off every day between two times, e.g. a happy hour. The range may go past midnight. Applies to the
+ * given products only, or to all of them if none are given.
+ */
+public class TimeOfDayDiscount implements PricingRule {
+
+    private final LocalTime from;
+    private final LocalTime to;
+    private final int percent;
+    private final Set<String> productNames;
+
+    public TimeOfDayDiscount(LocalTime from, LocalTime to, int percent, String... productNames) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("Discount of " + percent + "% is invalid!");
+        }
+        this.from = from;
+        this.to = to;
+        this.percent = percent;
+        this.productNames = new HashSet<>(Arrays.asList(productNames));
+    }
+
+    @Override
+    public boolean isActiveAt(LocalDateTime time) {
+        LocalTime timeOfDay = time.toLocalTime();
+        if (from.isBefore(to)) {
+            return !timeOfDay.isBefore(from) && timeOfDay.isBefore(to);
+        }
+        return !timeOfDay.isBefore(from) || timeOfDay.isBefore(to);
+    }
+
+    @Override
+    public void addChangeTimes(LocalDateTime from, LocalDateTime to, NavigableSet<LocalDateTime> changeTimes) {
+        for (LocalDate day = from.toLocalDate(); !day.atStartOfDay().isAfter(to); day = day.plusDays(1)) {
+            addIfWithin(day.atTime(this.from), from, to, changeTimes);
+            addIfWithin(day.atTime(this.to), from, to, changeTimes);
+        }
+    }
+
+    @Override
+    public long apply(Shelve shelve, long priceInCents) {
+        if (!productNames.isEmpty() && !productNames.contains(shelve.getProductName())) {
+            return priceInCents;
+        }
+        return (priceInCents * (100 - percent) + 50) / 100;
+    }
+
+    private static void addIfWithin(LocalDateTime time, LocalDateTime from, LocalDateTime to,
+                                    NavigableSet<LocalDateTime> changeTimes) {
+        if (!time.isBefore(from) && time.isBefore(to)) {
+            changeTimes.add(time);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package tdd.vendingMachine.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking client of {@link VendingServer}, sending one request at a time and waiting for its response.
+ */
+public class VendingClient implements Closeable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer requestBuffer = ByteBuffer.allocate(VendingProtocol.MAX_FRAME_SIZE);
+    private int nextRequestId;
+
+    public VendingClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        this.channel.socket().setTcpNoDelay(true);
+    }
+
+    /**
+     * Sends a request written by the given writer, which gets the buffer and request id, and returns the response
+     * positioned after its request id, at the status byte.
+     */
+    public ByteBuffer call(RequestWriter requestWriter) throws IOException {
+        int requestId = nextRequestId++;
+        requestBuffer.clear();
+        requestWriter.write(requestBuffer, requestId);
+        requestBuffer.flip();
+        while (requestBuffer.hasRemaining()) {
+            channel.write(requestBuffer);
+        }
+
+        ByteBuffer length = readFully(ByteBuffer.allocate(VendingProtocol.LENGTH_SIZE));
+        ByteBuffer response = readFully(ByteBuffer.allocate(length.getInt()));
+        if (response.getInt() != requestId) {
+            throw new IOException("Response to unexpected request!");
+        }
+        return response;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Server closed connection!");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public interface RequestWriter {
+
+        void write(ByteBuffer buffer, int requestId);
+
+    }
+
+}
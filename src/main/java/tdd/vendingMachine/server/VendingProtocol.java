@@ -0,0 +1,129 @@
+package tdd.vendingMachine.server;
+
+import tdd.vendingMachine.domain.Coin;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary protocol of {@link VendingServer}. Every frame starts with an int length of the rest of the frame.
+ * <pre>
+ * request   int length, int request id, byte operation, int machine id, operation payload
+ *   SELECT_SHELVE          int shelve number
+ *   INSERT_COIN            byte coin ordinal
+ *   CANCEL                 -
+ *   DISPENSE_PRODUCT       -
+ *   LIST_SHELVE_NUMBERS    short machine count, int machine ids (machine id of the header is not used)
+ *
+ * response  int length, int request id, byte status, payload
+ *   OK to SELECT_SHELVE          -
+ *   OK to INSERT_COIN            byte 1 when inserted enough money
+ *   OK to CANCEL                 coins: byte count, byte coin ordinals
+ *   OK to DISPENSE_PRODUCT       byte 1 when product given, product name (UTF-8, short length), coins
+ *   OK to LIST_SHELVE_NUMBERS    per machine int shelve count, or -1 for unknown machine, int shelve numbers
+ *   any other status             error message (UTF-8, short length)
+ * </pre>
+ * Responses of one connection come in the order of its requests to the same machine.
+ */
+public final class VendingProtocol {
+
+    public static final byte SELECT_SHELVE = 1;
+    public static final byte INSERT_COIN = 2;
+    public static final byte CANCEL = 3;
+    public static final byte DISPENSE_PRODUCT = 4;
+    public static final byte LIST_SHELVE_NUMBERS = 5;
+
+    public static final byte OK = 0;
+    public static final byte INVALID_SHELVE = 1;
+    public static final byte PRODUCT_NOT_AVAILABLE = 2;
+    public static final byte UNACCEPTABLE_COIN = 3;
+    public static final byte ILLEGAL_STATE = 4;
+    public static final byte UNKNOWN_MACHINE = 5;
+    public static final byte BAD_REQUEST = 6;
+    public static final byte MACHINE_ERROR = 7;
+
+    static final int LENGTH_SIZE = 4;
+    static final int REQUEST_HEADER_SIZE = 4 + 1 + 4;
+    static final int RESPONSE_HEADER_SIZE = 4 + 1;
+    static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    private static final Coin[] COINS = Coin.values();
+
+    private VendingProtocol() {
+    }
+
+    public static void writeSelectShelve(ByteBuffer buffer, int requestId, int machineId, int shelveNumber) {
+        writeRequestHeader(buffer, REQUEST_HEADER_SIZE + 4, requestId, SELECT_SHELVE, machineId);
+        buffer.putInt(shelveNumber);
+    }
+
+    public static void writeInsertCoin(ByteBuffer buffer, int requestId, int machineId, Coin coin) {
+        writeRequestHeader(buffer, REQUEST_HEADER_SIZE + 1, requestId, INSERT_COIN, machineId);
+        buffer.put((byte) coin.ordinal());
+    }
+
+    public static void writeCancel(ByteBuffer buffer, int requestId, int machineId) {
+        writeRequestHeader(buffer, REQUEST_HEADER_SIZE, requestId, CANCEL, machineId);
+    }
+
+    public static void writeDispenseProduct(ByteBuffer buffer, int requestId, int machineId) {
+        writeRequestHeader(buffer, REQUEST_HEADER_SIZE, requestId, DISPENSE_PRODUCT, machineId);
+    }
+
+    public static void writeListShelveNumbers(ByteBuffer buffer, int requestId, int... machineIds) {
+        writeRequestHeader(buffer, REQUEST_HEADER_SIZE + 2 + 4 * machineIds.length, requestId, LIST_SHELVE_NUMBERS,
+            0);
+        buffer.putShort((short) machineIds.length);
+        for (int machineId : machineIds) {
+            buffer.putInt(machineId);
+        }
+    }
+
+    static void writeCoins(ByteBuffer buffer, List<Coin> coins) {
+        buffer.put((byte) coins.size());
+        for (Coin coin : coins) {
+            buffer.put((byte) coin.ordinal());
+        }
+    }
+
+    public static Coin[] readCoins(ByteBuffer buffer) {
+        Coin[] coins = new Coin[buffer.get() & 0xFF];
+        for (int i = 0; i < coins.length; i++) {
+            coins[i] = coinOf(buffer.get());
+        }
+        return coins;
+    }
+
+    static void writeString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int stringSize(String text) {
+        return 2 + text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static Coin coinOf(byte ordinal) {
+        if (ordinal < 0 || ordinal >= COINS.length) {
+            throw new IllegalArgumentException("Unknown coin " + ordinal + "!");
+        }
+        return COINS[ordinal];
+    }
+
+    private static void writeRequestHeader(ByteBuffer buffer, int length, int requestId, byte operation,
+                                           int machineId) {
+        buffer.putInt(length);
+        buffer.putInt(requestId);
+        buffer.put(operation);
+        buffer.putInt(machineId);
+    }
+
+}
@@ -0,0 +1,373 @@
+package tdd.vendingMachine.server;
+
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking server exposing vending machines over {@link VendingProtocol}. One I/O thread accepts connections,
+ * reads and parses request frames and writes responses. Machine calls are routed to a {@link MachineExecutor} of the
+ * machine, so every machine is driven by a single thread at a time and its state needs no locking. Shelve numbers
+ * of a machine never change, so listing them is answered right on the I/O thread.
+ */
+public class VendingServer implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(VendingServer.class.getName());
+
+    private static final int READ_BUFFER_SIZE = VendingProtocol.LENGTH_SIZE + VendingProtocol.MAX_FRAME_SIZE;
+
+    private final Map<Integer, VendingMachine> machines;
+    private final Map<Integer, MachineExecutor> executors = new HashMap<>();
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Connection> connectionsToFlush = new ConcurrentLinkedQueue<>();
+    private final Thread ioThread;
+
+    private volatile boolean running = true;
+
+    public VendingServer(Map<Integer, ? extends VendingMachine> machines, Executor workers,
+                         InetSocketAddress address) throws IOException {
+        this.machines = new HashMap<>(machines);
+        for (Integer machineId : machines.keySet()) {
+            executors.put(machineId, new MachineExecutor(workers));
+        }
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        this.ioThread = new Thread(this::runEventLoop, "vending-server-io");
+        this.ioThread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        closeChannels();
+        selector.close();
+    }
+
+    private void runEventLoop() {
+        try {
+            while (running) {
+                selector.select();
+                flushConnections();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Vending server I/O failed, closing all connections!", e);
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // the channel is given up anyway
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void flushConnections() {
+        Connection connection;
+        while ((connection = connectionsToFlush.poll()) != null) {
+            try {
+                connection.flush();
+            } catch (IOException e) {
+                connection.close();
+            }
+        }
+    }
+
+    private class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private ByteBuffer pendingResponse;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.remaining() >= VendingProtocol.LENGTH_SIZE) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < VendingProtocol.REQUEST_HEADER_SIZE || length > VendingProtocol.MAX_FRAME_SIZE) {
+                    close();
+                    return;
+                }
+                if (readBuffer.remaining() < VendingProtocol.LENGTH_SIZE + length) {
+                    break;
+                }
+
+                readBuffer.getInt();
+                int frameEnd = readBuffer.position() + length;
+                dispatch(readBuffer, frameEnd);
+                readBuffer.position(frameEnd);
+            }
+            readBuffer.compact();
+        }
+
+        void respond(ByteBuffer response) {
+            responses.add(response);
+            if (flushScheduled.compareAndSet(false, true)) {
+                connectionsToFlush.add(this);
+                selector.wakeup();
+            }
+        }
+
+        void flush() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            while (true) {
+                if (pendingResponse == null) {
+                    pendingResponse = responses.poll();
+                    if (pendingResponse == null) {
+                        break;
+                    }
+                }
+                channel.write(pendingResponse);
+                if (pendingResponse.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingResponse = null;
+            }
+
+            key.interestOps(SelectionKey.OP_READ);
+            flushScheduled.set(false);
+            if (!responses.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+                connectionsToFlush.add(this);
+                selector.wakeup();
+            }
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing more to do with a broken connection
+            }
+        }
+
+        private void dispatch(ByteBuffer frame, int frameEnd) {
+            int requestId = frame.getInt();
+            byte operation = frame.get();
+            int machineId = frame.getInt();
+
+            if (operation == VendingProtocol.LIST_SHELVE_NUMBERS) {
+                respond(listShelveNumbers(requestId, frame, frameEnd));
+                return;
+            }
+
+            VendingMachine machine = machines.get(machineId);
+            if (machine == null) {
+                respond(error(requestId, VendingProtocol.UNKNOWN_MACHINE, "Machine " + machineId + " is unknown!"));
+                return;
+            }
+
+            int shelveNumber = 0;
+            Coin coin = null;
+            try {
+                if (operation == VendingProtocol.SELECT_SHELVE) {
+                    shelveNumber = frame.getInt();
+                } else if (operation == VendingProtocol.INSERT_COIN) {
+                    coin = VendingProtocol.coinOf(frame.get());
+                } else if (operation != VendingProtocol.CANCEL && operation != VendingProtocol.DISPENSE_PRODUCT) {
+                    throw new IllegalArgumentException("Unknown operation " + operation + "!");
+                }
+                if (frame.position() != frameEnd) {
+                    throw new IllegalArgumentException("Unexpected request length!");
+                }
+            } catch (RuntimeException e) {
+                respond(error(requestId, VendingProtocol.BAD_REQUEST, String.valueOf(e.getMessage())));
+                return;
+            }
+
+            int selectedShelveNumber = shelveNumber;
+            Coin insertedCoin = coin;
+            executors.get(machineId).execute(() ->
+                respond(execute(machine, requestId, operation, selectedShelveNumber, insertedCoin)));
+        }
+
+    }
+
+    private static ByteBuffer execute(VendingMachine machine, int requestId, byte operation, int shelveNumber,
+                                      Coin coin) {
+        try {
+            switch (operation) {
+                case VendingProtocol.SELECT_SHELVE:
+                    machine.selectShelve(shelveNumber);
+                    return flipped(response(requestId, VendingProtocol.OK, 0));
+                case VendingProtocol.INSERT_COIN:
+                    machine.insertCoin(coin);
+                    ByteBuffer insertResponse = response(requestId, VendingProtocol.OK, 1);
+                    insertResponse.put((byte) (machine.insertedEnoughMoney() ? 1 : 0));
+                    return flipped(insertResponse);
+                case VendingProtocol.CANCEL:
+                    List<Coin> returnedCoins = machine.cancel();
+                    ByteBuffer cancelResponse = response(requestId, VendingProtocol.OK, 1 + returnedCoins.size());
+                    VendingProtocol.writeCoins(cancelResponse, returnedCoins);
+                    return flipped(cancelResponse);
+                default:
+                    return dispenseResponse(requestId, machine.dispenseProduct());
+            }
+        } catch (InvalidShelveException e) {
+            return error(requestId, VendingProtocol.INVALID_SHELVE, e.getMessage());
+        } catch (ProductNotAvailableException e) {
+            return error(requestId, VendingProtocol.PRODUCT_NOT_AVAILABLE, e.getMessage());
+        } catch (UnacceptableCoinException e) {
+            return error(requestId, VendingProtocol.UNACCEPTABLE_COIN, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(requestId, VendingProtocol.ILLEGAL_STATE, String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            return error(requestId, VendingProtocol.MACHINE_ERROR, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static ByteBuffer dispenseResponse(int requestId, Purchase purchase) {
+        String productName = purchase.getProduct() == null ? "" : purchase.getProduct().getName();
+        List<Coin> change = purchase.getChange();
+        ByteBuffer response = response(requestId, VendingProtocol.OK,
+            1 + VendingProtocol.stringSize(productName) + 1 + change.size());
+        response.put((byte) (purchase.getProduct() == null ? 0 : 1));
+        VendingProtocol.writeString(response, productName);
+        VendingProtocol.writeCoins(response, change);
+        return flipped(response);
+    }
+
+    private ByteBuffer listShelveNumbers(int requestId, ByteBuffer frame, int frameEnd) {
+        if (frameEnd - frame.position() < 2) {
+            return error(requestId, VendingProtocol.BAD_REQUEST, "Missing machine count!");
+        }
+        int machineCount = frame.getShort() & 0xFFFF;
+        if (frameEnd - frame.position() != 4 * machineCount) {
+            return error(requestId, VendingProtocol.BAD_REQUEST, "Unexpected request length!");
+        }
+
+        List<List<Integer>> shelveNumbers = new ArrayList<>(machineCount);
+        int payloadSize = 0;
+        for (int i = 0; i < machineCount; i++) {
+            VendingMachine machine = machines.get(frame.getInt());
+            List<Integer> numbers = machine == null ? null : machine.listShelveNumbers();
+            shelveNumbers.add(numbers);
+            payloadSize += 4 + (numbers == null ? 0 : 4 * numbers.size());
+        }
+
+        ByteBuffer response = response(requestId, VendingProtocol.OK, payloadSize);
+        for (List<Integer> numbers : shelveNumbers) {
+            if (numbers == null) {
+                response.putInt(-1);
+                continue;
+            }
+            response.putInt(numbers.size());
+            for (int number : numbers) {
+                response.putInt(number);
+            }
+        }
+        return flipped(response);
+    }
+
+    private static ByteBuffer error(int requestId, byte status, String message) {
+        ByteBuffer response = response(requestId, status, VendingProtocol.stringSize(message));
+        VendingProtocol.writeString(response, message);
+        return flipped(response);
+    }
+
+    private static ByteBuffer flipped(ByteBuffer response) {
+        response.flip();
+        return response;
+    }
+
+    private static ByteBuffer response(int requestId, byte status, int payloadSize) {
+        int length = VendingProtocol.RESPONSE_HEADER_SIZE + payloadSize;
+        ByteBuffer response = ByteBuffer.allocate(VendingProtocol.LENGTH_SIZE + length);
+        response.putInt(length);
+        response.putInt(requestId);
+        response.put(status);
+        return response;
+    }
+
+}
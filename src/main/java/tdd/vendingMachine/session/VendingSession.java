@@ -0,0 +1,195 @@
+package tdd.vendingMachine.session;
+
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.state.MachineState;
+import tdd.vendingMachine.state.VendingStateMachine;
+import tdd.vendingMachine.state.VendingTransaction;
+import tdd.vendingMachine.timeout.TimingWheel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One customer's view of a machine shared with other sessions, driven by the {@link VendingStateMachine} like a single
+ * machine. Stock is reserved when a shelve is selected, at the price then in force, and inserted coins are held aside
+ * until dispensing, when they go to the shared cassette together with taking the change. A session follows the
+ * engine into maintenance or out of service before its next step, once its transaction in progress is finished.
+ */
+public class VendingSession implements VendingMachine {
+
+    private final VendingSessionEngine engine;
+    private final Display display;
+    private final VendingTransaction transaction;
+
+    private boolean closed;
+    private TimingWheel.Timeout<VendingSession> idleTimeout;
+
+    private long lastActivityTime;
+
+    VendingSession(VendingSessionEngine engine, Display display, long openingTime) {
+        this.engine = engine;
+        this.display = display;
+        this.transaction = VendingTransaction.holdingInsertedCoins(engine.getShelfIndex(), engine.getCassette(),
+            engine.getPriceBoard(), display);
+        this.lastActivityTime = openingTime;
+    }
+
+    @Override
+    public List<Integer> listShelveNumbers() {
+        return engine.listShelveNumbers();
+    }
+
+    @Override
+    public void selectShelve(int shelveNumber) throws InvalidShelveException, ProductNotAvailableException {
+        trySelectShelve(shelveNumber).orThrow(engine.getShelfIndex(), shelveNumber);
+    }
+
+    @Override
+    public void insertCoin(Coin coin) throws UnacceptableCoinException {
+        tryInsertCoin(coin).orThrow(coin);
+    }
+
+    @Override
+    public synchronized SelectResult trySelectShelve(int shelveNumber) {
+        checkNotClosed();
+        followMachineState();
+        SelectResult result = VendingStateMachine.selectShelve(transaction, shelveNumber);
+        if (result == SelectResult.SELECTED) {
+            touch();
+            idleTimeout = engine.scheduleExpiry(this, lastActivityTime);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized InsertResult tryInsertCoin(Coin coin) {
+        checkNotClosed();
+        followMachineState();
+        InsertResult result = VendingStateMachine.insertCoin(transaction, coin);
+        if (result == InsertResult.ACCEPTED) {
+            touch();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean insertedEnoughMoney() {
+        checkNotClosed();
+        return VendingStateMachine.insertedEnoughMoney(transaction);
+    }
+
+    @Override
+    public synchronized List<Coin> cancel() {
+        checkNotClosed();
+        List<Coin> returnedCoins = VendingStateMachine.cancel(transaction);
+        transactionFinished();
+        return returnedCoins;
+    }
+
+    @Override
+    public synchronized Purchase dispenseProduct() {
+        checkNotClosed();
+        Purchase purchase = VendingStateMachine.dispenseProduct(transaction);
+        transactionFinished();
+        return purchase;
+    }
+
+    @Override
+    public synchronized BatchPurchase purchaseBatch(Map<Integer, Integer> shelveQuantities, List<Coin> payment)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        checkNotClosed();
+        followMachineState();
+        BatchPurchase purchase = VendingStateMachine.purchaseBatch(transaction, shelveQuantities, payment);
+        touch();
+        return purchase;
+    }
+
+    public void addListener(VendingMachineListener listener) {
+        transaction.addListener(listener);
+    }
+
+    public void removeListener(VendingMachineListener listener) {
+        transaction.removeListener(listener);
+    }
+
+    public synchronized void close() {
+        if (transaction.getSelectedShelve() != null) {
+            throw new IllegalStateException("Can't close session with transaction in progress!");
+        }
+        closed = true;
+        engine.removeSession(this);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Expires the transaction in progress if still idle when its timeout expired, or schedules the timeout again for
+     * the remaining time.
+     */
+    synchronized Optional<List<Coin>> expire(TimingWheel.Timeout<VendingSession> expiredTimeout, long now,
+                                             long timeout) {
+        if (idleTimeout != expiredTimeout) {
+            return Optional.empty();
+        }
+        idleTimeout = null;
+        if (now - lastActivityTime < timeout) {
+            idleTimeout = engine.scheduleExpiry(this, lastActivityTime);
+            return Optional.empty();
+        }
+
+        display.displayWarning("Session expired!");
+        List<Coin> returnedCoins = VendingStateMachine.expire(transaction);
+        touch();
+        return Optional.of(returnedCoins);
+    }
+
+    // maintenance and out of service reach a session only between transactions
+    private void followMachineState() {
+        MachineState machineState = engine.getMachineState();
+        MachineState state = transaction.getState();
+        if (state == machineState || state == MachineState.INSERTING_COINS
+            || state == MachineState.DISPENSING_PRODUCT) {
+            return;
+        }
+
+        if (state == MachineState.MAINTENANCE) {
+            VendingStateMachine.finishMaintenance(transaction);
+        } else if (state == MachineState.OUT_OF_SERVICE) {
+            VendingStateMachine.returnToService(transaction);
+        }
+        if (machineState == MachineState.MAINTENANCE) {
+            VendingStateMachine.startMaintenance(transaction);
+        } else if (machineState == MachineState.OUT_OF_SERVICE) {
+            VendingStateMachine.takeOutOfService(transaction);
+        }
+    }
+
+    private void transactionFinished() {
+        if (idleTimeout != null) {
+            idleTimeout.cancel();
+            idleTimeout = null;
+        }
+        touch();
+    }
+
+    private void touch() {
+        lastActivityTime = engine.currentTime();
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Session closed!");
+        }
+    }
+
+}
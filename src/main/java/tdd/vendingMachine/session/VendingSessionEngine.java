@@ -0,0 +1,136 @@
+package tdd.vendingMachine.session;
+
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.PriceBoard;
+import tdd.vendingMachine.domain.PriceTable;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.state.MachineState;
+import tdd.vendingMachine.state.VendingStateMachine;
+import tdd.vendingMachine.state.VendingTransaction;
+import tdd.vendingMachine.timeout.TimingWheel;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves many concurrent {@link VendingSession}s from one set of shelves and one cassette.
+ * Sessions idle longer than the timeout with a shelve selected are expired by {@link #expireIdleSessions()}:
+ * the reserved product goes back on the shelve and inserted coins are handed to the refund handler. A session schedules
+ * one timeout in a {@link TimingWheel} when its shelve is selected, so expiring looks only at sessions due to expire.
+ * <p>
+ * Maintenance and out of service apply to the whole machine: sessions finish the transaction in progress and then
+ * refuse new ones with {@link tdd.vendingMachine.domain.SelectResult#MACHINE_UNAVAILABLE}.
+ */
+public class VendingSessionEngine {
+
+    private final ShelfIndex shelfIndex;
+    private final CoinCassette cassette;
+    private final PriceBoard priceBoard;
+    // never sells, only moves between the machine states sessions follow
+    private final VendingTransaction machine;
+
+    private final long sessionTimeout;
+    private final LongSupplier clock;
+    private final BiConsumer<VendingSession, List<Coin>> refundHandler;
+
+    private final Set<VendingSession> sessions = ConcurrentHashMap.newKeySet();
+    private final TimingWheel<VendingSession> idleTimeouts;
+
+    public VendingSessionEngine(List<Shelve> shelves, CoinCassette cassette, long sessionTimeout, TimeUnit unit,
+                                BiConsumer<VendingSession, List<Coin>> refundHandler) {
+        this(shelves, cassette, unit.toNanos(sessionTimeout), System::nanoTime, refundHandler);
+    }
+
+    VendingSessionEngine(List<Shelve> shelves, CoinCassette cassette, long sessionTimeoutNanos, LongSupplier clock,
+                         BiConsumer<VendingSession, List<Coin>> refundHandler) {
+        this.shelfIndex = new ShelfIndex(shelves);
+        this.priceBoard = new PriceBoard(PriceTable.ofListPrices(shelfIndex));
+        this.machine = VendingTransaction.holdingInsertedCoins(shelfIndex, cassette, priceBoard, Display.NONE);
+        this.cassette = cassette;
+        this.sessionTimeout = sessionTimeoutNanos;
+        this.clock = clock;
+        this.refundHandler = refundHandler;
+        this.idleTimeouts = new TimingWheel<>(Math.max(1, sessionTimeoutNanos / TimingWheel.SLOTS), clock.getAsLong());
+    }
+
+    public VendingSession openSession(Display display) {
+        VendingSession session = new VendingSession(this, display, currentTime());
+        sessions.add(session);
+        return session;
+    }
+
+    public int getOpenSessionCount() {
+        return sessions.size();
+    }
+
+    public int expireIdleSessions() {
+        long now = currentTime();
+        int expiredSessions = 0;
+        for (TimingWheel.Timeout<VendingSession> timeout : idleTimeouts.advanceTo(now)) {
+            VendingSession session = timeout.getPayload();
+            Optional<List<Coin>> refundedCoins = session.expire(timeout, now, sessionTimeout);
+            if (refundedCoins.isPresent()) {
+                refundHandler.accept(session, refundedCoins.get());
+                expiredSessions++;
+            }
+        }
+        return expiredSessions;
+    }
+
+    public synchronized void startMaintenance() {
+        VendingStateMachine.startMaintenance(machine);
+    }
+
+    public synchronized void finishMaintenance() {
+        VendingStateMachine.finishMaintenance(machine);
+    }
+
+    public synchronized void takeOutOfService() {
+        VendingStateMachine.takeOutOfService(machine);
+    }
+
+    public synchronized void returnToService() {
+        VendingStateMachine.returnToService(machine);
+    }
+
+    public synchronized MachineState getMachineState() {
+        return machine.getState();
+    }
+
+    List<Integer> listShelveNumbers() {
+        return shelfIndex.getShelveNumbers();
+    }
+
+    public PriceBoard getPriceBoard() {
+        return priceBoard;
+    }
+
+    ShelfIndex getShelfIndex() {
+        return shelfIndex;
+    }
+
+    CoinCassette getCassette() {
+        return cassette;
+    }
+
+    long currentTime() {
+        return clock.getAsLong();
+    }
+
+    TimingWheel.Timeout<VendingSession> scheduleExpiry(VendingSession session, long lastActivityTime) {
+        return idleTimeouts.schedule(lastActivityTime + sessionTimeout, session);
+    }
+
+    void removeSession(VendingSession session) {
+        sessions.remove(session);
+    }
+
+}
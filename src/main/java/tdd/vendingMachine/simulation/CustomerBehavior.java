@@ -0,0 +1,99 @@
+package tdd.vendingMachine.simulation;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Distributions driving simulated customers: chance that a customer comes to a machine in one tick, weights of
+ * shelves they select, weights of coins they insert and chance that they cancel after the first coin.
+ */
+public class CustomerBehavior {
+
+    private final double arrivalProbability;
+    private final double cancelProbability;
+    private final double[] cumulativeShelveWeights;
+    private final Coin[] coins;
+    private final double[] cumulativeCoinWeights;
+
+    public CustomerBehavior(double arrivalProbability, double[] shelveWeights, Map<Coin, Double> coinWeights,
+                            double cancelProbability) {
+
+        this.arrivalProbability = checkProbability(arrivalProbability);
+        this.cancelProbability = checkProbability(cancelProbability);
+        this.cumulativeShelveWeights = cumulate(shelveWeights);
+
+        this.coins = new Coin[coinWeights.size()];
+        double[] weights = new double[coinWeights.size()];
+        int i = 0;
+        for (Map.Entry<Coin, Double> coinWeight : coinWeights.entrySet()) {
+            if (!CoinCassette.accepts(coinWeight.getKey())) {
+                throw new IllegalArgumentException("Customers can't insert unacceptable " + coinWeight.getKey()
+                    + " coins!");
+            }
+            coins[i] = coinWeight.getKey();
+            weights[i++] = coinWeight.getValue();
+        }
+        this.cumulativeCoinWeights = cumulate(weights);
+    }
+
+    public int getShelveCount() {
+        return cumulativeShelveWeights.length;
+    }
+
+    boolean arrives(SplittableRandom random) {
+        return random.nextDouble() < arrivalProbability;
+    }
+
+    boolean cancels(SplittableRandom random) {
+        return random.nextDouble() < cancelProbability;
+    }
+
+    int pickShelve(SplittableRandom random) {
+        return pick(cumulativeShelveWeights, random);
+    }
+
+    Coin pickCoin(SplittableRandom random) {
+        return coins[pick(cumulativeCoinWeights, random)];
+    }
+
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (point < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static double checkProbability(double probability) {
+        if (!(probability >= 0 && probability <= 1)) {
+            throw new IllegalArgumentException("Probability " + probability + " is not between 0 and 1!");
+        }
+        return probability;
+    }
+
+    private static double[] cumulate(double[] weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("There should be at least one weight!");
+        }
+
+        double[] cumulativeWeights = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0)) {
+                throw new IllegalArgumentException("Weight " + weights[i] + " is negative!");
+            }
+            sum += weights[i];
+            cumulativeWeights[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Weights should not be all zero!");
+        }
+        return cumulativeWeights;
+    }
+
+}
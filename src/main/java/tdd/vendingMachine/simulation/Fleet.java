@@ -0,0 +1,110 @@
+package tdd.vendingMachine.simulation;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Many identically configured vending machines stored column by column: shelve quantities and cassette coin counts
+ * of all machines live in two flat int arrays, so a machine costs 4 bytes per shelve and per coin kind and no objects.
+ * Machine {@code m} owns quantities {@code [m * shelveCount, (m + 1) * shelveCount)} and coin counts
+ * {@code [m * COINS.length, (m + 1) * COINS.length)}, indexed by coin ordinal.
+ */
+public class Fleet {
+
+    static final int COIN_KINDS = Coin.values().length;
+
+    private final int machineCount;
+    private final int shelveCount;
+
+    private final String[] productNames;
+    private final int[] prices;
+    private final int[] initialQuantities;
+
+    final int[] quantities;
+    final int[] coinCounts;
+
+    public Fleet(int machineCount, List<Shelve> shelves, Map<Coin, Integer> coins) {
+        if (machineCount <= 0) {
+            throw new IllegalArgumentException("Fleet should have at least one machine!");
+        }
+        if (shelves.isEmpty()) {
+            throw new IllegalArgumentException("Machines should have at least one shelve!");
+        }
+
+        this.machineCount = machineCount;
+        this.shelveCount = shelves.size();
+
+        this.productNames = new String[shelveCount];
+        this.prices = new int[shelveCount];
+        this.initialQuantities = new int[shelveCount];
+        for (int shelve = 0; shelve < shelveCount; shelve++) {
+            productNames[shelve] = shelves.get(shelve).getProductName();
+            prices[shelve] = Math.toIntExact(shelves.get(shelve).getProductPriceAmount().getMinorUnits());
+            initialQuantities[shelve] = shelves.get(shelve).getQuantity();
+        }
+
+        int[] initialCoinCounts = new int[COIN_KINDS];
+        coins.forEach((coin, count) -> {
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative count of " + coin + " coins!");
+            }
+            initialCoinCounts[coin.ordinal()] = count;
+        });
+
+        this.quantities = new int[Math.multiplyExact(machineCount, shelveCount)];
+        this.coinCounts = new int[Math.multiplyExact(machineCount, COIN_KINDS)];
+        for (int machine = 0; machine < machineCount; machine++) {
+            System.arraycopy(initialQuantities, 0, quantities, machine * shelveCount, shelveCount);
+            System.arraycopy(initialCoinCounts, 0, coinCounts, machine * COIN_KINDS, COIN_KINDS);
+        }
+    }
+
+    public int getMachineCount() {
+        return machineCount;
+    }
+
+    public int getShelveCount() {
+        return shelveCount;
+    }
+
+    public String getProductName(int shelve) {
+        return productNames[shelve];
+    }
+
+    public Money getPrice(int shelve) {
+        return Money.ofMinorUnits(prices[shelve]);
+    }
+
+    public int getQuantity(int machine, int shelve) {
+        return quantities[machine * shelveCount + shelve];
+    }
+
+    public int getCoinCount(int machine, Coin coin) {
+        return coinCounts[machine * COIN_KINDS + coin.ordinal()];
+    }
+
+    public void restock(int machine) {
+        System.arraycopy(initialQuantities, 0, quantities, machine * shelveCount, shelveCount);
+    }
+
+    public void restockAll() {
+        for (int machine = 0; machine < machineCount; machine++) {
+            restock(machine);
+        }
+    }
+
+    int getPriceInCents(int shelve) {
+        return prices[shelve];
+    }
+
+    @Override
+    public String toString() {
+        return "Fleet of " + machineCount + " machines with products " + Arrays.toString(productNames);
+    }
+
+}
@@ -0,0 +1,176 @@
+package tdd.vendingMachine.simulation;
+
+import tdd.vendingMachine.change.ChangeStrategy;
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs customers against every machine of a {@link Fleet}. Machines are independent, so the fleet is split into
+ * ranges of machines simulated by fork-join tasks, each running all ticks for its machines with its own random
+ * generator and change strategy. Ranges and their seeds depend only on the fleet size, so results do not depend on
+ * the pool parallelism.
+ * <p>
+ * A customer follows the rules of the real machine: coins go into the cassette as they are inserted, inserting stops
+ * once the price is covered, change is given by the change strategy from the machine's coins and a machine without
+ * change returns the inserted amount instead.
+ */
+public class FleetSimulator {
+
+    private static final int MACHINES_PER_TASK = 1024;
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    private final Fleet fleet;
+    private final CustomerBehavior behavior;
+    private final Supplier<ChangeStrategy> changeStrategies;
+    private final ForkJoinPool pool;
+
+    private long seed;
+
+    public FleetSimulator(Fleet fleet, CustomerBehavior behavior, Supplier<ChangeStrategy> changeStrategies,
+                          ForkJoinPool pool, long seed) {
+        if (behavior.getShelveCount() != fleet.getShelveCount()) {
+            throw new IllegalArgumentException("Customers should have a weight for each of "
+                + fleet.getShelveCount() + " shelves!");
+        }
+
+        this.fleet = fleet;
+        this.behavior = behavior;
+        this.changeStrategies = changeStrategies;
+        this.pool = pool;
+        this.seed = seed;
+    }
+
+    public SimulationReport run(int ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("Ticks should not be negative!");
+        }
+
+        SimulationReport report = pool.invoke(new MachineRangeTask(0, fleet.getMachineCount(), ticks, seed));
+        seed += SEED_INCREMENT;
+        return report;
+    }
+
+    private class MachineRangeTask extends RecursiveTask<SimulationReport> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromMachine;
+        private final int toMachine;
+        private final int ticks;
+        private final long runSeed;
+
+        MachineRangeTask(int fromMachine, int toMachine, int ticks, long runSeed) {
+            this.fromMachine = fromMachine;
+            this.toMachine = toMachine;
+            this.ticks = ticks;
+            this.runSeed = runSeed;
+        }
+
+        @Override
+        protected SimulationReport compute() {
+            if (toMachine - fromMachine <= MACHINES_PER_TASK) {
+                return new MachineRangeSimulation(runSeed + fromMachine * SEED_INCREMENT)
+                    .simulate(fromMachine, toMachine, ticks);
+            }
+
+            int middle = (fromMachine + toMachine) >>> 1;
+            MachineRangeTask upperHalf = new MachineRangeTask(middle, toMachine, ticks, runSeed);
+            upperHalf.fork();
+            SimulationReport lowerHalfReport = new MachineRangeTask(fromMachine, middle, ticks, runSeed).compute();
+            return lowerHalfReport.plus(upperHalf.join());
+        }
+
+    }
+
+    private class MachineRangeSimulation {
+
+        private final SplittableRandom random;
+        private final ChangeStrategy changeStrategy = changeStrategies.get();
+        private final int[] availableCoins = new int[Fleet.COIN_KINDS];
+        private final int[] insertedCoins = new int[Fleet.COIN_KINDS];
+        private final int[] change = new int[Fleet.COIN_KINDS];
+
+        private long customers;
+        private long sales;
+        private long soldOutVisits;
+        private long cancels;
+        private long noChangeRefunds;
+        private long revenue;
+
+        MachineRangeSimulation(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        SimulationReport simulate(int fromMachine, int toMachine, int ticks) {
+            int shelveCount = fleet.getShelveCount();
+            for (int machine = fromMachine; machine < toMachine; machine++) {
+                int coinOffset = machine * Fleet.COIN_KINDS;
+                System.arraycopy(fleet.coinCounts, coinOffset, availableCoins, 0, Fleet.COIN_KINDS);
+
+                int quantityOffset = machine * shelveCount;
+                for (int tick = 0; tick < ticks; tick++) {
+                    if (behavior.arrives(random)) {
+                        serveCustomer(quantityOffset);
+                    }
+                }
+
+                System.arraycopy(availableCoins, 0, fleet.coinCounts, coinOffset, Fleet.COIN_KINDS);
+            }
+            return new SimulationReport(customers, sales, soldOutVisits, cancels, noChangeRefunds, revenue);
+        }
+
+        private void serveCustomer(int quantityOffset) {
+            customers++;
+            int shelve = behavior.pickShelve(random);
+            if (fleet.quantities[quantityOffset + shelve] == 0) {
+                soldOutVisits++;
+                return;
+            }
+
+            int price = fleet.getPriceInCents(shelve);
+            boolean cancelling = behavior.cancels(random);
+            int inserted = 0;
+            Arrays.fill(insertedCoins, 0);
+            do {
+                Coin coin = behavior.pickCoin(random);
+                availableCoins[coin.ordinal()]++;
+                insertedCoins[coin.ordinal()]++;
+                inserted += coin.getValueInCents();
+            } while (inserted < price && !cancelling);
+
+            if (inserted < price) {
+                cancels++;
+                giveBack(inserted);
+            } else if (changeStrategy.findChange(inserted - price, availableCoins, change)) {
+                take(change);
+                fleet.quantities[quantityOffset + shelve]--;
+                sales++;
+                revenue += price;
+            } else {
+                noChangeRefunds++;
+                giveBack(inserted);
+            }
+        }
+
+        private void giveBack(int inserted) {
+            if (changeStrategy.findRefund(inserted, availableCoins, change)) {
+                take(change);
+            } else {
+                take(insertedCoins);
+            }
+        }
+
+        private void take(int[] coins) {
+            for (int i = 0; i < Fleet.COIN_KINDS; i++) {
+                availableCoins[i] -= coins[i];
+            }
+        }
+
+    }
+
+}
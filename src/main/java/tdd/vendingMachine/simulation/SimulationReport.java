@@ -0,0 +1,62 @@
+package tdd.vendingMachine.simulation;
+
+import tdd.vendingMachine.domain.Money;
+
+public class SimulationReport {
+
+    static final SimulationReport EMPTY = new SimulationReport(0, 0, 0, 0, 0, 0);
+
+    private final long customers;
+    private final long sales;
+    private final long soldOutVisits;
+    private final long cancels;
+    private final long noChangeRefunds;
+    private final long revenue;
+
+    SimulationReport(long customers, long sales, long soldOutVisits, long cancels, long noChangeRefunds,
+                     long revenue) {
+        this.customers = customers;
+        this.sales = sales;
+        this.soldOutVisits = soldOutVisits;
+        this.cancels = cancels;
+        this.noChangeRefunds = noChangeRefunds;
+        this.revenue = revenue;
+    }
+
+    public long getCustomers() {
+        return customers;
+    }
+
+    public long getSales() {
+        return sales;
+    }
+
+    public long getSoldOutVisits() {
+        return soldOutVisits;
+    }
+
+    public long getCancels() {
+        return cancels;
+    }
+
+    public long getNoChangeRefunds() {
+        return noChangeRefunds;
+    }
+
+    public Money getRevenue() {
+        return Money.ofMinorUnits(revenue);
+    }
+
+    SimulationReport plus(SimulationReport other) {
+        return new SimulationReport(customers + other.customers, sales + other.sales,
+            soldOutVisits + other.soldOutVisits, cancels + other.cancels, noChangeRefunds + other.noChangeRefunds,
+            revenue + other.revenue);
+    }
+
+    @Override
+    public String toString() {
+        return "customers=" + customers + ", sales=" + sales + ", soldOutVisits=" + soldOutVisits
+            + ", cancels=" + cancels + ", noChangeRefunds=" + noChangeRefunds + ", revenue=" + getRevenue();
+    }
+
+}
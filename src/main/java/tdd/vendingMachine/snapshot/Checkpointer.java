@@ -0,0 +1,361 @@
+package tdd.vendingMachine.snapshot;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Basket;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.state.MachineState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a directory with a full {@link MachineSnapshot} of a machine and a log of deltas written since. Every
+ * machine event produces one delta with the new state of the touched shelve, the cassette and the open transaction.
+ * Events touching no shelve, like topping up the cassette or starting maintenance, write a delta with
+ * {@link #NO_SHELVE} instead. Every delta also carries the machine state and the price the open transaction was
+ * selected at, as kept by {@link MachineSnapshot}.
+ * Deltas are captured on the transaction thread and written by a background thread, which also keeps its own copy
+ * of the machine image and replaces the snapshot with it after a number of deltas.
+ * <p>
+ * Every snapshot gets the next generation number and every delta carries the generation of the snapshot it follows.
+ * The snapshot is moved into place before the delta log is truncated, so after a crash in between restoring skips the
+ * deltas of the previous generation instead of replaying stale shelve quantities and coin counts over the snapshot.
+ */
+public class Checkpointer implements VendingMachineListener, Closeable {
+
+    static final String SNAPSHOT_FILE = "machine.snapshot";
+    static final String DELTA_FILE = "machine.delta";
+    static final int NO_SHELVE = -1;
+
+    private static final int DEFAULT_DELTAS_PER_SNAPSHOT = 10_000;
+    private static final Coin[] COINS = Coin.values();
+    private static final int DELTA_SIZE = 8 + 4 + 4 + 4 * COINS.length + 4 + 8 + 8 + 4;
+
+    private final BasicVendingMachine vendingMachine;
+    private final ShelfIndex shelfIndex;
+    private final CoinCassette cassette;
+    private final Path directory;
+    private final int deltasPerSnapshot;
+    private final ThreadPoolExecutor writer;
+
+    private int transactionShelvePosition = MachineSnapshot.NO_TRANSACTION;
+    private long transactionSelectedPrice;
+    private long transactionInsertedMoney;
+    private MachineState machineState;
+
+    private MachineSnapshot image;
+    private final FileChannel deltaChannel;
+    private final ByteBuffer deltaBuffer = ByteBuffer.allocateDirect(DELTA_SIZE);
+    private int deltasSinceSnapshot;
+    private volatile IOException failure;
+
+    private Checkpointer(BasicVendingMachine vendingMachine, Path directory, int deltasPerSnapshot)
+        throws IOException {
+
+        this.vendingMachine = vendingMachine;
+        this.shelfIndex = vendingMachine.getShelfIndex();
+        this.cassette = vendingMachine.getCassette();
+        this.directory = directory;
+        this.deltasPerSnapshot = deltasPerSnapshot;
+
+        this.image = MachineSnapshot.capture(vendingMachine);
+        this.image.generation = previousGeneration(directory) + 1;
+        this.transactionShelvePosition = image.transactionShelvePosition;
+        this.transactionSelectedPrice = image.transactionSelectedPrice;
+        this.transactionInsertedMoney = image.transactionInsertedMoney;
+        this.machineState = image.machineState;
+        writeSnapshot(image);
+        this.deltaChannel = FileChannel.open(directory.resolve(DELTA_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Writes a snapshot of the machine and starts checkpointing its events. Has to be called from the thread running
+     * transactions of the machine.
+     */
+    public static Checkpointer attach(BasicVendingMachine vendingMachine, Path directory) throws IOException {
+        return attach(vendingMachine, directory, DEFAULT_DELTAS_PER_SNAPSHOT);
+    }
+
+    public static Checkpointer attach(BasicVendingMachine vendingMachine, Path directory, int deltasPerSnapshot)
+        throws IOException {
+
+        if (deltasPerSnapshot <= 0) {
+            throw new IllegalArgumentException("Deltas per snapshot should be positive!");
+        }
+
+        Checkpointer checkpointer = new Checkpointer(vendingMachine, directory, deltasPerSnapshot);
+        vendingMachine.addListener(checkpointer);
+        return checkpointer;
+    }
+
+    public static BasicVendingMachine restore(Path directory, Display display) throws IOException {
+        MachineSnapshot snapshot;
+        try (InputStream input = Files.newInputStream(directory.resolve(SNAPSHOT_FILE))) {
+            snapshot = MachineSnapshot.readFrom(input);
+        }
+
+        Path deltaPath = directory.resolve(DELTA_FILE);
+        if (Files.exists(deltaPath)) {
+            try (FileChannel channel = FileChannel.open(deltaPath, StandardOpenOption.READ)) {
+                ByteBuffer deltas = ByteBuffer.allocate((int) (channel.size() / DELTA_SIZE * DELTA_SIZE));
+                while (deltas.hasRemaining()) {
+                    if (channel.read(deltas) < 0) {
+                        break;
+                    }
+                }
+                deltas.flip();
+                while (deltas.remaining() >= DELTA_SIZE) {
+                    long generation = deltas.getLong();
+                    if (generation > snapshot.generation) {
+                        throw new IOException("Delta of generation " + generation + " is newer than snapshot!");
+                    }
+                    if (generation < snapshot.generation) {
+                        deltas.position(deltas.position() + DELTA_SIZE - Long.BYTES);
+                    } else {
+                        applyDelta(snapshot, deltas);
+                    }
+                }
+            }
+        }
+
+        return snapshot.restore(display);
+    }
+
+    @Override
+    public void onShelveSelected(Shelve shelve) {
+        transactionShelvePosition = shelfIndex.positionOf(shelve.getNumber());
+        transactionSelectedPrice = vendingMachine.getTransaction().getSelectedPrice().getMinorUnits();
+        transactionInsertedMoney = 0;
+        submitDelta(transactionShelvePosition, shelve);
+    }
+
+    @Override
+    public void onCoinInserted(Shelve shelve, Coin coin) {
+        transactionInsertedMoney += coin.getAmount().getMinorUnits();
+        submitDelta(transactionShelvePosition, shelve);
+    }
+
+    @Override
+    public void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+        finishTransaction(shelve);
+    }
+
+    @Override
+    public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+        finishTransaction(shelve);
+    }
+
+    @Override
+    public void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+        finishTransaction(shelve);
+    }
+
+    @Override
+    public void onBatchPurchased(BatchPurchase purchase, List<Coin> payment) {
+        Basket basket = purchase.getBasket();
+        for (int i = 0; i < basket.size(); i++) {
+            Shelve shelve = basket.getShelve(i);
+            submitDelta(shelfIndex.positionOf(shelve.getNumber()), shelve);
+        }
+    }
+
+    @Override
+    public void onServiced(ServiceVisit visit) {
+        if (visit.hasProductSwaps()) {
+            MachineSnapshot snapshot = MachineSnapshot.capture(vendingMachine);
+            writer.execute(() -> replaceImage(snapshot));
+            return;
+        }
+
+        for (int shelveNumber : visit.getShelveNumbers()) {
+            int shelvePosition = shelfIndex.positionOf(shelveNumber);
+            submitDelta(shelvePosition, shelfIndex.getShelve(shelvePosition));
+        }
+        if (visit.getShelveNumbers().isEmpty()) {
+            submitDelta(NO_SHELVE, 0);
+        }
+    }
+
+    @Override
+    public void onMachineStateChanged(MachineState state) {
+        machineState = state;
+        submitDelta(NO_SHELVE, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        vendingMachine.removeListener(this);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            if (failure == null) {
+                deltaChannel.force(false);
+            }
+        } finally {
+            deltaChannel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void finishTransaction(Shelve shelve) {
+        int shelvePosition = shelfIndex.positionOf(shelve.getNumber());
+        transactionShelvePosition = MachineSnapshot.NO_TRANSACTION;
+        transactionSelectedPrice = 0;
+        transactionInsertedMoney = 0;
+        submitDelta(shelvePosition, shelve);
+    }
+
+    private void submitDelta(int shelvePosition, Shelve shelve) {
+        submitDelta(shelvePosition, shelve.getQuantity());
+    }
+
+    private void submitDelta(int shelvePosition, int quantity) {
+        int[] coinCounts = new int[COINS.length];
+        cassette.copyCoinCounts(coinCounts);
+        int transactionShelvePosition = this.transactionShelvePosition;
+        long transactionSelectedPrice = this.transactionSelectedPrice;
+        long transactionInsertedMoney = this.transactionInsertedMoney;
+        MachineState machineState = this.machineState;
+
+        writer.execute(() -> writeDelta(shelvePosition, quantity, coinCounts, transactionShelvePosition,
+            transactionSelectedPrice, transactionInsertedMoney, machineState));
+    }
+
+    private void writeDelta(int shelvePosition, int quantity, int[] coinCounts, int transactionShelvePosition,
+                            long transactionSelectedPrice, long transactionInsertedMoney, MachineState machineState) {
+        if (failure != null) {
+            return;
+        }
+
+        if (shelvePosition != NO_SHELVE) {
+            image.quantities[shelvePosition] = quantity;
+        }
+        System.arraycopy(coinCounts, 0, image.coinCounts, 0, COINS.length);
+        image.transactionShelvePosition = transactionShelvePosition;
+        image.transactionSelectedPrice = transactionSelectedPrice;
+        image.transactionInsertedMoney = transactionInsertedMoney;
+        image.machineState = machineState;
+
+        deltaBuffer.clear();
+        deltaBuffer.putLong(image.generation).putInt(shelvePosition).putInt(quantity);
+        for (int coinCount : coinCounts) {
+            deltaBuffer.putInt(coinCount);
+        }
+        deltaBuffer.putInt(transactionShelvePosition).putLong(transactionSelectedPrice)
+            .putLong(transactionInsertedMoney).putInt(machineState.ordinal());
+        deltaBuffer.flip();
+
+        try {
+            while (deltaBuffer.hasRemaining()) {
+                deltaChannel.write(deltaBuffer);
+            }
+
+            if (++deltasSinceSnapshot >= deltasPerSnapshot) {
+                compact();
+            } else if (writer.getQueue().isEmpty()) {
+                deltaChannel.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void replaceImage(MachineSnapshot snapshot) {
+        if (failure != null) {
+            return;
+        }
+
+        snapshot.generation = image.generation;
+        image = snapshot;
+        try {
+            compact();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void compact() throws IOException {
+        image.generation++;
+        writeSnapshot(image);
+        deltaChannel.truncate(0);
+        deltaChannel.position(0);
+        deltasSinceSnapshot = 0;
+    }
+
+    private static long previousGeneration(Path directory) {
+        try (InputStream input = Files.newInputStream(directory.resolve(SNAPSHOT_FILE))) {
+            return MachineSnapshot.readFrom(input).generation;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void writeSnapshot(MachineSnapshot snapshot) throws IOException {
+        Path temporaryPath = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            OutputStream output = Channels.newOutputStream(channel);
+            snapshot.writeTo(output);
+            channel.force(true);
+        }
+        Files.move(temporaryPath, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void applyDelta(MachineSnapshot snapshot, ByteBuffer deltas) throws IOException {
+        int shelvePosition = deltas.getInt();
+        if (shelvePosition < NO_SHELVE || shelvePosition >= snapshot.getShelveCount()) {
+            throw new IOException("Invalid delta shelve position " + shelvePosition + "!");
+        }
+
+        int quantity = deltas.getInt();
+        if (shelvePosition != NO_SHELVE) {
+            snapshot.quantities[shelvePosition] = quantity;
+        }
+        for (int i = 0; i < COINS.length; i++) {
+            snapshot.coinCounts[i] = deltas.getInt();
+        }
+        snapshot.transactionShelvePosition = deltas.getInt();
+        snapshot.transactionSelectedPrice = deltas.getLong();
+        snapshot.transactionInsertedMoney = deltas.getLong();
+        snapshot.machineState = MachineSnapshot.machineStateOf(deltas.getInt());
+    }
+
+}
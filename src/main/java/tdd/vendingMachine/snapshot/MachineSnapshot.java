@@ -0,0 +1,221 @@
+package tdd.vendingMachine.snapshot;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.state.MachineState;
+import tdd.vendingMachine.state.VendingTransaction;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complete state of a {@link BasicVendingMachine}: shelves with their products and quantities, cassette coin counts,
+ * whether the machine is in maintenance or out of service and the transaction in progress, if any. Shelves are kept
+ * column by column in the order of the machine's {@link ShelfIndex}, so deltas can address a shelve by its position.
+ * <p>
+ * Binary format: magic, version, generation, shelve count, then per shelve its number, product name, price in cents and
+ * quantity, then one count per coin, the open transaction as a shelve position, its selected price and inserted cents
+ * and the machine state ordinal, which is {@link MachineState#SELECTING_PRODUCT} while a transaction is open. Version 1
+ * snapshots have no machine state and restore selecting product; versions before 3 have no selected price and resume
+ * at the list price; versions before 4 have no generation and count as generation 0.
+ */
+public class MachineSnapshot {
+
+    static final int NO_TRANSACTION = -1;
+
+    private static final int MAGIC = 0x564D5353;
+    private static final short VERSION = 4;
+    private static final short VERSION_WITHOUT_GENERATION = 3;
+    private static final short VERSION_WITHOUT_SELECTED_PRICE = 2;
+    private static final short VERSION_WITHOUT_MACHINE_STATE = 1;
+    private static final MachineState[] STATES = MachineState.values();
+    private static final Coin[] COINS = Coin.values();
+
+    private final int[] shelveNumbers;
+    private final String[] productNames;
+    private final long[] productPrices;
+    final int[] quantities;
+    final int[] coinCounts;
+    long generation;
+    int transactionShelvePosition;
+    long transactionSelectedPrice;
+    long transactionInsertedMoney;
+    MachineState machineState;
+
+    private MachineSnapshot(int[] shelveNumbers, String[] productNames, long[] productPrices, int[] quantities,
+                            int[] coinCounts, int transactionShelvePosition, long transactionSelectedPrice,
+                            long transactionInsertedMoney, MachineState machineState) {
+        this.shelveNumbers = shelveNumbers;
+        this.productNames = productNames;
+        this.productPrices = productPrices;
+        this.quantities = quantities;
+        this.coinCounts = coinCounts;
+        this.transactionShelvePosition = transactionShelvePosition;
+        this.transactionSelectedPrice = transactionSelectedPrice;
+        this.transactionInsertedMoney = transactionInsertedMoney;
+        this.machineState = machineState;
+    }
+
+    /**
+     * Has to be called from the thread running transactions of the machine.
+     */
+    public static MachineSnapshot capture(BasicVendingMachine vendingMachine) {
+        ShelfIndex shelfIndex = vendingMachine.getShelfIndex();
+        int shelveCount = shelfIndex.size();
+        int[] shelveNumbers = new int[shelveCount];
+        String[] productNames = new String[shelveCount];
+        long[] productPrices = new long[shelveCount];
+        int[] quantities = new int[shelveCount];
+        for (int position = 0; position < shelveCount; position++) {
+            Shelve shelve = shelfIndex.getShelve(position);
+            shelveNumbers[position] = shelve.getNumber();
+            productNames[position] = shelve.getProductName();
+            productPrices[position] = shelve.getProductPriceAmount().getMinorUnits();
+            quantities[position] = shelve.getQuantity();
+        }
+
+        int[] coinCounts = new int[COINS.length];
+        vendingMachine.getCassette().copyCoinCounts(coinCounts);
+
+        VendingTransaction transaction = vendingMachine.getTransaction();
+        int transactionShelvePosition = NO_TRANSACTION;
+        long transactionSelectedPrice = 0;
+        long transactionInsertedMoney = 0;
+        MachineState machineState = transaction.getState();
+        if (transaction.getSelectedShelve() != null) {
+            transactionShelvePosition = shelfIndex.positionOf(transaction.getSelectedShelve().getNumber());
+            transactionSelectedPrice = transaction.getSelectedPrice().getMinorUnits();
+            transactionInsertedMoney = transaction.getInsertedMoney().getMinorUnits();
+            machineState = MachineState.SELECTING_PRODUCT;
+        }
+
+        return new MachineSnapshot(shelveNumbers, productNames, productPrices, quantities, coinCounts,
+            transactionShelvePosition, transactionSelectedPrice, transactionInsertedMoney, machineState);
+    }
+
+    public static MachineSnapshot readFrom(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a vending machine snapshot!");
+        }
+        short version = input.readShort();
+        if (version < VERSION_WITHOUT_MACHINE_STATE || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + "!");
+        }
+        long generation = version >= VERSION ? input.readLong() : 0;
+
+        int shelveCount = input.readInt();
+        int[] shelveNumbers = new int[shelveCount];
+        String[] productNames = new String[shelveCount];
+        long[] productPrices = new long[shelveCount];
+        int[] quantities = new int[shelveCount];
+        String previousProductName = null;
+        for (int position = 0; position < shelveCount; position++) {
+            shelveNumbers[position] = input.readInt();
+            String productName = input.readUTF();
+            productNames[position] = productName.equals(previousProductName) ? previousProductName : productName;
+            previousProductName = productNames[position];
+            productPrices[position] = input.readLong();
+            quantities[position] = input.readInt();
+        }
+
+        int[] coinCounts = new int[COINS.length];
+        for (int i = 0; i < COINS.length; i++) {
+            coinCounts[i] = input.readInt();
+        }
+
+        int transactionShelvePosition = input.readInt();
+        if (transactionShelvePosition < NO_TRANSACTION || transactionShelvePosition >= shelveCount) {
+            throw new IOException("Invalid transaction shelve position " + transactionShelvePosition + "!");
+        }
+        long transactionSelectedPrice = version >= VERSION_WITHOUT_GENERATION ? input.readLong()
+            : transactionShelvePosition == NO_TRANSACTION ? 0 : productPrices[transactionShelvePosition];
+        long transactionInsertedMoney = input.readLong();
+        MachineState machineState = version == VERSION_WITHOUT_MACHINE_STATE ? MachineState.SELECTING_PRODUCT
+            : machineStateOf(input.readByte());
+
+        MachineSnapshot snapshot = new MachineSnapshot(shelveNumbers, productNames, productPrices, quantities,
+            coinCounts, transactionShelvePosition, transactionSelectedPrice, transactionInsertedMoney, machineState);
+        snapshot.generation = generation;
+        return snapshot;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeLong(generation);
+
+        output.writeInt(shelveNumbers.length);
+        for (int position = 0; position < shelveNumbers.length; position++) {
+            output.writeInt(shelveNumbers[position]);
+            output.writeUTF(productNames[position]);
+            output.writeLong(productPrices[position]);
+            output.writeInt(quantities[position]);
+        }
+
+        for (int coinCount : coinCounts) {
+            output.writeInt(coinCount);
+        }
+
+        output.writeInt(transactionShelvePosition);
+        output.writeLong(transactionSelectedPrice);
+        output.writeLong(transactionInsertedMoney);
+        output.writeByte(machineState.ordinal());
+        output.flush();
+    }
+
+    public BasicVendingMachine restore(Display display) {
+        List<Shelve> shelves = new ArrayList<>(shelveNumbers.length);
+        Product product = null;
+        for (int position = 0; position < shelveNumbers.length; position++) {
+            if (product == null || !product.getName().equals(productNames[position])
+                || product.getPriceAmount().getMinorUnits() != productPrices[position]) {
+                product = new Product(productNames[position], Money.ofMinorUnits(productPrices[position]));
+            }
+            shelves.add(new Shelve(shelveNumbers[position], product, quantities[position]));
+        }
+
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        for (Coin coin : COINS) {
+            coins.put(coin, coinCounts[coin.ordinal()]);
+        }
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coins), display);
+        if (machineState == MachineState.MAINTENANCE) {
+            vendingMachine.startMaintenance();
+        } else if (machineState == MachineState.OUT_OF_SERVICE) {
+            vendingMachine.takeOutOfService();
+        } else if (hasTransaction()) {
+            try {
+                vendingMachine.resumeTransaction(shelveNumbers[transactionShelvePosition],
+                    Money.ofMinorUnits(transactionSelectedPrice), Money.ofMinorUnits(transactionInsertedMoney));
+            } catch (InvalidShelveException e) {
+                throw new IllegalStateException("Snapshot refers to missing shelve!", e);
+            }
+        }
+        return vendingMachine;
+    }
+
+    public int getShelveCount() {
+        return shelveNumbers.length;
+    }
+
+    public boolean hasTransaction() {
+        return transactionShelvePosition != NO_TRANSACTION;
+    }
+
+    static MachineState machineStateOf(int ordinal) throws IOException {
+        if (ordinal != MachineState.SELECTING_PRODUCT.ordinal() && ordinal != MachineState.MAINTENANCE.ordinal()
+            && ordinal != MachineState.OUT_OF_SERVICE.ordinal()) {
+            throw new IOException("Invalid machine state " + ordinal + "!");
+        }
+        return STATES[ordinal];
+    }
+
+}
@@ -0,0 +1,19 @@
+package tdd.vendingMachine.state;
+
+enum MachineEvent {
+
+    SELECT_SHELVE,
+    INSERT_COIN,
+    CHECK_INSERTED_MONEY,
+    CANCEL,
+    DISPENSE_PRODUCT,
+    PURCHASE_BATCH,
+    START_MAINTENANCE,
+    FINISH_MAINTENANCE,
+    TAKE_OUT_OF_SERVICE,
+    RETURN_TO_SERVICE,
+    SERVICE,
+    RESUME,
+    EXPIRE
+
+}
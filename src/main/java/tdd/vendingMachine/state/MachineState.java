@@ -0,0 +1,11 @@
+package tdd.vendingMachine.state;
+
+public enum MachineState {
+
+    SELECTING_PRODUCT,
+    INSERTING_COINS,
+    DISPENSING_PRODUCT,
+    MAINTENANCE,
+    OUT_OF_SERVICE
+
+}
@@ -0,0 +1,45 @@
+package tdd.vendingMachine.state;
+
+import tdd.vendingMachine.domain.InsertResult;
+import tdd.vendingMachine.domain.SelectResult;
+
+/**
+ * Why an event is refused in a state: the result reported by selecting a shelve or inserting a coin, and the message
+ * of the exception thrown by the other events.
+ */
+enum Rejection {
+
+    NO_SHELVE_SELECTED(null, InsertResult.NO_SHELVE_SELECTED, "No shelve selected!"),
+    SHELVE_ALREADY_SELECTED(SelectResult.SHELVE_ALREADY_SELECTED, null, "Shelve already selected!"),
+    ALREADY_ENOUGH_MONEY(null, InsertResult.ALREADY_ENOUGH_MONEY, "Already inserted enough money!"),
+    NOT_ENOUGH_MONEY(null, null, "Inserted not enough money!"),
+    DISPENSING_PRODUCT(null, null, "Can't cancel while dispensing product!"),
+    TRANSACTION_IN_PROGRESS(null, null, "Transaction in progress!"),
+    NOT_IN_MAINTENANCE(null, null, "Machine not in maintenance!"),
+    NOT_OUT_OF_SERVICE(null, null, "Machine not out of service!"),
+    IN_MAINTENANCE(SelectResult.MACHINE_UNAVAILABLE, InsertResult.MACHINE_UNAVAILABLE, "Machine in maintenance!"),
+    OUT_OF_SERVICE(SelectResult.MACHINE_UNAVAILABLE, InsertResult.MACHINE_UNAVAILABLE, "Machine out of service!");
+
+    private final SelectResult selectResult;
+    private final InsertResult insertResult;
+    private final String message;
+
+    Rejection(SelectResult selectResult, InsertResult insertResult, String message) {
+        this.selectResult = selectResult;
+        this.insertResult = insertResult;
+        this.message = message;
+    }
+
+    SelectResult getSelectResult() {
+        return selectResult;
+    }
+
+    InsertResult getInsertResult() {
+        return insertResult;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+}
@@ -0,0 +1,137 @@
+package tdd.vendingMachine.state;
+
+import java.util.Arrays;
+
+/**
+ * Transitions of a state machine compiled into a dense {@code int[state][event]} array. Each cell packs the action
+ * performing the event, the rejection when the event is refused and the state to change to, so dispatching an event
+ * is one array lookup followed by a switch on the action.
+ * <p>
+ * A spec lists cells explicitly and may give a rejection for all remaining cells of an event or of a state, in that
+ * order of precedence. Compiling fails when a cell is left without a transition or a select or insert event is
+ * refused with a rejection that has no result for it.
+ */
+final class TransitionTable {
+
+    static final int REJECT = 0;
+    static final int CHANGE_STATE = 1;
+
+    private static final MachineState[] STATES = MachineState.values();
+    private static final MachineEvent[] EVENTS = MachineEvent.values();
+    private static final Rejection[] REJECTIONS = Rejection.values();
+
+    private static final int UNSPECIFIED = -1;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int REJECTION_SHIFT = 8;
+    private static final int TARGET_SHIFT = 16;
+
+    private final int[][] cells;
+
+    private TransitionTable(int[][] cells) {
+        this.cells = cells;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int get(int state, int event) {
+        return cells[state][event];
+    }
+
+    static int actionOf(int cell) {
+        return cell & BYTE_MASK;
+    }
+
+    static Rejection rejectionOf(int cell) {
+        return REJECTIONS[cell >>> REJECTION_SHIFT & BYTE_MASK];
+    }
+
+    static MachineState targetOf(int cell) {
+        return STATES[cell >>> TARGET_SHIFT & BYTE_MASK];
+    }
+
+    static final class Builder {
+
+        private final int[][] cells = new int[STATES.length][EVENTS.length];
+        private final Rejection[] stateDefaults = new Rejection[STATES.length];
+        private final Rejection[] eventDefaults = new Rejection[EVENTS.length];
+
+        private Builder() {
+            for (int[] stateCells : cells) {
+                Arrays.fill(stateCells, UNSPECIFIED);
+            }
+        }
+
+        Builder perform(MachineState state, MachineEvent event, int action) {
+            if (action <= CHANGE_STATE || action > BYTE_MASK) {
+                throw new IllegalArgumentException("Action " + action + " out of range!");
+            }
+            return set(state, event, action);
+        }
+
+        Builder changeState(MachineState state, MachineEvent event, MachineState target) {
+            return set(state, event, CHANGE_STATE | target.ordinal() << TARGET_SHIFT);
+        }
+
+        Builder reject(MachineState state, MachineEvent event, Rejection rejection) {
+            return set(state, event, rejectionCell(rejection));
+        }
+
+        Builder otherwise(MachineEvent event, Rejection rejection) {
+            eventDefaults[event.ordinal()] = rejection;
+            return this;
+        }
+
+        Builder otherwise(MachineState state, Rejection rejection) {
+            stateDefaults[state.ordinal()] = rejection;
+            return this;
+        }
+
+        TransitionTable compile() {
+            int[][] compiledCells = new int[STATES.length][EVENTS.length];
+            for (MachineState state : STATES) {
+                for (MachineEvent event : EVENTS) {
+                    compiledCells[state.ordinal()][event.ordinal()] = compile(state, event);
+                }
+            }
+            return new TransitionTable(compiledCells);
+        }
+
+        private int compile(MachineState state, MachineEvent event) {
+            int cell = cells[state.ordinal()][event.ordinal()];
+            if (cell == UNSPECIFIED && eventDefaults[event.ordinal()] != null) {
+                cell = rejectionCell(eventDefaults[event.ordinal()]);
+            }
+            if (cell == UNSPECIFIED && stateDefaults[state.ordinal()] != null) {
+                cell = rejectionCell(stateDefaults[state.ordinal()]);
+            }
+            if (cell == UNSPECIFIED) {
+                throw new IllegalStateException("No transition for " + event + " in " + state + "!");
+            }
+
+            if (actionOf(cell) == REJECT) {
+                Rejection rejection = rejectionOf(cell);
+                if (event == MachineEvent.SELECT_SHELVE && rejection.getSelectResult() == null
+                    || event == MachineEvent.INSERT_COIN && rejection.getInsertResult() == null) {
+                    throw new IllegalStateException(rejection + " has no result of " + event + "!");
+                }
+            }
+            return cell;
+        }
+
+        private Builder set(MachineState state, MachineEvent event, int cell) {
+            if (cells[state.ordinal()][event.ordinal()] != UNSPECIFIED) {
+                throw new IllegalStateException("Transition for " + event + " in " + state + " already given!");
+            }
+            cells[state.ordinal()][event.ordinal()] = cell;
+            return this;
+        }
+
+        private static int rejectionCell(Rejection rejection) {
+            return REJECT | rejection.ordinal() << REJECTION_SHIFT;
+        }
+
+    }
+
+}
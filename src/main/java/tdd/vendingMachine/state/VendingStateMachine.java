@@ -0,0 +1,415 @@
+package tdd.vendingMachine.state;
+
+import tdd.vendingMachine.display.ProductMessage;
+import tdd.vendingMachine.domain.Basket;
+import tdd.vendingMachine.domain.BatchPurchase;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.InsertResult;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.PriceTable;
+import tdd.vendingMachine.domain.Purchase;
+import tdd.vendingMachine.domain.SelectResult;
+import tdd.vendingMachine.domain.ServiceVisit;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static tdd.vendingMachine.state.MachineEvent.*;
+import static tdd.vendingMachine.state.MachineState.*;
+
+/**
+ * Behavior of a vending machine, driven by a {@link TransitionTable} compiled from the spec below. Every operation
+ * looks up the cell of the transaction's state and its event and either performs the action of the cell or reports
+ * its rejection, so adding a state means adding its rows to the spec. Holds no state of its own, all data lives in
+ * the {@link VendingTransaction}.
+ * <p>
+ * Listeners are notified only after an action moved the transaction to its next state, so a failing listener can't
+ * leave money counted or a product released in a state that would accept the same step again.
+ */
+public final class VendingStateMachine {
+
+    private static final int SELECT = 2;
+    private static final int INSERT = 3;
+    private static final int COMPARE_INSERTED_MONEY = 4;
+    private static final int REPORT_ENOUGH_MONEY = 5;
+    private static final int RETURN_INSERTED_COINS = 6;
+    private static final int DISPENSE = 7;
+    private static final int SELL_BATCH = 8;
+    private static final int APPLY_SERVICE_VISIT = 9;
+    private static final int RESUME_TRANSACTION = 10;
+
+    private static final TransitionTable TRANSITIONS = TransitionTable.builder()
+        .perform(SELECTING_PRODUCT, SELECT_SHELVE, SELECT)
+        .perform(SELECTING_PRODUCT, PURCHASE_BATCH, SELL_BATCH)
+        .perform(SELECTING_PRODUCT, RESUME, RESUME_TRANSACTION)
+        .changeState(SELECTING_PRODUCT, START_MAINTENANCE, MAINTENANCE)
+        .changeState(SELECTING_PRODUCT, TAKE_OUT_OF_SERVICE, OUT_OF_SERVICE)
+        .otherwise(SELECTING_PRODUCT, Rejection.NO_SHELVE_SELECTED)
+
+        .reject(INSERTING_COINS, SELECT_SHELVE, Rejection.SHELVE_ALREADY_SELECTED)
+        .perform(INSERTING_COINS, INSERT_COIN, INSERT)
+        .perform(INSERTING_COINS, CHECK_INSERTED_MONEY, COMPARE_INSERTED_MONEY)
+        .perform(INSERTING_COINS, CANCEL, RETURN_INSERTED_COINS)
+        .perform(INSERTING_COINS, EXPIRE, RETURN_INSERTED_COINS)
+        .reject(INSERTING_COINS, DISPENSE_PRODUCT, Rejection.NOT_ENOUGH_MONEY)
+        .reject(INSERTING_COINS, PURCHASE_BATCH, Rejection.SHELVE_ALREADY_SELECTED)
+        .otherwise(INSERTING_COINS, Rejection.TRANSACTION_IN_PROGRESS)
+
+        .reject(DISPENSING_PRODUCT, SELECT_SHELVE, Rejection.SHELVE_ALREADY_SELECTED)
+        .reject(DISPENSING_PRODUCT, INSERT_COIN, Rejection.ALREADY_ENOUGH_MONEY)
+        .perform(DISPENSING_PRODUCT, CHECK_INSERTED_MONEY, REPORT_ENOUGH_MONEY)
+        .reject(DISPENSING_PRODUCT, CANCEL, Rejection.DISPENSING_PRODUCT)
+        .perform(DISPENSING_PRODUCT, EXPIRE, RETURN_INSERTED_COINS)
+        .perform(DISPENSING_PRODUCT, DISPENSE_PRODUCT, DISPENSE)
+        .reject(DISPENSING_PRODUCT, PURCHASE_BATCH, Rejection.SHELVE_ALREADY_SELECTED)
+        .otherwise(DISPENSING_PRODUCT, Rejection.TRANSACTION_IN_PROGRESS)
+
+        .perform(MAINTENANCE, SERVICE, APPLY_SERVICE_VISIT)
+        .changeState(MAINTENANCE, FINISH_MAINTENANCE, SELECTING_PRODUCT)
+        .changeState(MAINTENANCE, TAKE_OUT_OF_SERVICE, OUT_OF_SERVICE)
+        .otherwise(MAINTENANCE, Rejection.IN_MAINTENANCE)
+
+        .changeState(OUT_OF_SERVICE, RETURN_TO_SERVICE, SELECTING_PRODUCT)
+        .changeState(OUT_OF_SERVICE, START_MAINTENANCE, MAINTENANCE)
+        .otherwise(OUT_OF_SERVICE, Rejection.OUT_OF_SERVICE)
+
+        .otherwise(FINISH_MAINTENANCE, Rejection.NOT_IN_MAINTENANCE)
+        .otherwise(RETURN_TO_SERVICE, Rejection.NOT_OUT_OF_SERVICE)
+        .otherwise(SERVICE, Rejection.NOT_IN_MAINTENANCE)
+        .compile();
+
+    private static final int ON_SELECT_SHELVE = SELECT_SHELVE.ordinal();
+    private static final int ON_INSERT_COIN = INSERT_COIN.ordinal();
+    private static final int ON_CHECK_INSERTED_MONEY = CHECK_INSERTED_MONEY.ordinal();
+    private static final int ON_CANCEL = CANCEL.ordinal();
+    private static final int ON_DISPENSE_PRODUCT = DISPENSE_PRODUCT.ordinal();
+    private static final int ON_PURCHASE_BATCH = PURCHASE_BATCH.ordinal();
+    private static final int ON_SERVICE = SERVICE.ordinal();
+    private static final int ON_RESUME = RESUME.ordinal();
+    private static final int ON_EXPIRE = EXPIRE.ordinal();
+
+    private static final int COIN_KINDS = Coin.values().length;
+
+    private VendingStateMachine() {
+    }
+
+    public static SelectResult selectShelve(VendingTransaction transaction, int shelveNumber) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_SELECT_SHELVE);
+        if (TransitionTable.actionOf(transition) != SELECT) {
+            return TransitionTable.rejectionOf(transition).getSelectResult();
+        }
+
+        ShelfIndex shelfIndex = transaction.getShelfIndex();
+        int position = shelfIndex.positionOf(shelveNumber);
+        if (position < 0) {
+            return SelectResult.INVALID_SHELVE;
+        }
+
+        Shelve foundShelve = shelfIndex.getShelve(position);
+        if (!foundShelve.reserveProduct()) {
+            return SelectResult.PRODUCT_NOT_AVAILABLE;
+        }
+
+        transaction.start(foundShelve, position);
+        long priceInCents = transaction.selectedPriceInCents();
+        ProductMessage.display(transaction.getDisplay(), foundShelve.getProductName(), priceInCents);
+        if (!transaction.getCassette().canChangeOverpaymentsOf(priceInCents)) {
+            transaction.getDisplay().displayWarning("Exact change only!");
+        }
+        transaction.getListener().onShelveSelected(foundShelve);
+        return SelectResult.SELECTED;
+    }
+
+    public static InsertResult insertCoin(VendingTransaction transaction, Coin coin) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_INSERT_COIN);
+        if (TransitionTable.actionOf(transition) != INSERT) {
+            return TransitionTable.rejectionOf(transition).getInsertResult();
+        }
+
+        if (!putInsertedCoin(transaction, coin)) {
+            transaction.getListener().onCoinRejected(transaction.getSelectedShelve(), coin);
+            return InsertResult.UNACCEPTABLE_COIN;
+        }
+        transaction.addInsertedCents(coin.getValueInCents());
+        if (transaction.insertedEnoughMoney()) {
+            transaction.goTo(DISPENSING_PRODUCT);
+        }
+
+        displayInsertedCoinMessage(transaction);
+        transaction.getListener().onCoinInserted(transaction.getSelectedShelve(), coin);
+        return InsertResult.ACCEPTED;
+    }
+
+    /**
+     * Inserts a burst of coins as one step with one display refresh, stopping at the first coin that is unacceptable
+     * or not needed anymore. Returns the number of coins inserted, the caller decides what happens to the rest.
+     */
+    public static int insertCoins(VendingTransaction transaction, Coin[] coins, int count) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_INSERT_COIN);
+        if (TransitionTable.actionOf(transition) != INSERT) {
+            return 0;
+        }
+
+        long priceInCents = transaction.selectedPriceInCents();
+        long insertedMoney = transaction.getInsertedMoneyInCents();
+        int inserted = 0;
+        while (inserted < count && insertedMoney < priceInCents && CoinCassette.accepts(coins[inserted])) {
+            insertedMoney += coins[inserted++].getValueInCents();
+        }
+        if (inserted == 0) {
+            return 0;
+        }
+
+        putInsertedCoins(transaction, coins, inserted);
+        transaction.addInsertedCents(insertedMoney - transaction.getInsertedMoneyInCents());
+        if (transaction.insertedEnoughMoney()) {
+            transaction.goTo(DISPENSING_PRODUCT);
+        }
+
+        displayInsertedCoinMessage(transaction);
+        Shelve selectedShelve = transaction.getSelectedShelve();
+        for (int i = 0; i < inserted; i++) {
+            transaction.getListener().onCoinInserted(selectedShelve, coins[i]);
+        }
+        return inserted;
+    }
+
+    public static void rejectCoin(VendingTransaction transaction, Coin coin) {
+        transaction.getListener().onCoinRejected(transaction.getSelectedShelve(), coin);
+    }
+
+    public static boolean insertedEnoughMoney(VendingTransaction transaction) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_CHECK_INSERTED_MONEY);
+        switch (TransitionTable.actionOf(transition)) {
+            case COMPARE_INSERTED_MONEY:
+                return transaction.insertedEnoughMoney();
+            case REPORT_ENOUGH_MONEY:
+                return true;
+            default:
+                throw rejected(transition);
+        }
+    }
+
+    public static List<Coin> cancel(VendingTransaction transaction) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_CANCEL);
+        if (TransitionTable.actionOf(transition) != RETURN_INSERTED_COINS) {
+            throw rejected(transition);
+        }
+        return returnInsertedCoins(transaction);
+    }
+
+    /**
+     * Gives back the coins of a transaction left idle, even one that already got enough money but wasn't dispensed.
+     */
+    public static List<Coin> expire(VendingTransaction transaction) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_EXPIRE);
+        if (TransitionTable.actionOf(transition) != RETURN_INSERTED_COINS) {
+            throw rejected(transition);
+        }
+        return returnInsertedCoins(transaction);
+    }
+
+    public static Purchase dispenseProduct(VendingTransaction transaction) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_DISPENSE_PRODUCT);
+        if (TransitionTable.actionOf(transition) != DISPENSE) {
+            throw rejected(transition);
+        }
+
+        Shelve selectedShelve = transaction.getSelectedShelve();
+        int[] changeCounts = new int[COIN_KINDS];
+
+        if (tryToGetChange(transaction, changeCounts)) {
+            Product product = selectedShelve.releaseReservedProduct();
+            Purchase purchase = Purchase.of(product, changeCounts);
+            transaction.finish();
+            if (transaction.hasListeners()) {
+                transaction.getListener().onProductDispensed(selectedShelve, product, purchase.getChange());
+            }
+            return purchase;
+        }
+
+        transaction.getDisplay().displayWarning("No change!");
+        selectedShelve.cancelReservation();
+        Purchase refund = returnInsertedMoney(transaction, changeCounts);
+        transaction.finish();
+        transaction.getListener().onNoChangeRefund(selectedShelve, refund.getChange());
+        return refund;
+    }
+
+    public static BatchPurchase purchaseBatch(VendingTransaction transaction, Map<Integer, Integer> shelveQuantities,
+                                              List<Coin> payment)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_PURCHASE_BATCH);
+        if (TransitionTable.actionOf(transition) != SELL_BATCH) {
+            throw rejected(transition);
+        }
+
+        Basket basket = Basket.reserve(transaction.getShelfIndex(), transaction.getPriceBoard().current(),
+            shelveQuantities);
+        BatchPurchase purchase = basket.checkout(transaction.getCassette(), payment);
+
+        if (purchase.isCompleted()) {
+            transaction.getListener().onBatchPurchased(purchase, payment);
+        } else {
+            transaction.getDisplay().displayWarning("No change!");
+            transaction.getListener().onBatchNoChangeRefund(purchase, payment);
+        }
+        return purchase;
+    }
+
+    /**
+     * Applies a service visit, only possible in maintenance so no transaction sees shelves or coins change under it.
+     */
+    public static void service(VendingTransaction transaction, ServiceVisit visit) throws InvalidShelveException {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_SERVICE);
+        if (TransitionTable.actionOf(transition) != APPLY_SERVICE_VISIT) {
+            throw rejected(transition);
+        }
+
+        ShelfIndex shelfIndex = transaction.getShelfIndex();
+        visit.applyTo(shelfIndex, transaction.getCassette());
+        if (visit.hasProductSwaps()) {
+            transaction.getPriceBoard().publish(PriceTable.ofListPrices(shelfIndex));
+        }
+        transaction.getListener().onServiced(visit);
+    }
+
+    /**
+     * Restores a transaction interrupted by a restart, with the product already reserved and the coins already in the
+     * cassette, at the price it was selected at.
+     */
+    public static void resume(VendingTransaction transaction, Shelve shelve, Money selectedPrice,
+                              Money insertedMoney) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), ON_RESUME);
+        if (TransitionTable.actionOf(transition) != RESUME_TRANSACTION) {
+            throw rejected(transition);
+        }
+
+        transaction.startAtPrice(shelve, selectedPrice.getMinorUnits());
+        transaction.addInsertedMoney(insertedMoney);
+        if (transaction.insertedEnoughMoney()) {
+            transaction.goTo(DISPENSING_PRODUCT);
+        }
+    }
+
+    public static void startMaintenance(VendingTransaction transaction) {
+        changeState(transaction, START_MAINTENANCE);
+    }
+
+    public static void finishMaintenance(VendingTransaction transaction) {
+        changeState(transaction, FINISH_MAINTENANCE);
+    }
+
+    public static void takeOutOfService(VendingTransaction transaction) {
+        changeState(transaction, TAKE_OUT_OF_SERVICE);
+    }
+
+    public static void returnToService(VendingTransaction transaction) {
+        changeState(transaction, RETURN_TO_SERVICE);
+    }
+
+    private static void changeState(VendingTransaction transaction, MachineEvent event) {
+        int transition = TRANSITIONS.get(transaction.getStateIndex(), event.ordinal());
+        if (TransitionTable.actionOf(transition) != TransitionTable.CHANGE_STATE) {
+            throw rejected(transition);
+        }
+        transaction.goTo(TransitionTable.targetOf(transition));
+        transaction.getListener().onMachineStateChanged(transaction.getState());
+    }
+
+    private static IllegalStateException rejected(int transition) {
+        return new IllegalStateException(TransitionTable.rejectionOf(transition).getMessage());
+    }
+
+    private static void displayInsertedCoinMessage(VendingTransaction transaction) {
+        Shelve selectedShelve = transaction.getSelectedShelve();
+        String productName = selectedShelve.getProductName();
+        long moneyLeft = Math.max(0, transaction.selectedPriceInCents() - transaction.getInsertedMoneyInCents());
+        ProductMessage.display(transaction.getDisplay(), productName, moneyLeft);
+    }
+
+    private static List<Coin> returnInsertedCoins(VendingTransaction transaction) {
+        List<Coin> insertedMoneyInCoins;
+        if (transaction.holdsInsertedCoins()) {
+            insertedMoneyInCoins = transaction.releaseHeldCoins();
+        } else {
+            Money insertedMoney = transaction.getInsertedMoney();
+            insertedMoneyInCoins = transaction.getCassette().refund(insertedMoney).orElseThrow(
+                () -> new IllegalStateException("There should be coins to cover " + insertedMoney + "!"));
+        }
+        Shelve selectedShelve = transaction.getSelectedShelve();
+        selectedShelve.cancelReservation();
+        transaction.finish();
+
+        transaction.getListener().onCanceled(selectedShelve, insertedMoneyInCoins);
+        return insertedMoneyInCoins;
+    }
+
+    private static boolean putInsertedCoin(VendingTransaction transaction, Coin coin) {
+        if (!transaction.holdsInsertedCoins()) {
+            return transaction.getCassette().tryPutCoin(coin);
+        }
+        if (!CoinCassette.accepts(coin)) {
+            return false;
+        }
+        transaction.holdCoin(coin);
+        return true;
+    }
+
+    private static void putInsertedCoins(VendingTransaction transaction, Coin[] coins, int count) {
+        if (!transaction.holdsInsertedCoins()) {
+            transaction.getCassette().putCoins(coins, count);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            transaction.holdCoin(coins[i]);
+        }
+    }
+
+    private static boolean tryToGetChange(VendingTransaction transaction, int[] changeCounts) {
+        long changeAmount = transaction.getInsertedMoneyInCents() - transaction.selectedPriceInCents();
+        if (!transaction.holdsInsertedCoins()) {
+            return transaction.getCassette().withdraw(changeAmount, changeCounts);
+        }
+
+        Optional<List<Coin>> change = transaction.getCassette().exchange(transaction.getHeldCoins(),
+            Money.ofMinorUnits(changeAmount));
+        if (!change.isPresent()) {
+            return false;
+        }
+        countCoins(change.get(), changeCounts);
+        transaction.releaseHeldCoins();
+        return true;
+    }
+
+    private static Purchase returnInsertedMoney(VendingTransaction transaction, int[] changeCounts) {
+        if (transaction.holdsInsertedCoins()) {
+            countCoins(transaction.releaseHeldCoins(), changeCounts);
+            return Purchase.of(null, changeCounts);
+        }
+
+        Money insertedMoney = transaction.getInsertedMoney();
+        if (!transaction.getCassette().refund(insertedMoney, changeCounts)) {
+            throw new IllegalStateException("There should be coins to cover " + insertedMoney + "!");
+        }
+        return Purchase.of(null, changeCounts);
+    }
+
+    private static void countCoins(List<Coin> coins, int[] coinCounts) {
+        Arrays.fill(coinCounts, 0);
+        for (Coin coin : coins) {
+            coinCounts[coin.ordinal()]++;
+        }
+    }
+
+}
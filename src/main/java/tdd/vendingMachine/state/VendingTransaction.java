@@ -0,0 +1,181 @@
+package tdd.vendingMachine.state;
+
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.event.VendingMachineListeners;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.PriceBoard;
+import tdd.vendingMachine.domain.PriceTable;
+import tdd.vendingMachine.domain.ShelfIndex;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data of the transaction in progress, reused by every transaction of one machine. The {@link VendingStateMachine}
+ * works on this object and keeps its state here as an index into its transition table, so moving between states
+ * allocates nothing.
+ */
+public class VendingTransaction {
+
+    private static final MachineState[] STATES = MachineState.values();
+
+    private final ShelfIndex shelfIndex;
+    private final CoinCassette cassette;
+    private final Display display;
+    private final VendingMachineListeners listeners = new VendingMachineListeners();
+    private final PriceBoard priceBoard;
+    private final List<Coin> heldCoins;
+
+    private int state;
+    private Shelve selectedShelve;
+    private long selectedPrice;
+    private long insertedMoney;
+
+    public VendingTransaction(ShelfIndex shelfIndex, CoinCassette cassette, Display display) {
+        this(shelfIndex, cassette, new PriceBoard(PriceTable.ofListPrices(shelfIndex)), display, null);
+    }
+
+    private VendingTransaction(ShelfIndex shelfIndex, CoinCassette cassette, PriceBoard priceBoard, Display display,
+                               List<Coin> heldCoins) {
+        this.shelfIndex = shelfIndex;
+        this.cassette = cassette;
+        this.display = display;
+        this.priceBoard = priceBoard;
+        this.heldCoins = heldCoins;
+
+        this.state = MachineState.SELECTING_PRODUCT.ordinal();
+    }
+
+    /**
+     * Transaction of one of many sessions sharing shelves, prices and a cassette. Inserted coins are held aside until
+     * the product is dispensed, so no other session can give them away as change before they are returned.
+     */
+    public static VendingTransaction holdingInsertedCoins(ShelfIndex shelfIndex, CoinCassette cassette,
+                                                          PriceBoard priceBoard, Display display) {
+        return new VendingTransaction(shelfIndex, cassette, priceBoard, display, new ArrayList<>());
+    }
+
+    public MachineState getState() {
+        return STATES[state];
+    }
+
+    public Shelve getSelectedShelve() {
+        return selectedShelve;
+    }
+
+    public Money getInsertedMoney() {
+        return Money.ofMinorUnits(insertedMoney);
+    }
+
+    /**
+     * Price of the selected shelve in the price table in force when it was selected. Prices published later apply to
+     * later transactions only, so the customer pays what was displayed and change is never computed against a price
+     * higher than the one the machine moved to dispensing with.
+     */
+    public Money getSelectedPrice() {
+        return Money.ofMinorUnits(selectedPriceInCents());
+    }
+
+    public PriceBoard getPriceBoard() {
+        return priceBoard;
+    }
+
+    public void addListener(VendingMachineListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(VendingMachineListener listener) {
+        listeners.remove(listener);
+    }
+
+    ShelfIndex getShelfIndex() {
+        return shelfIndex;
+    }
+
+    CoinCassette getCassette() {
+        return cassette;
+    }
+
+    Display getDisplay() {
+        return display;
+    }
+
+    VendingMachineListener getListener() {
+        return listeners;
+    }
+
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    boolean holdsInsertedCoins() {
+        return heldCoins != null;
+    }
+
+    void holdCoin(Coin coin) {
+        heldCoins.add(coin);
+    }
+
+    List<Coin> getHeldCoins() {
+        return heldCoins;
+    }
+
+    List<Coin> releaseHeldCoins() {
+        List<Coin> releasedCoins = new ArrayList<>(heldCoins);
+        heldCoins.clear();
+        return releasedCoins;
+    }
+
+    void start(Shelve shelve, int shelvePosition) {
+        startAtPrice(shelve, priceBoard.current().priceAt(shelvePosition));
+    }
+
+    void startAtPrice(Shelve shelve, long selectedPrice) {
+        this.selectedShelve = shelve;
+        this.selectedPrice = selectedPrice;
+        insertedMoney = 0;
+        state = MachineState.INSERTING_COINS.ordinal();
+    }
+
+    void addInsertedMoney(Money money) {
+        addInsertedCents(money.getMinorUnits());
+    }
+
+    void addInsertedCents(long cents) {
+        insertedMoney = Math.addExact(insertedMoney, cents);
+    }
+
+    long getInsertedMoneyInCents() {
+        return insertedMoney;
+    }
+
+    boolean insertedEnoughMoney() {
+        return insertedMoney >= selectedPriceInCents();
+    }
+
+    long selectedPriceInCents() {
+        return selectedPrice;
+    }
+
+    int getStateIndex() {
+        return state;
+    }
+
+    void goTo(MachineState nextState) {
+        state = nextState.ordinal();
+    }
+
+    void finish() {
+        selectedShelve = null;
+        insertedMoney = 0;
+        if (heldCoins != null) {
+            heldCoins.clear();
+        }
+        state = MachineState.SELECTING_PRODUCT.ordinal();
+    }
+
+}
@@ -0,0 +1,122 @@
+package tdd.vendingMachine.telemetry;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Ring buffer of events not yet requested, drained on the executor by one task at a time.
+ */
+class BufferedSubscription implements InventorySubscription, Runnable {
+
+    private final InventoryTelemetry telemetry;
+    private final InventorySubscriber subscriber;
+    private final Executor executor;
+
+    private final InventoryEvent[] buffer;
+    private int head;
+    private int size;
+
+    private long demand;
+    private long droppedEvents;
+    private boolean draining;
+    private boolean canceled;
+
+    BufferedSubscription(InventoryTelemetry telemetry, InventorySubscriber subscriber, Executor executor,
+                         int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive!");
+        }
+        this.telemetry = telemetry;
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.buffer = new InventoryEvent[bufferSize];
+    }
+
+    void offer(InventoryEvent event) {
+        synchronized (this) {
+            if (canceled) {
+                return;
+            }
+            if (size == buffer.length) {
+                buffer[head] = null;
+                head = next(head);
+                size--;
+                droppedEvents++;
+            }
+            buffer[(head + size) % buffer.length] = event;
+            size++;
+            if (!startDraining()) {
+                return;
+            }
+        }
+        executor.execute(this);
+    }
+
+    @Override
+    public void request(long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Requested count must be positive!");
+        }
+        synchronized (this) {
+            demand = demand + count < 0 ? Long.MAX_VALUE : demand + count;
+            if (!startDraining()) {
+                return;
+            }
+        }
+        executor.execute(this);
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            canceled = true;
+            while (size > 0) {
+                poll();
+            }
+        }
+        telemetry.unsubscribe(this);
+    }
+
+    @Override
+    public synchronized long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            InventoryEvent event;
+            synchronized (this) {
+                if (canceled || demand == 0 || size == 0) {
+                    draining = false;
+                    return;
+                }
+                event = poll();
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            subscriber.onEvent(event);
+        }
+    }
+
+    private boolean startDraining() {
+        if (draining || canceled || demand == 0 || size == 0) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    private InventoryEvent poll() {
+        InventoryEvent event = buffer[head];
+        buffer[head] = null;
+        head = next(head);
+        size--;
+        return event;
+    }
+
+    private int next(int index) {
+        return index + 1 == buffer.length ? 0 : index + 1;
+    }
+
+}
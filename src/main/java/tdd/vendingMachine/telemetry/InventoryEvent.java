@@ -0,0 +1,90 @@
+package tdd.vendingMachine.telemetry;
+
+import tdd.vendingMachine.domain.Coin;
+
+/**
+ * Change of a machine's inventory worth telling: a sold product or a level crossing its threshold. Shelve events
+ * have no coin, coin events have no shelve, i.e. shelve number {@link #NO_SHELVE} and no product name.
+ */
+public final class InventoryEvent {
+
+    public static final int NO_SHELVE = -1;
+
+    public enum Type {
+        PRODUCT_SOLD,
+        LOW_STOCK,
+        STOCK_REPLENISHED,
+        LOW_FLOAT,
+        FLOAT_REPLENISHED
+    }
+
+    private final Type type;
+    private final int machineId;
+    private final int shelveNumber;
+    private final String productName;
+    private final Coin coin;
+    private final int level;
+    private final boolean low;
+
+    private InventoryEvent(Type type, int machineId, int shelveNumber, String productName, Coin coin, int level,
+                           boolean low) {
+        this.type = type;
+        this.machineId = machineId;
+        this.shelveNumber = shelveNumber;
+        this.productName = productName;
+        this.coin = coin;
+        this.level = level;
+        this.low = low;
+    }
+
+    static InventoryEvent ofShelve(Type type, int machineId, int shelveNumber, String productName, int quantity,
+                                   boolean low) {
+        return new InventoryEvent(type, machineId, shelveNumber, productName, null, quantity, low);
+    }
+
+    static InventoryEvent ofCoin(Type type, int machineId, Coin coin, int count, boolean low) {
+        return new InventoryEvent(type, machineId, NO_SHELVE, null, coin, count, low);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getMachineId() {
+        return machineId;
+    }
+
+    public int getShelveNumber() {
+        return shelveNumber;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Coin getCoin() {
+        return coin;
+    }
+
+    /**
+     * Shelve quantity or coin count right after the event.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Whether the level is at or below its threshold right after the event, i.e. the shelve of the product or the
+     * coin is low.
+     */
+    public boolean isLow() {
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return type + "{machine=" + machineId + (coin == null ? ", shelve=" + shelveNumber : ", coin=" + coin)
+            + ", level=" + level + "}";
+    }
+
+}
@@ -0,0 +1,13 @@
+package tdd.vendingMachine.telemetry;
+
+/**
+ * Receives inventory events no faster than it asks for them through its subscription. Events are delivered one at
+ * a time on the subscription's executor, never from inside a vending operation.
+ */
+public interface InventorySubscriber {
+
+    void onSubscribe(InventorySubscription subscription);
+
+    void onEvent(InventoryEvent event);
+
+}
@@ -0,0 +1,15 @@
+package tdd.vendingMachine.telemetry;
+
+/**
+ * Demand of one subscriber. Events wait in a bounded buffer until requested; when the buffer is full the oldest
+ * event is dropped, so a slow subscriber never holds up the machine.
+ */
+public interface InventorySubscription {
+
+    void request(long count);
+
+    void cancel();
+
+    long getDroppedEvents();
+
+}
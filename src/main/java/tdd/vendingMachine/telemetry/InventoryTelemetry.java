@@ -0,0 +1,173 @@
+package tdd.vendingMachine.telemetry;
+
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.InventoryObserver;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Turns inventory changes of one machine into a stream of events. Each change is compared with the thresholds
+ * using only the levels before and after it, so crossings are found in O(1) with no polling of shelves or coins.
+ * Shelves and coins already at or below their thresholds are reported once when attached and to every new
+ * subscriber. Shelve events tell whether the shelve is low after them, so a subscriber that missed a crossing is
+ * corrected by the next event of the shelve.
+ */
+public class InventoryTelemetry implements InventoryObserver {
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int NO_THRESHOLD = -1;
+
+    private final int machineId;
+    private final int lowStockThreshold;
+    private final int[] lowFloatThresholds = new int[COINS.length];
+
+    private volatile BufferedSubscription[] subscriptions = new BufferedSubscription[0];
+    private volatile List<Shelve> shelves = Collections.emptyList();
+    private volatile CoinCassette cassette;
+
+    public InventoryTelemetry(int machineId, int lowStockThreshold, Map<Coin, Integer> lowFloatThresholds) {
+        this.machineId = machineId;
+        this.lowStockThreshold = lowStockThreshold;
+        Arrays.fill(this.lowFloatThresholds, NO_THRESHOLD);
+        lowFloatThresholds.forEach((coin, threshold) -> this.lowFloatThresholds[coin.ordinal()] = threshold);
+    }
+
+    public void attach(List<Shelve> shelves, CoinCassette cassette) {
+        for (Shelve shelve : shelves) {
+            shelve.setInventoryObserver(this);
+        }
+        synchronized (cassette) {
+            cassette.setInventoryObserver(this);
+        }
+        this.shelves = shelves;
+        this.cassette = cassette;
+        for (InventoryEvent event : lowLevelEvents()) {
+            publish(event);
+        }
+    }
+
+    /**
+     * Subscribes to events from now on, starting with the shelves and coins already at or below their thresholds.
+     */
+    public InventorySubscription subscribe(InventorySubscriber subscriber, Executor executor, int bufferSize) {
+        BufferedSubscription subscription = new BufferedSubscription(this, subscriber, executor, bufferSize);
+        synchronized (this) {
+            BufferedSubscription[] newSubscriptions = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            newSubscriptions[subscriptions.length] = subscription;
+            subscriptions = newSubscriptions;
+        }
+        for (InventoryEvent event : lowLevelEvents()) {
+            subscription.offer(event);
+        }
+        subscriber.onSubscribe(subscription);
+        return subscription;
+    }
+
+    /**
+     * Events dropped by all current subscriptions because their subscribers were too slow.
+     */
+    public long getDroppedEvents() {
+        long droppedEvents = 0;
+        for (BufferedSubscription subscription : subscriptions) {
+            droppedEvents += subscription.getDroppedEvents();
+        }
+        return droppedEvents;
+    }
+
+    synchronized void unsubscribe(BufferedSubscription subscription) {
+        subscriptions = Arrays.stream(subscriptions)
+            .filter(existing -> existing != subscription)
+            .toArray(BufferedSubscription[]::new);
+    }
+
+    private List<InventoryEvent> lowLevelEvents() {
+        List<InventoryEvent> events = new ArrayList<>();
+        for (Shelve shelve : shelves) {
+            int quantity = shelve.getQuantity();
+            if (quantity <= lowStockThreshold) {
+                events.add(InventoryEvent.ofShelve(InventoryEvent.Type.LOW_STOCK, machineId, shelve.getNumber(),
+                    shelve.getProductName(), quantity, true));
+            }
+        }
+        CoinCassette currentCassette = cassette;
+        if (currentCassette != null) {
+            synchronized (currentCassette) {
+                for (Coin coin : COINS) {
+                    int count = currentCassette.getCoinCount(coin);
+                    if (count <= lowFloatThresholds[coin.ordinal()]) {
+                        events.add(InventoryEvent.ofCoin(InventoryEvent.Type.LOW_FLOAT, machineId, coin, count, true));
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void onStockChanged(Shelve shelve, int previousQuantity, int quantity) {
+        if (previousQuantity > lowStockThreshold && quantity <= lowStockThreshold) {
+            publishShelve(InventoryEvent.Type.LOW_STOCK, shelve, quantity);
+        } else if (previousQuantity <= lowStockThreshold && quantity > lowStockThreshold) {
+            publishShelve(InventoryEvent.Type.STOCK_REPLENISHED, shelve, quantity);
+        }
+    }
+
+    /**
+     * Ends low stock of the previous product and starts it afresh for the new one, so low stock is never carried
+     * over from one product to another.
+     */
+    @Override
+    public void onProductSwapped(Shelve shelve, Product previousProduct, int previousQuantity, int quantity) {
+        if (previousQuantity <= lowStockThreshold) {
+            publishShelve(InventoryEvent.Type.STOCK_REPLENISHED, shelve, previousProduct.getName(), quantity, false);
+        }
+        if (quantity <= lowStockThreshold) {
+            publishShelve(InventoryEvent.Type.LOW_STOCK, shelve, quantity);
+        }
+    }
+
+    @Override
+    public void onProductReleased(Shelve shelve) {
+        publishShelve(InventoryEvent.Type.PRODUCT_SOLD, shelve, shelve.getQuantity());
+    }
+
+    @Override
+    public void onCoinCountChanged(Coin coin, int previousCount, int count) {
+        int threshold = lowFloatThresholds[coin.ordinal()];
+        if (subscriptions.length == 0) {
+            return;
+        }
+        if (previousCount > threshold && count <= threshold) {
+            publish(InventoryEvent.ofCoin(InventoryEvent.Type.LOW_FLOAT, machineId, coin, count, true));
+        } else if (previousCount <= threshold && count > threshold) {
+            publish(InventoryEvent.ofCoin(InventoryEvent.Type.FLOAT_REPLENISHED, machineId, coin, count, false));
+        }
+    }
+
+    private void publishShelve(InventoryEvent.Type type, Shelve shelve, int quantity) {
+        publishShelve(type, shelve, shelve.getProductName(), quantity, quantity <= lowStockThreshold);
+    }
+
+    private void publishShelve(InventoryEvent.Type type, Shelve shelve, String productName, int quantity,
+                               boolean low) {
+        if (subscriptions.length == 0) {
+            return;
+        }
+        publish(InventoryEvent.ofShelve(type, machineId, shelve.getNumber(), productName, quantity, low));
+    }
+
+    private void publish(InventoryEvent event) {
+        for (BufferedSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package tdd.vendingMachine.telemetry;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Fleet-wide sales and low stock per product, fed by the telemetry of every machine. Each event updates one product
+ * in O(1): sales go to a ring of time buckets covering the window and low stock shelves are counted up and down by
+ * threshold crossings, so no machine is ever scanned however big the fleet is. Low stock is derived from the state
+ * of each machine shelve reported by its latest event, together with the product it held, so lost or repeated events
+ * never drive the counts off.
+ */
+public class SellThroughAggregator implements InventorySubscriber {
+
+    private static final int BUCKET_COUNT = 60;
+
+    private final long bucketWidth;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, ProductSales> products = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> lowStockShelves = new ConcurrentHashMap<>();
+    private final List<InventorySubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public SellThroughAggregator(long window, TimeUnit unit) {
+        this(unit.toNanos(window), System::nanoTime);
+    }
+
+    SellThroughAggregator(long windowNanos, LongSupplier clock) {
+        if (windowNanos < BUCKET_COUNT) {
+            throw new IllegalArgumentException("Window is too short!");
+        }
+        this.bucketWidth = windowNanos / BUCKET_COUNT;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onSubscribe(InventorySubscription subscription) {
+        subscriptions.add(subscription);
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onEvent(InventoryEvent event) {
+        switch (event.getType()) {
+            case PRODUCT_SOLD:
+                salesOf(event.getProductName()).addSale(clock.getAsLong() / bucketWidth);
+                updateLowStock(event);
+                break;
+            case LOW_STOCK:
+            case STOCK_REPLENISHED:
+                updateLowStock(event);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Events the machines dropped because this aggregator fell behind. Low stock counts stay consistent, a shelve
+     * that missed an event is corrected by its next one.
+     */
+    public long getDroppedEvents() {
+        long droppedEvents = 0;
+        for (InventorySubscription subscription : subscriptions) {
+            droppedEvents += subscription.getDroppedEvents();
+        }
+        return droppedEvents;
+    }
+
+    public Set<String> getProductNames() {
+        return products.keySet();
+    }
+
+    public long getSoldCount(String productName) {
+        ProductSales sales = products.get(productName);
+        return sales == null ? 0 : sales.getSoldCount();
+    }
+
+    /**
+     * Products sold per second over the window, i.e. the last {@value #BUCKET_COUNT} buckets including the current
+     * one.
+     */
+    public double getSellThroughRate(String productName) {
+        ProductSales sales = products.get(productName);
+        if (sales == null) {
+            return 0;
+        }
+        long soldInWindow = sales.getSoldSince(clock.getAsLong() / bucketWidth - BUCKET_COUNT + 1);
+        return soldInWindow / (bucketWidth * BUCKET_COUNT / 1e9);
+    }
+
+    public int getLowStockShelveCount(String productName) {
+        ProductSales sales = products.get(productName);
+        return sales == null ? 0 : sales.getLowStockShelves();
+    }
+
+    private void updateLowStock(InventoryEvent event) {
+        Long shelveKey = shelveKey(event);
+        String lowProductName = event.isLow() ? event.getProductName() : null;
+        String previousLowProductName = lowProductName != null ? lowStockShelves.put(shelveKey, lowProductName)
+            : lowStockShelves.remove(shelveKey);
+        if (Objects.equals(previousLowProductName, lowProductName)) {
+            return;
+        }
+        if (previousLowProductName != null) {
+            salesOf(previousLowProductName).changeLowStockShelves(-1);
+        }
+        if (lowProductName != null) {
+            salesOf(lowProductName).changeLowStockShelves(1);
+        }
+    }
+
+    private static Long shelveKey(InventoryEvent event) {
+        return (long) event.getMachineId() << 32 | event.getShelveNumber() & 0xFFFFFFFFL;
+    }
+
+    private ProductSales salesOf(String productName) {
+        return products.computeIfAbsent(productName, name -> new ProductSales());
+    }
+
+    private static class ProductSales {
+
+        private final long[] bucketSales = new long[BUCKET_COUNT];
+        private final long[] bucketNumbers = new long[BUCKET_COUNT];
+
+        private long soldCount;
+        private int lowStockShelves;
+
+        synchronized void addSale(long bucketNumber) {
+            int bucket = (int) Math.floorMod(bucketNumber, (long) BUCKET_COUNT);
+            if (bucketNumbers[bucket] != bucketNumber) {
+                bucketNumbers[bucket] = bucketNumber;
+                bucketSales[bucket] = 0;
+            }
+            bucketSales[bucket]++;
+            soldCount++;
+        }
+
+        synchronized void changeLowStockShelves(int change) {
+            lowStockShelves += change;
+        }
+
+        synchronized long getSoldSince(long firstBucketNumber) {
+            long sold = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                if (bucketNumbers[bucket] >= firstBucketNumber && bucketSales[bucket] > 0) {
+                    sold += bucketSales[bucket];
+                }
+            }
+            return sold;
+        }
+
+        synchronized long getSoldCount() {
+            return soldCount;
+        }
+
+        synchronized int getLowStockShelves() {
+            return lowStockShelves;
+        }
+
+    }
+
+}
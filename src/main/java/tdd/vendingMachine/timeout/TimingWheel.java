@@ -0,0 +1,224 @@
+package tdd.vendingMachine.timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} wheels of {@value #SLOTS} slots, each slot of a wheel spanning a whole
+ * turn of the wheel below. Timeouts are kept in intrusive linked lists, so scheduling and cancelling take constant time
+ * whatever the number of pending timeouts, and a timeout is moved down at most once per level before it expires.
+ * <p>
+ * Time is an abstract count, e.g. nanoseconds, advanced by {@link #advanceTo(long)}. Deadlines are rounded up to whole
+ * ticks, so a timeout never expires early and at most one tick late. Expired timeouts are returned instead of being
+ * run under the wheel's lock, so their owners may schedule or cancel timeouts while handling them.
+ */
+public class TimingWheel<T> {
+
+    public static final int SLOTS = 64;
+
+    static final int LEVELS = 6;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final long MAX_DELAY_TICKS = 1L << SLOT_BITS * LEVELS;
+
+    private final long tickDuration;
+    private final long startTime;
+    private final Timeout<T>[][] slots;
+    private final int[] levelSizes = new int[LEVELS];
+
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickDuration, long startTime) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration should be positive!");
+        }
+        this.tickDuration = tickDuration;
+        this.startTime = startTime;
+        this.slots = newSlots();
+    }
+
+    /**
+     * Schedules a timeout expiring at the first tick not earlier than the deadline, or at the next tick if the
+     * deadline has passed.
+     */
+    public synchronized Timeout<T> schedule(long deadline, T payload) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadline - startTime, tickDuration));
+        if (deadlineTick - currentTick >= MAX_DELAY_TICKS) {
+            throw new IllegalArgumentException("Deadline is more than " + MAX_DELAY_TICKS + " ticks away!");
+        }
+
+        Timeout<T> timeout = new Timeout<>(this, deadline, deadlineTick, payload);
+        add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel to the given time and returns the timeouts that expired on the way, in deadline order up to the
+     * tick.
+     */
+    public List<Timeout<T>> advanceTo(long now) {
+        List<Timeout<T>> expired = null;
+        synchronized (this) {
+            long targetTick = Math.floorDiv(now - startTime, tickDuration);
+            while (currentTick < targetTick) {
+                if (size == 0) {
+                    currentTick = targetTick;
+                    break;
+                }
+                // with nothing due on the lowest wheel, jump to the next cascade
+                currentTick = levelSizes[0] == 0
+                    ? Math.min(targetTick, (currentTick | SLOT_MASK) + 1)
+                    : currentTick + 1;
+                cascade();
+                expired = expire(expired);
+            }
+        }
+        return expired == null ? Collections.emptyList() : expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade() {
+        int level = 1;
+        while (level < LEVELS && (currentTick & (1L << SLOT_BITS * level) - 1) == 0) {
+            level++;
+        }
+        for (level--; level > 0; level--) {
+            int slot = slotOf(currentTick, level);
+            Timeout<T> timeout = slots[level][slot];
+            slots[level][slot] = null;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                levelSizes[level]--;
+                add(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private List<Timeout<T>> expire(List<Timeout<T>> expired) {
+        int slot = slotOf(currentTick, 0);
+        Timeout<T> timeout = slots[0][slot];
+        if (timeout == null) {
+            return expired;
+        }
+
+        slots[0][slot] = null;
+        List<Timeout<T>> expiredSoFar = expired == null ? new ArrayList<>() : expired;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.level = Timeout.DONE;
+            levelSizes[0]--;
+            size--;
+            expiredSoFar.add(timeout);
+            timeout = next;
+        }
+        return expiredSoFar;
+    }
+
+    private void add(Timeout<T> timeout) {
+        long delay = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (delay >= 1L << SLOT_BITS * (level + 1)) {
+            level++;
+        }
+        int slot = slotOf(timeout.deadlineTick, level);
+
+        Timeout<T> head = slots[level][slot];
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        slots[level][slot] = timeout;
+        timeout.level = level;
+        levelSizes[level]++;
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.level == Timeout.DONE) {
+            return false;
+        }
+
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.level][slotOf(timeout.deadlineTick, timeout.level)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        levelSizes[timeout.level]--;
+        timeout.level = Timeout.DONE;
+        size--;
+        return true;
+    }
+
+    /**
+     * Generic arrays can't be created, so the slots are a raw array typed once here. Only this wheel's timeouts are
+     * ever stored in them, so every element really is a {@code Timeout<T>}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Timeout<T>[][] newSlots() {
+        return new Timeout[LEVELS][SLOTS];
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) (tick >>> SLOT_BITS * level) & SLOT_MASK;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    /**
+     * Handle of a scheduled payload. Links are guarded by the wheel's lock.
+     */
+    public static final class Timeout<T> {
+
+        private static final int DONE = -1;
+
+        private final TimingWheel<T> wheel;
+        private final long deadline;
+        private final long deadlineTick;
+        private final T payload;
+
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private int level;
+
+        private Timeout(TimingWheel<T> wheel, long deadline, long deadlineTick, T payload) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+            this.payload = payload;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * Removes the timeout from its wheel. Returns false if it already expired or was canceled.
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+    }
+
+}
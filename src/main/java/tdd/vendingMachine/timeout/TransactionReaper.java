@@ -0,0 +1,145 @@
+package tdd.vendingMachine.timeout;
+
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Cancels transactions of watched machines left waiting for coins longer than the inactivity timeout: inserted coins
+ * are handed to the refund handler and the machine goes back to selecting a product. One {@link TimingWheel} serves
+ * all machines; a transaction schedules one timeout when the shelve is selected and later activity only records its
+ * time, so an expired timeout whose transaction was active since is scheduled again for the remaining time.
+ * <p>
+ * {@link #expireIdleTransactions()} should be called periodically, e.g. every tick. Expired transactions are checked
+ * and canceled on the executor given for their machine, which has to be the one running its transactions.
+ */
+public class TransactionReaper {
+
+    private final long inactivityTimeout;
+    private final LongSupplier clock;
+    private final BiConsumer<BasicVendingMachine, List<Coin>> refundHandler;
+    private final TimingWheel<Watch> wheel;
+
+    public TransactionReaper(long inactivityTimeout, TimeUnit unit,
+                             BiConsumer<BasicVendingMachine, List<Coin>> refundHandler) {
+        this(unit.toNanos(inactivityTimeout), System::nanoTime, refundHandler);
+    }
+
+    TransactionReaper(long inactivityTimeoutNanos, LongSupplier clock,
+                      BiConsumer<BasicVendingMachine, List<Coin>> refundHandler) {
+        if (inactivityTimeoutNanos <= 0) {
+            throw new IllegalArgumentException("Inactivity timeout should be positive!");
+        }
+        this.inactivityTimeout = inactivityTimeoutNanos;
+        this.clock = clock;
+        this.refundHandler = refundHandler;
+        this.wheel = new TimingWheel<>(Math.max(1, inactivityTimeoutNanos / TimingWheel.SLOTS), clock.getAsLong());
+    }
+
+    /**
+     * Watches a machine whose transactions run on the thread calling {@link #expireIdleTransactions()}.
+     */
+    public void watch(BasicVendingMachine vendingMachine) {
+        watch(vendingMachine, Runnable::run);
+    }
+
+    public void watch(BasicVendingMachine vendingMachine, Executor machineExecutor) {
+        vendingMachine.addListener(new Watch(vendingMachine, machineExecutor));
+    }
+
+    public void expireIdleTransactions() {
+        for (TimingWheel.Timeout<Watch> timeout : wheel.advanceTo(clock.getAsLong())) {
+            Watch watch = timeout.getPayload();
+            watch.machineExecutor.execute(() -> watch.expire(timeout));
+        }
+    }
+
+    public int getPendingTimeoutCount() {
+        return wheel.size();
+    }
+
+    private final class Watch implements VendingMachineListener {
+
+        private final BasicVendingMachine vendingMachine;
+        private final Executor machineExecutor;
+
+        // touched only on the machine's executor
+        private TimingWheel.Timeout<Watch> timeout;
+        private long lastActivityTime;
+
+        Watch(BasicVendingMachine vendingMachine, Executor machineExecutor) {
+            this.vendingMachine = vendingMachine;
+            this.machineExecutor = machineExecutor;
+        }
+
+        @Override
+        public void onShelveSelected(Shelve shelve) {
+            lastActivityTime = clock.getAsLong();
+            if (timeout == null) {
+                timeout = wheel.schedule(lastActivityTime + inactivityTimeout, this);
+            }
+        }
+
+        @Override
+        public void onCoinInserted(Shelve shelve, Coin coin) {
+            lastActivityTime = clock.getAsLong();
+        }
+
+        @Override
+        public void onCoinRejected(Shelve shelve, Coin coin) {
+            lastActivityTime = clock.getAsLong();
+        }
+
+        @Override
+        public void onCanceled(Shelve shelve, List<Coin> returnedCoins) {
+            stopWatching();
+        }
+
+        @Override
+        public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+            stopWatching();
+        }
+
+        @Override
+        public void onNoChangeRefund(Shelve shelve, List<Coin> returnedCoins) {
+            stopWatching();
+        }
+
+        void expire(TimingWheel.Timeout<Watch> expiredTimeout) {
+            if (timeout != expiredTimeout) {
+                return;
+            }
+            timeout = null;
+            if (vendingMachine.getTransaction().getState() != MachineState.INSERTING_COINS) {
+                return;
+            }
+
+            long idleTime = clock.getAsLong() - lastActivityTime;
+            if (idleTime < inactivityTimeout) {
+                timeout = wheel.schedule(lastActivityTime + inactivityTimeout, this);
+                return;
+            }
+
+            vendingMachine.getDisplay().displayWarning("Transaction expired!");
+            refundHandler.accept(vendingMachine, vendingMachine.cancel());
+        }
+
+        private void stopWatching() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+    }
+
+}
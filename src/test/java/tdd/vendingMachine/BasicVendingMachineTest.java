@@ -15,6 +15,7 @@ import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
@@ -80,6 +81,33 @@ public class BasicVendingMachineTest {
         vendingMachine.selectShelve(3);
     }
 
+    @Test
+    public void shouldWarnAboutExactChangeWhenSelectedShelveAndMachineCannotChangeOverpayment()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        vendingMachine.selectShelve(1);
+
+        verify(displaySpy).displayWarning("Exact change only!");
+    }
+
+    @Test
+    public void shouldNotWarnAboutExactChangeWhenMachineCanChangeEveryOverpayment()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.TEN_CENTS, 5);
+        coinsInMachine.put(Coin.FIFTY_CENTS, 2);
+        coinsInMachine.put(Coin.TWO_DOLLARS, 1);
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine),
+            displaySpy);
+
+        vendingMachine.selectShelve(1);
+
+        verify(displaySpy, never()).displayWarning("Exact change only!");
+    }
+
     @Test(expected = IllegalStateException.class)
     public void shouldThrowExceptionWhenSelectedShelveAfterInsertingCoins()
         throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
@@ -142,6 +170,35 @@ public class BasicVendingMachineTest {
         vendingMachine.insertCoin(unacceptableCoin);
     }
 
+    @Test
+    public void shouldInsertBurstOfCoinsUntilEnoughMoneyWithOneDisplayRefresh()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+        vendingMachine.selectShelve(1);
+        Coin[] coins = {Coin.ONE_DOLLAR, Coin.ONE_DOLLAR, Coin.FIFTY_CENTS, Coin.TEN_CENTS};
+
+        assertThat(vendingMachine.insertCoins(coins, coins.length)).isEqualTo(3);
+
+        verify(displaySpy).displayMessage("cola drink 0.00");
+        verify(displaySpy, never()).displayMessage("cola drink 1.50");
+        assertThat(vendingMachine.insertedEnoughMoney()).isTrue();
+        assertThat(cassette.getCoinCount(Coin.ONE_DOLLAR)).isEqualTo(2);
+        assertThat(cassette.getCoinCount(Coin.TEN_CENTS)).isZero();
+    }
+
+    @Test
+    public void shouldStopBurstOfCoinsAtUnacceptableCoin()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+        vendingMachine.selectShelve(1);
+        Coin[] coins = {Coin.TEN_CENTS, Coin.TWO_CENTS, Coin.TEN_CENTS};
+
+        assertThat(vendingMachine.insertCoins(coins, coins.length)).isEqualTo(1);
+        assertThat(vendingMachine.cancel()).containsExactly(Coin.TEN_CENTS);
+    }
+
     // checking if inserted enough money
 
     @Test
@@ -265,6 +322,23 @@ public class BasicVendingMachineTest {
         }
     }
 
+    @Test
+    public void shouldDispenseForPriceDisplayedAtSelectionWhenPriceRisesDuringTransaction()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+        vendingMachine.getTransaction().getPriceBoard().publish(new PriceTable(new long[]{200, 330, 190}));
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.getTransaction().getPriceBoard().publish(new PriceTable(new long[]{250, 330, 190}));
+
+        Purchase purchase = vendingMachine.dispenseProduct();
+
+        assertThat(purchase.getProduct().getName()).isEqualTo("cola drink");
+        assertThat(purchase.getChange()).isEmpty();
+        assertThat(vendingMachine.trySelectShelve(2)).isEqualTo(SelectResult.SELECTED);
+    }
+
     @Test
     public void shouldBeAbleToSelectShelveWhenDispensedWithProduct()
         throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
@@ -318,6 +392,177 @@ public class BasicVendingMachineTest {
         verify(displaySpy).displayWarning("No change!");
     }
 
+    // reporting results instead of throwing
+
+    @Test
+    public void shouldReportSelectionResults() {
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        assertThat(vendingMachine.trySelectShelve(0)).isEqualTo(SelectResult.INVALID_SHELVE);
+        assertThat(vendingMachine.trySelectShelve(3)).isEqualTo(SelectResult.PRODUCT_NOT_AVAILABLE);
+        assertThat(vendingMachine.trySelectShelve(1)).isEqualTo(SelectResult.SELECTED);
+        assertThat(vendingMachine.trySelectShelve(2)).isEqualTo(SelectResult.SHELVE_ALREADY_SELECTED);
+        assertThat(shelves.get(1).getQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReportInsertionResults() {
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        assertThat(vendingMachine.tryInsertCoin(Coin.ONE_DOLLAR)).isEqualTo(InsertResult.NO_SHELVE_SELECTED);
+        vendingMachine.trySelectShelve(1);
+        assertThat(vendingMachine.tryInsertCoin(Coin.FIVE_CENTS)).isEqualTo(InsertResult.UNACCEPTABLE_COIN);
+        assertThat(vendingMachine.tryInsertCoin(Coin.FIVE_DOLLARS)).isEqualTo(InsertResult.ACCEPTED);
+        assertThat(vendingMachine.tryInsertCoin(Coin.ONE_DOLLAR)).isEqualTo(InsertResult.ALREADY_ENOUGH_MONEY);
+        assertThat(cassette.getCoinCount(Coin.FIVE_CENTS)).isZero();
+    }
+
+    @Test
+    public void shouldThrowExceptionNamingProductWhenSelectedShelveAndProductIsNotAvailable()
+        throws InvalidShelveException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        try {
+            vendingMachine.selectShelve(3);
+            fail("Product should not be available!");
+        } catch (ProductNotAvailableException expected) {
+            assertThat(expected).hasMessage("Product mineral water is not available!");
+        }
+    }
+
+    // servicing
+
+    @Test
+    public void shouldRestockSwapProductAndAdjustCassetteInOneVisit() throws InvalidShelveException {
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        vendingMachine.startMaintenance();
+        vendingMachine.service(new ServiceVisit()
+            .restock(3, 5)
+            .swapProduct(2, new Product("orange juice", "2.20"), 4)
+            .topUp(Coin.FIFTY_CENTS, 10)
+            .skim(Coin.FIVE_DOLLARS, 1));
+
+        assertThat(shelves.get(2).getQuantity()).isEqualTo(5);
+        assertThat(shelves.get(1).getProductName()).isEqualTo("orange juice");
+        assertThat(shelves.get(1).getQuantity()).isEqualTo(4);
+        assertThat(cassette.getCoinCount(Coin.FIFTY_CENTS)).isEqualTo(10);
+        assertThat(cassette.getCoinCount(Coin.FIVE_DOLLARS)).isZero();
+    }
+
+    @Test
+    @Parameters(method = "invalidServiceVisits")
+    public void shouldNotChangeAnythingWhenServiceVisitCantBeApplied(ServiceVisit visit) {
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+        vendingMachine.startMaintenance();
+
+        try {
+            vendingMachine.service(visit.restock(1, 5).topUp(Coin.TEN_CENTS, 5));
+            fail("Service visit should be rejected!");
+        } catch (InvalidShelveException | IllegalArgumentException expected) {
+            assertThat(shelves.get(0).getQuantity()).isEqualTo(1);
+            assertThat(cassette.getCoinCount(Coin.TEN_CENTS)).isZero();
+        }
+    }
+
+    private Object[] invalidServiceVisits() {
+        return new Object[]{
+            new ServiceVisit().restock(4, 1),
+            new ServiceVisit().skim(Coin.TWENTY_CENTS, 2)
+        };
+    }
+
+    @Test
+    public void shouldRefuseServiceVisitOutsideMaintenance()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+        vendingMachine.selectShelve(1);
+
+        try {
+            vendingMachine.service(new ServiceVisit().swapProduct(1, new Product("orange juice", "2.20"), 4));
+            fail("Service visit should be refused!");
+        } catch (IllegalStateException expected) {
+            assertThat(expected).hasMessage("Machine not in maintenance!");
+            assertThat(shelves.get(0).getProductName()).isEqualTo("cola drink");
+        }
+    }
+
+    // purchasing batch
+
+    @Test
+    public void shouldSellWholeBasketAndGiveChangeOnce()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        BatchPurchase purchase = vendingMachine.purchaseBatch(basket(1, 1, 2, 1),
+            Arrays.asList(Coin.FIVE_DOLLARS, Coin.ONE_DOLLAR));
+
+        assertThat(purchase.isCompleted()).isTrue();
+        assertThat(purchase.getProducts()).extracting(Product::getName).containsOnly("cola drink", "chocolate bar");
+        assertThat(purchase.getChange()).containsExactly(Coin.TWENTY_CENTS);
+        assertThat(shelves.get(0).getQuantity()).isZero();
+        assertThat(shelves.get(1).getQuantity()).isZero();
+    }
+
+    @Test
+    public void shouldGiveBackReservedStockWhenProductOfBasketIsNotAvailable()
+        throws InvalidShelveException, UnacceptableCoinException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        try {
+            vendingMachine.purchaseBatch(basket(1, 1, 3, 1), Collections.singletonList(Coin.FIVE_DOLLARS));
+            fail("Basket with unavailable product should not be sold!");
+        } catch (ProductNotAvailableException expected) {
+            assertThat(shelves.get(0).getQuantity()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void shouldReturnPaymentAndStockWhenChangeForBasketCantBeReturned()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        BatchPurchase purchase = vendingMachine.purchaseBatch(basket(1, 1),
+            Collections.singletonList(Coin.FIVE_DOLLARS));
+
+        assertThat(purchase.isCompleted()).isFalse();
+        assertThat(purchase.getChange()).containsExactly(Coin.FIVE_DOLLARS);
+        assertThat(shelves.get(0).getQuantity()).isEqualTo(1);
+        assertThat(cassette.getCoinCount(Coin.FIVE_DOLLARS)).isEqualTo(1);
+        verify(displaySpy).displayWarning("No change!");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenPaymentDoesNotCoverBasket()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, displaySpy);
+
+        vendingMachine.purchaseBatch(basket(1, 1), Collections.singletonList(Coin.TWO_DOLLARS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenPurchasedBatchWithShelveSelected()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingMachine vendingMachine = getVendingMachineWithSelectedShelve(1);
+
+        vendingMachine.purchaseBatch(basket(2, 1), Collections.singletonList(Coin.FIVE_DOLLARS));
+    }
+
+    private static Map<Integer, Integer> basket(int... shelveNumbersAndQuantities) {
+        Map<Integer, Integer> basket = new LinkedHashMap<>();
+        for (int i = 0; i < shelveNumbersAndQuantities.length; i += 2) {
+            basket.put(shelveNumbersAndQuantities[i], shelveNumbersAndQuantities[i + 1]);
+        }
+        return basket;
+    }
+
     private VendingMachine getVendingMachineWithSelectedShelve(int shelveNumber)
         throws InvalidShelveException, ProductNotAvailableException {
 
@@ -0,0 +1,200 @@
+package tdd.vendingMachine;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentVendingMachineTest {
+
+    private static final int OPERATIONS_PER_THREAD = 500_000;
+    private static final int INITIAL_QUANTITY = 10_000;
+    private static final Coin[] ACCEPTABLE_COINS = {
+        Coin.TEN_CENTS, Coin.TWENTY_CENTS, Coin.FIFTY_CENTS, Coin.ONE_DOLLAR, Coin.TWO_DOLLARS
+    };
+
+    private List<Shelve> shelves;
+    private CoinCassette cassette;
+    private Display display;
+
+    @Before
+    public void setUp() {
+        shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), INITIAL_QUANTITY));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), INITIAL_QUANTITY));
+        shelves.add(new Shelve(3, new Product("mineral water", "1.90"), INITIAL_QUANTITY));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.TEN_CENTS, 20);
+        coinsInMachine.put(Coin.TWENTY_CENTS, 20);
+        coinsInMachine.put(Coin.FIFTY_CENTS, 10);
+        cassette = new CoinCassette(coinsInMachine);
+
+        display = new Display() {
+            @Override
+            public void displayMessage(String message) {
+            }
+
+            @Override
+            public void displayWarning(String warning) {
+            }
+        };
+    }
+
+    @Test
+    public void shouldSellProduct()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        ConcurrentVendingMachine vendingMachine = new ConcurrentVendingMachine(shelves, cassette, display);
+
+        vendingMachine.selectShelve(3);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        Purchase purchase = vendingMachine.dispenseProduct();
+
+        assertThat(purchase.getProduct().getName()).isEqualTo("mineral water");
+        assertThat(purchase.getChange()).containsExactly(Coin.TEN_CENTS);
+        assertThat(vendingMachine.getQuantity(3)).isEqualTo(INITIAL_QUANTITY - 1);
+        assertThat(vendingMachine.getCoinCount(Coin.TWO_DOLLARS)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReserveStockWhenShelveSelected() throws InvalidShelveException, ProductNotAvailableException {
+        ConcurrentVendingMachine vendingMachine = new ConcurrentVendingMachine(shelves, cassette, display);
+
+        vendingMachine.selectShelve(1);
+        assertThat(vendingMachine.getQuantity(1)).isEqualTo(INITIAL_QUANTITY - 1);
+
+        vendingMachine.cancel();
+        assertThat(vendingMachine.getQuantity(1)).isEqualTo(INITIAL_QUANTITY);
+    }
+
+    @Test(expected = InvalidShelveException.class)
+    public void shouldThrowExceptionWhenReadQuantityOfInvalidShelve() throws InvalidShelveException {
+        new ConcurrentVendingMachine(shelves, cassette, display).getQuantity(0);
+    }
+
+    @Test
+    public void shouldNeverLoseCoinsNorStockWhenUsedFromManyThreads() throws InterruptedException {
+        ConcurrentVendingMachine vendingMachine = new ConcurrentVendingMachine(shelves, cassette, display);
+        long initialMoney = moneyInCassette();
+
+        AtomicLong insertedMoney = new AtomicLong();
+        AtomicLong returnedMoney = new AtomicLong();
+        AtomicLong soldProducts = new AtomicLong();
+        AtomicLong telemetryErrors = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread coinAcceptor = new Thread(() -> {
+            await(start);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Coin coin = ACCEPTABLE_COINS[random.nextInt(ACCEPTABLE_COINS.length)];
+                try {
+                    vendingMachine.insertCoin(coin);
+                    insertedMoney.addAndGet(coin.getValueInCents());
+                } catch (IllegalStateException | UnacceptableCoinException ignored) {
+                }
+            }
+        });
+        Thread keypad = new Thread(() -> {
+            await(start);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                try {
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            vendingMachine.selectShelve(1 + random.nextInt(3));
+                            break;
+                        case 1:
+                            returnedMoney.addAndGet(valueOf(vendingMachine.cancel()));
+                            break;
+                        default:
+                            Purchase purchase = vendingMachine.dispenseProduct();
+                            returnedMoney.addAndGet(valueOf(purchase.getChange()));
+                            if (purchase.getProduct() != null) {
+                                soldProducts.incrementAndGet();
+                            }
+                    }
+                } catch (IllegalStateException | InvalidShelveException | ProductNotAvailableException ignored) {
+                }
+            }
+        });
+        Thread telemetryReader = new Thread(() -> {
+            await(start);
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                try {
+                    if (vendingMachine.getQuantity(1 + i % 3) < 0 || vendingMachine.getCoinCount(Coin.TEN_CENTS) < 0) {
+                        telemetryErrors.incrementAndGet();
+                    }
+                } catch (InvalidShelveException e) {
+                    telemetryErrors.incrementAndGet();
+                }
+            }
+        });
+
+        List<Thread> threads = Arrays.asList(coinAcceptor, keypad, telemetryReader);
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        finishPendingTransaction(vendingMachine, returnedMoney, soldProducts);
+
+        assertThat(telemetryErrors.get()).isZero();
+        assertThat(soldProducts.get()).isPositive();
+        assertThat(moneyInCassette() + returnedMoney.get()).isEqualTo(initialMoney + insertedMoney.get());
+        assertThat(stockLeft() + soldProducts.get()).isEqualTo(3L * INITIAL_QUANTITY);
+    }
+
+    private void finishPendingTransaction(VendingMachine vendingMachine, AtomicLong returnedMoney,
+                                          AtomicLong soldProducts) {
+        try {
+            returnedMoney.addAndGet(valueOf(vendingMachine.cancel()));
+        } catch (IllegalStateException notInsertingCoins) {
+            try {
+                Purchase purchase = vendingMachine.dispenseProduct();
+                returnedMoney.addAndGet(valueOf(purchase.getChange()));
+                if (purchase.getProduct() != null) {
+                    soldProducts.incrementAndGet();
+                }
+            } catch (IllegalStateException notDispensing) {
+                // no transaction in progress
+            }
+        }
+    }
+
+    private long moneyInCassette() {
+        long money = 0;
+        for (Coin coin : Coin.values()) {
+            money += (long) cassette.getCoinCount(coin) * coin.getValueInCents();
+        }
+        return money;
+    }
+
+    private long stockLeft() {
+        return shelves.stream().mapToLong(Shelve::getQuantity).sum();
+    }
+
+    private static long valueOf(List<Coin> coins) {
+        return coins.stream().mapToLong(Coin::getValueInCents).sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
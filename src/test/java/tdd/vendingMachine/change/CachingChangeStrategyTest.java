@@ -0,0 +1,129 @@
+package tdd.vendingMachine.change;
+
+import org.junit.Test;
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingChangeStrategyTest {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final CachingChangeStrategy strategy = new CachingChangeStrategy(new MinimumCoinsChangeStrategy());
+
+    @Test
+    public void shouldReuseChangeForSameAmountAndCoins() {
+        int[] change = new int[COINS.length];
+
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1), change)).isTrue();
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1), change)).isTrue();
+
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1));
+        assertThat(strategy.getHitCount()).isEqualTo(1);
+        assertThat(strategy.getMissCount()).isEqualTo(1);
+        assertThat(strategy.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void shouldHitWhenOnlyCoinsTooLargeOrPlentifulChange() {
+        int[] change = new int[COINS.length];
+        strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1), change);
+
+        assertThat(strategy.findChange(60, coins(Coin.FIVE_DOLLARS, 7, Coin.FIFTY_CENTS, 3, Coin.TEN_CENTS, 1),
+            change)).isTrue();
+
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1));
+        assertThat(strategy.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldMissWhenUsableCoinsChange() {
+        int[] change = new int[COINS.length];
+        strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1), change);
+
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 3), change)).isTrue();
+
+        assertThat(change).isEqualTo(coins(Coin.TWENTY_CENTS, 3));
+        assertThat(strategy.getHitCount()).isZero();
+    }
+
+    @Test
+    public void shouldRememberThatChangeCannotBeGiven() {
+        int[] change = coins(Coin.TEN_CENTS, 9);
+
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1), change)).isFalse();
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1), change)).isFalse();
+
+        assertThat(change).isEqualTo(coins(Coin.TEN_CENTS, 9));
+        assertThat(strategy.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedChange() {
+        CachingChangeStrategy strategy = new CachingChangeStrategy(new GreedyChangeStrategy(), 4);
+        int[] availableCoins = coins(Coin.TEN_CENTS, 10);
+        int[] change = new int[COINS.length];
+        for (int amount = 10; amount <= 40; amount += 10) {
+            strategy.findChange(amount, availableCoins, change);
+        }
+        strategy.findChange(10, availableCoins, change);
+
+        strategy.findChange(50, availableCoins, change);
+        strategy.findChange(10, availableCoins, change);
+        strategy.findChange(20, availableCoins, change);
+
+        assertThat(strategy.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldGiveSameChangeAsDecoratedStrategy() {
+        Random random = new Random(42);
+        ChangeStrategy minimumCoins = new MinimumCoinsChangeStrategy();
+        CachingChangeStrategy strategy = new CachingChangeStrategy(new MinimumCoinsChangeStrategy(), 16);
+        int[] change = new int[COINS.length];
+        int[] expectedChange = new int[COINS.length];
+
+        for (int i = 0; i < 2000; i++) {
+            int[] availableCoins = new int[COINS.length];
+            for (int coin = Coin.TEN_CENTS.ordinal(); coin < COINS.length; coin++) {
+                availableCoins[coin] = random.nextInt(3);
+            }
+            int amount = 10 * random.nextInt(20);
+
+            boolean found = strategy.findChange(amount, availableCoins, change);
+
+            assertThat(found).isEqualTo(minimumCoins.findChange(amount, availableCoins, expectedChange));
+            if (found) {
+                assertThat(change).isEqualTo(expectedChange);
+            }
+        }
+        assertThat(strategy.getHitCount()).isPositive();
+    }
+
+    @Test
+    public void shouldBypassCacheForManyCoins() {
+        int[] change = new int[COINS.length];
+
+        assertThat(strategy.findChange(2000, coins(Coin.TEN_CENTS, 200), change)).isTrue();
+        assertThat(strategy.findChange(2000, coins(Coin.TEN_CENTS, 200), change)).isTrue();
+
+        assertThat(change).isEqualTo(coins(Coin.TEN_CENTS, 200));
+        assertThat(strategy.getHitCount()).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectCapacityNotPowerOfTwo() {
+        new CachingChangeStrategy(new GreedyChangeStrategy(), 12);
+    }
+
+    private static int[] coins(Object... coinsAndCounts) {
+        int[] counts = new int[COINS.length];
+        for (int i = 0; i < coinsAndCounts.length; i += 2) {
+            counts[((Coin) coinsAndCounts[i]).ordinal()] = (Integer) coinsAndCounts[i + 1];
+        }
+        return counts;
+    }
+
+}
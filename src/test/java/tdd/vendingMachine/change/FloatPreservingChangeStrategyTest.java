@@ -0,0 +1,92 @@
+package tdd.vendingMachine.change;
+
+import org.junit.Test;
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FloatPreservingChangeStrategyTest {
+
+    private static final Coin[] COINS = Coin.values();
+
+    @Test
+    public void shouldKeepCoinNeededForRecentlyRequestedChange() {
+        ChangeStrategy strategy = new FloatPreservingChangeStrategy();
+        int[] change = new int[COINS.length];
+        for (int i = 0; i < 10; i++) {
+            strategy.findChange(10, coins(Coin.TEN_CENTS, 1), change);
+        }
+
+        int[] availableCoins = coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 3, Coin.TEN_CENTS, 1);
+
+        assertThat(new MinimumCoinsChangeStrategy().findChange(60, availableCoins, change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1));
+        assertThat(strategy.findChange(60, availableCoins, change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.TWENTY_CENTS, 3));
+    }
+
+    @Test
+    public void shouldNotLearnFromRefunds() {
+        ChangeStrategy strategy = new FloatPreservingChangeStrategy();
+        int[] change = new int[COINS.length];
+        for (int i = 0; i < 10; i++) {
+            assertThat(strategy.findRefund(10, coins(Coin.TEN_CENTS, 1), change)).isTrue();
+        }
+
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 3, Coin.TEN_CENTS, 1),
+            change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1));
+    }
+
+    @Test
+    public void shouldGiveFirstCandidateWhenBudgetAllowsOnlyOne() {
+        ChangeStrategy strategy = new FloatPreservingChangeStrategy(16, 1, Long.MAX_VALUE / 2);
+        int[] change = new int[COINS.length];
+        for (int i = 0; i < 10; i++) {
+            strategy.findChange(10, coins(Coin.TEN_CENTS, 1), change);
+        }
+
+        assertThat(strategy.findChange(60, coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 3, Coin.TEN_CENTS, 1),
+            change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TEN_CENTS, 1));
+    }
+
+    @Test
+    public void shouldFindChangeWheneverMinimumCoinsStrategyDoes() {
+        Random random = new Random(42);
+        ChangeStrategy strategy = new FloatPreservingChangeStrategy();
+        ChangeStrategy minimumCoins = new MinimumCoinsChangeStrategy();
+        int[] change = new int[COINS.length];
+
+        for (int i = 0; i < 500; i++) {
+            int[] availableCoins = new int[COINS.length];
+            for (int coin = Coin.TEN_CENTS.ordinal(); coin < COINS.length; coin++) {
+                availableCoins[coin] = random.nextInt(4);
+            }
+            int amount = 10 * random.nextInt(50);
+
+            boolean found = strategy.findChange(amount, availableCoins, change);
+
+            assertThat(found).isEqualTo(minimumCoins.findChange(amount, availableCoins, new int[COINS.length]));
+            if (found) {
+                int sum = 0;
+                for (int coin = 0; coin < COINS.length; coin++) {
+                    assertThat(change[coin]).isBetween(0, availableCoins[coin]);
+                    sum += change[coin] * COINS[coin].getValueInCents();
+                }
+                assertThat(sum).isEqualTo(amount);
+            }
+        }
+    }
+
+    private static int[] coins(Object... coinsAndCounts) {
+        int[] counts = new int[COINS.length];
+        for (int i = 0; i < coinsAndCounts.length; i += 2) {
+            counts[((Coin) coinsAndCounts[i]).ordinal()] = (Integer) coinsAndCounts[i + 1];
+        }
+        return counts;
+    }
+
+}
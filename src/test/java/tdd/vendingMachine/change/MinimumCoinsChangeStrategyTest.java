@@ -0,0 +1,112 @@
+package tdd.vendingMachine.change;
+
+import org.junit.Test;
+import tdd.vendingMachine.domain.Coin;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MinimumCoinsChangeStrategyTest {
+
+    private static final Coin[] COINS = Coin.values();
+
+    private final ChangeStrategy strategy = new MinimumCoinsChangeStrategy();
+
+    @Test
+    public void shouldFindChangeWhenGreedyStrategyFails() {
+        int[] availableCoins = coins(Coin.FIFTY_CENTS, 2, Coin.TWENTY_CENTS, 3);
+        int[] change = new int[COINS.length];
+
+        assertThat(new GreedyChangeStrategy().findChange(110, availableCoins, new int[COINS.length])).isFalse();
+        assertThat(strategy.findChange(110, availableCoins, change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 3));
+    }
+
+    @Test
+    public void shouldUseMinimumNumberOfCoins() {
+        int[] availableCoins = coins(Coin.FIFTY_CENTS, 2, Coin.TWENTY_CENTS, 5, Coin.TEN_CENTS, 10);
+        int[] change = new int[COINS.length];
+
+        assertThat(strategy.findChange(90, availableCoins, change)).isTrue();
+        assertThat(change).isEqualTo(coins(Coin.FIFTY_CENTS, 1, Coin.TWENTY_CENTS, 2));
+    }
+
+    @Test
+    public void shouldNotUseMoreCoinsThanAvailable() {
+        int[] availableCoins = coins(Coin.TWENTY_CENTS, 2, Coin.TEN_CENTS, 1);
+        int[] change = new int[COINS.length];
+
+        assertThat(strategy.findChange(60, availableCoins, change)).isFalse();
+    }
+
+    @Test
+    public void shouldFindChangeWheneverExhaustiveSearchDoes() {
+        Random random = new Random(42);
+        int[] change = new int[COINS.length];
+
+        for (int i = 0; i < 500; i++) {
+            int[] availableCoins = new int[COINS.length];
+            for (int coin = Coin.TEN_CENTS.ordinal(); coin < COINS.length; coin++) {
+                availableCoins[coin] = random.nextInt(4);
+            }
+            int amount = 10 * random.nextInt(100);
+
+            int expectedCoinCount = minimumCoinCount(amount, availableCoins, COINS.length - 1);
+            boolean found = strategy.findChange(amount, availableCoins, change);
+
+            assertThat(found).isEqualTo(expectedCoinCount != Integer.MAX_VALUE);
+            if (found) {
+                assertThat(sum(change)).isEqualTo(amount);
+                assertThat(count(change)).isEqualTo(expectedCoinCount);
+                for (int coin = 0; coin < COINS.length; coin++) {
+                    assertThat(change[coin]).isLessThanOrEqualTo(availableCoins[coin]);
+                }
+            }
+        }
+    }
+
+    private static int minimumCoinCount(int amount, int[] availableCoins, int coin) {
+        if (amount == 0) {
+            return 0;
+        }
+        if (coin < 0) {
+            return Integer.MAX_VALUE;
+        }
+
+        int best = Integer.MAX_VALUE;
+        int coinValue = COINS[coin].getValueInCents();
+        for (int taken = 0; taken <= availableCoins[coin] && taken * coinValue <= amount; taken++) {
+            int rest = minimumCoinCount(amount - taken * coinValue, availableCoins, coin - 1);
+            if (rest != Integer.MAX_VALUE) {
+                best = Math.min(best, rest + taken);
+            }
+        }
+        return best;
+    }
+
+    private static int sum(int[] change) {
+        int sum = 0;
+        for (int coin = 0; coin < COINS.length; coin++) {
+            sum += change[coin] * COINS[coin].getValueInCents();
+        }
+        return sum;
+    }
+
+    private static int count(int[] change) {
+        int count = 0;
+        for (int coinCount : change) {
+            count += coinCount;
+        }
+        return count;
+    }
+
+    private static int[] coins(Object... coinsAndCounts) {
+        int[] counts = new int[COINS.length];
+        for (int i = 0; i < coinsAndCounts.length; i += 2) {
+            counts[((Coin) coinsAndCounts[i]).ordinal()] = (Integer) coinsAndCounts[i + 1];
+        }
+        return counts;
+    }
+
+}
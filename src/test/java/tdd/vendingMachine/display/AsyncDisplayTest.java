@@ -0,0 +1,167 @@
+package tdd.vendingMachine.display;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncDisplayTest {
+
+    @Test
+    public void shouldShowMessagesOnWrappedDisplay() {
+        RecordingDisplay recordingDisplay = new RecordingDisplay();
+        AsyncDisplay asyncDisplay = new AsyncDisplay(recordingDisplay);
+
+        asyncDisplay.displayMessage("example message");
+        asyncDisplay.close();
+
+        assertThat(recordingDisplay.shown).containsExactly("example message");
+    }
+
+    @Test
+    public void shouldFormatProductMessageForDisplayThatIsNotLazy() {
+        RecordingDisplay recordingDisplay = new RecordingDisplay();
+        AsyncDisplay asyncDisplay = new AsyncDisplay(recordingDisplay);
+
+        asyncDisplay.displayProductMessage("cola drink", 250);
+        asyncDisplay.close();
+
+        assertThat(recordingDisplay.shown).containsExactly("cola drink 2.50");
+    }
+
+    @Test
+    public void shouldShowOnlyLatestMessageAndAllWarningsOfBurst() throws InterruptedException {
+        BlockingDisplay blockingDisplay = new BlockingDisplay();
+        AsyncDisplay asyncDisplay = new AsyncDisplay(blockingDisplay);
+
+        asyncDisplay.displayMessage("first");
+        blockingDisplay.awaitFirstMessage();
+        asyncDisplay.displayProductMessage("chocolate bar", 330);
+        asyncDisplay.displayWarning("No change!");
+        asyncDisplay.displayProductMessage("chocolate bar", 130);
+        asyncDisplay.displayProductMessage("chocolate bar", 30);
+        blockingDisplay.release();
+        asyncDisplay.close();
+
+        assertThat(blockingDisplay.shown).containsExactly("first", "WARNING! No change!", "chocolate bar 0.30");
+    }
+
+    @Test
+    public void shouldFormatOnlyProductMessagesThatAreShown() throws InterruptedException {
+        BlockingDisplay blockingDisplay = new BlockingDisplay();
+        AsyncDisplay asyncDisplay = new AsyncDisplay(blockingDisplay);
+
+        asyncDisplay.displayMessage("first");
+        blockingDisplay.awaitFirstMessage();
+        for (int i = 0; i < 100; i++) {
+            asyncDisplay.displayProductMessage("cola drink", i);
+        }
+        blockingDisplay.release();
+        asyncDisplay.close();
+
+        assertThat(blockingDisplay.formattedProductMessages).isEqualTo(1);
+        assertThat(blockingDisplay.shown).containsExactly("first", "cola drink 0.99");
+    }
+
+    @Test
+    public void shouldNotWaitForDisplayWhenBufferIsFull() throws InterruptedException {
+        BlockingDisplay blockingDisplay = new BlockingDisplay();
+        AsyncDisplay asyncDisplay = new AsyncDisplay(blockingDisplay, 4);
+
+        asyncDisplay.displayMessage("first");
+        blockingDisplay.awaitFirstMessage();
+        for (int i = 0; i < 10; i++) {
+            asyncDisplay.displayMessage("message " + i);
+        }
+        blockingDisplay.release();
+        asyncDisplay.close();
+
+        assertThat(blockingDisplay.shown).containsExactly("first", "message 9");
+    }
+
+    @Test
+    public void shouldKeepShowingMessagesWhenDisplayThrows() throws InterruptedException {
+        RecordingDisplay failingDisplay = new RecordingDisplay() {
+            @Override
+            public void displayWarning(String warning) {
+                throw new IllegalStateException("Display broken!");
+            }
+        };
+        AsyncDisplay asyncDisplay = new AsyncDisplay(failingDisplay);
+
+        asyncDisplay.displayWarning("No change!");
+        for (int attempt = 0; attempt < 500 && asyncDisplay.getFailedFrames() == 0; attempt++) {
+            Thread.sleep(10);
+        }
+        asyncDisplay.displayMessage("example message");
+        asyncDisplay.close();
+
+        assertThat(asyncDisplay.getFailedFrames()).isEqualTo(1);
+        assertThat(failingDisplay.shown).containsExactly("example message");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCapacityIsNotPowerOfTwo() {
+        new AsyncDisplay(new RecordingDisplay(), 3);
+    }
+
+    private static class RecordingDisplay implements Display {
+
+        final List<String> shown = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void displayMessage(String message) {
+            shown.add(message);
+        }
+
+        @Override
+        public void displayWarning(String warning) {
+            shown.add("WARNING! " + warning);
+        }
+
+    }
+
+    private static class BlockingDisplay extends RecordingDisplay implements LazyDisplay {
+
+        private final CountDownLatch firstMessageShown = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        volatile int formattedProductMessages;
+
+        @Override
+        public void displayMessage(String message) {
+            super.displayMessage(message);
+            firstMessageShown.countDown();
+            awaitUninterruptibly(released);
+        }
+
+        @Override
+        public void displayProductMessage(String productName, long amountInCents) {
+            formattedProductMessages++;
+            displayMessage(ProductMessage.format(productName, amountInCents));
+        }
+
+        void awaitFirstMessage() throws InterruptedException {
+            assertThat(firstMessageShown.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        private static void awaitUninterruptibly(CountDownLatch latch) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
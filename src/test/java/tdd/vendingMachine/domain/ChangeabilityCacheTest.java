@@ -0,0 +1,101 @@
+package tdd.vendingMachine.domain;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangeabilityCacheTest {
+
+    private static final Coin[] COINS = Coin.values();
+    private static final int LIMIT = 700;
+
+    @Test
+    public void shouldPayZeroFromNoCoins() {
+        ChangeabilityCache cache = new ChangeabilityCache(LIMIT);
+        int[] coinCounts = new int[COINS.length];
+
+        assertThat(cache.isPayable(0, coinCounts)).isTrue();
+        assertThat(cache.isPayable(10, coinCounts)).isFalse();
+    }
+
+    @Test
+    public void shouldNotCoverNegativeAmounts() {
+        ChangeabilityCache cache = new ChangeabilityCache(LIMIT);
+
+        assertThat(cache.covers(-50)).isFalse();
+        assertThat(cache.covers(0)).isTrue();
+        assertThat(cache.covers(LIMIT + 1)).isFalse();
+    }
+
+    @Test
+    public void shouldMatchBruteForceReachabilityWhenRebuilt() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[] coinCounts = randomCoinCounts(random);
+            ChangeabilityCache cache = new ChangeabilityCache(LIMIT);
+
+            boolean[] expected = reachableAmounts(coinCounts);
+            for (int amount = 0; amount <= LIMIT; amount++) {
+                assertThat(cache.isPayable(amount, coinCounts)).as("%d cents from %s", amount, coinCounts)
+                    .isEqualTo(expected[amount]);
+            }
+        }
+    }
+
+    @Test
+    public void shouldMatchBruteForceReachabilityWhenCoinsAdded() {
+        Random random = new Random(7);
+        int[] coinCounts = new int[COINS.length];
+        ChangeabilityCache cache = new ChangeabilityCache(LIMIT);
+        cache.isPayable(0, coinCounts);
+
+        for (int round = 0; round < 40; round++) {
+            Coin coin = COINS[random.nextInt(COINS.length)];
+            coinCounts[coin.ordinal()]++;
+            cache.addCoin(coin);
+
+            boolean[] expected = reachableAmounts(coinCounts);
+            for (int amount = 0; amount <= LIMIT; amount++) {
+                assertThat(cache.isPayable(amount, coinCounts)).isEqualTo(expected[amount]);
+            }
+        }
+    }
+
+    @Test
+    public void shouldRebuildWhenInvalidated() {
+        int[] coinCounts = new int[COINS.length];
+        coinCounts[Coin.FIFTY_CENTS.ordinal()] = 1;
+        ChangeabilityCache cache = new ChangeabilityCache(LIMIT);
+        assertThat(cache.isPayable(50, coinCounts)).isTrue();
+
+        coinCounts[Coin.FIFTY_CENTS.ordinal()] = 0;
+        cache.invalidate();
+
+        assertThat(cache.isPayable(50, coinCounts)).isFalse();
+    }
+
+    private static int[] randomCoinCounts(Random random) {
+        int[] coinCounts = new int[COINS.length];
+        for (int i = 0; i < COINS.length; i++) {
+            coinCounts[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(12);
+        }
+        return coinCounts;
+    }
+
+    private static boolean[] reachableAmounts(int[] coinCounts) {
+        boolean[] reachable = new boolean[LIMIT + 1];
+        reachable[0] = true;
+        for (int i = 0; i < COINS.length; i++) {
+            int value = COINS[i].getValueInCents();
+            for (int count = 0; count < coinCounts[i]; count++) {
+                for (int amount = LIMIT; amount >= value; amount--) {
+                    reachable[amount] |= reachable[amount - value];
+                }
+            }
+        }
+        return reachable;
+    }
+
+}
@@ -2,9 +2,10 @@ package tdd.vendingMachine.domain;
 
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
-import org.assertj.core.data.MapEntry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import tdd.vendingMachine.change.GreedyChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
 import tdd.vendingMachine.exception.UnacceptableCoinException;
 
 import java.math.BigDecimal;
@@ -23,7 +24,27 @@ public class CoinCassetteTest {
         cassette.putCoin(Coin.TEN_CENTS);
         cassette.putCoin(Coin.TEN_CENTS);
 
-        assertThat(coins).containsExactly(MapEntry.entry(Coin.TEN_CENTS, 2));
+        assertThat(cassette.getCoinCount(Coin.TEN_CENTS)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldImportCoinsFromGivenMap() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.FIFTY_CENTS, 3);
+        CoinCassette cassette = new CoinCassette(coins);
+
+        coins.put(Coin.FIFTY_CENTS, 0);
+
+        assertThat(cassette.getCoinCount(Coin.FIFTY_CENTS)).isEqualTo(3);
+        assertThat(cassette.getCoinCount(Coin.ONE_DOLLAR)).isZero();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenImportedNegativeCoinCount() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.FIFTY_CENTS, -1);
+
+        new CoinCassette(coins);
     }
 
     @Test(expected = UnacceptableCoinException.class)
@@ -51,6 +72,88 @@ public class CoinCassetteTest {
         assertThat(cassette.getCoins(amount)).isEmpty();
     }
 
+    @Test
+    @Parameters(method = "inputForSuccessfulCasesOfGettingCoins")
+    public void shouldReturnSameCoinsAsGreedyStrategyWhenGreedyStrategySucceeds(Map<Coin, Integer> coins,
+                                                                                 BigDecimal amount,
+                                                                                 List<Coin> expectedOutput) {
+        CoinCassette greedyCassette = new CoinCassette(new HashMap<>(coins), new GreedyChangeStrategy());
+        CoinCassette minimumCoinsCassette = new CoinCassette(new HashMap<>(coins), new MinimumCoinsChangeStrategy());
+
+        assertThat(minimumCoinsCassette.getCoins(amount)).isEqualTo(greedyCassette.getCoins(amount));
+    }
+
+    @Test
+    @Parameters(method = "inputForUnsuccessfulCasesOfGettingCoins")
+    public void shouldReturnNoCoinsLikeGreedyStrategyWhenAmountCantBeCollected(Map<Coin, Integer> coins,
+                                                                               BigDecimal amount) {
+        CoinCassette greedyCassette = new CoinCassette(new HashMap<>(coins), new GreedyChangeStrategy());
+        CoinCassette minimumCoinsCassette = new CoinCassette(new HashMap<>(coins), new MinimumCoinsChangeStrategy());
+
+        assertThat(greedyCassette.getCoins(amount)).isEmpty();
+        assertThat(minimumCoinsCassette.getCoins(amount)).isEmpty();
+    }
+
+    @Test
+    public void shouldReturnChangeThatGreedyStrategyMisses() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.FIFTY_CENTS, 2);
+        coins.put(Coin.TWENTY_CENTS, 3);
+        CoinCassette cassette = new CoinCassette(coins);
+
+        assertThat(cassette.getCoins(new BigDecimal("1.10"))).isEqualTo(Optional.of(Arrays.asList(
+            Coin.FIFTY_CENTS, Coin.TWENTY_CENTS, Coin.TWENTY_CENTS, Coin.TWENTY_CENTS
+        )));
+    }
+
+    @Test
+    public void shouldTakeReturnedCoinsOutOfCassette() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.FIFTY_CENTS, 1);
+        coins.put(Coin.TWENTY_CENTS, 3);
+        CoinCassette cassette = new CoinCassette(coins);
+
+        cassette.getCoins(new BigDecimal("0.70"));
+
+        assertThat(cassette.getCoinCount(Coin.FIFTY_CENTS)).isZero();
+        assertThat(cassette.getCoinCount(Coin.TWENTY_CENTS)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldLeaveCoinsUntouchedWhenAmountCantBeCollected() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.FIFTY_CENTS, 1);
+        coins.put(Coin.TWENTY_CENTS, 3);
+        CoinCassette cassette = new CoinCassette(coins);
+
+        cassette.getCoins(new BigDecimal("0.80"));
+
+        assertThat(cassette.getCoinCount(Coin.FIFTY_CENTS)).isEqualTo(1);
+        assertThat(cassette.getCoinCount(Coin.TWENTY_CENTS)).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldWithdrawCoinsIntoGivenArray() {
+        Map<Coin, Integer> coins = new HashMap<>();
+        coins.put(Coin.ONE_DOLLAR, 2);
+        coins.put(Coin.FIFTY_CENTS, 1);
+        CoinCassette cassette = new CoinCassette(coins);
+        int[] withdrawnCoins = new int[Coin.values().length];
+
+        assertThat(cassette.withdraw(Money.of("1.50"), withdrawnCoins)).isTrue();
+
+        assertThat(withdrawnCoins[Coin.ONE_DOLLAR.ordinal()]).isEqualTo(1);
+        assertThat(withdrawnCoins[Coin.FIFTY_CENTS.ordinal()]).isEqualTo(1);
+        assertThat(cassette.getCoinCount(Coin.ONE_DOLLAR)).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotWithdrawNegativeAmount() {
+        CoinCassette cassette = new CoinCassette(Collections.singletonMap(Coin.FIFTY_CENTS, 1));
+
+        cassette.withdraw(Money.of("-0.50"), new int[Coin.values().length]);
+    }
+
     private Object[] inputForSuccessfulCasesOfGettingCoins() {
         return new Object[][] {
             {
@@ -0,0 +1,52 @@
+package tdd.vendingMachine.domain;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+public class MoneyTest {
+
+    @Test
+    @Parameters({"0, 0.00", "5, 0.05", "250, 2.50", "1999, 19.99", "-30, -0.30", "-130, -1.30"})
+    public void shouldFormatWithTwoDecimalPlaces(long minorUnits, String expected) {
+        assertThat(Money.ofMinorUnits(minorUnits).toString()).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldConvertFromAndToBigDecimal() {
+        Money money = Money.of(new BigDecimal("3.30"));
+
+        assertThat(money.getMinorUnits()).isEqualTo(330);
+        assertThat(money.toBigDecimal()).isEqualTo(new BigDecimal("3.30"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void shouldThrowExceptionWhenValueHasFractionOfMinorUnit() {
+        Money.of("0.005");
+    }
+
+    @Test
+    public void shouldAddAndSubtract() {
+        Money money = Money.of("2.50").plus(Money.of("0.20")).minus(Money.of("1.00"));
+
+        assertThat(money).isEqualTo(Money.of("1.70"));
+    }
+
+    @Test
+    public void shouldNotGoBelowZero() {
+        assertThat(Money.of("1.00").minus(Money.of("1.50")).atLeastZero()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    public void shouldCompareAmounts() {
+        assertThat(Money.of("0.50").isLessThan(Money.of("1.00"))).isTrue();
+        assertThat(Money.of("1.00").isLessThan(Money.of("1.00"))).isFalse();
+    }
+
+}
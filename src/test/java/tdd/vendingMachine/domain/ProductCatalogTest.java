@@ -0,0 +1,108 @@
+package tdd.vendingMachine.domain;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductCatalogTest {
+
+    private final ProductCatalog catalog = new ProductCatalog();
+
+    @Test
+    public void shouldInternEqualProductsOnce() {
+        Product cola = catalog.intern(new Product("cola drink", "2.50"));
+
+        assertThat(catalog.intern(new Product("cola drink", "2.50"))).isSameAs(cola);
+        assertThat(catalog.intern(cola)).isSameAs(cola);
+        assertThat(catalog.intern(new Product(cola)).getId()).isEqualTo(cola.getId());
+        assertThat(catalog.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGiveDistinctIdsToProductsDifferingInPrice() {
+        Product cola = catalog.intern(new Product("cola drink", "2.50"));
+        Product promotedCola = catalog.intern(new Product("cola drink", "2.00"));
+
+        assertThat(promotedCola).isNotSameAs(cola);
+        assertThat(promotedCola.getId()).isNotEqualTo(cola.getId());
+    }
+
+    @Test
+    public void shouldInternManyProducts() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            products.add(catalog.intern(new Product("product " + i, "1.00")));
+        }
+
+        assertThat(catalog.size()).isEqualTo(100);
+        assertThat(products.get(99).getName()).isEqualTo("product 99");
+        assertThat(products.get(99).getId()).isEqualTo(99);
+    }
+
+    @Test
+    public void shouldKeepIdOfProductNoLongerReferred() throws InterruptedException {
+        Product cola = catalog.intern(new Product("cola drink", "2.50"));
+        int colaId = cola.getId();
+        WeakReference<Product> reference = new WeakReference<>(cola);
+        cola = null;
+
+        for (int attempt = 0; attempt < 50 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(reference.get()).isNull();
+        assertThat(catalog.size()).isEqualTo(1);
+        assertThat(catalog.intern(new Product("cola drink", "2.50")).getId()).isEqualTo(colaId);
+    }
+
+    @Test
+    public void shouldLookUpProductById() {
+        Product cola = catalog.intern(new Product("cola drink", "2.50"));
+        Product chocolate = catalog.intern(new Product("chocolate bar", "3.30"));
+
+        assertThat(catalog.productOf(cola.getId())).isSameAs(cola);
+        assertThat(catalog.productOf(chocolate.getId())).isSameAs(chocolate);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenProductIdIsUnknown() {
+        catalog.productOf(0);
+    }
+
+    @Test
+    public void shouldReleaseSharedProductFromShelve() {
+        Shelve shelve = new Shelve(1, new Product("cola drink", "2.50"), 2);
+
+        assertThat(shelve.releaseProduct().get()).isSameAs(shelve.releaseProduct().get());
+    }
+
+    @Test
+    public void shouldPackChangeOfPurchase() {
+        Product cola = ProductCatalog.INSTANCE.intern(new Product("cola drink", "2.50"));
+        Purchase purchase = new Purchase(cola, Arrays.asList(Coin.TEN_CENTS, Coin.FIVE_DOLLARS, Coin.TEN_CENTS));
+
+        assertThat(purchase.getProduct()).isSameAs(cola);
+        assertThat(purchase.getChangeCount(Coin.TEN_CENTS)).isEqualTo(2);
+        assertThat(purchase.getChange()).containsExactly(Coin.FIVE_DOLLARS, Coin.TEN_CENTS, Coin.TEN_CENTS);
+    }
+
+    @Test
+    public void shouldKeepChangeTooLargeToPack() {
+        int[] changeCounts = new int[Coin.values().length];
+        changeCounts[Coin.ONE_CENT.ordinal()] = 200;
+        changeCounts[Coin.ONE_DOLLAR.ordinal()] = 1;
+
+        Purchase purchase = Purchase.of(null, changeCounts);
+
+        assertThat(purchase.getProduct()).isNull();
+        assertThat(purchase.getChangeCount(Coin.ONE_CENT)).isEqualTo(200);
+        assertThat(purchase.getChange()).hasSize(201).startsWith(Coin.ONE_DOLLAR);
+    }
+
+}
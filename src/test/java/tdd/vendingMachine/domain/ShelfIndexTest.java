@@ -0,0 +1,76 @@
+package tdd.vendingMachine.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ShelfIndexTest {
+
+    private Product productMock;
+
+    @Before
+    public void setUp() {
+        productMock = mock(Product.class);
+    }
+
+    @Test
+    public void shouldFindShelveByNumber() {
+        Shelve shelve = new Shelve(7, productMock, 1);
+        ShelfIndex shelfIndex = new ShelfIndex(Arrays.asList(new Shelve(3, productMock, 1), shelve));
+
+        assertThat(shelfIndex.findShelve(7)).containsSame(shelve);
+        assertThat(shelfIndex.positionOf(7)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotFindMissingShelve() {
+        ShelfIndex shelfIndex = new ShelfIndex(Arrays.asList(new Shelve(3, productMock, 1)));
+
+        assertThat(shelfIndex.findShelve(4)).isEmpty();
+        assertThat(shelfIndex.positionOf(4)).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldFindEveryShelveOfLargeMachine() {
+        List<Shelve> shelves = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            shelves.add(new Shelve(i * 1_000 - 5_000_000, productMock, 1));
+        }
+
+        ShelfIndex shelfIndex = new ShelfIndex(shelves);
+
+        for (int position = 0; position < shelves.size(); position++) {
+            Shelve shelve = shelves.get(position);
+            assertThat(shelfIndex.positionOf(shelve.getNumber())).isEqualTo(position);
+        }
+        assertThat(shelfIndex.findShelve(1)).isEmpty();
+    }
+
+    @Test
+    public void shouldListShelveNumbersInGivenOrder() {
+        ShelfIndex shelfIndex = new ShelfIndex(Arrays.asList(
+            new Shelve(3, productMock, 1), new Shelve(1, productMock, 1), new Shelve(2, productMock, 1)
+        ));
+
+        assertThat(shelfIndex.getShelveNumbers()).containsExactly(3, 1, 2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowModifyingShelveNumbers() {
+        ShelfIndex shelfIndex = new ShelfIndex(Arrays.asList(new Shelve(3, productMock, 1)));
+
+        shelfIndex.getShelveNumbers().add(4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenShelveNumbersAreDuplicated() {
+        new ShelfIndex(Arrays.asList(new Shelve(3, productMock, 1), new Shelve(3, productMock, 2)));
+    }
+
+}
@@ -52,6 +52,32 @@ public class ShelveTest {
         assertThat(shelve.releaseProduct()).isEmpty();
     }
 
+    @Test
+    public void shouldReserveProductWhenItIsAvailable() {
+        Shelve shelve = getShelveWithProductQuantity(1);
+
+        assertThat(shelve.reserveProduct()).isTrue();
+        assertThat(shelve.getQuantity()).isZero();
+    }
+
+    @Test
+    public void shouldNotReserveProductWhenItIsNotAvailable() {
+        Shelve shelve = getShelveWithProductQuantity(0);
+
+        assertThat(shelve.reserveProduct()).isFalse();
+        assertThat(shelve.getQuantity()).isZero();
+    }
+
+    @Test
+    public void shouldMakeProductAvailableAgainWhenReservationCanceled() {
+        Shelve shelve = getShelveWithProductQuantity(1);
+
+        shelve.reserveProduct();
+        shelve.cancelReservation();
+
+        assertThat(shelve.isProductAvailable()).isTrue();
+    }
+
     private Shelve getShelveWithProductQuantity(int quantity) {
         return new Shelve(1, productMock, quantity);
     }
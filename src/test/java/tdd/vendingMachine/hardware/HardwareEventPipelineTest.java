@@ -0,0 +1,154 @@
+package tdd.vendingMachine.hardware;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class HardwareEventPipelineTest {
+
+    private EventRing ring;
+    private Display displayMock;
+    private BasicVendingMachine vendingMachine;
+    private List<Coin> returnedCoins;
+    private List<Purchase> purchases;
+    private HardwareEventPipeline pipeline;
+    private long now;
+
+    @Before
+    public void setUp() {
+        ring = new EventRing(16);
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.TEN_CENTS, 10);
+        displayMock = mock(Display.class);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine), displayMock);
+
+        returnedCoins = new ArrayList<>();
+        purchases = new ArrayList<>();
+        pipeline = new HardwareEventPipeline(ring, vendingMachine, 100, returnedCoins::add, purchases::add);
+    }
+
+    @Test
+    public void shouldSellProductWithOneDisplayRefreshForBurstOfCoins() {
+        offer(HardwareEvent.shelveKey(1, tick()));
+        offer(HardwareEvent.coin(Coin.TWO_DOLLARS, tick()));
+        offer(HardwareEvent.coin(Coin.FIFTY_CENTS, tick()));
+        offer(HardwareEvent.coin(Coin.TEN_CENTS, tick()));
+        offer(HardwareEvent.dispenseKey(tick()));
+
+        assertThat(pipeline.drain()).isEqualTo(5);
+
+        verify(displayMock, times(1)).displayMessage("cola drink 0.00");
+        assertThat(purchases).hasSize(1);
+        assertThat(purchases.get(0).getProduct().getName()).isEqualTo("cola drink");
+        assertThat(returnedCoins).containsExactly(Coin.TEN_CENTS);
+    }
+
+    @Test
+    public void shouldDropBouncesWithinDebounceWindow() {
+        offer(HardwareEvent.shelveKey(1, now));
+        offer(HardwareEvent.shelveKey(1, now + 50));
+        offer(HardwareEvent.coin(Coin.ONE_DOLLAR, now + 1_000));
+        offer(HardwareEvent.coin(Coin.ONE_DOLLAR, now + 1_010));
+        offer(HardwareEvent.coin(Coin.ONE_DOLLAR, now + 2_000));
+
+        pipeline.drain();
+
+        assertThat(pipeline.getBouncedEvents()).isEqualTo(2);
+        assertThat(vendingMachine.getTransaction().getInsertedMoney()).isEqualTo(Money.of("2.00"));
+    }
+
+    @Test
+    public void shouldReturnUnacceptableCoinsAndCoinsWithoutShelveSelected() {
+        offer(HardwareEvent.coin(Coin.ONE_DOLLAR, tick()));
+        offer(HardwareEvent.shelveKey(1, tick()));
+        offer(HardwareEvent.coin(Coin.TWO_CENTS, tick()));
+        offer(HardwareEvent.coin(Coin.FIFTY_CENTS, tick()));
+        offer(HardwareEvent.cancelKey(tick()));
+
+        pipeline.drain();
+
+        assertThat(returnedCoins).containsExactly(Coin.ONE_DOLLAR, Coin.TWO_CENTS, Coin.FIFTY_CENTS);
+        assertThat(pipeline.getReturnedCoins()).isEqualTo(3);
+        assertThat(vendingMachine.getTransaction().getState())
+            .isEqualTo(MachineState.SELECTING_PRODUCT);
+    }
+
+    @Test
+    public void shouldReportUnacceptableCoinsToListeners() {
+        VendingMachineListener listener = mock(VendingMachineListener.class);
+        vendingMachine.addListener(listener);
+
+        offer(HardwareEvent.shelveKey(1, tick()));
+        offer(HardwareEvent.coin(Coin.TWO_CENTS, tick()));
+        pipeline.drain();
+
+        verify(listener).onCoinRejected(vendingMachine.getShelves().get(0), Coin.TWO_CENTS);
+    }
+
+    @Test
+    public void shouldCreditBurstOnceAndProcessRestOfBatchWhenListenerFails() {
+        vendingMachine.addListener(new VendingMachineListener() {
+            @Override
+            public void onCoinInserted(Shelve shelve, Coin coin) {
+                throw new IllegalArgumentException("Listener failed!");
+            }
+        });
+
+        offer(HardwareEvent.shelveKey(1, tick()));
+        offer(HardwareEvent.coin(Coin.ONE_DOLLAR, tick()));
+        offer(HardwareEvent.cancelKey(tick()));
+        offer(HardwareEvent.coin(Coin.FIFTY_CENTS, tick()));
+
+        assertThat(pipeline.drain()).isEqualTo(4);
+
+        assertThat(pipeline.getFailedEvents()).isEqualTo(1);
+        assertThat(returnedCoins).containsExactly(Coin.ONE_DOLLAR, Coin.FIFTY_CENTS);
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.SELECTING_PRODUCT);
+    }
+
+    @Test
+    public void shouldIgnoreMalformedEventsAndMeaninglessKeys() {
+        offer(0xF000L);
+        offer(HardwareEvent.encode(HardwareEventType.COIN, 100, tick()));
+        offer(HardwareEvent.dispenseKey(tick()));
+        offer(HardwareEvent.cancelKey(tick()));
+
+        assertThat(pipeline.drain()).isEqualTo(4);
+
+        assertThat(pipeline.getMalformedEvents()).isEqualTo(2);
+        assertThat(purchases).isEmpty();
+    }
+
+    @Test
+    public void shouldRefuseEventsWhenRingIsFull() {
+        for (int i = 0; i < ring.getCapacity(); i++) {
+            assertThat(ring.offer(HardwareEvent.cancelKey(tick()))).isTrue();
+        }
+
+        assertThat(ring.offer(HardwareEvent.cancelKey(tick()))).isFalse();
+        assertThat(pipeline.drain()).isEqualTo(ring.getCapacity());
+        assertThat(ring.offer(HardwareEvent.cancelKey(tick()))).isTrue();
+    }
+
+    private long tick() {
+        return now += 1_000;
+    }
+
+    private void offer(long event) {
+        assertThat(ring.offer(event)).isTrue();
+    }
+
+}
@@ -0,0 +1,153 @@
+package tdd.vendingMachine.history;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PurchaseHistoryTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private long now;
+    private PurchaseHistory history;
+    private BasicVendingMachine vendingMachine;
+    private Product cola;
+    private Product chocolate;
+
+    @Before
+    public void setUp() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 5));
+        cola = ProductCatalog.INSTANCE.intern(new Product("cola drink", "2.50"));
+        chocolate = ProductCatalog.INSTANCE.intern(new Product("chocolate bar", "3.30"));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.TEN_CENTS, 10);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine), mock(Display.class));
+
+        history = new PurchaseHistory(() -> now);
+        vendingMachine.addListener(history);
+    }
+
+    @Test
+    public void shouldRecordDispensedProductsWithPaidPriceAndChange()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        now = 1000;
+        buy(1, Coin.TEN_CENTS, Coin.FIFTY_CENTS, Coin.TWO_DOLLARS);
+
+        assertThat(history.size()).isEqualTo(1);
+        assertThat(history.getTimestampMillis(0)).isEqualTo(1000);
+        assertThat(history.getShelveNumber(0)).isEqualTo(1);
+        assertThat(history.getProductId(0)).isEqualTo(cola.getId());
+        assertThat(history.getPriceInCents(0)).isEqualTo(250);
+        assertThat(history.getChangeCount(0, Coin.TEN_CENTS)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotRecordCanceledPurchase()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        vendingMachine.cancel();
+
+        assertThat(history.size()).isZero();
+    }
+
+    @Test
+    public void shouldRecordEveryProductOfBatchSharingBasketPrice()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        Map<Integer, Integer> basket = new LinkedHashMap<>();
+        basket.put(1, 2);
+        basket.put(2, 1);
+        now = 2000;
+        vendingMachine.purchaseBatch(basket, Arrays.asList(Coin.FIVE_DOLLARS, Coin.TWO_DOLLARS, Coin.ONE_DOLLAR,
+            Coin.TEN_CENTS, Coin.TEN_CENTS, Coin.TEN_CENTS, Coin.TEN_CENTS));
+
+        assertThat(history.size()).isEqualTo(3);
+        assertThat(history.getShelveNumber(0)).isEqualTo(1);
+        assertThat(history.getShelveNumber(1)).isEqualTo(1);
+        assertThat(history.getProductId(2)).isEqualTo(chocolate.getId());
+        assertThat(history.getPriceInCents(0) + history.getPriceInCents(1) + history.getPriceInCents(2))
+            .isEqualTo(830);
+        assertThat(history.getTimestampMillis(2)).isEqualTo(2000);
+        assertThat(history.getChangeCount(0, Coin.TEN_CENTS)).isEqualTo(1);
+        assertThat(history.getChangeCoinDistribution(0, HOUR)).containsEntry(Coin.TEN_CENTS, 1L);
+    }
+
+    @Test
+    public void shouldAggregateRevenueByProductAndHour()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        now = 10 * HOUR + 5;
+        buy(1, Coin.TWO_DOLLARS, Coin.FIFTY_CENTS);
+        now = 11 * HOUR;
+        buy(1, Coin.TWO_DOLLARS, Coin.FIFTY_CENTS);
+        buy(2, Coin.TWO_DOLLARS, Coin.ONE_DOLLAR, Coin.FIFTY_CENTS);
+        now = 12 * HOUR;
+        buy(2, Coin.TWO_DOLLARS, Coin.ONE_DOLLAR, Coin.FIFTY_CENTS);
+
+        RevenueReport report = history.getRevenueByProductAndHour(10 * HOUR, 12 * HOUR);
+
+        assertThat(report.getHourCount()).isEqualTo(2);
+        assertThat(report.getRevenue(cola.getId(), 0)).isEqualTo(Money.of("2.50"));
+        assertThat(report.getRevenue(cola.getId(), 1)).isEqualTo(Money.of("2.50"));
+        assertThat(report.getRevenue(chocolate.getId(), 1)).isEqualTo(Money.of("3.30"));
+        assertThat(report.getTotalRevenue(chocolate.getId())).isEqualTo(Money.of("3.30"));
+    }
+
+    @Test
+    public void shouldAggregateAcrossChunks() {
+        int[] change = new int[Coin.values().length];
+        change[Coin.TEN_CENTS.ordinal()] = 1;
+        int rows = PurchaseHistory.ROWS_PER_CHUNK * 2 + 10;
+        for (int row = 0; row < rows; row++) {
+            history.append(row, 1, cola.getId(), 250, change);
+        }
+
+        RevenueReport report = history.getRevenueByProductAndHour(0, HOUR);
+
+        assertThat(history.size()).isEqualTo(rows);
+        assertThat(report.getRevenue(cola.getId(), 0)).isEqualTo(Money.ofMinorUnits(250L * rows));
+        assertThat(history.getChangeCoinDistribution(0, HOUR)).containsEntry(Coin.TEN_CENTS, (long) rows);
+    }
+
+    @Test
+    public void shouldCountChangeTooLargeToPack() {
+        int[] change = new int[Coin.values().length];
+        change[Coin.TEN_CENTS.ordinal()] = 300;
+        change[Coin.ONE_DOLLAR.ordinal()] = 2;
+
+        history.append(0, 1, Purchase.of(cola, change), 250);
+        history.append(HOUR, 1, Purchase.of(cola, change), 250);
+
+        assertThat(history.getChangeCount(0, Coin.TEN_CENTS)).isEqualTo(300);
+        Map<Coin, Long> distribution = history.getChangeCoinDistribution(0, HOUR);
+        assertThat(distribution).containsEntry(Coin.TEN_CENTS, 300L).containsEntry(Coin.ONE_DOLLAR, 2L)
+            .containsEntry(Coin.FIFTY_CENTS, 0L);
+    }
+
+    private void buy(int shelveNumber, Coin... coins)
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(shelveNumber);
+        for (Coin coin : coins) {
+            vendingMachine.insertCoin(coin);
+        }
+        vendingMachine.dispenseProduct();
+    }
+
+}
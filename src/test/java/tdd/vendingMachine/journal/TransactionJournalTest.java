@@ -0,0 +1,233 @@
+package tdd.vendingMachine.journal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TransactionJournalTest {
+
+    private Path journalPath;
+
+    @Before
+    public void setUp() throws IOException {
+        journalPath = Files.createTempFile("transaction-journal", ".log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(journalPath);
+    }
+
+    @Test
+    public void shouldReplayJournalOntoInitialMachineState()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        List<Shelve> shelves = createShelves();
+        CoinCassette cassette = createCassette();
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, mock(Display.class));
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            vendingMachine.addListener(journal);
+
+            vendingMachine.selectShelve(1);
+            vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+            vendingMachine.dispenseProduct();
+
+            vendingMachine.selectShelve(2);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+            vendingMachine.cancel();
+
+            Map<Integer, Integer> basket = new HashMap<>();
+            basket.put(1, 1);
+            basket.put(2, 2);
+            vendingMachine.purchaseBatch(basket, Arrays.asList(Coin.FIVE_DOLLARS, Coin.FIVE_DOLLARS));
+
+            vendingMachine.selectShelve(2);
+            vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+
+            assertThat(journal.getAppendedRecords()).isEqualTo(14);
+        }
+
+        List<Shelve> replayedShelves = createShelves();
+        CoinCassette replayedCassette = createCassette();
+        JournalReplayer.Result result = new JournalReplayer(new ShelfIndex(replayedShelves), replayedCassette)
+            .replay(journalPath);
+
+        assertThat(result.getReplayedEvents()).isEqualTo(14);
+        assertThat(result.hasOpenTransaction()).isTrue();
+        assertThat(result.getOpenTransactionShelve().getNumber()).isEqualTo(2);
+        assertThat(result.getOpenTransactionCoins()).containsExactly(Coin.FIFTY_CENTS);
+        for (int i = 0; i < shelves.size(); i++) {
+            assertThat(replayedShelves.get(i).getQuantity()).isEqualTo(shelves.get(i).getQuantity());
+        }
+        for (Coin coin : Coin.values()) {
+            assertThat(replayedCassette.getCoinCount(coin)).isEqualTo(cassette.getCoinCount(coin));
+        }
+    }
+
+    @Test
+    public void shouldSkipBatchCutOffBeforeCommit()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(createShelves(), createCassette(),
+            mock(Display.class));
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            vendingMachine.addListener(journal);
+            vendingMachine.purchaseBatch(Collections.singletonMap(2, 2),
+                Arrays.asList(Coin.FIVE_DOLLARS, Coin.TWO_DOLLARS));
+            assertThat(journal.getAppendedRecords()).isEqualTo(4);
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[JournalRecord.SIZE]), 3L * JournalRecord.SIZE);
+        }
+
+        List<Shelve> replayedShelves = createShelves();
+        CoinCassette replayedCassette = createCassette();
+        JournalReplayer.Result result = new JournalReplayer(new ShelfIndex(replayedShelves), replayedCassette)
+            .replay(journalPath);
+
+        assertThat(result.getReplayedEvents()).isEqualTo(3);
+        assertThat(replayedShelves.get(1).getQuantity()).isEqualTo(3);
+        for (Coin coin : Coin.values()) {
+            assertThat(replayedCassette.getCoinCount(coin)).isEqualTo(createCassette().getCoinCount(coin));
+        }
+    }
+
+    @Test
+    public void shouldReplayServiceVisits()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        List<Shelve> shelves = createShelves();
+        CoinCassette cassette = createCassette();
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, cassette, mock(Display.class));
+        String longName = "sparkling mineral water with lemon and a hint of mint";
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            vendingMachine.addListener(journal);
+            vendingMachine.startMaintenance();
+            vendingMachine.service(new ServiceVisit()
+                .swapProduct(2, new Product(longName, "1.90"), 4)
+                .restock(2, 3)
+                .restock(1, 2)
+                .topUp(Coin.TWO_DOLLARS, 5)
+                .skim(Coin.FIFTY_CENTS, 1));
+            vendingMachine.service(new ServiceVisit().skim(Coin.TWENTY_CENTS, 2));
+            vendingMachine.finishMaintenance();
+
+            vendingMachine.selectShelve(2);
+            vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+            vendingMachine.dispenseProduct();
+        }
+
+        List<Shelve> replayedShelves = createShelves();
+        CoinCassette replayedCassette = createCassette();
+        new JournalReplayer(new ShelfIndex(replayedShelves), replayedCassette).replay(journalPath);
+
+        for (int i = 0; i < shelves.size(); i++) {
+            assertThat(replayedShelves.get(i).getProductName()).isEqualTo(shelves.get(i).getProductName());
+            assertThat(replayedShelves.get(i).getProductPriceAmount())
+                .isEqualTo(shelves.get(i).getProductPriceAmount());
+            assertThat(replayedShelves.get(i).getQuantity()).isEqualTo(shelves.get(i).getQuantity());
+        }
+        assertThat(replayedShelves.get(1).getProductName()).isEqualTo(longName);
+        for (Coin coin : Coin.values()) {
+            assertThat(replayedCassette.getCoinCount(coin)).isEqualTo(cassette.getCoinCount(coin));
+        }
+    }
+
+    @Test
+    public void shouldJournalBatchRefundedForLackOfChange()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(createShelves(), createCassette(),
+            mock(Display.class));
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            vendingMachine.addListener(journal);
+            vendingMachine.purchaseBatch(Collections.singletonMap(1, 1), Collections.singletonList(Coin.FIVE_DOLLARS));
+        }
+
+        List<JournalEventType> types = new ArrayList<>();
+        JournalReader.read(journalPath, record -> types.add(record.getType()));
+        assertThat(types).containsExactly(JournalEventType.BATCH_NO_CHANGE_REFUND);
+    }
+
+    @Test
+    public void shouldContinueAfterLastRecordWhenReopened()
+        throws IOException, InvalidShelveException, ProductNotAvailableException {
+
+        List<Shelve> shelves = createShelves();
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, createCassette(), mock(Display.class));
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            vendingMachine.addListener(journal);
+            vendingMachine.selectShelve(1);
+            vendingMachine.removeListener(journal);
+        }
+        try (TransactionJournal journal = new TransactionJournal(journalPath)) {
+            assertThat(journal.getAppendedRecords()).isEqualTo(1);
+            vendingMachine.addListener(journal);
+            vendingMachine.cancel();
+            assertThat(journal.getAppendedRecords()).isEqualTo(2);
+        }
+
+        List<JournalEventType> types = new ArrayList<>();
+        JournalReader.read(journalPath, record -> types.add(record.getType()));
+        assertThat(types).containsExactly(JournalEventType.SHELVE_SELECTED, JournalEventType.CANCELED);
+    }
+
+    @Test
+    public void shouldGroupCommitAppendedRecords()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, InterruptedException {
+
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(createShelves(), createCassette(),
+            mock(Display.class));
+
+        try (TransactionJournal journal = new TransactionJournal(journalPath, 1, TimeUnit.MILLISECONDS)) {
+            vendingMachine.addListener(journal);
+            vendingMachine.selectShelve(1);
+            vendingMachine.cancel();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (journal.getCommittedRecords() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(journal.getCommittedRecords()).isEqualTo(2);
+        }
+    }
+
+    private static List<Shelve> createShelves() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 3));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 3));
+        return shelves;
+    }
+
+    private static CoinCassette createCassette() {
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 2);
+        coinsInMachine.put(Coin.TWENTY_CENTS, 2);
+        return new CoinCassette(coinsInMachine);
+    }
+
+}
@@ -0,0 +1,153 @@
+package tdd.vendingMachine.maintenance;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.ConcurrentVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.state.MachineState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+public class ManifestImporterTest {
+
+    private Map<Integer, ConcurrentVendingMachine> machines;
+    private Map<Integer, List<Shelve>> shelves;
+    private ManifestImporter importer;
+
+    @Before
+    public void setUp() {
+        machines = new HashMap<>();
+        shelves = new HashMap<>();
+        for (int machineId = 1; machineId <= 2; machineId++) {
+            List<Shelve> machineShelves = new ArrayList<>();
+            machineShelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1));
+            machineShelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 0));
+            CoinCassette cassette = new CoinCassette(Collections.singletonMap(Coin.FIVE_DOLLARS, 3));
+            machines.put(machineId, new ConcurrentVendingMachine(machineShelves, cassette, mock(Display.class)));
+            shelves.put(machineId, machineShelves);
+        }
+        importer = new ManifestImporter(machines::get);
+    }
+
+    @Test
+    public void shouldApplyCsvManifestVisitPerMachine() throws IOException, InvalidShelveException {
+        String manifest = String.join("\n",
+            "# machine,operation,target,count[,product name,price]",
+            "1,restock,1,11",
+            "1,skim,FIVE_DOLLARS,3",
+            "2,swap,2,6,mineral water,1.90",
+            "2,top-up,TEN_CENTS,40",
+            "2,restock,2,2",
+            "");
+
+        ManifestImporter.Result result = importer.importCsv(new StringReader(manifest));
+
+        assertThat(result.getAppliedVisits()).isEqualTo(2);
+        assertThat(result.getRejectedVisits()).isZero();
+        assertThat(machines.get(1).getQuantity(1)).isEqualTo(12);
+        assertThat(machines.get(1).getCoinCount(Coin.FIVE_DOLLARS)).isZero();
+        assertThat(shelves.get(2).get(1).getProductName()).isEqualTo("mineral water");
+        assertThat(machines.get(2).getQuantity(2)).isEqualTo(8);
+        assertThat(machines.get(2).getCoinCount(Coin.TEN_CENTS)).isEqualTo(40);
+    }
+
+    @Test
+    public void shouldApplyBinaryManifest() throws IOException, InvalidShelveException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BinaryManifestWriter writer = new BinaryManifestWriter(output)) {
+            writer.restock(1, 2, 5)
+                .swapProduct(2, 1, new Product("mineral water", "1.90"), 3)
+                .topUp(2, Coin.ONE_DOLLAR, 7);
+        }
+
+        ManifestImporter.Result result = importer.importBinary(new ByteArrayInputStream(output.toByteArray()));
+
+        assertThat(result.getAppliedVisits()).isEqualTo(2);
+        assertThat(machines.get(1).getQuantity(2)).isEqualTo(5);
+        assertThat(shelves.get(2).get(0).getProductName()).isEqualTo("mineral water");
+        assertThat(shelves.get(2).get(0).getProductPrice()).isEqualByComparingTo("1.90");
+        assertThat(machines.get(2).getQuantity(1)).isEqualTo(3);
+        assertThat(machines.get(2).getCoinCount(Coin.ONE_DOLLAR)).isEqualTo(7);
+    }
+
+    @Test
+    public void shouldSkipVisitsThatCantBeAppliedAndGoOn() throws IOException, InvalidShelveException {
+        String manifest = String.join("\n",
+            "1,restock,1,5",
+            "1,restock,9,5",
+            "3,restock,1,5",
+            "2,skim,FIVE_DOLLARS,4",
+            "2,restock,1,5",
+            "1,restock,2,1");
+
+        ManifestImporter.Result result = importer.importCsv(new StringReader(manifest));
+
+        assertThat(result.getAppliedVisits()).isEqualTo(1);
+        assertThat(result.getRejections()).containsExactly(
+            "Machine 1: Shelve number 9 is invalid!",
+            "Machine 3 is unknown!",
+            "Machine 2: Not enough FIVE_DOLLARS coins to take!");
+        assertThat(machines.get(1).getQuantity(1)).isEqualTo(1);
+        assertThat(machines.get(1).getQuantity(2)).isEqualTo(1);
+        assertThat(machines.get(2).getQuantity(1)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLeaveMachineAlreadyInMaintenanceInMaintenance() throws IOException, InvalidShelveException {
+        machines.get(1).startMaintenance();
+
+        ManifestImporter.Result result = importer.importCsv(new StringReader("1,restock,1,5"));
+
+        assertThat(result.getAppliedVisits()).isEqualTo(1);
+        assertThat(machines.get(1).getQuantity(1)).isEqualTo(6);
+        assertThat(machines.get(1).getMachineState()).isEqualTo(MachineState.MAINTENANCE);
+        assertThat(machines.get(2).getMachineState()).isEqualTo(MachineState.SELECTING_PRODUCT);
+    }
+
+    @Test
+    public void shouldNotPutMachineOutOfServiceBackOnSale() throws IOException, InvalidShelveException {
+        machines.get(1).takeOutOfService();
+
+        ManifestImporter.Result result = importer.importCsv(new StringReader("1,restock,1,5"));
+
+        assertThat(result.getAppliedVisits()).isZero();
+        assertThat(result.getRejections()).containsExactly("Machine 1: Machine not in maintenance!");
+        assertThat(machines.get(1).getQuantity(1)).isEqualTo(1);
+        assertThat(machines.get(1).getMachineState()).isEqualTo(MachineState.OUT_OF_SERVICE);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowExceptionWhenManifestIsMalformed() throws IOException {
+        importer.importCsv(new StringReader(String.join("\n", "1,restock,1,5", "1,restock,1")));
+    }
+
+    @Test
+    public void shouldNotApplyVisitInterruptedByMalformedLine() throws InvalidShelveException {
+        try {
+            importer.importCsv(new StringReader(String.join("\n", "1,restock,1,5", "1,refill,1,5")));
+            fail("Manifest should be malformed!");
+        } catch (IOException expected) {
+            assertThat(expected).hasMessageContaining("line 2");
+        }
+
+        assertThat(machines.get(1).getQuantity(1)).isEqualTo(1);
+    }
+
+}
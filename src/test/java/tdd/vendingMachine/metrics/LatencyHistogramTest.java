@@ -0,0 +1,51 @@
+package tdd.vendingMachine.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportExactSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10);
+        assertThat(snapshot.getSum()).isEqualTo(55);
+        assertThat(snapshot.getValueAtQuantile(0.5)).isEqualTo(5);
+        assertThat(snapshot.getValueAtQuantile(1)).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldReportLargeValuesWithinOneSixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(5_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getValueAtQuantile(0.99)).isBetween(1_000L, 1_000L + 1_000L / 16);
+        assertThat(snapshot.getValueAtQuantile(0.999)).isBetween(5_000_000L, 5_000_000L + 5_000_000L / 16);
+    }
+
+    @Test
+    public void shouldPlaceEveryValueInBucketCoveringIt() {
+        for (long value = 0; value < 100_000; value += 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.highestValueOf(bucket - 1)).isLessThan(value);
+            }
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)))
+            .isEqualTo(Long.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,124 @@
+package tdd.vendingMachine.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.change.CachingChangeStrategy;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class VendingMetricsTest {
+
+    private BasicVendingMachine vendingMachine;
+    private VendingMetrics metrics;
+
+    @Before
+    public void setUp() throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        shelves.add(new Shelve(4, new Product("chocolate bar", "3.30"), 5));
+        ShelfIndex shelfIndex = new ShelfIndex(shelves);
+
+        metrics = new VendingMetrics(shelfIndex);
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 1);
+        CachingChangeStrategy changeCache = new CachingChangeStrategy(new MinimumCoinsChangeStrategy());
+        metrics.registerChangeCache(changeCache);
+        CoinCassette cassette = new CoinCassette(coinsInMachine,
+            new TimedChangeStrategy(changeCache, metrics.getChangeSearchLatency()));
+        vendingMachine = new BasicVendingMachine(shelves, cassette, mock(Display.class));
+        vendingMachine.addListener(metrics);
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        vendingMachine.dispenseProduct();
+
+        vendingMachine.selectShelve(4);
+        try {
+            vendingMachine.insertCoin(Coin.ONE_CENT);
+        } catch (UnacceptableCoinException expected) {
+            vendingMachine.insertCoin(Coin.TWENTY_CENTS);
+        }
+        vendingMachine.cancel();
+
+        vendingMachine.selectShelve(4);
+        vendingMachine.insertCoin(Coin.FIVE_DOLLARS);
+        vendingMachine.dispenseProduct();
+    }
+
+    @Test
+    public void shouldCountTransactionsAndCoins() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getShelveNumber(0)).isEqualTo(1);
+        assertThat(snapshot.getPurchases(0)).isEqualTo(1);
+        assertThat(snapshot.getPurchases(1)).isZero();
+        assertThat(snapshot.getAcceptedCoins(Coin.TWO_DOLLARS)).isEqualTo(1);
+        assertThat(snapshot.getAcceptedCoins(Coin.TWENTY_CENTS)).isEqualTo(1);
+        assertThat(snapshot.getRejectedCoins(Coin.ONE_CENT)).isEqualTo(1);
+        assertThat(snapshot.getCancels()).isEqualTo(1);
+        assertThat(snapshot.getNoChangeRefunds()).isEqualTo(1);
+        assertThat(snapshot.getNoChangeRefundRate()).isEqualTo(1.0 / 3);
+        assertThat(snapshot.getChangeSearchLatency().getCount()).isGreaterThanOrEqualTo(2);
+        assertThat(snapshot.getChangeCacheHits() + snapshot.getChangeCacheMisses())
+            .isEqualTo(snapshot.getChangeSearchLatency().getCount());
+        assertThat(snapshot.getChangeCacheMisses()).isPositive();
+    }
+
+    @Test
+    public void shouldCountBatchRefundedForLackOfChange()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        BatchPurchase purchase = vendingMachine.purchaseBatch(Collections.singletonMap(1, 1),
+            Collections.singletonList(Coin.FIVE_DOLLARS));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(purchase.isCompleted()).isFalse();
+        assertThat(snapshot.getPurchases(0)).isEqualTo(1);
+        assertThat(snapshot.getAcceptedCoins(Coin.FIVE_DOLLARS)).isEqualTo(2);
+        assertThat(snapshot.getNoChangeRefunds()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldServeMetricsInPrometheusFormat() throws IOException {
+        String text;
+        try (PrometheusExporter exporter = new PrometheusExporter(metrics, 0)) {
+            URL url = new URL("http://127.0.0.1:" + exporter.getPort() + "/metrics");
+            try (InputStream input = url.openStream()) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = input.read(buffer)) > 0; ) {
+                    output.write(buffer, 0, read);
+                }
+                text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+
+        assertThat(text)
+            .contains("# TYPE vending_purchases_total counter\n")
+            .contains("vending_purchases_total{shelve=\"1\"} 1\n")
+            .contains("vending_coins_rejected_total{coin=\"ONE_CENT\"} 1\n")
+            .contains("vending_transactions_total{outcome=\"cancel\"} 1\n")
+            .contains("vending_change_search_seconds{quantile=\"0.99\"} ")
+            .contains("vending_change_search_seconds_count ")
+            .contains("# TYPE vending_change_cache_lookups_total counter\n")
+            .contains("vending_change_cache_lookups_total{result=\"miss\"} ")
+            .contains("vending_change_cache_hit_ratio ");
+    }
+
+}
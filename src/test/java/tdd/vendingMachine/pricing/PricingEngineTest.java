@@ -0,0 +1,165 @@
+package tdd.vendingMachine.pricing;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.time.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class PricingEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    private MutableClock clock;
+    private BasicVendingMachine vendingMachine;
+    private Display displayMock;
+
+    @Before
+    public void setUp() {
+        clock = new MutableClock(TODAY.atTime(9, 0));
+
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 5));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.TEN_CENTS, 10);
+        displayMock = mock(Display.class);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine), displayMock);
+    }
+
+    @Test
+    public void shouldPublishDiscountedPricesOnlyDuringHappyHour() {
+        PricingEngine engine = PricingEngine.attach(vendingMachine, Collections.singletonList(
+            new TimeOfDayDiscount(LocalTime.of(17, 0), LocalTime.of(19, 0), 20, "cola drink")),
+            Collections.emptyList(), clock);
+
+        assertThat(prices()).containsExactly(250L, 330L);
+        assertThat(engine.getNextChangeTime()).isEqualTo(TODAY.atTime(17, 0));
+
+        clock.set(TODAY.atTime(17, 30));
+        engine.refresh();
+        assertThat(prices()).containsExactly(200L, 330L);
+        assertThat(engine.getNextChangeTime()).isEqualTo(TODAY.atTime(19, 0));
+
+        clock.set(TODAY.atTime(19, 0));
+        engine.refresh();
+        assertThat(prices()).containsExactly(250L, 330L);
+    }
+
+    @Test
+    public void shouldApplyRulesInOrderAndRecompileAfterHorizon() {
+        PricingEngine engine = PricingEngine.attach(vendingMachine, Arrays.asList(
+            new Promotion("chocolate bar", Money.of("3.00"), TODAY.plusDays(2).atStartOfDay(),
+                TODAY.plusDays(3).atStartOfDay()),
+            new TimeOfDayDiscount(LocalTime.of(22, 0), LocalTime.of(6, 0), 10)),
+            Collections.emptyList(), clock);
+
+        clock.set(TODAY.plusDays(2).atTime(23, 0));
+        engine.refresh();
+
+        assertThat(prices()).containsExactly(225L, 270L);
+    }
+
+    @Test
+    public void shouldChargeCurrentPriceWhenInsertingCoins()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        PricingEngine engine = PricingEngine.attach(vendingMachine, Collections.singletonList(
+            new TimeOfDayDiscount(LocalTime.of(9, 0), LocalTime.of(10, 0), 20)), Collections.emptyList(), clock);
+
+        vendingMachine.selectShelve(1);
+        verify(displayMock).displayMessage("cola drink 2.00");
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        assertThat(vendingMachine.insertedEnoughMoney()).isTrue();
+
+        Purchase purchase = vendingMachine.dispenseProduct();
+        assertThat(purchase.getProduct()).isNotNull();
+        assertThat(purchase.getChange()).isEmpty();
+
+        clock.set(TODAY.atTime(10, 0));
+        engine.refresh();
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        assertThat(vendingMachine.insertedEnoughMoney()).isFalse();
+    }
+
+    @Test
+    public void shouldTakeBundleDiscountOffBasket()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        PricingEngine.attach(vendingMachine, Collections.emptyList(),
+            Collections.singletonList(new BundleDeal(1, 2, Money.of("0.80"))), clock);
+
+        Map<Integer, Integer> basket = new LinkedHashMap<>();
+        basket.put(1, 2);
+        basket.put(2, 1);
+        BatchPurchase purchase = vendingMachine.purchaseBatch(basket,
+            Arrays.asList(Coin.FIVE_DOLLARS, Coin.TWO_DOLLARS, Coin.ONE_DOLLAR));
+
+        assertThat(purchase.getBasket().getPrice()).isEqualTo(Money.of("7.50"));
+        assertThat(purchase.getChange()).containsExactly(
+            Coin.TEN_CENTS, Coin.TEN_CENTS, Coin.TEN_CENTS, Coin.TEN_CENTS, Coin.TEN_CENTS);
+    }
+
+    @Test
+    public void shouldRecompilePricesWhenProductIsSwapped() throws InvalidShelveException {
+        PricingEngine.attach(vendingMachine, Collections.singletonList(
+            new TimeOfDayDiscount(LocalTime.of(8, 0), LocalTime.of(10, 0), 50, "mineral water")),
+            Collections.emptyList(), clock);
+
+        vendingMachine.startMaintenance();
+        vendingMachine.service(new ServiceVisit().swapProduct(2, new Product("mineral water", "1.90"), 5));
+
+        assertThat(prices()).containsExactly(250L, 95L);
+    }
+
+    private List<Long> prices() {
+        PriceTable table = vendingMachine.getTransaction().getPriceBoard().current();
+        List<Long> prices = new ArrayList<>();
+        for (int position = 0; position < table.size(); position++) {
+            prices.add(table.priceAt(position));
+        }
+        return prices;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(LocalDateTime time) {
+            set(time);
+        }
+
+        void set(LocalDateTime time) {
+            instant = time.toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+    }
+
+}
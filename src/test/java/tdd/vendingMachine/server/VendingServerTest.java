@@ -0,0 +1,122 @@
+package tdd.vendingMachine.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.VendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VendingServerTest {
+
+    private static final int MACHINE_ID = 7;
+    private static final int FAULTY_MACHINE_ID = 9;
+
+    private ExecutorService workers;
+    private VendingServer server;
+    private VendingClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 0));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 1);
+        BasicVendingMachine vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine),
+            mock(Display.class));
+
+        VendingMachine faultyMachine = mock(VendingMachine.class);
+        when(faultyMachine.cancel()).thenThrow(new IndexOutOfBoundsException("Broken coin tube!"));
+
+        Map<Integer, VendingMachine> machines = new HashMap<>();
+        machines.put(MACHINE_ID, vendingMachine);
+        machines.put(FAULTY_MACHINE_ID, faultyMachine);
+
+        workers = Executors.newFixedThreadPool(2);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        server = new VendingServer(machines, workers, address);
+        client = new VendingClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        workers.shutdown();
+    }
+
+    @Test
+    public void shouldSellProductOverNetwork() throws IOException {
+        assertThat(client.call((buffer, id) -> VendingProtocol.writeSelectShelve(buffer, id, MACHINE_ID, 1)).get())
+            .isEqualTo(VendingProtocol.OK);
+
+        ByteBuffer insertResponse = client.call((buffer, id) ->
+            VendingProtocol.writeInsertCoin(buffer, id, MACHINE_ID, Coin.TWO_DOLLARS));
+        assertThat(insertResponse.get()).isEqualTo(VendingProtocol.OK);
+        assertThat(insertResponse.get()).isEqualTo((byte) 0);
+
+        insertResponse = client.call((buffer, id) ->
+            VendingProtocol.writeInsertCoin(buffer, id, MACHINE_ID, Coin.ONE_DOLLAR));
+        assertThat(insertResponse.get()).isEqualTo(VendingProtocol.OK);
+        assertThat(insertResponse.get()).isEqualTo((byte) 1);
+
+        ByteBuffer dispenseResponse = client.call((buffer, id) ->
+            VendingProtocol.writeDispenseProduct(buffer, id, MACHINE_ID));
+        assertThat(dispenseResponse.get()).isEqualTo(VendingProtocol.OK);
+        assertThat(dispenseResponse.get()).isEqualTo((byte) 1);
+        assertThat(VendingProtocol.readString(dispenseResponse)).isEqualTo("cola drink");
+        assertThat(VendingProtocol.readCoins(dispenseResponse)).containsExactly(Coin.FIFTY_CENTS);
+    }
+
+    @Test
+    public void shouldReportMachineErrors() throws IOException {
+        ByteBuffer response = client.call((buffer, id) -> VendingProtocol.writeSelectShelve(buffer, id, MACHINE_ID, 2));
+        assertThat(response.get()).isEqualTo(VendingProtocol.PRODUCT_NOT_AVAILABLE);
+        assertThat(VendingProtocol.readString(response)).isEqualTo("Product chocolate bar is not available!");
+
+        response = client.call((buffer, id) -> VendingProtocol.writeCancel(buffer, id, MACHINE_ID));
+        assertThat(response.get()).isEqualTo(VendingProtocol.ILLEGAL_STATE);
+        assertThat(VendingProtocol.readString(response)).isEqualTo("No shelve selected!");
+
+        response = client.call((buffer, id) -> VendingProtocol.writeCancel(buffer, id, MACHINE_ID + 1));
+        assertThat(response.get()).isEqualTo(VendingProtocol.UNKNOWN_MACHINE);
+    }
+
+    @Test
+    public void shouldReportUnexpectedMachineFailures() throws IOException {
+        ByteBuffer response = client.call((buffer, id) -> VendingProtocol.writeCancel(buffer, id, FAULTY_MACHINE_ID));
+        assertThat(response.get()).isEqualTo(VendingProtocol.MACHINE_ERROR);
+        assertThat(VendingProtocol.readString(response)).isEqualTo("Broken coin tube!");
+
+        response = client.call((buffer, id) -> VendingProtocol.writeSelectShelve(buffer, id, MACHINE_ID, 2));
+        assertThat(response.get()).isEqualTo(VendingProtocol.PRODUCT_NOT_AVAILABLE);
+    }
+
+    @Test
+    public void shouldListShelveNumbersOfManyMachinesAtOnce() throws IOException {
+        ByteBuffer response = client.call((buffer, id) ->
+            VendingProtocol.writeListShelveNumbers(buffer, id, MACHINE_ID, MACHINE_ID + 1));
+
+        assertThat(response.get()).isEqualTo(VendingProtocol.OK);
+        assertThat(response.getInt()).isEqualTo(2);
+        assertThat(response.getInt()).isEqualTo(1);
+        assertThat(response.getInt()).isEqualTo(2);
+        assertThat(response.getInt()).isEqualTo(-1);
+    }
+
+}
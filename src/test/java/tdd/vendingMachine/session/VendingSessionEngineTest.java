@@ -0,0 +1,252 @@
+package tdd.vendingMachine.session;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class VendingSessionEngineTest {
+
+    private static final long TIMEOUT = 100;
+
+    private List<Shelve> shelves;
+    private CoinCassette cassette;
+    private Display displayMock;
+
+    private long now;
+    private Map<VendingSession, List<Coin>> refunds;
+    private VendingSessionEngine engine;
+
+    @Before
+    public void setUp() {
+        shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 1));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 5));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 1);
+        cassette = new CoinCassette(coinsInMachine);
+
+        displayMock = mock(Display.class);
+
+        refunds = new HashMap<>();
+        engine = new VendingSessionEngine(shelves, cassette, TIMEOUT, () -> now, refunds::put);
+    }
+
+    @Test
+    public void shouldReserveStockForSessionThatSelectedShelve()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        VendingSession firstSession = engine.openSession(displayMock);
+        VendingSession secondSession = engine.openSession(displayMock);
+
+        firstSession.selectShelve(1);
+
+        assertThat(shelves.get(0).getQuantity()).isZero();
+        try {
+            secondSession.selectShelve(1);
+        } catch (ProductNotAvailableException expected) {
+            return;
+        }
+        throw new AssertionError("Second session should not get reserved product!");
+    }
+
+    @Test
+    public void shouldReportRejectionsWithoutTouchingSession() {
+        VendingSession session = engine.openSession(displayMock);
+
+        assertThat(session.tryInsertCoin(Coin.ONE_DOLLAR)).isEqualTo(InsertResult.NO_SHELVE_SELECTED);
+        assertThat(session.trySelectShelve(3)).isEqualTo(SelectResult.INVALID_SHELVE);
+        assertThat(session.trySelectShelve(1)).isEqualTo(SelectResult.SELECTED);
+        assertThat(session.tryInsertCoin(Coin.TWO_CENTS)).isEqualTo(InsertResult.UNACCEPTABLE_COIN);
+        assertThat(session.cancel()).isEmpty();
+    }
+
+    @Test
+    public void shouldReleaseStockWhenCanceled()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+        session.insertCoin(Coin.ONE_DOLLAR);
+
+        assertThat(session.cancel()).containsExactly(Coin.ONE_DOLLAR);
+        assertThat(shelves.get(0).getQuantity()).isEqualTo(1);
+        assertThat(cassette.getCoinCount(Coin.ONE_DOLLAR)).isZero();
+    }
+
+    @Test
+    public void shouldReturnOwnCoinsWhenCanceledEvenIfOtherSessionTookChange()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession buyingSession = engine.openSession(displayMock);
+        VendingSession cancelingSession = engine.openSession(displayMock);
+
+        cancelingSession.selectShelve(2);
+        cancelingSession.insertCoin(Coin.FIFTY_CENTS);
+        buyingSession.selectShelve(1);
+        buyingSession.insertCoin(Coin.TWO_DOLLARS);
+        buyingSession.insertCoin(Coin.ONE_DOLLAR);
+        Purchase purchase = buyingSession.dispenseProduct();
+
+        assertThat(purchase.getChange()).containsExactly(Coin.FIFTY_CENTS);
+        assertThat(cancelingSession.cancel()).containsExactly(Coin.FIFTY_CENTS);
+    }
+
+    @Test
+    public void shouldReturnInsertedCoinsAndKeepProductWhenNoChange()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(2);
+        session.insertCoin(Coin.FIVE_DOLLARS);
+
+        Purchase purchase = session.dispenseProduct();
+
+        verify(displayMock).displayWarning("No change!");
+        assertThat(purchase.getProduct()).isNull();
+        assertThat(purchase.getChange()).containsExactly(Coin.FIVE_DOLLARS);
+        assertThat(shelves.get(1).getQuantity()).isEqualTo(5);
+        assertThat(cassette.getCoinCount(Coin.FIVE_DOLLARS)).isZero();
+    }
+
+    @Test
+    public void shouldExpireIdleSessionWithTransactionInProgress()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession idleSession = engine.openSession(displayMock);
+        idleSession.selectShelve(1);
+        idleSession.insertCoin(Coin.TWO_DOLLARS);
+        VendingSession sessionWithoutTransaction = engine.openSession(displayMock);
+
+        now += TIMEOUT;
+
+        assertThat(engine.expireIdleSessions()).isEqualTo(1);
+        assertThat(refunds).containsOnlyKeys(idleSession);
+        assertThat(refunds.get(idleSession)).containsExactly(Coin.TWO_DOLLARS);
+        assertThat(shelves.get(0).getQuantity()).isEqualTo(1);
+        assertThat(sessionWithoutTransaction.isClosed()).isFalse();
+    }
+
+    @Test
+    public void shouldNotExpireActiveSession()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+        now += TIMEOUT - 1;
+        session.insertCoin(Coin.ONE_DOLLAR);
+        now += TIMEOUT - 1;
+
+        assertThat(engine.expireIdleSessions()).isZero();
+        assertThat(shelves.get(0).getQuantity()).isZero();
+    }
+
+    @Test
+    public void shouldExpireSessionIdleSinceLastActivity()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+        now += TIMEOUT - 1;
+        session.insertCoin(Coin.ONE_DOLLAR);
+        now += TIMEOUT - 1;
+        engine.expireIdleSessions();
+
+        now += 1;
+
+        assertThat(engine.expireIdleSessions()).isEqualTo(1);
+        assertThat(refunds.get(session)).containsExactly(Coin.ONE_DOLLAR);
+    }
+
+    @Test
+    public void shouldNotExpireSessionAfterTransactionFinished()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+        session.insertCoin(Coin.ONE_DOLLAR);
+        session.cancel();
+        session.selectShelve(2);
+
+        now += TIMEOUT;
+
+        assertThat(engine.expireIdleSessions()).isEqualTo(1);
+        assertThat(refunds.get(session)).isEmpty();
+    }
+
+    @Test
+    public void shouldChargePriceInForceWhenShelveWasSelected()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+        engine.getPriceBoard().publish(new PriceTable(new long[]{300, 330}));
+        session.insertCoin(Coin.TWO_DOLLARS);
+        session.insertCoin(Coin.FIFTY_CENTS);
+
+        assertThat(session.insertedEnoughMoney()).isTrue();
+        assertThat(session.dispenseProduct().getProduct().getName()).isEqualTo("cola drink");
+    }
+
+    @Test
+    public void shouldRefuseNewTransactionsDuringMaintenance()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        VendingSession busySession = engine.openSession(displayMock);
+        VendingSession idleSession = engine.openSession(displayMock);
+        busySession.selectShelve(2);
+        busySession.insertCoin(Coin.ONE_DOLLAR);
+
+        engine.startMaintenance();
+
+        assertThat(idleSession.trySelectShelve(1)).isEqualTo(SelectResult.MACHINE_UNAVAILABLE);
+        assertThat(busySession.tryInsertCoin(Coin.TWO_DOLLARS)).isEqualTo(InsertResult.ACCEPTED);
+        assertThat(busySession.cancel()).containsExactly(Coin.ONE_DOLLAR, Coin.TWO_DOLLARS);
+        assertThat(busySession.trySelectShelve(1)).isEqualTo(SelectResult.MACHINE_UNAVAILABLE);
+
+        engine.finishMaintenance();
+
+        assertThat(idleSession.trySelectShelve(1)).isEqualTo(SelectResult.SELECTED);
+    }
+
+    @Test
+    public void shouldRefuseNewTransactionsOutOfService() {
+        VendingSession session = engine.openSession(displayMock);
+
+        engine.takeOutOfService();
+
+        assertThat(session.trySelectShelve(1)).isEqualTo(SelectResult.MACHINE_UNAVAILABLE);
+        assertThat(session.tryInsertCoin(Coin.ONE_DOLLAR)).isEqualTo(InsertResult.MACHINE_UNAVAILABLE);
+    }
+
+    @Test
+    public void shouldForgetClosedSession() {
+        VendingSession session = engine.openSession(displayMock);
+
+        session.close();
+
+        assertThat(session.isClosed()).isTrue();
+        assertThat(engine.getOpenSessionCount()).isZero();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenClosedSessionWithTransactionInProgress()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        VendingSession session = engine.openSession(displayMock);
+        session.selectShelve(1);
+
+        session.close();
+    }
+
+}
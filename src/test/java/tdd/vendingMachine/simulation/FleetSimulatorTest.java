@@ -0,0 +1,141 @@
+package tdd.vendingMachine.simulation;
+
+import org.junit.After;
+import org.junit.Test;
+import tdd.vendingMachine.change.MinimumCoinsChangeStrategy;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.Money;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FleetSimulatorTest {
+
+    private static final int MACHINES = 3000;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldConserveStockAndMoney() {
+        Fleet fleet = createFleet(coins(Coin.TEN_CENTS, 5, Coin.FIFTY_CENTS, 2));
+        long initialMoney = totalMoneyInCents(fleet);
+
+        SimulationReport report = createSimulator(fleet, mixedCoins(), 0.1, pool).run(50);
+
+        long soldProducts = 0;
+        long soldValue = 0;
+        for (int machine = 0; machine < MACHINES; machine++) {
+            for (int shelve = 0; shelve < fleet.getShelveCount(); shelve++) {
+                int sold = 5 - fleet.getQuantity(machine, shelve);
+                soldProducts += sold;
+                soldValue += sold * fleet.getPrice(shelve).getMinorUnits();
+            }
+        }
+        assertThat(report.getCustomers()).isGreaterThan(0);
+        assertThat(report.getCancels()).isGreaterThan(0);
+        assertThat(report.getSales()).isEqualTo(soldProducts);
+        assertThat(report.getRevenue()).isEqualTo(Money.ofMinorUnits(soldValue));
+        assertThat(totalMoneyInCents(fleet) - initialMoney).isEqualTo(soldValue);
+    }
+
+    @Test
+    public void shouldNotDependOnPoolParallelism() {
+        Fleet parallelFleet = createFleet(coins(Coin.TEN_CENTS, 5));
+        Fleet sequentialFleet = createFleet(coins(Coin.TEN_CENTS, 5));
+        ForkJoinPool sequentialPool = new ForkJoinPool(1);
+
+        SimulationReport parallelReport = createSimulator(parallelFleet, mixedCoins(), 0.2, pool).run(20);
+        SimulationReport sequentialReport = createSimulator(sequentialFleet, mixedCoins(), 0.2, sequentialPool)
+            .run(20);
+        sequentialPool.shutdown();
+
+        assertThat(parallelReport.toString()).isEqualTo(sequentialReport.toString());
+        for (int machine = 0; machine < MACHINES; machine++) {
+            assertThat(parallelFleet.getCoinCount(machine, Coin.FIFTY_CENTS))
+                .isEqualTo(sequentialFleet.getCoinCount(machine, Coin.FIFTY_CENTS));
+        }
+    }
+
+    @Test
+    public void shouldRefundWhenMachinesHaveNoChange() {
+        Fleet fleet = createFleet(Collections.emptyMap());
+        Map<Coin, Double> fiveDollarsOnly = Collections.singletonMap(Coin.FIVE_DOLLARS, 1.0);
+
+        SimulationReport report = createSimulator(fleet, fiveDollarsOnly, 0, pool).run(1);
+
+        assertThat(report.getCustomers()).isEqualTo(MACHINES);
+        assertThat(report.getSales()).isZero();
+        assertThat(report.getNoChangeRefunds()).isEqualTo(MACHINES);
+        assertThat(totalMoneyInCents(fleet)).isZero();
+    }
+
+    @Test
+    public void shouldCountSoldOutVisitsAfterStockRunsOut() {
+        Fleet fleet = createFleet(Collections.emptyMap());
+        Map<Coin, Double> exactCoins = Collections.singletonMap(Coin.TEN_CENTS, 1.0);
+
+        SimulationReport report = createSimulator(fleet, exactCoins, 0, pool).run(200);
+
+        assertThat(report.getSales()).isEqualTo(MACHINES * 10L);
+        assertThat(report.getSoldOutVisits()).isEqualTo(MACHINES * 190L);
+
+        fleet.restockAll();
+        assertThat(fleet.getQuantity(MACHINES - 1, 1)).isEqualTo(5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowCustomersInsertingUnacceptableCoins() {
+        new CustomerBehavior(1, new double[]{1}, Collections.singletonMap(Coin.ONE_CENT, 1.0), 0);
+    }
+
+    private static Fleet createFleet(Map<Coin, Integer> coins) {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 5));
+        return new Fleet(MACHINES, shelves, coins);
+    }
+
+    private static FleetSimulator createSimulator(Fleet fleet, Map<Coin, Double> coinWeights, double cancelProbability,
+                                                  ForkJoinPool pool) {
+        CustomerBehavior behavior = new CustomerBehavior(1, new double[]{2, 1}, coinWeights, cancelProbability);
+        return new FleetSimulator(fleet, behavior, MinimumCoinsChangeStrategy::new, pool, 42);
+    }
+
+    private static Map<Coin, Double> mixedCoins() {
+        Map<Coin, Double> coinWeights = new EnumMap<>(Coin.class);
+        coinWeights.put(Coin.TEN_CENTS, 1.0);
+        coinWeights.put(Coin.FIFTY_CENTS, 3.0);
+        coinWeights.put(Coin.ONE_DOLLAR, 3.0);
+        coinWeights.put(Coin.TWO_DOLLARS, 2.0);
+        coinWeights.put(Coin.FIVE_DOLLARS, 1.0);
+        return coinWeights;
+    }
+
+    private static Map<Coin, Integer> coins(Object... coinsAndCounts) {
+        Map<Coin, Integer> coins = new EnumMap<>(Coin.class);
+        for (int i = 0; i < coinsAndCounts.length; i += 2) {
+            coins.put((Coin) coinsAndCounts[i], (Integer) coinsAndCounts[i + 1]);
+        }
+        return coins;
+    }
+
+    private static long totalMoneyInCents(Fleet fleet) {
+        long total = 0;
+        for (int machine = 0; machine < fleet.getMachineCount(); machine++) {
+            for (Coin coin : Coin.values()) {
+                total += (long) fleet.getCoinCount(machine, coin) * coin.getValueInCents();
+            }
+        }
+        return total;
+    }
+
+}
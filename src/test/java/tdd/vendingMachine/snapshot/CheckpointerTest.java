@@ -0,0 +1,244 @@
+package tdd.vendingMachine.snapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.state.MachineState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class CheckpointerTest {
+
+    private Path directory;
+    private BasicVendingMachine vendingMachine;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("checkpoints");
+
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 3));
+        shelves.add(new Shelve(7, new Product("chocolate bar", "3.30"), 2));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 2);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine), mock(Display.class));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (String file : new String[]{Checkpointer.SNAPSHOT_FILE, Checkpointer.DELTA_FILE}) {
+            Files.deleteIfExists(directory.resolve(file));
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void shouldRoundTripSnapshotWithTransactionInProgress()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(7);
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MachineSnapshot.capture(vendingMachine).writeTo(output);
+        MachineSnapshot snapshot = MachineSnapshot.readFrom(new ByteArrayInputStream(output.toByteArray()));
+
+        assertRestored(snapshot.restore(mock(Display.class)));
+    }
+
+    @Test
+    public void shouldRestoreSnapshotWithDeltas()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.selectShelve(1);
+            vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+            vendingMachine.dispenseProduct();
+
+            vendingMachine.selectShelve(7);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        } finally {
+            checkpointer.close();
+        }
+
+        assertRestored(Checkpointer.restore(directory, mock(Display.class)));
+    }
+
+    @Test
+    public void shouldResumeTransactionAtPriceItWasSelectedAt()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.getTransaction().getPriceBoard().publish(new PriceTable(new long[]{200, 330}));
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.selectShelve(1);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        } finally {
+            checkpointer.close();
+        }
+
+        BasicVendingMachine restoredMachine = Checkpointer.restore(directory, mock(Display.class));
+        assertThat(restoredMachine.getTransaction().getSelectedPrice()).isEqualTo(Money.of("2.00"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MachineSnapshot.capture(vendingMachine).writeTo(output);
+        BasicVendingMachine roundTrippedMachine = MachineSnapshot.readFrom(
+            new ByteArrayInputStream(output.toByteArray())).restore(mock(Display.class));
+        assertThat(roundTrippedMachine.getTransaction().getSelectedPrice()).isEqualTo(Money.of("2.00"));
+
+        restoredMachine.insertCoin(Coin.ONE_DOLLAR);
+        assertThat(restoredMachine.insertedEnoughMoney()).isTrue();
+        assertThat(restoredMachine.dispenseProduct().getChange()).isEmpty();
+    }
+
+    @Test
+    public void shouldRestoreAfterSnapshotReplacedDeltas()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory, 2);
+        try {
+            vendingMachine.selectShelve(1);
+            vendingMachine.cancel();
+            vendingMachine.selectShelve(7);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        } finally {
+            checkpointer.close();
+        }
+
+        assertThat(Files.size(directory.resolve(Checkpointer.DELTA_FILE))).isZero();
+        assertRestored(Checkpointer.restore(directory, mock(Display.class)));
+    }
+
+    @Test
+    public void shouldRestoreServicedMachine()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.startMaintenance();
+            vendingMachine.service(new ServiceVisit().restock(7, 10).topUp(Coin.TWO_DOLLARS, 5));
+            vendingMachine.service(new ServiceVisit().swapProduct(1, new Product("mineral water", "1.90"), 8));
+            vendingMachine.service(new ServiceVisit().skim(Coin.FIFTY_CENTS, 1));
+            vendingMachine.finishMaintenance();
+            vendingMachine.selectShelve(7);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        } finally {
+            checkpointer.close();
+        }
+
+        assertRestored(Checkpointer.restore(directory, mock(Display.class)));
+    }
+
+    @Test
+    public void shouldSkipDeltasOlderThanSnapshotAfterCrashBeforeTruncatingThem()
+        throws IOException, InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.selectShelve(1);
+            vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+            vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+            vendingMachine.dispenseProduct();
+        } finally {
+            checkpointer.close();
+        }
+        byte[] previousDeltas = Files.readAllBytes(directory.resolve(Checkpointer.DELTA_FILE));
+
+        checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.startMaintenance();
+            vendingMachine.service(new ServiceVisit().swapProduct(1, new Product("mineral water", "1.90"), 8)
+                .topUp(Coin.TWO_DOLLARS, 5));
+        } finally {
+            checkpointer.close();
+        }
+        Files.write(directory.resolve(Checkpointer.DELTA_FILE), previousDeltas);
+
+        BasicVendingMachine restoredMachine = Checkpointer.restore(directory, mock(Display.class));
+        assertThat(previousDeltas).isNotEmpty();
+        assertThat(restoredMachine.getShelves().get(0).getProductName()).isEqualTo("mineral water");
+        assertThat(restoredMachine.getShelves().get(0).getQuantity()).isEqualTo(8);
+        assertThat(restoredMachine.getCassette().getCoinCount(Coin.TWO_DOLLARS)).isEqualTo(6);
+        assertThat(restoredMachine.getTransaction().getState()).isEqualTo(MachineState.MAINTENANCE);
+    }
+
+    @Test
+    public void shouldRestoreCassetteServicedWithoutShelves() throws IOException, InvalidShelveException {
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.startMaintenance();
+            vendingMachine.service(new ServiceVisit().topUp(Coin.TWO_DOLLARS, 5).skim(Coin.FIFTY_CENTS, 1));
+            vendingMachine.finishMaintenance();
+        } finally {
+            checkpointer.close();
+        }
+
+        BasicVendingMachine restoredMachine = Checkpointer.restore(directory, mock(Display.class));
+        for (Coin coin : Coin.values()) {
+            assertThat(restoredMachine.getCassette().getCoinCount(coin))
+                .isEqualTo(vendingMachine.getCassette().getCoinCount(coin));
+        }
+        for (int position = 0; position < vendingMachine.getShelves().size(); position++) {
+            assertThat(restoredMachine.getShelves().get(position).getQuantity())
+                .isEqualTo(vendingMachine.getShelves().get(position).getQuantity());
+        }
+    }
+
+    @Test
+    public void shouldRestoreMachineInMaintenance() throws IOException, InvalidShelveException {
+        Checkpointer checkpointer = Checkpointer.attach(vendingMachine, directory);
+        try {
+            vendingMachine.takeOutOfService();
+            vendingMachine.startMaintenance();
+        } finally {
+            checkpointer.close();
+        }
+
+        BasicVendingMachine restoredMachine = Checkpointer.restore(directory, mock(Display.class));
+        assertThat(restoredMachine.getTransaction().getState()).isEqualTo(MachineState.MAINTENANCE);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MachineSnapshot.capture(restoredMachine).writeTo(output);
+        assertThat(MachineSnapshot.readFrom(new ByteArrayInputStream(output.toByteArray()))
+            .restore(mock(Display.class)).getTransaction().getState()).isEqualTo(MachineState.MAINTENANCE);
+    }
+
+    private void assertRestored(BasicVendingMachine restoredMachine) {
+        assertThat(restoredMachine.listShelveNumbers()).isEqualTo(vendingMachine.listShelveNumbers());
+        for (int position = 0; position < vendingMachine.getShelves().size(); position++) {
+            Shelve expected = vendingMachine.getShelves().get(position);
+            Shelve restored = restoredMachine.getShelves().get(position);
+            assertThat(restored.getProductName()).isEqualTo(expected.getProductName());
+            assertThat(restored.getProductPriceAmount()).isEqualTo(expected.getProductPriceAmount());
+            assertThat(restored.getQuantity()).isEqualTo(expected.getQuantity());
+        }
+        for (Coin coin : Coin.values()) {
+            assertThat(restoredMachine.getCassette().getCoinCount(coin))
+                .isEqualTo(vendingMachine.getCassette().getCoinCount(coin));
+        }
+
+        assertThat(restoredMachine.getTransaction().getState())
+            .isEqualTo(MachineState.INSERTING_COINS);
+        assertThat(restoredMachine.getTransaction().getSelectedShelve().getNumber()).isEqualTo(7);
+        assertThat(restoredMachine.getTransaction().getInsertedMoney()).isEqualTo(Money.of("1.00"));
+        assertThat(restoredMachine.cancel()).containsExactly(Coin.ONE_DOLLAR);
+    }
+
+}
@@ -0,0 +1,204 @@
+package tdd.vendingMachine.state;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.event.VendingMachineListener;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+public class VendingStateMachineTest {
+
+    private BasicVendingMachine vendingMachine;
+
+    @Before
+    public void setUp() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 2));
+
+        Map<Coin, Integer> coinsInMachine = new HashMap<>();
+        coinsInMachine.put(Coin.FIFTY_CENTS, 4);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(coinsInMachine), mock(Display.class));
+    }
+
+    // maintenance
+
+    @Test
+    public void shouldRefuseSalesDuringMaintenance() {
+        vendingMachine.startMaintenance();
+
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.MAINTENANCE);
+        assertThat(vendingMachine.trySelectShelve(1)).isEqualTo(SelectResult.MACHINE_UNAVAILABLE);
+        assertThat(vendingMachine.tryInsertCoin(Coin.ONE_DOLLAR)).isEqualTo(InsertResult.MACHINE_UNAVAILABLE);
+        assertThat(vendingMachine.insertCoins(new Coin[]{Coin.ONE_DOLLAR}, 1)).isZero();
+        assertRefused(vendingMachine::cancel, "Machine in maintenance!");
+    }
+
+    @Test
+    public void shouldSellAgainAfterMaintenance()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.startMaintenance();
+        vendingMachine.finishMaintenance();
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+
+        assertThat(vendingMachine.dispenseProduct().getProduct().getName()).isEqualTo("cola drink");
+    }
+
+    @Test
+    public void shouldNotStartMaintenanceDuringTransaction()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        vendingMachine.selectShelve(1);
+
+        assertRefused(vendingMachine::startMaintenance, "Transaction in progress!");
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.INSERTING_COINS);
+    }
+
+    @Test
+    public void shouldNotFinishMaintenanceWhenNotInMaintenance() {
+        assertRefused(vendingMachine::finishMaintenance, "Machine not in maintenance!");
+    }
+
+    @Test
+    public void shouldServiceOnlyInMaintenance() throws InvalidShelveException {
+        assertRefused(() -> vendingMachine.service(new ServiceVisit().restock(1, 3)), "Machine not in maintenance!");
+
+        vendingMachine.startMaintenance();
+        vendingMachine.service(new ServiceVisit().restock(1, 3));
+
+        assertThat(vendingMachine.getShelves().get(0).getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldNotResumeTransactionDuringMaintenance() {
+        vendingMachine.startMaintenance();
+
+        assertRefused(() -> vendingMachine.resumeTransaction(1, Money.of("2.50"), Money.of("1.00")),
+            "Machine in maintenance!");
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.MAINTENANCE);
+    }
+
+    // out of service
+
+    @Test
+    public void shouldRefuseSalesWhenOutOfService() {
+        vendingMachine.takeOutOfService();
+
+        assertThat(vendingMachine.trySelectShelve(1)).isEqualTo(SelectResult.MACHINE_UNAVAILABLE);
+        assertRefused(() -> vendingMachine.purchaseBatch(Collections.singletonMap(1, 1),
+            Collections.singletonList(Coin.FIVE_DOLLARS)), "Machine out of service!");
+    }
+
+    @Test
+    public void shouldGoThroughMaintenanceBackToService() {
+        vendingMachine.takeOutOfService();
+        vendingMachine.startMaintenance();
+        vendingMachine.finishMaintenance();
+
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.SELECTING_PRODUCT);
+        assertThat(vendingMachine.trySelectShelve(1)).isEqualTo(SelectResult.SELECTED);
+    }
+
+    @Test
+    public void shouldNotReturnToServiceWhenInService() {
+        assertRefused(vendingMachine::returnToService, "Machine not out of service!");
+    }
+
+    // notifying listeners
+
+    @Test
+    public void shouldMoveToDispensingBeforeNotifyingListenerOfLastCoin()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.addListener(new VendingMachineListener() {
+            @Override
+            public void onCoinInserted(Shelve shelve, Coin coin) {
+                throw new IllegalStateException("Journal closed!");
+            }
+        });
+
+        assertRefused(() -> vendingMachine.insertCoin(Coin.FIFTY_CENTS), "Journal closed!");
+
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.DISPENSING_PRODUCT);
+        assertThat(vendingMachine.tryInsertCoin(Coin.FIFTY_CENTS)).isEqualTo(InsertResult.ALREADY_ENOUGH_MONEY);
+    }
+
+    @Test
+    public void shouldFinishTransactionBeforeNotifyingListenerOfDispensedProduct()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        vendingMachine.addListener(new VendingMachineListener() {
+            @Override
+            public void onProductDispensed(Shelve shelve, Product product, List<Coin> change) {
+                throw new IllegalStateException("Journal closed!");
+            }
+        });
+
+        assertRefused(vendingMachine::dispenseProduct, "Journal closed!");
+
+        assertThat(vendingMachine.getTransaction().getState()).isEqualTo(MachineState.SELECTING_PRODUCT);
+        assertThat(vendingMachine.getShelves().get(0).getQuantity()).isEqualTo(1);
+    }
+
+    // compiling transitions
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotCompileTableWithMissingTransition() {
+        TransitionTable.builder()
+            .otherwise(MachineState.SELECTING_PRODUCT, Rejection.NO_SHELVE_SELECTED)
+            .compile();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotCompileTableRejectingSelectionWithoutSelectResult() {
+        TransitionTable.Builder builder = TransitionTable.builder();
+        for (MachineState state : MachineState.values()) {
+            builder.otherwise(state, Rejection.IN_MAINTENANCE);
+        }
+        builder.reject(MachineState.MAINTENANCE, MachineEvent.SELECT_SHELVE, Rejection.NOT_ENOUGH_MONEY)
+            .compile();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAcceptTransitionGivenTwice() {
+        TransitionTable.builder()
+            .changeState(MachineState.MAINTENANCE, MachineEvent.FINISH_MAINTENANCE, MachineState.SELECTING_PRODUCT)
+            .reject(MachineState.MAINTENANCE, MachineEvent.FINISH_MAINTENANCE, Rejection.NOT_IN_MAINTENANCE);
+    }
+
+    private static void assertRefused(RefusedCall call, String message) {
+        try {
+            call.run();
+            fail("Expected " + message);
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage(message);
+        } catch (Exception e) {
+            fail("Unexpected " + e);
+        }
+    }
+
+    private interface RefusedCall {
+
+        void run() throws Exception;
+
+    }
+
+}
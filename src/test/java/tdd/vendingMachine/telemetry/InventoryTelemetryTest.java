@@ -0,0 +1,158 @@
+package tdd.vendingMachine.telemetry;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+public class InventoryTelemetryTest {
+
+    private BasicVendingMachine vendingMachine;
+    private InventoryTelemetry telemetry;
+
+    private RecordingSubscriber subscriber;
+
+    @Before
+    public void setUp() {
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 3));
+        shelves.add(new Shelve(2, new Product("chocolate bar", "3.30"), 0));
+
+        Map<Coin, Integer> coinsInMachine = new EnumMap<>(Coin.class);
+        coinsInMachine.put(Coin.FIFTY_CENTS, 2);
+        CoinCassette cassette = new CoinCassette(coinsInMachine);
+
+        vendingMachine = new BasicVendingMachine(shelves, cassette, mock(Display.class));
+        telemetry = new InventoryTelemetry(7, 1, Collections.singletonMap(Coin.FIFTY_CENTS, 1));
+
+        subscriber = new RecordingSubscriber();
+        telemetry.subscribe(subscriber, Runnable::run, 16);
+    }
+
+    @Test
+    public void shouldReportShelvesAndCoinsAlreadyLowWhenAttached() {
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+
+        subscriber.subscription.request(10);
+
+        assertThat(subscriber.events).extracting("type", "shelveNumber", "coin", "level").containsExactly(
+            tuple(InventoryEvent.Type.LOW_STOCK, 2, null, 0));
+    }
+
+    @Test
+    public void shouldReportSaleAndLowStockAndLowFloatCrossings()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.events.clear();
+
+        buyColaPayingThreeDollars();
+        buyColaPayingThreeDollars();
+
+        assertThat(subscriber.events).extracting("type").containsExactly(
+            InventoryEvent.Type.LOW_FLOAT,
+            InventoryEvent.Type.PRODUCT_SOLD,
+            InventoryEvent.Type.LOW_STOCK,
+            InventoryEvent.Type.PRODUCT_SOLD);
+        assertThat(subscriber.events.get(0).getMachineId()).isEqualTo(7);
+        assertThat(subscriber.events.get(0).getCoin()).isEqualTo(Coin.FIFTY_CENTS);
+        assertThat(subscriber.events.get(2).getShelveNumber()).isEqualTo(1);
+        assertThat(subscriber.events.get(2).getLevel()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReportReplenishedStockWhenReservationIsCanceled() {
+        Shelve shelve = vendingMachine.getShelves().get(0);
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.events.clear();
+
+        shelve.reserveProducts(2);
+        shelve.cancelReservation(2);
+
+        assertThat(subscriber.events).extracting("type", "level").containsExactly(
+            tuple(InventoryEvent.Type.LOW_STOCK, 1),
+            tuple(InventoryEvent.Type.STOCK_REPLENISHED, 3));
+    }
+
+    @Test
+    public void shouldHoldEventsUntilRequestedAndDropOldestWhenBufferIsFull() {
+        RecordingSubscriber slowSubscriber = new RecordingSubscriber();
+        InventorySubscription subscription = telemetry.subscribe(slowSubscriber, Runnable::run, 2);
+        Shelve shelve = vendingMachine.getShelves().get(0);
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+
+        shelve.releaseProduct();
+        shelve.releaseProduct();
+        shelve.releaseProduct();
+
+        assertThat(slowSubscriber.events).isEmpty();
+        assertThat(subscription.getDroppedEvents()).isEqualTo(3);
+        assertThat(telemetry.getDroppedEvents()).isEqualTo(3);
+
+        subscription.request(1);
+
+        assertThat(slowSubscriber.events).extracting("type", "level").containsExactly(
+            tuple(InventoryEvent.Type.PRODUCT_SOLD, 1));
+        subscription.request(5);
+        assertThat(slowSubscriber.events).extracting("type", "level").containsExactly(
+            tuple(InventoryEvent.Type.PRODUCT_SOLD, 1),
+            tuple(InventoryEvent.Type.PRODUCT_SOLD, 0));
+    }
+
+    @Test
+    public void shouldStopDeliveringWhenCanceled() {
+        telemetry.attach(vendingMachine.getShelves(), vendingMachine.getCassette());
+        subscriber.subscription.cancel();
+
+        vendingMachine.getShelves().get(0).releaseProduct();
+        subscriber.subscription.request(10);
+
+        assertThat(subscriber.events).isEmpty();
+    }
+
+    private void buyColaPayingThreeDollars()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.dispenseProduct();
+    }
+
+    private static class RecordingSubscriber implements InventorySubscriber {
+
+        private final List<InventoryEvent> events = new ArrayList<>();
+        private InventorySubscription subscription;
+
+        @Override
+        public void onSubscribe(InventorySubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onEvent(InventoryEvent event) {
+            events.add(event);
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package tdd.vendingMachine.telemetry;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.domain.Coin;
+import tdd.vendingMachine.domain.CoinCassette;
+import tdd.vendingMachine.domain.Product;
+import tdd.vendingMachine.domain.Shelve;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class SellThroughAggregatorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long WINDOW = 60 * SECOND;
+
+    private long now;
+    private SellThroughAggregator aggregator;
+    private List<Shelve> colaShelves;
+
+    @Before
+    public void setUp() {
+        aggregator = new SellThroughAggregator(WINDOW, () -> now);
+        colaShelves = new ArrayList<>();
+
+        for (int machineId = 0; machineId < 3; machineId++) {
+            Shelve colaShelve = new Shelve(1, new Product("cola drink", "2.50"), 10);
+            Shelve waterShelve = new Shelve(2, new Product("mineral water", "1.90"), 0);
+            InventoryTelemetry telemetry = new InventoryTelemetry(machineId, 2, Collections.emptyMap());
+            telemetry.subscribe(aggregator, Runnable::run, 16);
+            telemetry.attach(Arrays.asList(colaShelve, waterShelve),
+                new CoinCassette(Collections.<Coin, Integer>emptyMap()));
+            colaShelves.add(colaShelve);
+        }
+    }
+
+    @Test
+    public void shouldSumSalesOfProductAcrossMachines() {
+        colaShelves.get(0).releaseProduct();
+        colaShelves.get(1).releaseProduct();
+        colaShelves.get(1).releaseProduct();
+
+        assertThat(aggregator.getSoldCount("cola drink")).isEqualTo(3);
+        assertThat(aggregator.getSoldCount("mineral water")).isZero();
+        assertThat(aggregator.getSellThroughRate("cola drink")).isCloseTo(3 / 60.0, within(1e-9));
+    }
+
+    @Test
+    public void shouldForgetSalesOlderThanWindow() {
+        colaShelves.get(0).releaseProduct();
+        now += WINDOW / 2;
+        colaShelves.get(0).releaseProduct();
+
+        now += WINDOW / 2 + SECOND;
+
+        assertThat(aggregator.getSellThroughRate("cola drink")).isCloseTo(1 / 60.0, within(1e-9));
+        assertThat(aggregator.getSoldCount("cola drink")).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCountLowStockShelvesIncrementally() {
+        assertThat(aggregator.getLowStockShelveCount("mineral water")).isEqualTo(3);
+
+        for (int sold = 0; sold < 8; sold++) {
+            colaShelves.get(2).releaseProduct();
+        }
+        assertThat(aggregator.getLowStockShelveCount("cola drink")).isEqualTo(1);
+
+        colaShelves.get(2).cancelReservation(5);
+        assertThat(aggregator.getLowStockShelveCount("cola drink")).isZero();
+        assertThat(aggregator.getProductNames()).containsOnly("cola drink", "mineral water");
+    }
+
+    @Test
+    public void shouldCountShelvesAlreadyLowWhenSubscribedAfterAttaching() {
+        SellThroughAggregator lateAggregator = new SellThroughAggregator(WINDOW, () -> now);
+        InventoryTelemetry telemetry = new InventoryTelemetry(9, 2, Collections.emptyMap());
+        Shelve waterShelve = new Shelve(2, new Product("mineral water", "1.90"), 1);
+        telemetry.attach(Collections.singletonList(waterShelve),
+            new CoinCassette(Collections.<Coin, Integer>emptyMap()));
+
+        telemetry.subscribe(lateAggregator, Runnable::run, 16);
+        assertThat(lateAggregator.getLowStockShelveCount("mineral water")).isEqualTo(1);
+
+        waterShelve.restock(5);
+        assertThat(lateAggregator.getLowStockShelveCount("mineral water")).isZero();
+    }
+
+    @Test
+    public void shouldKeepLowStockCountsWhenEventsAreDropped() {
+        SellThroughAggregator slowAggregator = new SellThroughAggregator(WINDOW, () -> now);
+        List<Runnable> pendingDeliveries = new ArrayList<>();
+        InventoryTelemetry telemetry = new InventoryTelemetry(9, 2, Collections.emptyMap());
+        Shelve colaShelve = new Shelve(1, new Product("cola drink", "2.50"), 4);
+        telemetry.attach(Collections.singletonList(colaShelve),
+            new CoinCassette(Collections.<Coin, Integer>emptyMap()));
+        telemetry.subscribe(slowAggregator, pendingDeliveries::add, 2);
+
+        colaShelve.releaseProduct();
+        colaShelve.releaseProduct();
+        colaShelve.restock(3);
+        colaShelve.releaseProduct();
+        pendingDeliveries.forEach(Runnable::run);
+
+        assertThat(slowAggregator.getDroppedEvents()).isEqualTo(3);
+        assertThat(slowAggregator.getLowStockShelveCount("cola drink")).isZero();
+
+        colaShelve.releaseProduct();
+        colaShelve.releaseProduct();
+        pendingDeliveries.forEach(Runnable::run);
+        assertThat(slowAggregator.getLowStockShelveCount("cola drink")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldMoveLowStockShelveToSwappedProduct() {
+        for (int sold = 0; sold < 9; sold++) {
+            colaShelves.get(0).releaseProduct();
+        }
+        assertThat(aggregator.getLowStockShelveCount("cola drink")).isEqualTo(1);
+
+        colaShelves.get(0).swapProduct(new Product("orange juice", "3.10"), 1);
+        assertThat(aggregator.getLowStockShelveCount("cola drink")).isZero();
+        assertThat(aggregator.getLowStockShelveCount("orange juice")).isEqualTo(1);
+
+        colaShelves.get(0).restock(5);
+        assertThat(aggregator.getLowStockShelveCount("orange juice")).isZero();
+        assertThat(aggregator.getLowStockShelveCount("cola drink")).isZero();
+    }
+
+}
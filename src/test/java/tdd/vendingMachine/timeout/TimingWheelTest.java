@@ -0,0 +1,91 @@
+package tdd.vendingMachine.timeout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingWheelTest {
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(10, 1000);
+
+    @Test
+    public void shouldExpireTimeoutAtFirstTickAfterDeadline() {
+        wheel.schedule(1095, "first");
+
+        assertThat(wheel.advanceTo(1099)).isEmpty();
+        assertThat(payloads(wheel.advanceTo(1100))).containsExactly("first");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void shouldExpirePassedDeadlineAtNextTick() {
+        wheel.advanceTo(1500);
+        wheel.schedule(1200, "late");
+
+        assertThat(payloads(wheel.advanceTo(1510))).containsExactly("late");
+    }
+
+    @Test
+    public void shouldNotExpireCanceledTimeout() {
+        TimingWheel.Timeout<String> canceled = wheel.schedule(1100, "canceled");
+        wheel.schedule(1100, "kept");
+
+        assertThat(canceled.cancel()).isTrue();
+        assertThat(canceled.cancel()).isFalse();
+        assertThat(payloads(wheel.advanceTo(2000))).containsExactly("kept");
+    }
+
+    @Test
+    public void shouldExpireTimeoutsOnAllLevelsInDeadlineOrder() {
+        wheel.schedule(1000 + 10L * 64 * 64 * 64 + 7, "third level");
+        wheel.schedule(1000 + 10L * 64 + 3, "first level");
+        wheel.schedule(1000 + 10L * 64 * 64 + 5, "second level");
+
+        List<String> expired = payloads(wheel.advanceTo(1000 + 10L * 64 * 64 * 64 * 2));
+
+        assertThat(expired).containsExactly("first level", "second level", "third level");
+    }
+
+    @Test
+    public void shouldExpireEachTimeoutNeitherEarlyNorMoreThanTickLate() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long now = 0;
+        int expiredCount = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = now + random.nextInt(1 << random.nextInt(20));
+            TimingWheel.Timeout<Long> timeout = wheel.schedule(deadline, deadline);
+            if (random.nextInt(4) == 0) {
+                timeout.cancel();
+            }
+
+            now += random.nextInt(100);
+            for (TimingWheel.Timeout<Long> expired : wheel.advanceTo(now)) {
+                assertThat(expired.getPayload()).isLessThanOrEqualTo(now).isGreaterThan(now - 100);
+                expiredCount++;
+            }
+        }
+        expiredCount += wheel.advanceTo(now + (1 << 20)).size();
+
+        assertThat(wheel.size()).isZero();
+        assertThat(expiredCount).isBetween(7_000, 8_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDeadlineBeyondLastLevel() {
+        wheel.schedule(Long.MAX_VALUE / 2, "too late");
+    }
+
+    private static List<String> payloads(List<TimingWheel.Timeout<String>> timeouts) {
+        List<String> payloads = new ArrayList<>();
+        for (TimingWheel.Timeout<String> timeout : timeouts) {
+            payloads.add(timeout.getPayload());
+        }
+        return payloads;
+    }
+
+}
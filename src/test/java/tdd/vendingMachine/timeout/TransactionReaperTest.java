@@ -0,0 +1,110 @@
+package tdd.vendingMachine.timeout;
+
+import org.junit.Before;
+import org.junit.Test;
+import tdd.vendingMachine.BasicVendingMachine;
+import tdd.vendingMachine.display.Display;
+import tdd.vendingMachine.domain.*;
+import tdd.vendingMachine.exception.InvalidShelveException;
+import tdd.vendingMachine.exception.ProductNotAvailableException;
+import tdd.vendingMachine.exception.UnacceptableCoinException;
+import tdd.vendingMachine.state.MachineState;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TransactionReaperTest {
+
+    private static final long TIMEOUT = 640;
+
+    private long now;
+    private Map<BasicVendingMachine, List<Coin>> refunds;
+    private TransactionReaper reaper;
+    private Display displayMock;
+    private BasicVendingMachine vendingMachine;
+
+    @Before
+    public void setUp() {
+        refunds = new HashMap<>();
+        reaper = new TransactionReaper(TIMEOUT, () -> now, refunds::put);
+
+        List<Shelve> shelves = new ArrayList<>();
+        shelves.add(new Shelve(1, new Product("cola drink", "2.50"), 5));
+        displayMock = mock(Display.class);
+        vendingMachine = new BasicVendingMachine(shelves, new CoinCassette(new HashMap<>()), displayMock);
+        reaper.watch(vendingMachine);
+    }
+
+    @Test
+    public void shouldRefundTransactionIdleForTimeout()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+
+        now += TIMEOUT;
+        reaper.expireIdleTransactions();
+
+        verify(displayMock).displayWarning("Transaction expired!");
+        assertThat(refunds.get(vendingMachine)).containsExactly(Coin.ONE_DOLLAR);
+        assertThat(vendingMachine.getTransaction().getState())
+            .isEqualTo(MachineState.SELECTING_PRODUCT);
+        assertThat(vendingMachine.getShelves().get(0).getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldCountTimeoutFromLastInsertedCoin()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        now += TIMEOUT - 10;
+        vendingMachine.insertCoin(Coin.ONE_DOLLAR);
+
+        now += TIMEOUT - 10;
+        reaper.expireIdleTransactions();
+        assertThat(refunds).isEmpty();
+        assertThat(reaper.getPendingTimeoutCount()).isEqualTo(1);
+
+        now += 10;
+        reaper.expireIdleTransactions();
+        assertThat(refunds.get(vendingMachine)).containsExactly(Coin.ONE_DOLLAR);
+    }
+
+    @Test
+    public void shouldForgetFinishedTransaction()
+        throws InvalidShelveException, ProductNotAvailableException, UnacceptableCoinException {
+
+        vendingMachine.selectShelve(1);
+        vendingMachine.insertCoin(Coin.TWO_DOLLARS);
+        vendingMachine.insertCoin(Coin.FIFTY_CENTS);
+        vendingMachine.dispenseProduct();
+
+        assertThat(reaper.getPendingTimeoutCount()).isZero();
+        now += TIMEOUT;
+        reaper.expireIdleTransactions();
+        assertThat(refunds).isEmpty();
+    }
+
+    @Test
+    public void shouldCheckExpiredTransactionOnMachineExecutor()
+        throws InvalidShelveException, ProductNotAvailableException {
+
+        List<Runnable> machineTasks = new ArrayList<>();
+        BasicVendingMachine otherMachine = new BasicVendingMachine(
+            Collections.singletonList(new Shelve(1, new Product("cola drink", "2.50"), 5)),
+            new CoinCassette(new HashMap<>()), displayMock);
+        reaper.watch(otherMachine, machineTasks::add);
+        otherMachine.selectShelve(1);
+
+        now += TIMEOUT;
+        reaper.expireIdleTransactions();
+        assertThat(refunds).isEmpty();
+
+        machineTasks.forEach(Runnable::run);
+        assertThat(refunds.get(otherMachine)).isEmpty();
+    }
+
+}